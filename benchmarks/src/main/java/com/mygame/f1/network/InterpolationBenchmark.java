@@ -0,0 +1,81 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client cost of remote cars per snapshot and per frame. {@code receive} is what a 30Hz snapshot costs on
+ * arrival ({@link ServerClock#sample} plus one {@link InterpolationBuffer#add} per car, with arrival
+ * jitter); {@code render} is one frame's Hermite sample of every car. Run with {@code -prof gc} to see
+ * that neither allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpolationBenchmark {
+    private static final long SNAPSHOT_MILLIS = 33;
+
+    @Param({"8", "24"})
+    public int cars;
+
+    private final ServerClock clock = new ServerClock();
+    private final InterpolationBuffer.Pose pose = new InterpolationBuffer.Pose();
+    private InterpolationBuffer[] buffers;
+    private Packets.PlayerState[] states;
+    private long serverMillis = 1_700_000_000_000L;
+    private long localNanos;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        buffers = new InterpolationBuffer[cars];
+        states = new Packets.PlayerState[cars];
+        for (int i = 0; i < cars; i++) {
+            buffers[i] = new InterpolationBuffer();
+            Packets.PlayerState s = states[i] = new Packets.PlayerState();
+            s.playerId = i + 1;
+            s.x = i * 3f; s.velocityX = 40f; s.velocityY = 2f; s.angularVelocity = 0.5f;
+        }
+        for (int i = 0; i < InterpolationBuffer.CAPACITY; i++) receive();
+    }
+
+    @Benchmark
+    public ServerClock receive() {
+        serverMillis += SNAPSHOT_MILLIS;
+        // 도착 간격에 0~15ms 흔들림
+        localNanos += SNAPSHOT_MILLIS * 1_000_000L + ((serverMillis * 7919) % 15) * 1_000_000L;
+        clock.sample(serverMillis, localNanos);
+        for (int i = 0; i < cars; i++) {
+            Packets.PlayerState s = states[i];
+            s.x += s.velocityX * SNAPSHOT_MILLIS / 1000f;
+            s.y += s.velocityY * SNAPSHOT_MILLIS / 1000f;
+            s.rotation += s.angularVelocity * SNAPSHOT_MILLIS / 1000f;
+            buffers[i].add(serverMillis, s);
+        }
+        return clock;
+    }
+
+    @Benchmark
+    public InterpolationBuffer.Pose render() {
+        // 한 스냅샷 구간 안을 60Hz 프레임으로 훑는다
+        frame = (frame + 1) & 1;
+        double at = clock.renderMillis(localNanos + frame * 16_000_000L);
+        for (int i = 0; i < cars; i++) buffers[i].sample(at, pose);
+        return pose;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stress test of the network-to-render handoff: one thread plays the KryoNet thread and offers a snapshot
+ * of {@code cars} cars every millisecond (1kHz, about 30x the real snapshot rate) while another plays the
+ * render thread, draining the {@link SnapshotQueue} into per-car {@link InterpolationBuffer}s and sampling
+ * every car, as {@code GameScreen.updateRemoteCars} does each frame. {@code render} is the frame cost under
+ * that load. Every snapshot stamps all its cars with its sequence number; the render side fails the run if
+ * it ever sees a torn snapshot (cars from two different offers) or snapshots out of order.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotQueueBenchmark {
+    private static final long PERIOD_NANOS = 1_000_000L;
+
+    @Param({"8", "24"})
+    public int cars;
+
+    private SnapshotQueue queue;
+    private Packets.PlayerState[] outgoing;
+    private long nextOffer;
+    private int offered;
+
+    private InterpolationBuffer[] buffers;
+    private final InterpolationBuffer.Pose pose = new InterpolationBuffer.Pose();
+    private final SnapshotQueue.Sink sink = this::accept;
+    private long lastSeq = -1;
+    private volatile String failure;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = new SnapshotQueue();
+        outgoing = new Packets.PlayerState[cars];
+        buffers = new InterpolationBuffer[cars];
+        for (int i = 0; i < cars; i++) {
+            outgoing[i] = new Packets.PlayerState();
+            outgoing[i].playerId = i + 1;
+            buffers[i] = new InterpolationBuffer();
+        }
+        nextOffer = System.nanoTime();
+        offered = 0;
+        lastSeq = -1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void check() {
+        if (failure != null) throw new IllegalStateException(failure);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public boolean network() {
+        // 1kHz로 맞춘다 (밀렸으면 바로 보낸다)
+        long wait = nextOffer - System.nanoTime();
+        if (wait > 0) LockSupport.parkNanos(wait);
+        nextOffer += PERIOD_NANOS;
+        int seq = ++offered;
+        for (Packets.PlayerState s : outgoing) {
+            s.lapTime = seq;
+            s.x = seq * 0.05f;
+            s.velocityX = 50f;
+        }
+        return queue.offer(seq, outgoing, cars);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public InterpolationBuffer.Pose render() {
+        queue.drain(sink);
+        double at = lastSeq - 3;
+        for (InterpolationBuffer b : buffers) b.sample(at, pose);
+        return pose;
+    }
+
+    private void accept(long serverMillis, long arrivalNanos, Packets.PlayerState[] states, int count) {
+        if (serverMillis <= lastSeq) failure = "snapshot " + serverMillis + " after " + lastSeq;
+        lastSeq = serverMillis;
+        for (int i = 0; i < count; i++) {
+            // 한 스냅샷의 차들은 모두 같은 번호여야 한다
+            if (states[i].lapTime != serverMillis) failure = "torn snapshot " + serverMillis + " car " + i + " has " + states[i].lapTime;
+            buffers[i].add(serverMillis, states[i]);
+        }
+    }
+}
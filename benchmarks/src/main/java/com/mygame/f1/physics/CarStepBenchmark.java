@@ -0,0 +1,81 @@
+package com.mygame.f1.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.CarPhysics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One fixed 1/60s physics step as GameScreen runs it, headless: {@link CarPhysics} forces on every car
+ * (full throttle, alternating steering) followed by {@code World.step(TIME_STEP, 8, 3)}. The world is
+ * rebuilt every iteration so each one starts from the same grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarStepBenchmark {
+    private static final float TIME_STEP = 1 / 60f;
+
+    @Param({"1", "8", "24"})
+    public int cars;
+
+    private World world;
+    private Body[] bodies;
+    private CarPhysics[] physics;
+    private final CarPhysics.Controls left = new CarPhysics.Controls();
+    private final CarPhysics.Controls right = new CarPhysics.Controls();
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void init() {
+        Box2D.init();
+        left.accelerate = true; left.left = true;
+        right.accelerate = true; right.right = true;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        world = new World(new Vector2(0, 0), true);
+        bodies = new Body[cars];
+        physics = new CarPhysics[cars];
+        for (int i = 0; i < cars; i++) {
+            physics[i] = new CarPhysics();
+            // 2열 그리드, 차 길이(0.256m)보다 약간 넓은 간격
+            bodies[i] = physics[i].createBody(world, 10f + (i % 2) * 0.2f, 5f + (i / 2) * 0.3f, (float) Math.PI / 2f);
+        }
+        frame = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        world.dispose();
+    }
+
+    @Benchmark
+    public World step() {
+        // 0.5초마다 좌/우 조향을 바꿔 직진만 하는 경우를 피한다
+        CarPhysics.Controls controls = (frame++ / 30 & 1) == 0 ? left : right;
+        for (int i = 0; i < cars; i++) physics[i].update(bodies[i], controls, TIME_STEP);
+        world.step(TIME_STEP, 8, 3);
+        return world;
+    }
+}
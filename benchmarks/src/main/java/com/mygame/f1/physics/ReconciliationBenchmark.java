@@ -0,0 +1,214 @@
+package com.mygame.f1.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.BitReader;
+import com.mygame.f1.shared.BitWriter;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.StateQuantizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correction error of {@link CarPrediction} at a simulated round trip. One op is one 60Hz client step of a
+ * car driving a weaving line. Its state goes to a simulated server {@code rtt/2} later. Once a second the
+ * server's collision response shoves that state sideways and damps its speed, like {@code CollisionGrid}.
+ * The correction, quantized as on the wire, comes back after another {@code rtt/2}. A reference car
+ * takes the same inputs and gets each shove at the exact step, so it is where the server says the client's
+ * car is. Both cars go back to the start every 5s to stay inside the quantizer's map range.
+ * {@code reconcile} rewinds and replays on each correction; {@code none} ignores corrections, which is how
+ * the game behaved before. Per trial it prints the mean and max distance between the reference and the car
+ * as drawn (render offset included), and the physics error left right after each replay. The measured time
+ * is the step cost, including the replays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconciliationBenchmark {
+    private static final float TIME_STEP = 1 / 60f;
+    private static final int PUSH_EVERY = 60;
+    private static final float PUSH = 0.12f;
+    private static final float DAMPING = 0.3f;
+    private static final int LOG = 64;
+    // 양자화 범위(맵 크기)를 벗어나지 않도록 5초마다 출발점으로 되돌린다 (보정이 오가는 중이 아닐 때)
+    private static final int RESTART_EVERY = 300;
+    private static final float START_X = 30f, START_Y = 20f;
+
+    @Param({"50", "100", "200"})
+    public int rtt;
+
+    @Param({"reconcile", "none"})
+    public String mode;
+
+    private World clientWorld, referenceWorld;
+    private Body client, reference;
+    private CarPhysics clientPhysics, referencePhysics;
+    private CarPrediction prediction;
+    private final CarPhysics.Controls left = new CarPhysics.Controls();
+    private final CarPhysics.Controls right = new CarPhysics.Controls();
+    private int oneWay;
+    private int step;
+
+    // 서버로 가는 중인 상태와 돌아오는 중인 보정 (스텝 번호 % LOG)
+    private final Packets.PlayerState[] uploads = new Packets.PlayerState[LOG];
+    private final Packets.PlayerState[] corrections = new Packets.PlayerState[LOG];
+    private final int[] correctionSeqs = new int[LOG];
+    private int correctionId;
+    private final BitWriter bits = new BitWriter(32);
+    private final BitReader reader = new BitReader();
+
+    private double errorSum, afterReplaySum;
+    private double errorMax;
+    private long samples, replays;
+
+    @Setup(Level.Trial)
+    public void init() {
+        Box2D.init();
+        left.accelerate = true; left.left = true;
+        right.accelerate = true; right.right = true;
+        for (int i = 0; i < LOG; i++) {
+            uploads[i] = new Packets.PlayerState();
+            corrections[i] = new Packets.PlayerState();
+        }
+        oneWay = Math.round(rtt / 2f / 1000f / TIME_STEP);
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        clientWorld = new World(new Vector2(0, 0), true);
+        referenceWorld = new World(new Vector2(0, 0), true);
+        clientPhysics = new CarPhysics();
+        referencePhysics = new CarPhysics();
+        client = clientPhysics.createBody(clientWorld, START_X, START_Y, (float) Math.PI / 2f);
+        reference = referencePhysics.createBody(referenceWorld, START_X, START_Y, (float) Math.PI / 2f);
+        prediction = new CarPrediction();
+        step = 0;
+        correctionId = 0;
+        for (int i = 0; i < LOG; i++) correctionSeqs[i] = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        clientWorld.dispose();
+        referenceWorld.dispose();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nrtt=%dms %s: drawn error mean %.4fm max %.4fm, physics error after replay %.5fm (%d replays)%n",
+            rtt, mode, errorSum / Math.max(1, samples), errorMax, afterReplaySum / Math.max(1, replays), replays);
+    }
+
+    @Benchmark
+    public CarPrediction step() {
+        int k = ++step;
+        if (k % RESTART_EVERY == 0) {
+            restart(client, clientPhysics);
+            restart(reference, referencePhysics);
+            prediction.clear();
+        }
+        // 이번 스텝에 도착한 보정 (GameScreen과 같이 스텝 전에 적용)
+        int slot = k % LOG;
+        if (correctionSeqs[slot] != 0) {
+            int seq = correctionSeqs[slot];
+            correctionSeqs[slot] = 0;
+            if (mode.equals("reconcile")
+                && prediction.reconcile(++correctionId, seq, corrections[slot], clientWorld, client, clientPhysics, TIME_STEP)) {
+                afterReplaySum += distance();
+                replays++;
+            }
+        }
+
+        CarPhysics.Controls controls = (k / 45 & 1) == 0 ? left : right;
+        int seq = prediction.step(clientWorld, client, clientPhysics, controls, 1f, false, 1f, 1f, TIME_STEP);
+        referencePhysics.update(reference, controls, TIME_STEP);
+        referenceWorld.step(TIME_STEP, 8, 3);
+        if (pushed(seq)) push(reference);
+
+        // 업로드는 편도 지연 후 서버에 도착하고, 밀린 상태는 다시 편도 지연 후 돌아온다
+        sample(client, uploads[seq % LOG]);
+        int arrived = seq - oneWay;
+        if (arrived > 0 && pushed(arrived)) {
+            int back = (k + oneWay) % LOG;
+            Packets.PlayerState c = corrections[back];
+            copyQuantized(uploads[arrived % LOG], c);
+            push(c);
+            correctionSeqs[back] = arrived;
+        }
+
+        Vector2 p = client.getPosition();
+        Vector2 r = reference.getPosition();
+        double error = Vector2.len(p.x + prediction.offsetX() - r.x, p.y + prediction.offsetY() - r.y);
+        errorSum += error;
+        errorMax = Math.max(errorMax, error);
+        samples++;
+        prediction.decay(TIME_STEP);
+        return prediction;
+    }
+
+    private static boolean pushed(int seq) {
+        return seq % PUSH_EVERY == PUSH_EVERY / 2;
+    }
+
+    // 다시 시뮬레이션한 뒤 기준 차와의 물리 상태 차이 (보정 스텝 이후 같은 입력을 받았으므로 0에 가까워야 한다)
+    private double distance() {
+        Vector2 p = client.getPosition();
+        Vector2 r = reference.getPosition();
+        return Vector2.len(p.x - r.x, p.y - r.y);
+    }
+
+    private static void restart(Body car, CarPhysics physics) {
+        car.setTransform(START_X, START_Y, (float) Math.PI / 2f);
+        car.setLinearVelocity(0, 0);
+        car.setAngularVelocity(0);
+        physics.throttle(0);
+    }
+
+    private static void push(Body car) {
+        Vector2 p = car.getPosition();
+        car.setTransform(p.x + PUSH, p.y, car.getAngle());
+        Vector2 v = car.getLinearVelocity();
+        car.setLinearVelocity(v.x * DAMPING, v.y * DAMPING);
+    }
+
+    private static void push(Packets.PlayerState s) {
+        s.x += PUSH;
+        s.velocityX *= DAMPING; s.velocityY *= DAMPING;
+    }
+
+    private static void sample(Body car, Packets.PlayerState out) {
+        Vector2 p = car.getPosition();
+        out.x = p.x; out.y = p.y; out.rotation = car.getAngle();
+        Vector2 v = car.getLinearVelocity();
+        out.velocityX = v.x; out.velocityY = v.y;
+        out.angularVelocity = car.getAngularVelocity();
+    }
+
+    // 업로드와 보정이 실제로 지나는 양자화를 거친다
+    private void copyQuantized(Packets.PlayerState src, Packets.PlayerState dst) {
+        bits.reset();
+        StateQuantizer.DEFAULT.write(src, bits);
+        int len = bits.flush();
+        reader.reset(bits.buffer(), len);
+        StateQuantizer.DEFAULT.read(reader, dst);
+    }
+}
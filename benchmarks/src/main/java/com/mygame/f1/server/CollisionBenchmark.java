@@ -0,0 +1,52 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameServer#applySimpleCollisions} on a packed start grid, the worst case for the broadphase.
+ * Positions are restored from the template before every pass so each op resolves the same overlaps;
+ * the copy is part of the measured time (a few ns per car). The room has no position history, so this is
+ * the uncompensated path; {@link LagCompensationBenchmark} covers rewinding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"4", "8", "16", "24"})
+    public int cars;
+
+    private Room room;
+    private Packets.PlayerState[] template;
+    private Packets.PlayerState[] states;
+
+    @Setup
+    public void setup() {
+        room = Fixtures.room("bench", 1);
+        template = Fixtures.grid(cars);
+        states = Fixtures.grid(cars);
+    }
+
+    @Benchmark
+    public Packets.PlayerState[] resolve() {
+        for (int i = 0; i < cars; i++) SnapshotCodec.copy(template[i], states[i]);
+        GameServer.applySimpleCollisions(room, states, cars, 0L);
+        return states;
+    }
+}
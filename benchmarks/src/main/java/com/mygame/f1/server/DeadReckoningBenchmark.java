@@ -0,0 +1,206 @@
+package com.mygame.f1.server;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.network.UplinkDeadReckoning;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.DeadReckoning;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+import com.mygame.f1.shared.UplinkRedundancy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The client's state uplink over a recorded race, with and without {@link UplinkDeadReckoning}. The setup
+ * records 90s of one car at 60Hz with {@link CarPhysics}: 3s on the grid, a driver steering round an oval
+ * (bang-bang steering, so it weaves, braking into sharp corrections), a pit stop with 5s standing still for
+ * the minigame, more laps, then braking after the finish and 10s parked. Each op is one 60Hz step of that
+ * recording. Every second step is a 30Hz send tick: {@code every} sends each state, as {@code GameScreen}
+ * did; {@code divergence} sends only what the default thresholds let through. Sent states go through the
+ * real serializers (redundant states included) and are decoded by the server's. Between them the receiver
+ * moves the car by {@link DeadReckoning}, as {@code Room} does. Latency is left out, since it delays both
+ * ends alike. Counters: {@code packets} and {@code bytes} sent. Per trial it prints packets and bytes per
+ * second and the max and mean position and angle error of the receiver's car against the recording, i.e.
+ * what other players see on top of interpolation. The measured time is the sender's gate plus the encode
+ * and decode of what it sends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeadReckoningBenchmark {
+    private static final float TIME_STEP = 1 / 60f;
+    private static final long STEP_NANOS = 1_000_000_000L / 60;
+    private static final int SEND_EVERY = 2;
+    private static final int STEPS = 90 * 60;
+    // 타원 트랙 (양자화 범위 안), 출발은 아래쪽 가운데에서 반시계 방향
+    private static final float CX = 32f, CY = 19.2f, RX = 22f, RY = 11f;
+    private static final float LOOKAHEAD = 0.25f;
+
+    @Param({"every", "divergence"})
+    public String mode;
+
+    private Packets.PlayerState[] recording;
+    private Kryo clientKryo, serverKryo;
+    private final Output output = new Output(512);
+    private final Input input = new Input();
+    private UplinkRedundancy redundancy;
+    private UplinkDeadReckoning gate;
+    private final Packets.PlayerState receiver = new Packets.PlayerState();
+    private long receivedNanos, reckonedNanos;
+    private boolean received;
+    private long step;
+    private int seq;
+
+    private long totalSteps, totalPackets, totalBytes;
+    private double positionErrorSum, positionErrorMax, angleErrorMax;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counts {
+        public long packets, bytes;
+
+        @Setup(Level.Iteration)
+        public void clear() { packets = bytes = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        recording = record();
+        clientKryo = new KryoSerialization().getKryo();
+        serverKryo = new KryoSerialization().getKryo();
+        PacketRegistry.register(clientKryo);
+        PacketRegistry.register(serverKryo);
+        redundancy = UplinkRedundancy.fromSystemProperties();
+        gate = mode.equals("every") ? new UplinkDeadReckoning(0, 0, 0) : UplinkDeadReckoning.fromSystemProperties();
+    }
+
+    @TearDown
+    public void report() {
+        double seconds = totalSteps / 60.0;
+        System.out.printf("%n%s: %.1f packets/s, %.0f B/s uplink, position error mean %.4fm max %.4fm, angle error max %.2f deg%n",
+            mode, totalPackets / seconds, totalBytes / seconds, positionErrorSum / Math.max(1, totalSteps),
+            positionErrorMax, Math.toDegrees(angleErrorMax));
+    }
+
+    @Benchmark
+    public float step(Counts counts) {
+        long k = step++;
+        long now = k * STEP_NANOS;
+        Packets.PlayerState truth = recording[(int) (k % STEPS)];
+        if (k % SEND_EVERY == 0 && gate.due(truth, now)) {
+            int bytes = send(truth, now);
+            counts.packets++;
+            counts.bytes += bytes;
+            totalPackets++;
+            totalBytes += bytes;
+        } else if (received) {
+            // 서버 Room과 같이 마지막 상태를 그 속도로 옮긴다 (받은 뒤 최대 시간까지)
+            long until = Math.min(now, receivedNanos + DeadReckoning.MAX_EXTRAPOLATION_MILLIS * 1_000_000L);
+            if (until > reckonedNanos) {
+                DeadReckoning.advance(receiver, (until - reckonedNanos) / 1e9f);
+                reckonedNanos = until;
+            }
+        }
+        if (!received) return 0;
+        double error = Vector2.len(receiver.x - truth.x, receiver.y - truth.y);
+        double angle = Math.abs(MathUtils.atan2(MathUtils.sin(receiver.rotation - truth.rotation),
+            MathUtils.cos(receiver.rotation - truth.rotation)));
+        positionErrorSum += error;
+        positionErrorMax = Math.max(positionErrorMax, error);
+        angleErrorMax = Math.max(angleErrorMax, angle);
+        totalSteps++;
+        return receiver.x;
+    }
+
+    // LobbyClient와 같이 직렬화하고 서버 직렬화기로 읽어 수신 상태로 삼는다. 보낸 바이트 수를 돌려준다
+    private int send(Packets.PlayerState state, long now) {
+        Packets.PlayerStateUpdate upd = new Packets.PlayerStateUpdate();
+        upd.roomId = "bench-01";
+        upd.state = state;
+        upd.seq = seq++;
+        upd.inputSeq = upd.seq + 1;
+        redundancy.fill(upd, now);
+        output.clear();
+        clientKryo.writeClassAndObject(output, upd);
+        int length = output.position();
+        redundancy.sent(upd, length);
+        gate.sent(state, now);
+
+        input.setBuffer(output.getBuffer(), 0, length);
+        Packets.PlayerStateUpdate in = (Packets.PlayerStateUpdate) serverKryo.readClassAndObject(input);
+        SnapshotCodec.copy(in.state, receiver);
+        receivedNanos = reckonedNanos = now;
+        received = true;
+        return length;
+    }
+
+    // 녹화: 출발 대기, 주행, 피트 정차, 주행, 완주 후 정차
+    private static Packets.PlayerState[] record() {
+        Box2D.init();
+        World world = new World(new Vector2(0, 0), true);
+        CarPhysics physics = new CarPhysics();
+        Body car = physics.createBody(world, CX, CY - RY, -MathUtils.HALF_PI);
+        CarPhysics.Controls controls = new CarPhysics.Controls();
+        Packets.PlayerState[] out = new Packets.PlayerState[STEPS];
+        for (int i = 0; i < STEPS; i++) {
+            float t = i * TIME_STEP;
+            boolean driving = t >= 3 && t < 40 || t >= 47 && t < 80;
+            boolean stopping = t >= 40 && t < 42 || t >= 80;
+            drive(car, controls, driving);
+            controls.brake |= stopping;
+            physics.update(car, controls, TIME_STEP);
+            world.step(TIME_STEP, 8, 3);
+            Packets.PlayerState s = out[i] = new Packets.PlayerState();
+            s.playerId = 1;
+            s.vehicleIndex = 2;
+            s.currentLap = t < 40 ? 1 : 2;
+            Vector2 p = car.getPosition();
+            s.x = p.x; s.y = p.y; s.rotation = car.getAngle();
+            Vector2 v = car.getLinearVelocity();
+            s.velocityX = v.x; s.velocityY = v.y;
+            s.angularVelocity = car.getAngularVelocity();
+        }
+        world.dispose();
+        return out;
+    }
+
+    // 타원 위 조금 앞의 점을 향해 좌우로만 꺾는다 (차의 앞은 로컬 +y)
+    private static void drive(Body car, CarPhysics.Controls c, boolean driving) {
+        c.accelerate = c.left = c.right = c.brake = c.reverse = false;
+        if (!driving) return;
+        Vector2 p = car.getPosition();
+        float theta = MathUtils.atan2((p.y - CY) / RY, (p.x - CX) / RX) + LOOKAHEAD;
+        float tx = CX + RX * MathUtils.cos(theta), ty = CY + RY * MathUtils.sin(theta);
+        float turn = MathUtils.atan2(ty - p.y, tx - p.x) - (car.getAngle() + MathUtils.HALF_PI);
+        float error = MathUtils.atan2(MathUtils.sin(turn), MathUtils.cos(turn));
+        c.accelerate = true;
+        c.left = error > 0.05f;
+        c.right = error < -0.05f;
+        c.brake = Math.abs(error) > 0.5f;
+    }
+}
@@ -0,0 +1,287 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.mygame.f1.shared.Packets;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Deterministic sample data shared by the benchmarks: a packed start grid, filled rooms and one of every packet. */
+final class Fixtures {
+    private Fixtures() {}
+
+    /** Cars two abreast at 0.5m spacing, so neighbours overlap and the collision pass has work to do. */
+    static Packets.PlayerState[] grid(int cars) {
+        Packets.PlayerState[] states = new Packets.PlayerState[cars];
+        for (int i = 0; i < cars; i++) {
+            Packets.PlayerState s = new Packets.PlayerState();
+            s.playerId = i + 1;
+            s.x = 10f + (i % 2) * 0.35f;
+            s.y = 5f + (i / 2) * 0.5f;
+            s.rotation = 1.5708f;
+            s.velocityX = 0.1f * (i % 3);
+            s.velocityY = 3.2f + 0.05f * i;
+            s.angularVelocity = 0.02f * i;
+            s.currentLap = 1 + i % 3;
+            s.lapTime = 12.5f + i;
+            s.vehicleIndex = i % 3;
+            states[i] = s;
+        }
+        return states;
+    }
+
+    static Room room(String id, int players) {
+        Room room = new Room(id, "Room " + id, GameServer.MAX_ROOM_PLAYERS, new Mailbox(Runnable::run));
+        for (int i = 0; i < players; i++) {
+            Packets.PlayerInfo info = new Packets.PlayerInfo();
+            info.playerId = i + 1;
+            info.username = "player" + (i + 1);
+            info.vehicleIndex = i % 3;
+            room.join(new FakeConnection(i + 1), info);
+            if (i % 2 == 0) room.setReady(i + 1, true);
+        }
+        return room;
+    }
+
+    /** {@code count} rooms of 1..8 players, keyed like {@code GameServer.rooms}. */
+    static Map<String, Room> rooms(int count) {
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%08x", i * 2654435761L & 0xffffffffL);
+            rooms.put(id, room(id, 1 + i % 8));
+        }
+        return rooms;
+    }
+
+    static Object packet(String type) {
+        switch (type) {
+            case "CreateRoomRequest": {
+                Packets.CreateRoomRequest p = new Packets.CreateRoomRequest();
+                p.roomName = "Friday league"; p.username = "player1"; p.maxPlayers = 8;
+                return p;
+            }
+            case "CreateRoomResponse": {
+                Packets.CreateRoomResponse p = new Packets.CreateRoomResponse();
+                p.ok = true; p.message = "created"; p.roomId = "3f2a9c1e"; p.self = playerInfo(1);
+                return p;
+            }
+            case "JoinRoomRequest": {
+                Packets.JoinRoomRequest p = new Packets.JoinRoomRequest();
+                p.roomId = "3f2a9c1e"; p.username = "player2";
+                return p;
+            }
+            case "JoinRoomResponse": {
+                Packets.JoinRoomResponse p = new Packets.JoinRoomResponse();
+                p.ok = true; p.message = "joined"; p.self = playerInfo(2); p.state = room("3f2a9c1e", 8).toState();
+                return p;
+            }
+            case "LeaveRoomRequest": {
+                Packets.LeaveRoomRequest p = new Packets.LeaveRoomRequest();
+                p.roomId = "3f2a9c1e";
+                return p;
+            }
+            case "ErrorResponse": {
+                Packets.ErrorResponse p = new Packets.ErrorResponse();
+                p.message = "start denied: not all players ready";
+                return p;
+            }
+            case "RoomStatePacket": {
+                Packets.RoomStatePacket p = new Packets.RoomStatePacket();
+                p.state = room("3f2a9c1e", 8).toState();
+                return p;
+            }
+            case "PlayerInputPacket": {
+                // 100ms RTT쯤의 미확인 스텝 8개: 가속+좌회전 5스텝 뒤 가속만 3스텝
+                Packets.PlayerInputPacket p = new Packets.PlayerInputPacket();
+                p.seq = 1234; p.ackSnapshotId = 5678; p.ackDelayMillis = 12;
+                p.inputSeq = 4321; p.count = 8;
+                p.controls = new byte[p.count];
+                p.speedMultipliers = new float[p.count]; p.tireTurns = new float[p.count]; p.speedScales = new float[p.count];
+                for (int i = 0; i < p.count; i++) {
+                    p.controls[i] = (byte) (Packets.PlayerInputPacket.ACCELERATE | (i < 5 ? Packets.PlayerInputPacket.LEFT : 0));
+                    p.speedMultipliers[i] = 1f; p.tireTurns[i] = 1f; p.speedScales[i] = 1f;
+                }
+                return p;
+            }
+            case "GameStatePacket": {
+                Packets.GameStatePacket p = new Packets.GameStatePacket();
+                p.serverTimestamp = 1_700_000_000_000L; p.playerStates = grid(8);
+                return p;
+            }
+            case "ReadyRequest": {
+                Packets.ReadyRequest p = new Packets.ReadyRequest();
+                p.roomId = "3f2a9c1e"; p.ready = true;
+                return p;
+            }
+            case "SelectionRequest": {
+                Packets.SelectionRequest p = new Packets.SelectionRequest();
+                p.roomId = "3f2a9c1e"; p.trackIndex = 1; p.vehicleIndex = 2;
+                return p;
+            }
+            case "RoomListRequest":
+                return new Packets.RoomListRequest();
+            case "RoomListResponse":
+                return GameServer.roomList(rooms(10).values(), null);
+            case "RaceStartPacket": {
+                Packets.RaceStartPacket p = new Packets.RaceStartPacket();
+                p.countdownSeconds = 5; p.startTimeMillis = 1_700_000_005_000L; p.trackIndex = 1;
+                p.playerIds = new int[]{1, 2, 3, 4, 5, 6, 7, 8};
+                p.vehicleIndices = new int[]{0, 1, 2, 0, 1, 2, 0, 1};
+                return p;
+            }
+            case "StartRaceRequest": {
+                Packets.StartRaceRequest p = new Packets.StartRaceRequest();
+                p.roomId = "3f2a9c1e"; p.countdownSeconds = 5; p.hostName = "player1"; p.trackIndex = 1;
+                return p;
+            }
+            case "ChatMessage": {
+                Packets.ChatMessage p = new Packets.ChatMessage();
+                p.roomId = "3f2a9c1e"; p.sender = "player1"; p.text = "gl hf, see you at turn one";
+                p.ts = 1_700_000_000_000L;
+                return p;
+            }
+            case "ChatBatch": {
+                // 흐름 제한 한도(발신자당 5개)까지 찬 두 명의 배치
+                Packets.ChatBatch p = new Packets.ChatBatch();
+                p.roomId = "3f2a9c1e";
+                p.messages = new Packets.ChatMessage[10];
+                for (int i = 0; i < p.messages.length; i++) {
+                    Packets.ChatMessage m = (Packets.ChatMessage) packet("ChatMessage");
+                    m.sender = "player" + (1 + i % 2); m.ts += i * 150L;
+                    p.messages[i] = m;
+                }
+                return p;
+            }
+            case "PlayerStateUpdate": {
+                Packets.PlayerStateUpdate p = new Packets.PlayerStateUpdate();
+                p.roomId = "3f2a9c1e"; p.state = grid(1)[0]; p.ackSnapshotId = 4321;
+                return p;
+            }
+            case "PlayerFinishedPacket": {
+                Packets.PlayerFinishedPacket p = new Packets.PlayerFinishedPacket();
+                p.roomId = "3f2a9c1e"; p.playerId = 1; p.totalTime = 184.25f; p.lapTimes = new float[]{62.1f, 61.0f, 61.15f};
+                return p;
+            }
+            case "CountdownStartPacket": {
+                Packets.CountdownStartPacket p = new Packets.CountdownStartPacket();
+                p.firstPlacePlayerId = 1; p.firstPlaceUsername = "player1"; p.firstPlaceTime = 184.25f;
+                p.remainingSeconds = 10;
+                return p;
+            }
+            case "CountdownUpdatePacket": {
+                Packets.CountdownUpdatePacket p = new Packets.CountdownUpdatePacket();
+                p.remainingSeconds = 7;
+                return p;
+            }
+            case "RaceResultsPacket": {
+                Packets.RaceResultsPacket p = new Packets.RaceResultsPacket();
+                p.results = new Packets.PlayerResult[8];
+                for (int i = 0; i < 8; i++) {
+                    Packets.PlayerResult r = new Packets.PlayerResult();
+                    r.playerId = i + 1; r.username = "player" + (i + 1); r.rank = i + 1;
+                    r.totalTime = 184.25f + i; r.lapTimes = new float[]{62.1f + i, 61.0f, 61.15f};
+                    p.results[i] = r;
+                }
+                p.failedPlayerIds = new int[0];
+                return p;
+            }
+            case "GameStateDeltaPacket": {
+                // 8대 중 절반만 움직인 직후의 델타 (copy: 인코더의 재사용 버퍼를 떼어 낸다)
+                SnapshotHistory history = new SnapshotHistory();
+                Packets.PlayerState[] states = grid(8);
+                history.record(1, states, states.length);
+                for (int i = 0; i < states.length; i += 2) states[i].y += 0.11f;
+                history.record(2, states, states.length);
+                Packets.GameStateDeltaPacket enc = history.encode(2, 1, 1_700_000_000_033L);
+                Packets.GameStateDeltaPacket p = new Packets.GameStateDeltaPacket();
+                p.snapshotId = enc.snapshotId; p.baselineId = enc.baselineId; p.serverTimestamp = enc.serverTimestamp;
+                p.payload = Arrays.copyOf(enc.payload, enc.payloadLength); p.payloadLength = enc.payloadLength;
+                return p;
+            }
+            case "RoomQueryRequest": {
+                Packets.RoomQueryRequest p = new Packets.RoomQueryRequest();
+                p.phase = Packets.RoomPhase.WAITING; p.minFreeSlots = 1; p.cursor = "3f2a9c1e"; p.limit = 20;
+                p.subscribe = true;
+                return p;
+            }
+            case "RoomQueryResponse":
+                return directory(rooms(40)).query(new RoomDirectory.Filter(null, -1, 0), null, 20);
+            case "RoomDirectoryUpdate": {
+                Packets.RoomDirectoryUpdate p = new Packets.RoomDirectoryUpdate();
+                p.changed = directory(rooms(5)).query(new RoomDirectory.Filter(null, -1, 0), null, 5).rooms;
+                p.removed = new String[]{"3f2a9c1e", "9e3779b1"};
+                return p;
+            }
+            case "RoomUnsubscribeRequest":
+                return new Packets.RoomUnsubscribeRequest();
+            case "NetRatePacket": {
+                Packets.NetRatePacket p = new Packets.NetRatePacket();
+                p.snapshotHz = 30; p.sendHz = 30;
+                return p;
+            }
+            case "RedirectResponse": {
+                Packets.RedirectResponse p = new Packets.RedirectResponse();
+                p.host = "shard-2.f1.example"; p.tcpPort = 54555; p.udpPort = 54777; p.roomId = "3f2a9c1e";
+                p.resumeToken = 0x5deece66dL;
+                return p;
+            }
+            case "ShardHello": {
+                Packets.ShardHello p = new Packets.ShardHello();
+                p.host = "shard-2.f1.example"; p.tcpPort = 54555; p.udpPort = 54777;
+                return p;
+            }
+            case "RoomHandoff": {
+                // 8명이 찬 대기실과 채팅 기록을 통째로 넘긴다
+                long[] token = {0x5deece66dL};
+                Packets.RoomHandoff p = room("3f2a9c1e", 8).handoff(new HashMap<>(), () -> token[0] += 0xbL);
+                p.chat = ((Packets.ChatBatch) packet("ChatBatch")).messages;
+                return p;
+            }
+            case "RoomHandoffResult": {
+                Packets.RoomHandoffResult p = new Packets.RoomHandoffResult();
+                p.roomId = "3f2a9c1e"; p.ok = true; p.host = "shard-2.f1.example"; p.tcpPort = 54555; p.udpPort = 54777;
+                return p;
+            }
+            case "ResumeRoomRequest": {
+                Packets.ResumeRoomRequest p = new Packets.ResumeRoomRequest();
+                p.roomId = "3f2a9c1e"; p.resumeToken = 0x5deece66dL;
+                return p;
+            }
+            case "ResumeRoomResponse": {
+                Packets.ResumeRoomResponse p = new Packets.ResumeRoomResponse();
+                p.ok = true; p.message = "resumed"; p.self = playerInfo(2); p.state = room("3f2a9c1e", 8).toState();
+                return p;
+            }
+            case "PlayerCorrectionPacket": {
+                Packets.PlayerCorrectionPacket p = new Packets.PlayerCorrectionPacket();
+                p.correctionId = 17; p.inputSeq = 1234; p.state = grid(1)[0];
+                return p;
+            }
+            default:
+                throw new IllegalArgumentException("unknown packet type: " + type);
+        }
+    }
+
+    static RoomDirectory directory(Map<String, Room> rooms) {
+        RoomDirectory directory = new RoomDirectory();
+        for (Room r : rooms.values()) directory.update(r);
+        return directory;
+    }
+
+    private static Packets.PlayerInfo playerInfo(int id) {
+        Packets.PlayerInfo p = new Packets.PlayerInfo();
+        p.playerId = id; p.username = "player" + id; p.vehicleIndex = id % 3;
+        return p;
+    }
+
+    /** Unconnected stand-in that only carries an id; sends are never made from the benchmarks. */
+    static final class FakeConnection extends Connection {
+        private final int id;
+
+        FakeConnection(int id) { this.id = id; }
+
+        @Override public int getID() { return id; }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One room tick's snapshot fan-out with every car sent to everyone ({@code all}) against per-recipient
+ * interest management ({@code interest}), for 16 and 24 bots driving the load-test oval at slightly
+ * different paces, so the field spreads out over the run. Acks trail by three ticks. {@code bytes / ticks}
+ * is one tick's wire size summed over recipients; time covers choosing, encoding and serializing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterestBenchmark {
+    private static final int ACK_LAG_TICKS = 3;
+    // loadtest Bot과 같은 타원 코스
+    private static final float CENTER_X = 32f, CENTER_Y = 19.2f, RADIUS_X = 24f, RADIUS_Y = 12f;
+
+    @Param({"16", "24"})
+    public int cars;
+
+    @Param({"all", "interest"})
+    public String mode;
+
+    private Room room;
+    private FanoutSerialization serialization;
+    private Packets.PlayerState[] states;
+    private int snapshotId;
+    private boolean interest;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Wire {
+        public long bytes, ticks;
+
+        @Setup(Level.Iteration)
+        public void clear() { bytes = ticks = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        room = Fixtures.room("bench", cars);
+        serialization = new FanoutSerialization(new ServerMetrics());
+        states = Fixtures.grid(cars);
+        interest = mode.equals("interest");
+        snapshotId = 0;
+    }
+
+    @Benchmark
+    public int tick(Wire wire) {
+        int id = ++snapshotId;
+        drive(id);
+        room.snapshots.record(id, states, cars);
+        int bytes = 0;
+        for (Room.Member m : room.members) {
+            FanoutSerialization.Frame frame = GameServer.snapshotFor(room, m, id, interest, id, serialization);
+            bytes += frame.length();
+            m.ack.acknowledge(id - ACK_LAG_TICKS, id);
+        }
+        wire.bytes += bytes;
+        wire.ticks++;
+        return bytes;
+    }
+
+    // 봇마다 속도/차선/출발 위치가 조금씩 다르다 (30Hz, 한 바퀴 약 10초)
+    private void drive(int tick) {
+        float t = tick / 30f;
+        for (int i = 0; i < cars; i++) {
+            Packets.PlayerState s = states[i];
+            float pace = 0.95f + (i % 11) * 0.01f;
+            float lane = (i % 4) * 0.6f;
+            float omega = (float) (2 * Math.PI / 10) * pace;
+            float theta = -0.02f * i + omega * t;
+            float rx = RADIUS_X + lane, ry = RADIUS_Y + lane;
+            float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+            s.x = CENTER_X + rx * cos;
+            s.y = CENTER_Y + ry * sin;
+            s.velocityX = -rx * sin * omega;
+            s.velocityY = ry * cos * omega;
+            s.rotation = (float) Math.atan2(s.velocityY, s.velocityX);
+            s.angularVelocity = omega;
+            s.lapTime = t % 10f;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the server's collision pass over a recorded 60Hz trace with skewed client latencies (10ms and 60ms
+ * one way, so 20ms and 120ms RTT). Cars run in pairs at 20 m/s around a 15m circle, near pairs 0.9m apart
+ * and touching pairs 0.3m apart. Each op is one server tick: every car's newest report that has arrived by
+ * then is recorded (stamped with its sample time, as the server does from RTT/2) and the room collides.
+ * {@code latest} compares the reports as they are; {@code rewind} uses {@link StateHistory}. Whether the
+ * hits come out right is asserted by {@code LagCompensationTest} on the same trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LagCompensationBenchmark {
+    private static final int TRACE_TICKS = 600;
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+    private static final long FAST_NANOS = 10_000_000L, SLOW_NANOS = 60_000_000L;
+    private static final float RADIUS = 15f, SPEED = 20f, NEAR_GAP = 0.9f, TOUCH_GAP = 0.3f;
+
+    @Param({"8", "24"})
+    public int cars;
+
+    @Param({"latest", "rewind"})
+    public String mode;
+
+    private Room room;
+    private boolean rewind;
+    // 녹화된 궤적: [tick][car] (샘플 시각은 tick * TICK_NANOS)
+    private float[][] traceX, traceY, traceVX, traceVY;
+    private long[] latency;
+    private Packets.PlayerState[] states;
+    private int tick;
+
+    @Setup
+    public void setup() {
+        rewind = mode.equals("rewind");
+        int pairs = cars / 2;
+        latency = new long[cars];
+        traceX = new float[TRACE_TICKS][cars];
+        traceY = new float[TRACE_TICKS][cars];
+        traceVX = new float[TRACE_TICKS][cars];
+        traceVY = new float[TRACE_TICKS][cars];
+        float omega = SPEED / RADIUS;
+        for (int p = 0; p < pairs; p++) {
+            boolean touching = p % 2 == 1;
+            float gap = touching ? TOUCH_GAP : NEAR_GAP;
+            int lead = 2 * p, follow = 2 * p + 1;
+            // 지연이 큰 쪽: near 쌍은 앞차, touching 쌍은 뒤차 (각각 가짜 충돌 / 놓친 충돌이 생기는 배치)
+            latency[lead] = touching ? FAST_NANOS : SLOW_NANOS;
+            latency[follow] = touching ? SLOW_NANOS : FAST_NANOS;
+            float start = (float) (2 * Math.PI * p / pairs);
+            for (int t = 0; t < TRACE_TICKS; t++) {
+                float theta = start + omega * t * TICK_NANOS / 1e9f;
+                put(t, lead, theta, omega);
+                put(t, follow, theta - gap / RADIUS, omega);
+            }
+        }
+        room = Fixtures.room("bench", 1);
+        states = new Packets.PlayerState[cars];
+        for (int i = 0; i < cars; i++) {
+            states[i] = new Packets.PlayerState();
+            states[i].playerId = i + 1;
+        }
+        tick = 0;
+    }
+
+    private void put(int t, int car, float theta, float omega) {
+        float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+        traceX[t][car] = 32f + RADIUS * cos;
+        traceY[t][car] = 19.2f + RADIUS * sin;
+        traceVX[t][car] = -RADIUS * sin * omega;
+        traceVY[t][car] = RADIUS * cos * omega;
+    }
+
+    @Benchmark
+    public int tick() {
+        // 궤적을 반복 재생하되 시각은 계속 늘린다 (기록 링이 과거 샘플로 착각하지 않도록)
+        int t = ++tick;
+        long now = t * TICK_NANOS + SLOW_NANOS;
+        for (int i = 0; i < cars; i++) {
+            // 지금까지 도착한 가장 최근 보고 (보낸 시각 + 지연 <= now)
+            long sentTick = (now - latency[i]) / TICK_NANOS;
+            int f = (int) (sentTick % TRACE_TICKS);
+            Packets.PlayerState s = states[i];
+            s.x = traceX[f][i]; s.y = traceY[f][i];
+            s.velocityX = traceVX[f][i]; s.velocityY = traceVY[f][i];
+            if (rewind) room.history.record(s.playerId, sentTick * TICK_NANOS, s.x, s.y);
+        }
+        return GameServer.applySimpleCollisions(room, states, cars, now);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kryo encode/decode of each top-level packet with the server's {@link PacketRegistry}, i.e. exactly
+ * what KryoNet runs per message minus the length prefix. The secondary {@code bytes} result is the
+ * encoded size, so payload regressions show up next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketCodecBenchmark {
+    // PacketRegistry에 등록된 최상위 패킷 전부 (새 패킷을 등록하면 여기에도 추가)
+    @Param({
+        "CreateRoomRequest", "CreateRoomResponse", "JoinRoomRequest", "JoinRoomResponse", "LeaveRoomRequest",
+        "ErrorResponse", "RoomStatePacket", "PlayerInputPacket", "GameStatePacket", "ReadyRequest",
+        "SelectionRequest", "RoomListRequest", "RoomListResponse", "RaceStartPacket", "StartRaceRequest",
+        "ChatMessage", "PlayerStateUpdate", "PlayerFinishedPacket", "CountdownStartPacket",
+        "CountdownUpdatePacket", "RaceResultsPacket", "GameStateDeltaPacket", "RoomQueryRequest",
+        "RoomQueryResponse", "RoomDirectoryUpdate", "RoomUnsubscribeRequest", "ChatBatch", "NetRatePacket",
+        "RedirectResponse", "ShardHello", "RoomHandoff", "RoomHandoffResult", "ResumeRoomRequest",
+        "ResumeRoomResponse", "PlayerCorrectionPacket"
+    })
+    public String packet;
+
+    private Kryo kryo;
+    private Object value;
+    private final Output output = new Output(16384);
+    private final Input input = new Input();
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        kryo = new KryoSerialization().getKryo();
+        PacketRegistry.register(kryo);
+        value = Fixtures.packet(packet);
+        output.clear();
+        kryo.writeClassAndObject(output, value);
+        encoded = output.toBytes();
+    }
+
+    @Benchmark
+    public int encode() {
+        output.clear();
+        kryo.writeClassAndObject(output, value);
+        return output.position();
+    }
+
+    @Benchmark
+    public Object decode() {
+        input.setBuffer(encoded);
+        return kryo.readClassAndObject(input);
+    }
+}
@@ -0,0 +1,121 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * What race recording costs per tick on a grid of moving cars. {@code queue} is the tick shard's share
+ * ({@link RaceRecorder#tick}, measured over batches of {@value #BATCH} ticks with the io thread's drain
+ * done between batches, outside the measurement), next to {@code history}, the {@link SnapshotHistory}
+ * copy every room already does per tick. {@code write} is the io thread's share per tick: delta encode
+ * and append to the mapped segment, segment rolls included. Each iteration records into a fresh
+ * temporary directory and deletes it afterwards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecorderBenchmark {
+    static final int BATCH = RaceRecorder.RING_SIZE / 2;
+
+    @Param({"8", "24"})
+    public int cars;
+
+    private Packets.PlayerState[] states;
+    private final SnapshotHistory history = new SnapshotHistory();
+    private final ServerMetrics.Counter dropped = new ServerMetrics().counter("dropped", "");
+    private Path dir;
+    private RaceRecorder recorder;
+    private int seq;
+
+    @Setup
+    public void setup() {
+        states = Fixtures.grid(cars);
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        dir = Files.createTempDirectory("f1-recorder-bench");
+        recorder = new RaceRecorder(dir.resolve("race"), "bench", 0, dropped);
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        recorder.close(seq * 16L);
+        recorder.drain();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+
+    /** Drains the ring between {@code queue} batches, as the io thread would. */
+    @State(Scope.Thread)
+    public static class Drained {
+        RecorderBenchmark owner;
+
+        @TearDown(Level.Invocation)
+        public void drain() {
+            if (owner != null) owner.recorder.drain();
+        }
+    }
+
+    // 한 틱만큼 차들을 움직인다 (매 틱 위치/속도가 바뀌는 현실적인 델타)
+    private void advance() {
+        seq++;
+        for (Packets.PlayerState s : states) {
+            s.x += s.velocityX / 60f;
+            s.y += s.velocityY / 60f;
+            s.rotation += s.angularVelocity / 60f;
+            s.lapTime += 1 / 60f;
+            s.velocityY += (seq & 1) == 0 ? 0.01f : -0.01f;
+        }
+    }
+
+    @Benchmark
+    public SnapshotHistory history() {
+        advance();
+        history.record(seq, states, cars);
+        return history;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public RaceRecorder queue(Drained drained) {
+        drained.owner = this;
+        for (int i = 0; i < BATCH; i++) {
+            advance();
+            recorder.tick(seq, seq * 16L, states, cars);
+        }
+        return recorder;
+    }
+
+    @Benchmark
+    public RaceRecorder write() {
+        advance();
+        recorder.tick(seq, seq * 16L, states, cars);
+        recorder.drain();
+        return recorder;
+    }
+}
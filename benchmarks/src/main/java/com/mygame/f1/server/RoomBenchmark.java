@@ -0,0 +1,95 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lobby-side snapshots: {@link Room#toState} (a fresh build) against the cached {@link Room#snapshot}, and
+ * the room-list response {@link GameServer#roomList} builds for a client with no rooms and for one that
+ * already holds every room at its current version, over 10 to 10k rooms of 1-8 players. {@code roomQuery}
+ * is the browser's filtered first page ({@value RoomDirectory#MAX_PAGE} rooms with 20+ free slots) from
+ * {@link RoomDirectory}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBenchmark {
+    @State(Scope.Benchmark)
+    public static class OneRoom {
+        @Param({"8", "24"})
+        public int players;
+
+        Room room;
+
+        @Setup
+        public void setup() {
+            room = Fixtures.room("bench", players);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Directory {
+        @Param({"10", "1000", "10000"})
+        public int rooms;
+
+        Map<String, Room> byId;
+        Packets.RoomListRequest upToDate;
+        RoomDirectory directory;
+        RoomDirectory.Filter filter;
+
+        @Setup
+        public void setup() {
+            byId = Fixtures.rooms(rooms);
+            upToDate = new Packets.RoomListRequest();
+            upToDate.knownRoomIds = new String[rooms];
+            upToDate.knownVersions = new int[rooms];
+            int i = 0;
+            for (Room r : byId.values()) {
+                upToDate.knownRoomIds[i] = r.id;
+                upToDate.knownVersions[i++] = r.version();
+            }
+            directory = Fixtures.directory(byId);
+            filter = new RoomDirectory.Filter(Packets.RoomPhase.WAITING, -1, 20);
+        }
+    }
+
+    @Benchmark
+    public Packets.RoomState toState(OneRoom s) {
+        return s.room.toState();
+    }
+
+    @Benchmark
+    public Room.Snapshot snapshot(OneRoom s) {
+        return s.room.snapshot();
+    }
+
+    @Benchmark
+    public Packets.RoomListResponse roomList(Directory s) {
+        return GameServer.roomList(s.byId.values(), null);
+    }
+
+    @Benchmark
+    public Packets.RoomListResponse roomListUnchanged(Directory s) {
+        return GameServer.roomList(s.byId.values(), s.upToDate);
+    }
+
+    @Benchmark
+    public Packets.RoomQueryResponse roomQuery(Directory s) {
+        return s.directory.query(s.filter, null, RoomDirectory.MAX_PAGE);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.shared.Packets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-state {@link Packets.GameStatePacket} with the quantized serializers from {@link PacketRegistry}
+ * against Kryo's default FieldSerializer, at the smallest and largest room sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateSerializationBenchmark {
+    @Param({"4", "24"})
+    public int cars;
+
+    @Param({"quantized", "field"})
+    public String format;
+
+    private Kryo kryo;
+    private Packets.GameStatePacket packet;
+    private final Output output = new Output(16384);
+    private final Input input = new Input();
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        kryo = new KryoSerialization().getKryo();
+        if (format.equals("quantized")) {
+            PacketRegistry.register(kryo);
+        } else {
+            kryo.register(Packets.GameStatePacket.class);
+            kryo.register(Packets.PlayerState.class);
+            kryo.register(Packets.PlayerState[].class);
+        }
+        packet = new Packets.GameStatePacket();
+        packet.serverTimestamp = 1_700_000_000_000L;
+        packet.playerStates = Fixtures.grid(cars);
+        output.clear();
+        kryo.writeClassAndObject(output, packet);
+        encoded = output.toBytes();
+    }
+
+    @Benchmark
+    public int encode() {
+        output.clear();
+        kryo.writeClassAndObject(output, packet);
+        return output.position();
+    }
+
+    @Benchmark
+    public Object decode() {
+        input.setBuffer(encoded);
+        return kryo.readClassAndObject(input);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mygame.f1.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Room timers: scheduling and cancelling one countdown while {@code pending} others wait in the wheel, and
+ * one shard tick's {@link TimerWheel#advance} over them. The background timers repeat every 60-80s, more
+ * than one wheel rotation, so they sit in later rounds and keep firing as simulated time moves on.
+ * {@code scheduleCancel} should stay flat as {@code pending} grows; {@code advanceOneTick} walks one bucket,
+ * so it grows with {@code pending / 512}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerWheelBenchmark {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"100", "10000"})
+    public int pending;
+
+    private TimerWheel wheel;
+    private final Consumer<Runnable> runner = Runnable::run;
+    private long now;
+
+    @Setup
+    public void setup() {
+        wheel = new TimerWheel(TICK_NANOS, 512, System.nanoTime());
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < pending; i++) {
+            long delay = TimeUnit.SECONDS.toNanos(60) + rnd.nextLong(TimeUnit.SECONDS.toNanos(20));
+            wheel.schedule(NOOP, delay, delay, null);
+        }
+        now = System.nanoTime();
+        wheel.advance(now, runner);
+    }
+
+    @Benchmark
+    public boolean scheduleCancel() {
+        TimerWheel.Timeout t = wheel.schedule(NOOP, TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(1), null);
+        boolean cancelled = t.cancel();
+        wheel.advance(now, runner);
+        return cancelled;
+    }
+
+    @Benchmark
+    public int advanceOneTick() {
+        now += TICK_NANOS;
+        wheel.advance(now, runner);
+        return wheel.pending();
+    }
+}
@@ -0,0 +1,185 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.UplinkRedundancy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One car's uplink through a lossy link, on simulated time. Each op is one 60Hz period. The client sends
+ * its state through the real serializers, as {@code LobbyClient} does. Each packet is dropped with
+ * probability {@code loss}, otherwise it arrives 20ms later plus 0-4ms of jitter. One server tick later the
+ * state due comes out of {@link UplinkBuffer}. {@code baseline} is the old uplink: no redundant states and
+ * the newest state played at once. {@code redundant} carries up to three earlier states within the default
+ * byte budget and plays one interval late; {@code tight} is the same under a 3000 B/s budget, below
+ * what three redundant states need, so the depth drops to fit. The tick runs 10ms after each send, so without loss every
+ * packet is in before the tick after it. A tick is a hitch when the state shown did not advance, i.e. the
+ * car stood still for a tick while it was driving. Counters: {@code ticks},
+ * {@code hitches} and {@code bytes} (uplink payload, KryoNet framing excluded). The trial summary prints the
+ * hitch rate, mean state age and bytes per second. The measured time is the per-tick CPU cost of both ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UplinkLossBenchmark {
+    private static final long INTERVAL_NANOS = 1_000_000_000L / 60;
+    private static final long TRANSIT_NANOS = 20_000_000L, JITTER_NANOS = 4_000_000L;
+    // 서버 틱은 송신 시각보다 이만큼 늦게 돈다 (지터가 있어도 손실이 없으면 패킷은 다음 틱 전에 도착한다)
+    private static final long TICK_PHASE_NANOS = 10_000_000L;
+    private static final int IN_FLIGHT = 8;
+
+    @Param({"0.01", "0.05", "0.2"})
+    public double loss;
+
+    @Param({"baseline", "redundant", "tight"})
+    public String mode;
+
+    private Kryo clientKryo, serverKryo;
+    private final Output output = new Output(512);
+    private final Input input = new Input();
+    private UplinkRedundancy redundancy;
+    private UplinkBuffer buffer;
+    private SplittableRandom random;
+    private final Packets.PlayerState state = new Packets.PlayerState();
+    private final Packets.PlayerState shown = new Packets.PlayerState();
+    private long period;
+    private int seq;
+    // 전송 중인 패킷 (도착 시각 순)
+    private final byte[][] flight = new byte[IN_FLIGHT][512];
+    private final int[] flightLength = new int[IN_FLIGHT];
+    private final long[] flightArrival = new long[IN_FLIGHT];
+    private int flightHead, flightCount;
+    private int shownSeq = -1, lastShownSeq = -1;
+
+    private long totalTicks, totalHitches, totalBytes;
+    private double ageSum;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counts {
+        public long ticks, hitches, bytes;
+
+        @Setup(Level.Iteration)
+        public void clear() { ticks = hitches = bytes = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        clientKryo = new KryoSerialization().getKryo();
+        serverKryo = new KryoSerialization().getKryo();
+        PacketRegistry.register(clientKryo);
+        PacketRegistry.register(serverKryo);
+        switch (mode) {
+            case "baseline" -> {
+                redundancy = new UplinkRedundancy(0, 0);
+                buffer = new UplinkBuffer(0);
+            }
+            case "tight" -> {
+                redundancy = new UplinkRedundancy(3000, 3);
+                buffer = new UplinkBuffer(1);
+            }
+            default -> {
+                redundancy = UplinkRedundancy.fromSystemProperties();
+                buffer = new UplinkBuffer(1);
+            }
+        }
+        random = new SplittableRandom(42);
+        state.playerId = 1;
+        state.vehicleIndex = 2;
+        state.currentLap = 1;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%n%s loss=%.0f%%: hitches %.3f%% of ticks, mean state age %.1fms, uplink %.0f B/s%n",
+            mode, loss * 100, 100.0 * totalHitches / Math.max(1, totalTicks), ageSum / Math.max(1, totalTicks) / 1e6,
+            totalBytes / (Math.max(1, totalTicks) * INTERVAL_NANOS / 1e9));
+    }
+
+    @Benchmark
+    public int tick(Counts counts) {
+        long sendAt = ++period * INTERVAL_NANOS;
+        int bytes = send(sendAt);
+        counts.bytes += bytes;
+        totalBytes += bytes;
+
+        long tickAt = sendAt + TICK_PHASE_NANOS;
+        deliver(tickAt);
+        if (buffer.play(tickAt, INTERVAL_NANOS, shown)) shownSeq = buffer.playedInputSeq() - 1;
+        if (lastShownSeq >= 0) {
+            ageSum += tickAt - (shownSeq + 1) * INTERVAL_NANOS;
+            if (shownSeq == lastShownSeq) {
+                counts.hitches++;
+                totalHitches++;
+            }
+            counts.ticks++;
+            totalTicks++;
+        }
+        lastShownSeq = shownSeq;
+        return shownSeq;
+    }
+
+    // 타원 주행 상태를 보내고 손실이 아니면 비행 중 목록에 넣는다. 보낸 바이트 수를 돌려준다
+    private int send(long sendAt) {
+        double t = sendAt / 1e9;
+        double theta = t * 0.25;
+        state.x = (float) (32 + 24 * Math.cos(theta));
+        state.y = (float) (19.2 + 12 * Math.sin(theta));
+        state.velocityX = (float) (-24 * Math.sin(theta) * 0.25);
+        state.velocityY = (float) (12 * Math.cos(theta) * 0.25);
+        state.rotation = (float) Math.atan2(state.velocityY, state.velocityX);
+        state.angularVelocity = 0.25f;
+        state.lapTime = (float) (t % 60);
+        Packets.PlayerStateUpdate upd = new Packets.PlayerStateUpdate();
+        upd.roomId = "bench-01";
+        upd.state = state;
+        upd.seq = seq++;
+        // 재생된 상태가 어느 송신이었는지 알 수 있게 inputSeq = seq + 1
+        upd.inputSeq = upd.seq + 1;
+        redundancy.fill(upd, sendAt);
+        output.clear();
+        clientKryo.writeClassAndObject(output, upd);
+        int length = output.position();
+        redundancy.sent(upd, length);
+        if (random.nextDouble() >= loss && flightCount < IN_FLIGHT) {
+            int k = (flightHead + flightCount++) % IN_FLIGHT;
+            System.arraycopy(output.getBuffer(), 0, flight[k], 0, length);
+            flightLength[k] = length;
+            flightArrival[k] = sendAt + TRANSIT_NANOS + random.nextLong(JITTER_NANOS);
+        }
+        return length;
+    }
+
+    private void deliver(long now) {
+        while (flightCount > 0 && flightArrival[flightHead] <= now) {
+            input.setBuffer(flight[flightHead], 0, flightLength[flightHead]);
+            Packets.PlayerStateUpdate upd = (Packets.PlayerStateUpdate) serverKryo.readClassAndObject(input);
+            long arrival = flightArrival[flightHead];
+            buffer.receive(upd, arrival, arrival - TRANSIT_NANOS);
+            flightHead = (flightHead + 1) % IN_FLIGHT;
+            flightCount--;
+        }
+    }
+}
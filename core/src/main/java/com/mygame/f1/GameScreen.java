@@ -49,7 +49,13 @@ import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Comparator;
+import com.mygame.f1.network.InterpolationBuffer;
 import com.mygame.f1.network.LobbyClient;
+import com.mygame.f1.network.ServerClock;
+import com.mygame.f1.network.SnapshotQueue;
+import com.mygame.f1.network.UplinkDeadReckoning;
+import com.mygame.f1.physics.CarPrediction;
+import com.mygame.f1.shared.CarPhysics;
 import com.mygame.f1.shared.Packets;
 
 public class GameScreen implements Screen {
@@ -99,7 +105,14 @@ public class GameScreen implements Screen {
     private float mapWorldWidth = 0f;
     private float mapWorldHeight = 0f;
     private Timer.Task stateSendTask;
+    private int stateSendHz;
+    // 서버의 추측 항법에서 벗어날 때(와 하트비트)만 상태를 보낸다
+    private final UplinkDeadReckoning uplinkReckoning = UplinkDeadReckoning.fromSystemProperties();
     private final IntMap<RemoteCar> remoteCars = new IntMap<>();
+    // 서버 시각 추정 + 원격 차량 렌더 지연 (렌더 스레드 전용)
+    private final ServerClock serverClock = new ServerClock();
+    private final InterpolationBuffer.Pose remotePose = new InterpolationBuffer.Pose();
+    private final SnapshotQueue.Sink snapshotSink = this::applySnapshot;
 
     // --- HUD / 미니게임 리소스 ---
     private SpriteBatch hudBatch;
@@ -181,29 +194,22 @@ public class GameScreen implements Screen {
     private int raceFinishCountdown = -1; // -1 = 표시 안함, 0~10 = 카운트다운 숫자
     private String firstPlacePlayer = "";
 
-    // --- 물리 파라미터 ---
-    private float maxForwardSpeed = 4.0f;  // 약 15% 상향
-    private float maxReverseSpeed = 1.3f;  // 1.0 * 1.3 = 1.3 (30% 증가)
-    private float forwardAcceleration = 1.7f;  // 가속력은 유지
-    private float reverseAcceleration = 1.0f;  // 가속력은 유지
+    // --- 물리 파라미터 (핸들링 튜닝 값은 CarPhysics) ---
+    private final CarPhysics carPhysics = new CarPhysics();
+    private final CarPhysics.Controls controls = new CarPhysics.Controls();
+    // 고정 스텝마다의 입력/예측 기록 (주행 중에는 입력을 보내고, 서버 상태가 다르면 되감아 다시 시뮬레이션)
+    private final CarPrediction prediction = new CarPrediction();
+    private final Packets.PlayerInputPacket inputPacket = new Packets.PlayerInputPacket();
 
     // --- 점진적 가속 시스템 ---
     private float speedMultiplier = 0.5f; // 초기 속도는 50%부터 시작
     private float speedMultiplierTarget = 1.0f; // 목표 100%
     private float speedRampUpRate = 0.03f; // 초당 3% 증가 (느리게 가속)
     private float turningPower = 10f;
-    private float grip = 18.0f;
-    private float minSpeedForTurn = 0.8f;
     private float maxSteeringAngle = 60f;
-    private float highSpeedTurnReduction = 0.5f;  // 고속에서 회전 감소 비율 (50%까지 감소)
     private float initialAngle = 0f;
-    private float currentAcceleration = 0f;
-    private float accelerationSmoothness = 7f;
     private float currentTorque = 0f;
     private float torqueSmoothness = 15f;
-    private float defaultLinearDamping = 2.0f;
-    private float brakingLinearDamping = 5.0f;
-    private float collisionDamping = 4.0f;
 
     // --- 충돌 감지 ---
     private boolean isColliding = false;
@@ -224,12 +230,8 @@ public class GameScreen implements Screen {
     private static final float VIEW_WIDTH = 1600f / PPM;
     private static final float VIEW_HEIGHT = 900f / PPM;
     // 멀티플레이 시 기본 스폰 슬롯(첫 번째 맵 기준 요청 값)
-    private static final Vector2[] GRID_SPAWNS = new Vector2[]{
-        new Vector2(((87 * 32) + 19) / PPM, (((120 - 92) * 32) - 11) / PPM), // p1: 오른쪽 19px, 뒤로 11px
-        new Vector2(((90 * 32) + 19) / PPM, (((120 - 92) * 32) - 11) / PPM), // p2: 오른쪽 19px, 뒤로 11px
-        new Vector2(((87 * 32) + 19) / PPM, (((120 - 94) * 32) - 11) / PPM), // p3: 오른쪽 19px, 뒤로 11px
-        new Vector2(((90 * 32) + 19) / PPM, (((120 - 94) * 32) - 11) / PPM)  // p4: 오른쪽 19px, 뒤로 11px
-    };
+    // p1~p4: (87,92) (90,92) (87,94) (90,94) 타일, 이후 4대씩 6타일 뒤로 반복 (서버 최대 24대)
+    private static final Vector2[] GRID_SPAWNS = buildGridSpawns(24);
     private static final String[] CAR_PATHS = {
         "cars/Astra A4.png",
         "cars/Boltworks RX-1.png",
@@ -301,8 +303,10 @@ public class GameScreen implements Screen {
                     }
                 }
 
-                // 벽 충돌 처리 (기존 로직)
-                if (bodyA == playerCar || bodyB == playerCar) {
+                // 벽 충돌 처리 (기존 로직). 보정 재시뮬레이션 중에는 속도 변화만 다시 적용한다
+                if ((bodyA == playerCar || bodyB == playerCar) && prediction.replaying()) {
+                    carPhysics.onWallContact(playerCar);
+                } else if (bodyA == playerCar || bodyB == playerCar) {
                     isColliding = true;
                     collisionTimer = collisionDuration;
 
@@ -318,8 +322,7 @@ public class GameScreen implements Screen {
                             damage, collisionSpeed, vehicleDurability));
                     }
 
-                    playerCar.setLinearVelocity(velocity.scl(0.4f));
-                    playerCar.setAngularVelocity(playerCar.getAngularVelocity() * 0.3f);
+                    carPhysics.onWallContact(playerCar);
                 }
             }
 
@@ -421,7 +424,8 @@ public class GameScreen implements Screen {
 
         // 네트워크 전송/수신 설정
         if (lobbyClient != null && roomId != null) {
-            lobbyClient.onGameState(this::handleGameState);
+            // 이전 레이스/방에서 쌓인 스냅샷은 버린다
+            lobbyClient.gameStates().clear();
 
             // 레이스 완주 관련 핸들러 등록
             lobbyClient.onCountdownStart(pkt -> Gdx.app.postRunnable(() -> {
@@ -441,10 +445,9 @@ public class GameScreen implements Screen {
                 gameRef.setScreen(new com.mygame.f1.screens.MultiplayerResultScreen(gameRef, lobbyClient, roomId, pkt));
             }));
 
-            // 상태 전송 빈도: 30Hz (33ms) - 더 부드러운 동기화
-            stateSendTask = Timer.schedule(new Timer.Task() {
-                @Override public void run() { sendState(); }
-            }, 0.033f, 0.033f);
+            // 상태 전송 빈도: 서버가 RTT/손실을 보고 연결마다 정한다 (기본 30Hz)
+            lobbyClient.onNetRate(pkt -> Gdx.app.postRunnable(() -> scheduleStateSend(pkt.sendHz)));
+            scheduleStateSend(lobbyClient.sendHz());
         }
 
         // 스타트 카운트 초기화
@@ -495,26 +498,9 @@ public class GameScreen implements Screen {
 
     // 플레이어 차량을 스폰 지점에 배치하고 물리 특성을 설정.
     private void createPlayerCar() {
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.DynamicBody;
         Vector2 spawn = computeSpawnPosition();
-        bodyDef.position.set(spawn);
-        bodyDef.linearDamping = defaultLinearDamping;
-        bodyDef.angularDamping = 20.0f;
         // 초기 각도를 왼쪽으로 90도 회전 (PI/2 라디안)
-        bodyDef.angle = (float) Math.PI / 2f;
-        playerCar = world.createBody(bodyDef);
-
-        FixtureDef fixtureDef = new FixtureDef();
-        PolygonShape carShape = new PolygonShape();
-        carShape.setAsBox(6.40f / PPM, 12.80f / PPM);
-        fixtureDef.shape = carShape;
-        fixtureDef.density = 3.5f;
-        fixtureDef.friction = 0.3f;
-        fixtureDef.restitution = 0.02f;
-
-        playerCar.createFixture(fixtureDef);
-        carShape.dispose();
+        playerCar = carPhysics.createBody(world, spawn.x, spawn.y, (float) Math.PI / 2f);
     }
 
     private Vector2 computeSpawnPosition() {
@@ -548,11 +534,22 @@ public class GameScreen implements Screen {
     public void update(float delta) {
         float frameTime = Math.min(delta, 0.25f);
         accumulator += frameTime;
+        // 피트에서는 차를 직접 옮기므로 입력 대신 상태를 보낸다
+        boolean driving = handleInput() && gameState == GameState.NORMAL;
+        if (!driving) prediction.clear();
+        applyCorrection();
         while (accumulator >= TIME_STEP) {
-            world.step(TIME_STEP, 8, 3);
+            if (driving) {
+                // 입력은 고정 스텝마다 적용하고 기록한다 (보정이 오면 같은 스텝을 그대로 다시 돌린다)
+                prediction.step(world, playerCar, carPhysics, controls, speedMultiplier, isColliding,
+                    tireTurnMultiplier, speedScale(), TIME_STEP);
+            } else {
+                world.step(TIME_STEP, 8, 3);
+            }
             accumulator -= TIME_STEP;
         }
-        updateRemoteCars(delta);
+        prediction.decay(delta);
+        updateRemoteCars();
 
         if (collisionTimer > 0) {
             collisionTimer -= delta;
@@ -567,24 +564,11 @@ public class GameScreen implements Screen {
             speedMultiplier = Math.min(speedMultiplier + speedRampUpRate * delta, speedMultiplierTarget);
         }
 
-        handleInput(delta);
-        updateSteering(delta);
-        updateFriction();
         // Grass 영역 감지는 Box2D ContactListener에서 자동 처리됨
-        limitSpeed();
 
         handlePitState(delta);
         updateLapAndCheckpoints(delta);
 
-        if (isColliding) {
-            playerCar.setLinearDamping(collisionDamping);
-            if (playerCar.getLinearVelocity().len() < 0.5f) {
-                v2_tmp1.set(0, -0.3f);
-                Vector2 forwardDirection = playerCar.getWorldVector(v2_tmp1);
-                playerCar.applyLinearImpulse(forwardDirection, playerCar.getWorldCenter(), true);
-            }
-        }
-
         v2_tmp1.set(0, cameraOffsetFromCar);
         Vector2 worldSpaceOffset = playerCar.getWorldVector(v2_tmp1);
         v2_tmp2.set(playerCar.getPosition()).add(worldSpaceOffset);
@@ -605,10 +589,12 @@ public class GameScreen implements Screen {
     }
 
     // 레이스 스타트~~~~ 잘 작동되어야 할텐데 말이지 ~~~ 차량아 출발해라 제발~~~ 고고씽~~!!
-    private void handleInput(float delta) {
+    // 이번 프레임의 조작을 읽고, 차를 움직일 수 있는지 돌려준다 (힘은 물리 스텝마다 CarPrediction이 적용)
+    private boolean handleInput() {
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
             togglePause();
         }
+        readControls();
 
         // 레이스 종료 시 입력 차단 (결과 화면에서 버튼만 사용)
         if (gameState == GameState.FINISHED) {
@@ -616,157 +602,39 @@ public class GameScreen implements Screen {
                 playerCar.setLinearVelocity(0, 0);
                 playerCar.setAngularVelocity(0);
             }
-            return;
+            return false;
         }
 
-        // 신호등이 꺼지기 전까지 입력 차단 (ESC는 허용)
+        // 신호등이 꺼지기 전까지 입력/방향 전환 차단 (ESC는 허용)
         if (!startLightsDone) {
             // 차량을 강제로 정지 상태로 유지
             playerCar.setLinearVelocity(0, 0);
             playerCar.setAngularVelocity(0);
-            return;
-        }
-
-        if (Gdx.input.isKeyPressed(Input.Keys.SHIFT_LEFT) || Gdx.input.isKeyPressed(Input.Keys.SHIFT_RIGHT)) {
-            playerCar.setLinearDamping(brakingLinearDamping);
-        } else if (!isColliding) {
-            playerCar.setLinearDamping(defaultLinearDamping);
-        }
-
-        v2_tmp1.set(0, 1);
-        Vector2 forwardNormal = playerCar.getWorldVector(v2_tmp1);
-        float forwardSpeed = playerCar.getLinearVelocity().dot(forwardNormal);
-        float currentSpeed = playerCar.getLinearVelocity().len();
-
-        float targetAcceleration = 0;
-        boolean movingForward = false;
-        boolean movingReverse = false;
-
-        if (Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W)) {
-            targetAcceleration = forwardAcceleration * speedMultiplier;
-            movingForward = true;
-        }
-        if (Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S)) {
-            targetAcceleration = -reverseAcceleration * speedMultiplier;
-            movingReverse = true;
-        }
-
-        currentAcceleration = MathUtils.lerp(currentAcceleration, targetAcceleration, accelerationSmoothness * delta);
-
-        if (Math.abs(currentAcceleration) > 0.1f) {
-            v2_tmp1.set(0, currentAcceleration);
-            Vector2 forceVector = playerCar.getWorldVector(v2_tmp1);
-            playerCar.applyForceToCenter(forceVector, true);
-        }
-
-        if (currentSpeed >= minSpeedForTurn && (movingForward || movingReverse)) {
-            if (movingForward && forwardSpeed > 0.5f) {
-                // speedFactor logic was here, seems incomplete in original, handled in updateSteering
-            } else if (movingReverse && forwardSpeed < -0.5f) {
-                // speedFactor logic was here, seems incomplete in original, handled in updateSteering
-            }
+            return false;
         }
+        return true;
     }
 
-    // 출발 하기 전에 신호등이 깜빢 깜빢 꺼졋다 켜져야해 신호등이 있었으면 참 좋겟네 나는 신호등을 만들고싶어
-    //신호등은 어떻게 만들면 좋을까나~~~ 신호등을 만들어보자자이 ~ 
-    //영차영차 신호등 영차영차
-    private void updateSteering(float delta) {
-        // 신호등이 꺼지기 전까지 방향 전환 차단
-        if (!startLightsDone) {
-            return;
-        }
-
-        float targetAngularVelocity = 0;
-        float baseMaxAngularVelocity = MathUtils.degreesToRadians * 190;
-
-        v2_tmp1.set(0, 1);
-        Vector2 forwardNormal = playerCar.getWorldVector(v2_tmp1);
-        float forwardSpeed = playerCar.getLinearVelocity().dot(forwardNormal);
-        boolean movingForward = Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W);
-        boolean movingReverse = Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S);
-
-        // 속도에 따른 회전력 감소 계산
-        float currentSpeed = playerCar.getLinearVelocity().len();
-        float speedRatio = Math.min(currentSpeed / maxForwardSpeed, 1.0f);  // 0.0 ~ 1.0
-        // 고속일수록 회전력 감소 + 타이어 회전 보정
-        float turnMultiplier = 1.0f - (speedRatio * highSpeedTurnReduction);
-        float maxAngularVelocity = baseMaxAngularVelocity * turnMultiplier * tireTurnMultiplier;
-
-        if (Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A)) {
-            targetAngularVelocity = (movingReverse && forwardSpeed < -0.5f) ? -maxAngularVelocity : maxAngularVelocity;
-        } else if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D)) {
-            targetAngularVelocity = (movingReverse && forwardSpeed < -0.5f) ? maxAngularVelocity : -maxAngularVelocity;
-        }
-
-        float currentAngularVelocity = playerCar.getAngularVelocity();
-        float velocityChange = targetAngularVelocity - currentAngularVelocity;
-        float impulse = playerCar.getInertia() * velocityChange;
-        playerCar.applyAngularImpulse(impulse, true);
-    }
-
-    //왜 작동을 안할까 얼른 출발해라잉~~~ 좋은 말할때 시작 고고ㅗ고고고고고고고고고고고고곡
-    private void updateFriction() {
-        boolean isSteering = Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.A) || Gdx.input.isKeyPressed(Input.Keys.D);
-        float gripFactor = isSteering ? 0.9f : 1.0f;
-
-        Vector2 lateralVelocity = getLateralVelocity();
-        v2_tmp1.set(lateralVelocity).scl(-playerCar.getMass() * grip * gripFactor);
-        playerCar.applyForceToCenter(v2_tmp1, true);
-
-        Vector2 forwardVelocity = getForwardVelocity();
-        float forwardSpeed = forwardVelocity.len();
-        if (forwardSpeed > 0.1f) {
-            float dragCoefficient = 0.05f * forwardSpeed;
-            v2_tmp1.set(forwardVelocity).scl(-dragCoefficient * playerCar.getMass());
-            playerCar.applyForceToCenter(v2_tmp1, true);
-        }
+    private void readControls() {
+        controls.accelerate = Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W);
+        controls.reverse = Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S);
+        controls.left = Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A);
+        controls.right = !controls.left && (Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D));
+        controls.brake = Gdx.input.isKeyPressed(Input.Keys.SHIFT_LEFT) || Gdx.input.isKeyPressed(Input.Keys.SHIFT_RIGHT);
     }
 
     // 차량 속도에 제한을 두자 어떨땐ㄴ 빠르게 어떤 경우에는 느려지게 내구도 타이어 잔디와 부딪혓을때 얼마나 느려지게 할건지
     // 정해두고 이를 적용시켜보자~~
-    private void limitSpeed() {
-        v2_tmp1.set(0, 1);
-        Vector2 forwardNormal = playerCar.getWorldVector(v2_tmp1);
-        float forwardSpeed = playerCar.getLinearVelocity().dot(forwardNormal);
-        float speed = playerCar.getLinearVelocity().len();
-
+    private float speedScale() {
         // 점진적 가속 적용
-        float effectiveMaxForward = maxForwardSpeed * speedMultiplier;
-        float effectiveMaxReverse = maxReverseSpeed * speedMultiplier;
-
+        float speedScale = speedMultiplier;
         // 내구도 0 이하일 때 최고 속도를 30%로 제한
-        float durabilityLimiter = (vehicleDurability <= 0f || tireDurability <= 0f) ? 0.3f : 1f;
-        effectiveMaxForward *= durabilityLimiter;
-        effectiveMaxReverse *= durabilityLimiter;
-
+        if (vehicleDurability <= 0f || tireDurability <= 0f) speedScale *= 0.3f;
         // 타이어 컴파운드 속도 보정
-        effectiveMaxForward *= tireSpeedMultiplier;
-        effectiveMaxReverse *= tireSpeedMultiplier;
-
+        speedScale *= tireSpeedMultiplier;
         // Grass 페널티 추가 적용
-        if (isOnGrass) {
-            effectiveMaxForward *= grassSpeedPenalty;
-            effectiveMaxReverse *= grassSpeedPenalty;
-        }
-
-        if (forwardSpeed > 0 && speed > effectiveMaxForward) {
-            playerCar.setLinearVelocity(playerCar.getLinearVelocity().scl(effectiveMaxForward / speed));
-        } else if (forwardSpeed < 0 && speed > effectiveMaxReverse) {
-            playerCar.setLinearVelocity(playerCar.getLinearVelocity().scl(effectiveMaxReverse / speed));
-        }
-    }
-
-    private Vector2 getLateralVelocity() {
-        v2_tmp1.set(playerCar.getWorldVector(new Vector2(1, 0)));
-        float rightSpeed = playerCar.getLinearVelocity().dot(v2_tmp1);
-        return v2_tmp1.scl(rightSpeed);
-    }
-
-    private Vector2 getForwardVelocity() {
-        v2_tmp2.set(playerCar.getWorldVector(new Vector2(0, 1)));
-        float forwardSpeed = playerCar.getLinearVelocity().dot(v2_tmp2);
-        return v2_tmp2.scl(forwardSpeed);
+        if (isOnGrass) speedScale *= grassSpeedPenalty;
+        return speedScale;
     }
 
     // 화면이 잘보였으면 좋겟당~~!! 후후후후후후!
@@ -793,7 +661,8 @@ public class GameScreen implements Screen {
         batch.setProjectionMatrix(camera.combined);
         batch.begin();
 
-        Vector2 carPos = playerCar.getPosition();
+        // 서버 보정으로 생긴 순간이동은 렌더 오프셋으로 서서히 따라잡는다
+        Vector2 carPos = v2_tmp1.set(playerCar.getPosition()).add(prediction.offsetX(), prediction.offsetY());
         float carWidth = CAR_DRAW_WIDTH;
         float carHeight = CAR_DRAW_HEIGHT;
         batch.draw(carTexture,
@@ -801,7 +670,7 @@ public class GameScreen implements Screen {
             carWidth / 2, carHeight / 2,
             carWidth, carHeight,
             1, 1,
-            playerCar.getAngle() * MathUtils.radiansToDegrees,
+            (playerCar.getAngle() + prediction.offsetAngle()) * MathUtils.radiansToDegrees,
             0, 0, carTexture.getWidth(), carTexture.getHeight(),
             false, false);
 
@@ -866,6 +735,7 @@ public class GameScreen implements Screen {
     @Override
     public void dispose() {
         if (stateSendTask != null) stateSendTask.cancel();
+        stateSendHz = -1; // dispose 뒤에 도착한 빈도 변경은 무시
         if (world != null) world.dispose();
         if (box2DDebugRenderer != null) box2DDebugRenderer.dispose();
         if (map != null) map.dispose();
@@ -881,7 +751,7 @@ public class GameScreen implements Screen {
         disposeTex(minimapFrameTexture, minimapRegion, minimapCarTexture, raceStatusTexture,
             durabilityLabelTexture, tireLabelTexture);
         if (lobbyClient != null) {
-            lobbyClient.onGameState(null);
+            lobbyClient.onNetRate(null);
             lobbyClient.onCountdownStart(null);
             lobbyClient.onCountdownUpdate(null);
             lobbyClient.onRaceResults(null);
@@ -1835,8 +1705,26 @@ public class GameScreen implements Screen {
     @Override
     public void resume() {}
 
+    // GL 스레드에서만 호출 (Timer 태스크도 GL 스레드에서 돈다)
+    private void scheduleStateSend(int hz) {
+        if (hz <= 0 || stateSendHz < 0 || stateSendTask != null && stateSendHz == hz) return;
+        if (stateSendTask != null) stateSendTask.cancel();
+        float interval = 1f / hz;
+        stateSendHz = hz;
+        stateSendTask = Timer.schedule(new Timer.Task() {
+            @Override public void run() { sendState(); }
+        }, interval, interval);
+    }
+
+    // 주행 중에는 서버가 아직 받지 못한 입력을, 그 밖에는 (출발 전, 피트, 완주 뒤) 차 상태를 보낸다
     private void sendState() {
         if (lobbyClient == null || roomId == null || playerCar == null) return;
+        if (prediction.running()) {
+            prediction.fill(inputPacket);
+            if (inputPacket.base != null) inputPacket.base.vehicleIndex = playerVehicles.get(selfId, 0);
+            lobbyClient.sendPlayerInputs(inputPacket);
+            return;
+        }
         Vector2 pos = playerCar.getPosition();
         Packets.PlayerState ps = new Packets.PlayerState();
         ps.playerId = selfId;
@@ -1847,13 +1735,25 @@ public class GameScreen implements Screen {
         ps.velocityY = lv.y;
         ps.angularVelocity = playerCar.getAngularVelocity();
         ps.vehicleIndex = playerVehicles.get(selfId, 0);
-        lobbyClient.sendPlayerState(roomId, ps);
+        long now = System.nanoTime();
+        if (!uplinkReckoning.due(ps, now)) return;
+        lobbyClient.sendPlayerState(roomId, ps, prediction.lastSeq(), prediction.appliedCorrectionId());
+        uplinkReckoning.sent(ps, now);
+    }
+
+    // 서버 상태 (입력 ACK 겸): 예측과 다르면 그 스텝의 서버 상태로 되감고 이후 입력을 다시 시뮬레이션한다
+    private void applyCorrection() {
+        if (lobbyClient == null) return;
+        Packets.PlayerCorrectionPacket c = lobbyClient.takeCorrection();
+        if (c == null || c.state == null) return;
+        prediction.reconcile(c.correctionId, c.inputSeq, c.state, world, playerCar, carPhysics, TIME_STEP);
     }
 
-    private void handleGameState(Packets.GameStatePacket gs) {
-        if (gs == null || gs.playerStates == null) return;
-        long currentTime = System.currentTimeMillis();
-        for (Packets.PlayerState ps : gs.playerStates) {
+    // 렌더 스레드에서 큐를 비우며 호출된다: 텍스처 생성도 여기(GL 스레드)서 한다
+    private void applySnapshot(long serverMillis, long arrivalNanos, Packets.PlayerState[] states, int count) {
+        serverClock.sample(serverMillis, arrivalNanos);
+        for (int i = 0; i < count; i++) {
+            Packets.PlayerState ps = states[i];
             if (ps.playerId == selfId) continue;
             RemoteCar rc = remoteCars.get(ps.playerId);
             if (rc == null) {
@@ -1864,21 +1764,11 @@ public class GameScreen implements Screen {
                 rc.textureOwned = rc.texture != null && rc.texture != carTexture;
                 remoteCars.put(ps.playerId, rc);
             }
-            // 이전 목표 위치/회전 저장 (보간용)
-            rc.prevTargetPosition.set(rc.targetPosition);
-            rc.prevTargetRotation = rc.targetRotation;
-            // 새 목표 위치/회전 설정
-            rc.targetPosition.set(ps.x, ps.y);
-            rc.targetRotation = ps.rotation;
-            // 속도 정보 저장 (외삽용)
-            rc.velocity.set(ps.velocityX, ps.velocityY);
-            rc.angularVelocity = ps.angularVelocity;
-            // 시간 정보 업데이트
-            rc.lastUpdateTime = currentTime;
-            rc.timeSinceUpdate = 0f;
+            // 서버 시각 기준으로 지터 버퍼에 쌓는다 (순서가 뒤바뀐 스냅샷도 제자리에)
+            rc.buffer.add(serverMillis, ps);
             if (!rc.initialized) {
-                rc.position.set(rc.targetPosition);
-                rc.rotation = rc.targetRotation;
+                rc.position.set(ps.x, ps.y);
+                rc.rotation = ps.rotation;
                 rc.initialized = true;
             }
         }
@@ -2239,48 +2129,32 @@ public class GameScreen implements Screen {
 
     // updateGrassZoneCheck() 메서드 제거됨 - Box2D ContactListener에서 자동 처리
 
-    // 네트워크 업데이트 간격 (서버 브로드캐스트 주기)
-    private static final float NETWORK_UPDATE_INTERVAL = 0.033f; // ~30Hz (33ms)
-    // 외삽 최대 시간 (이 시간 이상 지나면 외삽 중지)
-    private static final float MAX_EXTRAPOLATION_TIME = 0.15f; // 150ms
-
-    private void updateRemoteCars(float delta) {
+    /**
+     * 원격 차량을 서버 시각보다 렌더 지연만큼 과거 시점으로 그린다. 지연은 스냅샷 간격과 지터에 맞춰
+     * ServerClock이 정하므로 보통 두 스냅샷 사이를 보간하고, 스냅샷이 늦을 때만 잠깐 외삽한다.
+     * 네트워크 스레드가 쌓은 스냅샷은 프레임마다 여기서 한 번에 가져온다 (remoteCars는 렌더 스레드만 만진다).
+     */
+    private void updateRemoteCars() {
+        if (lobbyClient != null) lobbyClient.gameStates().drain(snapshotSink);
+        if (!serverClock.started()) return;
+        double renderMillis = serverClock.renderMillis(System.nanoTime());
         for (IntMap.Entry<RemoteCar> e : remoteCars) {
             RemoteCar rc = e.value;
-            if (!rc.initialized) continue;
-
-            rc.timeSinceUpdate += delta;
-
-            // 외삽 + 보간 혼합 방식
-            if (rc.timeSinceUpdate < NETWORK_UPDATE_INTERVAL) {
-                // 새 데이터 도착 직후: 목표 위치로 부드럽게 보간
-                float t = rc.timeSinceUpdate / NETWORK_UPDATE_INTERVAL;
-                t = smoothstep(t); // 더 부드러운 보간을 위한 smoothstep
-
-                // 이전 목표에서 새 목표로 보간
-                rc.position.x = MathUtils.lerp(rc.prevTargetPosition.x, rc.targetPosition.x, t);
-                rc.position.y = MathUtils.lerp(rc.prevTargetPosition.y, rc.targetPosition.y, t);
-                rc.rotation = MathUtils.lerpAngle(rc.prevTargetRotation, rc.targetRotation, t);
-            } else if (rc.timeSinceUpdate < MAX_EXTRAPOLATION_TIME) {
-                // 네트워크 지연 시: 속도 기반 외삽
-                float extrapolationTime = rc.timeSinceUpdate - NETWORK_UPDATE_INTERVAL;
-
-                // 속도 기반 위치 예측 (감쇠 적용)
-                float damping = 1.0f - (extrapolationTime / MAX_EXTRAPOLATION_TIME) * 0.5f;
-                v2_tmp1.set(rc.velocity).scl(extrapolationTime * damping);
-                rc.position.set(rc.targetPosition).add(v2_tmp1);
-
-                // 각속도 기반 회전 예측
-                rc.rotation = rc.targetRotation + rc.angularVelocity * extrapolationTime * damping;
-            }
-            // MAX_EXTRAPOLATION_TIME 초과 시: 마지막 외삽 위치 유지 (더 이상 움직이지 않음)
+            if (!rc.initialized || !rc.buffer.sample(renderMillis, remotePose)) continue;
+            rc.position.set(remotePose.x, remotePose.y);
+            rc.rotation = remotePose.rotation;
         }
     }
 
-    // Smoothstep 함수: 더 자연스러운 보간을 위한 이징 함수
-    private float smoothstep(float t) {
-        t = MathUtils.clamp(t, 0f, 1f);
-        return t * t * (3f - 2f * t);
+    private static Vector2[] buildGridSpawns(int count) {
+        Vector2[] spawns = new Vector2[count];
+        for (int i = 0; i < count; i++) {
+            int tileX = 87 + (i % 2) * 3 + (i / 4) * 6;
+            int tileY = 92 + ((i / 2) % 2) * 2;
+            // 오른쪽 19px, 뒤로 11px
+            spawns[i] = new Vector2(((tileX * 32) + 19) / PPM, (((120 - tileY) * 32) - 11) / PPM);
+        }
+        return spawns;
     }
 
     private Texture loadCarTexture(int vehicleIndex) {
@@ -2402,15 +2276,8 @@ public class GameScreen implements Screen {
         int playerId;  // 플레이어 ID 추가 (미니맵 색상 결정용)
         int vehicleIndex;
         final Vector2 position = new Vector2();
-        final Vector2 targetPosition = new Vector2();
-        final Vector2 velocity = new Vector2();        // 속도 정보 (외삽용)
-        final Vector2 prevTargetPosition = new Vector2(); // 이전 목표 위치 (보간용)
         float rotation;
-        float targetRotation;
-        float prevTargetRotation;                       // 이전 목표 회전 (보간용)
-        float angularVelocity;                          // 각속도 (외삽용)
-        long lastUpdateTime;                            // 마지막 업데이트 시간
-        float timeSinceUpdate;                          // 마지막 업데이트 이후 경과 시간
+        final InterpolationBuffer buffer = new InterpolationBuffer(); // 최근 스냅샷 (서버 시각순)
         Texture texture;
         boolean textureOwned;
         boolean initialized = false;
@@ -0,0 +1,112 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+
+/**
+ * Jitter buffer of one remote car's last {@value #CAPACITY} snapshots, keyed by server time. Rendering
+ * samples it at {@link ServerClock#renderMillis}, which normally falls between two snapshots: position and
+ * rotation follow the cubic Hermite curve through both, using the velocities the snapshots carry as its
+ * tangents, so the car moves along its real path instead of cutting corners. Past the newest snapshot it
+ * extrapolates linearly for at most {@value #MAX_EXTRAPOLATION_MILLIS}ms and then holds.
+ *
+ * <p>Plain primitive arrays, no allocation after construction. Not thread-safe.
+ */
+public final class InterpolationBuffer {
+    public static final int CAPACITY = 16;
+    static final long MAX_EXTRAPOLATION_MILLIS = 150;
+    private static final int MASK = CAPACITY - 1;
+
+    /** One sampled position; reused by the caller. */
+    public static final class Pose {
+        public float x, y, rotation;
+    }
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] xs = new float[CAPACITY], ys = new float[CAPACITY], rots = new float[CAPACITY];
+    private final float[] vxs = new float[CAPACITY], vys = new float[CAPACITY], avs = new float[CAPACITY];
+    // head = 가장 오래된 샘플, 시간순으로 정렬된 상태를 유지한다
+    private int head, count;
+
+    public int size() { return count; }
+
+    public void clear() { head = 0; count = 0; }
+
+    /** Server time of the newest snapshot, or {@code Long.MIN_VALUE} if empty. */
+    public long newestMillis() { return count == 0 ? Long.MIN_VALUE : times[slot(count - 1)]; }
+
+    /**
+     * Adds a car's state from the snapshot stamped {@code serverMillis}. Snapshots can arrive out of order
+     * over UDP and are inserted in place; duplicates and ones older than the whole buffer are ignored.
+     * @return false if ignored
+     */
+    public boolean add(long serverMillis, Packets.PlayerState s) {
+        if (count == CAPACITY) {
+            if (serverMillis <= times[head]) return false;
+            head = (head + 1) & MASK;
+            count--;
+        }
+        int at = count;
+        while (at > 0 && times[slot(at - 1)] > serverMillis) at--;
+        if (at > 0 && times[slot(at - 1)] == serverMillis) return false;
+        for (int i = count; i > at; i--) move(slot(i - 1), slot(i));
+        int k = slot(at);
+        times[k] = serverMillis;
+        xs[k] = s.x; ys[k] = s.y; rots[k] = s.rotation;
+        vxs[k] = s.velocityX; vys[k] = s.velocityY; avs[k] = s.angularVelocity;
+        count++;
+        return true;
+    }
+
+    /**
+     * Writes the car's pose at server time {@code renderMillis} into {@code out}.
+     * @return false if the buffer is empty and {@code out} was left alone
+     */
+    public boolean sample(double renderMillis, Pose out) {
+        if (count == 0) return false;
+        int oldest = head;
+        if (renderMillis <= times[oldest]) {
+            set(out, oldest);
+            return true;
+        }
+        int newest = slot(count - 1);
+        if (renderMillis >= times[newest]) {
+            // 다음 스냅샷이 늦다: 속도로 잠깐 외삽하고 그 뒤로는 멈춘다
+            float dt = (float) (Math.min(renderMillis - times[newest], MAX_EXTRAPOLATION_MILLIS) / 1000.0);
+            out.x = xs[newest] + vxs[newest] * dt;
+            out.y = ys[newest] + vys[newest] * dt;
+            out.rotation = rots[newest] + avs[newest] * dt;
+            return true;
+        }
+        int i = count - 2;
+        while (times[slot(i)] > renderMillis) i--;
+        int a = slot(i), b = slot(i + 1);
+        float span = (times[b] - times[a]) / 1000f;
+        float s = (float) ((renderMillis - times[a]) / (times[b] - times[a]));
+        // 에르미트 기저 함수 (접선 = 속도 × 구간 길이)
+        float s2 = s * s, s3 = s2 * s;
+        float h00 = 2 * s3 - 3 * s2 + 1, h10 = s3 - 2 * s2 + s, h01 = -2 * s3 + 3 * s2, h11 = s3 - s2;
+        out.x = h00 * xs[a] + h10 * span * vxs[a] + h01 * xs[b] + h11 * span * vxs[b];
+        out.y = h00 * ys[a] + h10 * span * vys[a] + h01 * ys[b] + h11 * span * vys[b];
+        // 각도는 짧은 쪽으로 돌도록 펼친 뒤 보간한다
+        float rb = rots[a] + wrap(rots[b] - rots[a]);
+        out.rotation = h00 * rots[a] + h10 * span * avs[a] + h01 * rb + h11 * span * avs[b];
+        return true;
+    }
+
+    private int slot(int i) { return (head + i) & MASK; }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        xs[to] = xs[from]; ys[to] = ys[from]; rots[to] = rots[from];
+        vxs[to] = vxs[from]; vys[to] = vys[from]; avs[to] = avs[from];
+    }
+
+    private void set(Pose out, int k) {
+        out.x = xs[k]; out.y = ys[k]; out.rotation = rots[k];
+    }
+
+    private static float wrap(float radians) {
+        double r = Math.IEEEremainder(radians, 2 * Math.PI);
+        return (float) r;
+    }
+}
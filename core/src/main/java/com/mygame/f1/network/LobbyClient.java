@@ -6,31 +6,78 @@ import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Listener.ThreadedListener;
 import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.QuantizedSerializers;
+import com.mygame.f1.shared.StateQuantizer;
+import com.mygame.f1.shared.UplinkRedundancy;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-/** Minimal lobby client for room create/join/ready/start. */
+/**
+ * Minimal lobby client for room create/join/ready/start. When the server it connected to is a room
+ * directory, create/join come back as a redirect to the game server that owns the room; the client then
+ * reconnects there and resends the request, and goes back to the directory after leaving the room.
+ * If the game server drains, the room is moved and the client follows it the same way, reclaiming its
+ * seat with a resume token; see {@link #onRoomMoved}.
+ */
 public class LobbyClient {
+    /** State send rate until the server sends this connection's rate after a create/join. */
+    public static final int DEFAULT_SEND_HZ = 30;
+
     private final Client client;
+    private final SnapshotReceiver snapshots = new SnapshotReceiver();
+    private final SnapshotQueue gameStates = new SnapshotQueue();
+    // 네트워크 스레드가 받은 가장 최근 보정 (렌더 스레드가 가져간다. 나중 보정이 이전 보정을 포함한다)
+    private final AtomicReference<Packets.PlayerCorrectionPacket> correction = new AtomicReference<>();
 
     private Consumer<List<Packets.RoomState>> roomListHandler;
     private Consumer<Packets.RoomState> roomStateHandler;
     private Consumer<Packets.RaceStartPacket> raceStartHandler;
     private Consumer<String> errorHandler;
     private Consumer<Packets.ChatMessage> chatHandler;
-    private Consumer<Packets.GameStatePacket> gameStateHandler;
+    private Consumer<Packets.RoomQueryResponse> roomPageHandler;
+    private Consumer<Packets.RoomDirectoryUpdate> roomDirectoryHandler;
+    private Consumer<Packets.NetRatePacket> netRateHandler;
+    private Consumer<Packets.ResumeRoomResponse> roomMovedHandler;
 
     // Race finish handlers
     private Consumer<Packets.CountdownStartPacket> countdownStartHandler;
     private Consumer<Packets.CountdownUpdatePacket> countdownUpdateHandler;
     private Consumer<Packets.RaceResultsPacket> raceResultsHandler;
 
+    // 마지막 방 목록 (roomId -> 최신 버전의 상태), 목록 요청 시 버전을 보내 바뀐 방만 받는다
+    private final Map<String, Packets.RoomState> knownRooms = new LinkedHashMap<>();
+
+    // 상태 송신 번호 (서버가 손실률을 잰다)와 서버가 정한 송신 빈도
+    private int sendSeq;
+    private volatile int sendHz = DEFAULT_SEND_HZ;
+    // 손실 대비로 함께 보내는 이전 상태 (송신 스레드 전용)
+    private final UplinkRedundancy uplink = UplinkRedundancy.fromSystemProperties();
+
     private CompletableFuture<Packets.CreateRoomResponse> createFuture;
     private CompletableFuture<Packets.JoinRoomResponse> joinFuture;
 
+    // 처음 connect()한 서버 (디렉터리일 수 있음)와 지금 리다이렉트된 게임 서버에 붙어 있는지 여부
+    private volatile String homeHost;
+    private volatile int homeTcpPort, homeUdpPort, connectTimeoutMs;
+    private volatile boolean redirected;
+    // 리다이렉트를 따라갈 때 다시 보낼 방 생성/입장 요청
+    private volatile Object pendingRequest;
+    // 재연결과 로비 요청을 한 줄로 세운다: 재연결이 끝나기 전의 요청이 이전 서버로 가지 않게
+    private final ExecutorService lobbyThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lobby-client");
+        t.setDaemon(true);
+        return t;
+    });
+
     public LobbyClient() {
         this.client = new Client(16384, 8192);
         com.esotericsoftware.minlog.Log.set(com.esotericsoftware.minlog.Log.LEVEL_INFO); // 디버그 로그 최소화
@@ -42,17 +89,24 @@ public class LobbyClient {
 
     public void connect(String host, int tcpPort, int udpPort, int timeoutMs) throws IOException {
         client.connect(timeoutMs, host, tcpPort, udpPort);
+        homeHost = host; homeTcpPort = tcpPort; homeUdpPort = udpPort; connectTimeoutMs = timeoutMs;
+        redirected = false;
     }
 
     public boolean isConnected() { return client.isConnected(); }
 
-    public void close() { client.stop(); }
+    public void close() {
+        lobbyThread.shutdownNow();
+        client.stop();
+    }
 
     public CompletableFuture<Packets.CreateRoomResponse> createRoom(String roomName, String username, int maxPlayers) {
         Packets.CreateRoomRequest req = new Packets.CreateRoomRequest();
         req.roomName = roomName; req.username = username; req.maxPlayers = maxPlayers;
         createFuture = new CompletableFuture<>();
-        client.sendTCP(req);
+        snapshots.reset();
+        pendingRequest = req;
+        sendLobby(req);
         return createFuture;
     }
 
@@ -60,7 +114,9 @@ public class LobbyClient {
         Packets.JoinRoomRequest req = new Packets.JoinRoomRequest();
         req.roomId = roomId; req.username = username;
         joinFuture = new CompletableFuture<>();
-        client.sendTCP(req);
+        snapshots.reset();
+        pendingRequest = req;
+        sendLobby(req);
         return joinFuture;
     }
 
@@ -68,9 +124,40 @@ public class LobbyClient {
         Packets.LeaveRoomRequest req = new Packets.LeaveRoomRequest();
         req.roomId = roomId;
         client.sendTCP(req);
+        if (redirected) lobbyThread.execute(this::reconnectHome);
+    }
+
+    /** Asks for the room list; rooms already held at their current version come back as ids only. */
+    public void requestRoomList() {
+        Packets.RoomListRequest req = new Packets.RoomListRequest();
+        synchronized (knownRooms) {
+            req.knownRoomIds = new String[knownRooms.size()];
+            req.knownVersions = new int[knownRooms.size()];
+            int i = 0;
+            for (Packets.RoomState r : knownRooms.values()) {
+                req.knownRoomIds[i] = r.roomId;
+                req.knownVersions[i++] = r.version;
+            }
+        }
+        sendLobby(req);
+    }
+
+    /**
+     * Asks for one page of rooms matching the filter ({@code null} phase / negative track = any), starting
+     * after {@code cursor}. With {@code subscribe} the server then pushes matching add/change/remove diffs
+     * until {@link #stopBrowsing()}, a create/join, or disconnect.
+     */
+    public void queryRooms(Packets.RoomPhase phase, int trackIndex, int minFreeSlots, String cursor, int limit, boolean subscribe) {
+        Packets.RoomQueryRequest req = new Packets.RoomQueryRequest();
+        req.phase = phase; req.trackIndex = trackIndex; req.minFreeSlots = minFreeSlots;
+        req.cursor = cursor; req.limit = limit; req.subscribe = subscribe;
+        sendLobby(req);
     }
 
-    public void requestRoomList() { client.sendTCP(new Packets.RoomListRequest()); }
+    /** Stops room browser diffs started by {@link #queryRooms}. */
+    public void stopBrowsing() {
+        sendLobby(new Packets.RoomUnsubscribeRequest());
+    }
 
     public void setReady(String roomId, boolean ready) {
         Packets.ReadyRequest req = new Packets.ReadyRequest();
@@ -105,11 +192,45 @@ public class LobbyClient {
     }
 
     public void sendPlayerState(String roomId, Packets.PlayerState state) {
+        sendPlayerState(roomId, state, 0, 0);
+    }
+
+    /**
+     * Sends the local car's state after physics step {@code inputSeq}, acknowledging the newest server
+     * collision correction applied. A non-zero {@code inputSeq} asks the server for corrections. The previous
+     * few states ride along (see {@link UplinkRedundancy}), so one lost packet does not stall the car for others.
+     */
+    public void sendPlayerState(String roomId, Packets.PlayerState state, int inputSeq, int ackCorrectionId) {
         Packets.PlayerStateUpdate upd = new Packets.PlayerStateUpdate();
         upd.roomId = roomId; upd.state = state;
-        client.sendUDP(upd);
+        upd.inputSeq = inputSeq;
+        upd.ackCorrectionId = ackCorrectionId;
+        upd.ackSnapshotId = snapshots.latestId();
+        upd.ackDelayMillis = snapshots.ackDelayMillis();
+        upd.seq = sendSeq++;
+        // 송신 번호가 새로 시작하면(다른 서버로 옮김) 이전 상태는 이어 붙일 수 없다
+        if (upd.seq == 0) uplink.clear();
+        uplink.fill(upd, System.nanoTime());
+        uplink.sent(upd, client.sendUDP(upd));
+    }
+
+    /**
+     * Sends the local car's unacknowledged inputs ({@code CarPrediction.fill}) with the snapshot ack. Shares
+     * the send sequence with {@link #sendPlayerState}, so the server measures loss across both; the server's
+     * corrections acknowledge the inputs.
+     */
+    public void sendPlayerInputs(Packets.PlayerInputPacket inputs) {
+        inputs.ackSnapshotId = snapshots.latestId();
+        inputs.ackDelayMillis = snapshots.ackDelayMillis();
+        inputs.seq = sendSeq++;
+        // 사이에 입력을 보냈으므로 다음 상태에 이전 상태를 송신 번호로 이어 붙일 수 없다
+        uplink.clear();
+        client.sendUDP(inputs);
     }
 
+    /** How often to call {@link #sendPlayerState} or {@link #sendPlayerInputs}, as negotiated with the server for this connection. */
+    public int sendHz() { return sendHz; }
+
     public void sendPlayerFinished(String roomId, int playerId, float totalTime, float[] lapTimes) {
         Packets.PlayerFinishedPacket pkt = new Packets.PlayerFinishedPacket();
         pkt.roomId = roomId;
@@ -119,12 +240,91 @@ public class LobbyClient {
         client.sendTCP(pkt);
     }
 
+    // 방 밖의 요청: 진행 중인 재연결 뒤에 보낸다
+    private void sendLobby(Object request) {
+        lobbyThread.execute(() -> client.sendTCP(request));
+    }
+
+    // 방 생성/입장 요청을 게임 서버로 옮겨 다시 보낸다 (lobbyThread)
+    private void followRedirect(Packets.RedirectResponse res) {
+        Object request = pendingRequest;
+        if (request == null) return;
+        try {
+            client.connect(connectTimeoutMs, res.host, res.tcpPort, res.udpPort);
+            redirected = true;
+            sendSeq = 0;
+            sendHz = DEFAULT_SEND_HZ;
+            client.sendTCP(request);
+        } catch (IOException e) {
+            failPending("game server unreachable: " + res.host + ":" + res.tcpPort);
+            reconnectHome();
+        }
+    }
+
+    // 방이 다른 서버로 옮겨졌다: 그 서버로 연결해 토큰으로 자리를 되찾는다 (lobbyThread)
+    private void followRoom(Packets.RedirectResponse res) {
+        try {
+            client.connect(connectTimeoutMs, res.host, res.tcpPort, res.udpPort);
+            redirected = true;
+            sendSeq = 0;
+            sendHz = DEFAULT_SEND_HZ;
+            snapshots.reset();
+            correction.set(null);
+            Packets.ResumeRoomRequest req = new Packets.ResumeRoomRequest();
+            req.roomId = res.roomId; req.resumeToken = res.resumeToken;
+            client.sendTCP(req);
+        } catch (IOException e) {
+            Packets.ResumeRoomResponse lost = new Packets.ResumeRoomResponse();
+            lost.ok = false; lost.message = "room moved but its new server is unreachable";
+            if (roomMovedHandler != null) roomMovedHandler.accept(lost);
+            reconnectHome();
+        }
+    }
+
+    private void reconnectHome() {
+        if (!redirected) return;
+        try {
+            client.connect(connectTimeoutMs, homeHost, homeTcpPort, homeUdpPort);
+            redirected = false;
+        } catch (IOException e) {
+            if (errorHandler != null) errorHandler.accept("lobby server unreachable: " + e.getMessage());
+        }
+    }
+
+    private void failPending(String message) {
+        if (pendingRequest instanceof Packets.CreateRoomRequest && createFuture != null) {
+            Packets.CreateRoomResponse res = new Packets.CreateRoomResponse();
+            res.ok = false; res.message = message;
+            createFuture.complete(res);
+        } else if (pendingRequest instanceof Packets.JoinRoomRequest && joinFuture != null) {
+            Packets.JoinRoomResponse res = new Packets.JoinRoomResponse();
+            res.ok = false; res.message = message;
+            joinFuture.complete(res);
+        }
+    }
+
     public void onRoomList(Consumer<List<Packets.RoomState>> handler) { this.roomListHandler = handler; }
     public void onRoomState(Consumer<Packets.RoomState> handler) { this.roomStateHandler = handler; }
+    public void onRoomPage(Consumer<Packets.RoomQueryResponse> handler) { this.roomPageHandler = handler; }
+    public void onRoomDirectoryUpdate(Consumer<Packets.RoomDirectoryUpdate> handler) { this.roomDirectoryHandler = handler; }
     public void onRaceStart(Consumer<Packets.RaceStartPacket> handler) { this.raceStartHandler = handler; }
     public void onError(Consumer<String> handler) { this.errorHandler = handler; }
     public void onChat(Consumer<Packets.ChatMessage> handler) { this.chatHandler = handler; }
-    public void onGameState(Consumer<Packets.GameStatePacket> handler) { this.gameStateHandler = handler; }
+    /**
+     * Decoded game state snapshots, filled on the network thread. The render thread drains it once per
+     * frame; nothing else may consume it.
+     */
+    public SnapshotQueue gameStates() { return gameStates; }
+
+    /** The newest server correction of the local car not yet taken, or {@code null}. Render thread. */
+    public Packets.PlayerCorrectionPacket takeCorrection() { return correction.getAndSet(null); }
+    /** Called on the network thread whenever the server changes this connection's rates. */
+    public void onNetRate(Consumer<Packets.NetRatePacket> handler) { this.netRateHandler = handler; }
+    /**
+     * Called when the room moved to another server and the client has reconnected: on success the player
+     * has a new {@code self.playerId}; on failure the player is no longer in a room.
+     */
+    public void onRoomMoved(Consumer<Packets.ResumeRoomResponse> handler) { this.roomMovedHandler = handler; }
 
     public void onCountdownStart(Consumer<Packets.CountdownStartPacket> handler) { this.countdownStartHandler = handler; }
     public void onCountdownUpdate(Consumer<Packets.CountdownUpdatePacket> handler) { this.countdownUpdateHandler = handler; }
@@ -133,19 +333,46 @@ public class LobbyClient {
     private class ClientListener extends Listener {
         @Override public void received(Connection connection, Object object) {
             if (object instanceof Packets.CreateRoomResponse res) {
+                if (!res.ok && redirected) lobbyThread.execute(LobbyClient.this::reconnectHome);
                 if (createFuture != null && !createFuture.isDone()) createFuture.complete(res);
             } else if (object instanceof Packets.JoinRoomResponse res) {
+                if (!res.ok && redirected) lobbyThread.execute(LobbyClient.this::reconnectHome);
                 if (joinFuture != null && !joinFuture.isDone()) joinFuture.complete(res);
+            } else if (object instanceof Packets.RedirectResponse res) {
+                if (res.resumeToken != 0) lobbyThread.execute(() -> followRoom(res));
+                else lobbyThread.execute(() -> followRedirect(res));
+            } else if (object instanceof Packets.ResumeRoomResponse res) {
+                if (!res.ok) lobbyThread.execute(LobbyClient.this::reconnectHome);
+                if (roomMovedHandler != null) roomMovedHandler.accept(res);
             } else if (object instanceof Packets.RoomListResponse res) {
-                if (roomListHandler != null) roomListHandler.accept(res.rooms);
+                List<Packets.RoomState> rooms = mergeRoomList(res);
+                if (roomListHandler != null) roomListHandler.accept(rooms);
+            } else if (object instanceof Packets.RoomQueryResponse res) {
+                if (roomPageHandler != null) roomPageHandler.accept(res);
+            } else if (object instanceof Packets.RoomDirectoryUpdate upd) {
+                if (roomDirectoryHandler != null) roomDirectoryHandler.accept(upd);
             } else if (object instanceof Packets.RoomStatePacket pkt) {
+                synchronized (knownRooms) {
+                    if (pkt.state != null && knownRooms.containsKey(pkt.state.roomId)) knownRooms.put(pkt.state.roomId, pkt.state);
+                }
                 if (roomStateHandler != null) roomStateHandler.accept(pkt.state);
             } else if (object instanceof Packets.RaceStartPacket pkt) {
                 if (raceStartHandler != null) raceStartHandler.accept(pkt);
+            } else if (object instanceof Packets.ChatBatch batch) {
+                if (chatHandler != null && batch.messages != null) {
+                    for (Packets.ChatMessage msg : batch.messages) chatHandler.accept(msg);
+                }
             } else if (object instanceof Packets.ChatMessage msg) {
                 if (chatHandler != null) chatHandler.accept(msg);
             } else if (object instanceof Packets.GameStatePacket gs) {
-                if (gameStateHandler != null) gameStateHandler.accept(gs);
+                if (gs.playerStates != null) gameStates.offer(gs.serverTimestamp, gs.playerStates, gs.playerStates.length);
+            } else if (object instanceof Packets.GameStateDeltaPacket delta) {
+                snapshots.apply(delta, gameStates);
+            } else if (object instanceof Packets.PlayerCorrectionPacket pkt) {
+                correction.accumulateAndGet(pkt, (old, next) -> old == null || next.correctionId > old.correctionId ? next : old);
+            } else if (object instanceof Packets.NetRatePacket pkt) {
+                if (pkt.sendHz > 0) sendHz = pkt.sendHz;
+                if (netRateHandler != null) netRateHandler.accept(pkt);
             } else if (object instanceof Packets.CountdownStartPacket pkt) {
                 if (countdownStartHandler != null) countdownStartHandler.accept(pkt);
             } else if (object instanceof Packets.CountdownUpdatePacket pkt) {
@@ -158,6 +385,25 @@ public class LobbyClient {
         }
     }
 
+    // 바뀐 방은 교체, 그대로인 방은 유지, 응답에 없는 방은 삭제
+    private List<Packets.RoomState> mergeRoomList(Packets.RoomListResponse res) {
+        synchronized (knownRooms) {
+            Map<String, Packets.RoomState> next = new LinkedHashMap<>();
+            if (res.unchangedRoomIds != null) {
+                for (String id : res.unchangedRoomIds) {
+                    Packets.RoomState r = knownRooms.get(id);
+                    if (r != null) next.put(id, r);
+                }
+            }
+            if (res.rooms != null) {
+                for (Packets.RoomState r : res.rooms) next.put(r.roomId, r);
+            }
+            knownRooms.clear();
+            knownRooms.putAll(next);
+            return new ArrayList<>(next.values());
+        }
+    }
+
     private void register(Kryo kryo) {
         kryo.register(Packets.CreateRoomRequest.class);
         kryo.register(Packets.CreateRoomResponse.class);
@@ -193,5 +439,45 @@ public class LobbyClient {
         kryo.register(Packets.RoomPhase.class);
         kryo.register(java.util.ArrayList.class);
         kryo.register(Packets.PlayerState[].class);
+
+        // Delta snapshots
+        kryo.register(Packets.GameStateDeltaPacket.class);
+        kryo.register(byte[].class);
+
+        // 방 목록 버전 비교 (knownRoomIds, unchangedRoomIds)
+        kryo.register(String[].class);
+
+        // Room browser
+        kryo.register(Packets.RoomSummary.class);
+        kryo.register(Packets.RoomSummary[].class);
+        kryo.register(Packets.RoomQueryRequest.class);
+        kryo.register(Packets.RoomQueryResponse.class);
+        kryo.register(Packets.RoomDirectoryUpdate.class);
+        kryo.register(Packets.RoomUnsubscribeRequest.class);
+
+        // Chat batches / history backfill
+        kryo.register(Packets.ChatBatch.class);
+        kryo.register(Packets.ChatMessage[].class);
+
+        // Adaptive snapshot/send rate
+        kryo.register(Packets.NetRatePacket.class);
+
+        // Room sharding
+        kryo.register(Packets.RedirectResponse.class);
+        kryo.register(Packets.ShardHello.class);
+
+        // Drain / room handoff
+        kryo.register(Packets.HandoffPlayer.class);
+        kryo.register(Packets.HandoffPlayer[].class);
+        kryo.register(Packets.RoomHandoff.class);
+        kryo.register(Packets.RoomHandoffResult.class);
+        kryo.register(Packets.ResumeRoomRequest.class);
+        kryo.register(Packets.ResumeRoomResponse.class);
+
+        // Server state of the local car: input acks and collision corrections
+        kryo.register(Packets.PlayerCorrectionPacket.class);
+
+        // 상태 동기화 패킷: 기본 FieldSerializer 대신 양자화 비트 패킹 (등록 ID는 그대로 유지)
+        QuantizedSerializers.register(kryo, StateQuantizer.DEFAULT);
     }
 }
@@ -0,0 +1,147 @@
+package com.mygame.f1.network;
+
+/**
+ * Maps local time to the server's clock from the {@code serverTimestamp} of arriving snapshots, and picks
+ * how far behind the server the client should render remote cars.
+ *
+ * <p>Each arrival gives one sample of {@code local - server}: the true offset plus that packet's one-way
+ * delay. As in NTP's clock filter, the smallest samples are the least delayed, so the offset is the
+ * minimum per {@value #BUCKET_MILLIS}ms bucket over the last {@value #BUCKETS} buckets, and the drift
+ * between the two clocks is the least-squares slope through those minima (bounded to
+ * {@value #MAX_DRIFT_PPM} ppm). A packet's lateness over that floor is its jitter; the render delay
+ * follows the snapshot interval plus the mean lateness and twice its mean deviation, so the newest
+ * snapshot is nearly always later than the render time and cars interpolate instead of extrapolating.
+ *
+ * <p>Not thread-safe: feed and read it from one thread.
+ */
+public final class ServerClock {
+    static final int BUCKETS = 8;
+    static final long BUCKET_MILLIS = 1000;
+    static final double MAX_DRIFT_PPM = 1000;
+    /** Render delay bounds in milliseconds. */
+    public static final double MIN_DELAY_MILLIS = 20, MAX_DELAY_MILLIS = 250;
+    // 오프셋이 이만큼 갑자기 줄면 서버가 바뀐 것으로 보고 처음부터 다시 잰다
+    private static final double RESET_STEP_MILLIS = 500;
+    private static final double GAIN = 1 / 16.0;
+
+    private final double[] bucketMin = new double[BUCKETS];
+    private final double[] bucketAt = new double[BUCKETS];
+    private int bucketCount, bucketHead;
+    private double currentMin, currentAt, currentStart;
+    private double drift;
+
+    // 기준점: 첫 샘플의 로컬/서버 시각 (double 정밀도 유지용)
+    private long baseNanos;
+    private long baseServerMillis;
+    private boolean started;
+    private long lastServerMillis;
+    private double intervalMillis, latenessMillis, deviationMillis, delayMillis;
+
+    public ServerClock() { reset(); }
+
+    /** Forgets every sample, e.g. after moving to another server. */
+    public void reset() {
+        started = false;
+        bucketCount = 0; bucketHead = 0;
+        currentMin = Double.POSITIVE_INFINITY;
+        drift = 0;
+        intervalMillis = 33; latenessMillis = 0; deviationMillis = 0;
+        delayMillis = 100;
+    }
+
+    /** Records a snapshot stamped {@code serverMillis} that arrived at {@code localNanos}. */
+    public void sample(long serverMillis, long localNanos) {
+        if (!started) {
+            baseNanos = localNanos;
+            baseServerMillis = serverMillis;
+            lastServerMillis = serverMillis;
+            currentStart = 0;
+            started = true;
+        }
+        double local = local(localNanos);
+        double offset = local - (serverMillis - baseServerMillis);
+        if (bucketCount + (currentMin < Double.POSITIVE_INFINITY ? 1 : 0) > 0
+                && offset < offsetAt(local) - RESET_STEP_MILLIS) {
+            reset();
+            sample(serverMillis, localNanos);
+            return;
+        }
+        if (local - currentStart >= BUCKET_MILLIS && currentMin < Double.POSITIVE_INFINITY) {
+            bucketMin[bucketHead] = currentMin;
+            bucketAt[bucketHead] = currentAt;
+            bucketHead = (bucketHead + 1) % BUCKETS;
+            if (bucketCount < BUCKETS) bucketCount++;
+            currentMin = Double.POSITIVE_INFINITY;
+            currentStart = local;
+            drift = fitDrift();
+        }
+        if (offset < currentMin) {
+            currentMin = offset;
+            currentAt = local;
+        }
+
+        // 지터: 오프셋 바닥보다 늦게 도착한 정도 (RFC 3550식 평균/평균편차)
+        double late = Math.max(0, offset - offsetAt(local));
+        latenessMillis += (late - latenessMillis) * GAIN;
+        deviationMillis += (Math.abs(late - latenessMillis) - deviationMillis) * GAIN;
+        if (serverMillis > lastServerMillis) {
+            // 큰 공백(일시정지, 재접속)은 간격 추정에서 뺀다
+            long gap = serverMillis - lastServerMillis;
+            if (gap <= MAX_DELAY_MILLIS) intervalMillis += (gap - intervalMillis) * GAIN;
+            lastServerMillis = serverMillis;
+        }
+        double target = clamp(intervalMillis + latenessMillis + 2 * deviationMillis);
+        delayMillis += (target - delayMillis) * GAIN;
+    }
+
+    /** True once a snapshot has been sampled. */
+    public boolean started() { return started; }
+
+    /** The server clock at {@code localNanos}, in epoch milliseconds like {@code serverTimestamp}. */
+    public double serverMillis(long localNanos) {
+        double local = local(localNanos);
+        return baseServerMillis + local - offsetAt(local);
+    }
+
+    /** Server time to render remote cars at: {@link #serverMillis} minus the current render delay. */
+    public double renderMillis(long localNanos) {
+        return serverMillis(localNanos) - delayMillis;
+    }
+
+    public double delayMillis() { return delayMillis; }
+
+    public double jitterMillis() { return deviationMillis; }
+
+    public double driftPpm() { return drift * 1e6; }
+
+    private double local(long localNanos) { return (localNanos - baseNanos) / 1e6; }
+
+    // 버킷별 최솟값을 지금 시각까지 드리프트만큼 옮긴 것 중 가장 작은 값
+    private double offsetAt(double local) {
+        double best = currentMin < Double.POSITIVE_INFINITY ? currentMin + drift * (local - currentAt) : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < bucketCount; i++) {
+            best = Math.min(best, bucketMin[i] + drift * (local - bucketAt[i]));
+        }
+        return best < Double.POSITIVE_INFINITY ? best : 0;
+    }
+
+    private double fitDrift() {
+        if (bucketCount < 3) return 0;
+        double mx = 0, my = 0;
+        for (int i = 0; i < bucketCount; i++) { mx += bucketAt[i]; my += bucketMin[i]; }
+        mx /= bucketCount; my /= bucketCount;
+        double sxy = 0, sxx = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            double dx = bucketAt[i] - mx;
+            sxy += dx * (bucketMin[i] - my);
+            sxx += dx * dx;
+        }
+        if (sxx == 0) return 0;
+        double bound = MAX_DRIFT_PPM / 1e6;
+        return Math.max(-bound, Math.min(bound, sxy / sxx));
+    }
+
+    private static double clamp(double delay) {
+        return Math.max(MIN_DELAY_MILLIS, Math.min(MAX_DELAY_MILLIS, delay));
+    }
+}
@@ -0,0 +1,84 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * Hands decoded snapshots from the network thread to the render thread. A single-producer/single-consumer
+ * ring of {@value #CAPACITY} preallocated slots: the network thread copies each snapshot's states into the
+ * next free slot and publishes it with one volatile write, the render thread drains whatever is published
+ * once per frame. No locks and no allocation on either side. If the render thread stops draining (loading,
+ * a long frame) the ring fills and newer snapshots are dropped until it catches up.
+ */
+public final class SnapshotQueue {
+    public static final int CAPACITY = 64;
+    static final int MAX_STATES = 64;
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * Receives one drained snapshot; the states are only valid during the call. {@code arrivalNanos} is
+     * {@link System#nanoTime()} when the network thread queued it, so clock estimates don't see frame jitter.
+     */
+    public interface Sink {
+        void accept(long serverMillis, long arrivalNanos, Packets.PlayerState[] states, int count);
+    }
+
+    private final long[] serverMillis = new long[CAPACITY];
+    private final long[] arrivalNanos = new long[CAPACITY];
+    private final int[] counts = new int[CAPACITY];
+    private final Packets.PlayerState[][] states = new Packets.PlayerState[CAPACITY][MAX_STATES];
+    // published는 생산자만, consumed는 소비자만 쓴다
+    private volatile long published;
+    private volatile long consumed;
+    private volatile long dropped;
+
+    public SnapshotQueue() {
+        for (Packets.PlayerState[] slot : states) {
+            for (int i = 0; i < MAX_STATES; i++) slot[i] = new Packets.PlayerState();
+        }
+    }
+
+    /**
+     * Copies a snapshot into the ring. Producer (network thread) only.
+     * @return false if the ring is full and the snapshot was dropped
+     */
+    public boolean offer(long serverMillis, Packets.PlayerState[] src, int count) {
+        long n = published;
+        if (n - consumed >= CAPACITY) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (n & MASK);
+        count = Math.min(count, MAX_STATES);
+        Packets.PlayerState[] dst = states[slot];
+        for (int i = 0; i < count; i++) SnapshotCodec.copy(src[i], dst[i]);
+        counts[slot] = count;
+        this.serverMillis[slot] = serverMillis;
+        arrivalNanos[slot] = System.nanoTime();
+        published = n + 1;
+        return true;
+    }
+
+    /**
+     * Passes every published snapshot to {@code sink} in arrival order. Consumer (render thread) only.
+     * @return the number of snapshots drained
+     */
+    public int drain(Sink sink) {
+        long from = consumed, to = published;
+        for (long n = from; n < to; n++) {
+            int slot = (int) (n & MASK);
+            sink.accept(serverMillis[slot], arrivalNanos[slot], states[slot], counts[slot]);
+            // 슬롯을 다 읽은 뒤에 돌려준다
+            consumed = n + 1;
+        }
+        return (int) (to - from);
+    }
+
+    /** Discards everything published so far, e.g. snapshots of a previous race. Consumer only. */
+    public void clear() {
+        consumed = published;
+    }
+
+    /** Snapshots dropped because the ring was full. */
+    public long dropped() { return dropped; }
+}
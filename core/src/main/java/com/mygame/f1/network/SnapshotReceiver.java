@@ -0,0 +1,61 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+import java.util.Arrays;
+
+/**
+ * Client half of delta-compressed snapshots: keeps a ring of decoded snapshots so later deltas can be
+ * applied against whichever baseline the server picked, and tracks the newest id to acknowledge.
+ */
+final class SnapshotReceiver {
+    private static final int RING_SIZE = 32;
+    private static final int MAX_STATES = 64;
+
+    private final int[] ids = new int[RING_SIZE];
+    private final int[] counts = new int[RING_SIZE];
+    private final Packets.PlayerState[][] states = new Packets.PlayerState[RING_SIZE][MAX_STATES];
+    private volatile int latestId = SnapshotCodec.NO_BASELINE;
+    private volatile long latestNanos;
+
+    /** Newest snapshot id decoded so far; sent back to the server as the ack. */
+    int latestId() { return latestId; }
+
+    /** Milliseconds since {@link #latestId()} arrived, so the server can take it out of its RTT sample. */
+    int ackDelayMillis() {
+        if (latestId == SnapshotCodec.NO_BASELINE) return 0;
+        return (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - latestNanos) / 1_000_000L);
+    }
+
+    synchronized void reset() {
+        Arrays.fill(ids, SnapshotCodec.NO_BASELINE);
+        latestId = SnapshotCodec.NO_BASELINE;
+    }
+
+    /**
+     * Decodes a delta packet and hands the snapshot to {@code out}, without allocating.
+     * @return false if its baseline is gone or it is older than the latest one
+     */
+    synchronized boolean apply(Packets.GameStateDeltaPacket pkt, SnapshotQueue out) {
+        if (pkt == null || pkt.payload == null) return false;
+        Packets.PlayerState[] base = null;
+        int baseCount = 0;
+        if (pkt.baselineId != SnapshotCodec.NO_BASELINE) {
+            int baseSlot = Math.floorMod(pkt.baselineId, RING_SIZE);
+            if (ids[baseSlot] != pkt.baselineId) return false; // 기준 스냅샷 없음: 다음 스냅샷을 기다린다
+            base = states[baseSlot];
+            baseCount = counts[baseSlot];
+        }
+        int slot = Math.floorMod(pkt.snapshotId, RING_SIZE);
+        if (base != null && base == states[slot]) return false; // 서버는 RING_SIZE 이내의 기준만 사용한다
+        int count = SnapshotCodec.decode(pkt.payload, pkt.payloadLength, base, baseCount, states[slot]);
+        ids[slot] = pkt.snapshotId;
+        counts[slot] = count;
+        if (pkt.snapshotId <= latestId) return false;
+        latestNanos = System.nanoTime();
+        latestId = pkt.snapshotId;
+        out.offer(pkt.serverTimestamp, states[slot], count);
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.DeadReckoning;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * Decides which of the local car's states are worth sending. Between sends the server moves the car by
+ * {@link DeadReckoning} from the last state it got, so a state only needs to go out once the car has left
+ * that path: by more than {@code positionMeters} or {@code angleDegrees}, or with a new lap or vehicle.
+ * A car on the grid, in the pit minigame or past the finish then costs one heartbeat every
+ * {@code heartbeatMillis}, which also keeps snapshot acks and the link's RTT samples flowing.
+ *
+ * <p>Thresholds come from {@code -Df1.drPositionCm} (default {@value #DEFAULT_POSITION_CM}),
+ * {@code -Df1.drAngleDegrees} (default {@value #DEFAULT_ANGLE_DEGREES}) and {@code -Df1.drHeartbeatMillis}
+ * (default {@value #DEFAULT_HEARTBEAT_MILLIS}; 0 sends every state, as before). Sender thread only.
+ */
+public final class UplinkDeadReckoning {
+    static final int DEFAULT_POSITION_CM = 5;
+    static final int DEFAULT_ANGLE_DEGREES = 3;
+    static final int DEFAULT_HEARTBEAT_MILLIS = 200;
+
+    private final float positionMeters;
+    private final float angleRadians;
+    private final long heartbeatNanos;
+
+    // 서버가 가진 것으로 보는 마지막 송신 상태와 그 시각
+    private final Packets.PlayerState last = new Packets.PlayerState();
+    private final Packets.PlayerState predicted = new Packets.PlayerState();
+    private long lastNanos;
+    private boolean hasLast;
+
+    public UplinkDeadReckoning(float positionMeters, float angleDegrees, long heartbeatMillis) {
+        this.positionMeters = Math.max(0, positionMeters);
+        this.angleRadians = (float) Math.toRadians(Math.max(0, angleDegrees));
+        this.heartbeatNanos = Math.max(0, heartbeatMillis) * 1_000_000L;
+    }
+
+    public static UplinkDeadReckoning fromSystemProperties() {
+        return new UplinkDeadReckoning(Integer.getInteger("f1.drPositionCm", DEFAULT_POSITION_CM) / 100f,
+            Integer.getInteger("f1.drAngleDegrees", DEFAULT_ANGLE_DEGREES),
+            Integer.getInteger("f1.drHeartbeatMillis", DEFAULT_HEARTBEAT_MILLIS));
+    }
+
+    /** True if {@code current} should be sent now; call {@link #sent} when it is. */
+    public boolean due(Packets.PlayerState current, long nowNanos) {
+        if (heartbeatNanos == 0 || !hasLast || nowNanos - lastNanos >= heartbeatNanos
+            || current.currentLap != last.currentLap || current.vehicleIndex != last.vehicleIndex) {
+            return true;
+        }
+        DeadReckoning.predict(last, (nowNanos - lastNanos) / 1_000_000L, predicted);
+        float dx = current.x - predicted.x, dy = current.y - predicted.y;
+        return dx * dx + dy * dy > positionMeters * positionMeters
+            || Math.abs(current.rotation - predicted.rotation) > angleRadians;
+    }
+
+    /** Records that {@code s} went out at {@code nowNanos}; the server reckons from it until the next one. */
+    public void sent(Packets.PlayerState s, long nowNanos) {
+        SnapshotCodec.copy(s, last);
+        lastNanos = nowNanos;
+        hasLast = true;
+    }
+}
@@ -0,0 +1,254 @@
+package com.mygame.f1.physics;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.QuantizedSerializers;
+
+/**
+ * Client-side prediction and server reconciliation for the local car. Every fixed physics step goes
+ * through {@link #step}, which applies {@link CarPhysics} and steps the world, and keeps the step's input
+ * and race factors with the resulting state in a ring numbered by {@code inputSeq}. While driving, the
+ * client sends inputs rather than states: {@link #fill} puts every step the server has not acknowledged
+ * into a {@code PlayerInputPacket}, and the server runs them through the same {@link CarPhysics} on its
+ * own copy of the track. Its state after a step comes back as a correction naming that step, which also
+ * acknowledges it: {@link #reconcile} drops the older steps and, if the server's state differs from the
+ * prediction (a collision with another car, or steps that diverged), puts the car back to it and replays
+ * every later step's input, so the car ends up where it would be had the server's result been known all
+ * along. The jump this causes on screen is kept as a {@link #offsetX() render offset} that decays over
+ * about {@code 1/}{@value #SMOOTHING_RATE}s; corrections larger than {@value #SNAP_DISTANCE}m are shown
+ * at once.
+ *
+ * <p>Each run of steps (from the start lights, after a pit stop) begins at an anchor entry holding the
+ * state the server starts from; it goes out with the inputs until the server acknowledges a step of the
+ * run. A client more than {@value QuantizedSerializers#MAX_INPUTS} steps ahead of the server's
+ * acknowledgements re-anchors at the oldest step it can still send.
+ *
+ * <p>Primitive arrays only; render thread only.
+ */
+public final class CarPrediction {
+    public static final int CAPACITY = 256;
+    static final float SMOOTHING_RATE = 10f;
+    static final float SNAP_DISTANCE = 2f;
+    // 서버 상태가 예측과 이만큼 안에서 같으면 되감지 않는다 (양자화 오차 수준, 서버 Corrections와 같은 값)
+    static final float AGREE_POSITION = 0.005f;
+    static final float AGREE_VELOCITY = 0.02f;
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] seqs = new int[CAPACITY];
+    private final byte[] inputs = new byte[CAPACITY];
+    private final boolean[] colliding = new boolean[CAPACITY];
+    private final float[] speedMultipliers = new float[CAPACITY], tireTurns = new float[CAPACITY], speedScales = new float[CAPACITY];
+    // 스텝 시작/끝의 가속 평활값, 스텝 직후 예측 상태
+    private final float[] throttles = new float[CAPACITY], endThrottles = new float[CAPACITY];
+    private final float[] xs = new float[CAPACITY], ys = new float[CAPACITY], angles = new float[CAPACITY];
+    private final float[] vxs = new float[CAPACITY], vys = new float[CAPACITY], spins = new float[CAPACITY];
+    // head는 서버가 마지막으로 ACK한 스텝 (되감기 기준), anchored면 아직 ACK가 없는 구간의 시작점
+    private int head, count;
+    private boolean anchored;
+    private final Packets.PlayerState base = new Packets.PlayerState();
+    private int lastSeq;
+    private int appliedCorrectionId;
+    private boolean replaying;
+    private float lastError;
+    private int replayedSteps;
+    private float offsetX, offsetY, offsetAngle;
+    private final CarPhysics.Controls replayControls = new CarPhysics.Controls();
+
+    /**
+     * Applies {@code physics} to the car with this step's input, steps the world and records the result.
+     * The race factors are used as the server will receive them ({@link QuantizedSerializers#factor}).
+     * The first step after {@link #clear} starts a run from the car's current state with no throttle.
+     * @return the step's {@code inputSeq}
+     */
+    public int step(World world, Body car, CarPhysics physics, CarPhysics.Controls controls, float speedMultiplier,
+                    boolean collidingNow, float tireTurnMultiplier, float speedScale, float timeStep) {
+        if (count == 0) {
+            // 새 구간: 서버가 시뮬레이션을 시작할 상태를 직전 스텝 번호로 기록한다
+            physics.reset();
+            save(push(lastSeq), car, physics);
+            anchored = true;
+        }
+        int k = push(++lastSeq);
+        inputs[k] = (byte) controls.bits();
+        colliding[k] = collidingNow;
+        speedMultipliers[k] = QuantizedSerializers.factor(speedMultiplier);
+        tireTurns[k] = QuantizedSerializers.factor(tireTurnMultiplier);
+        speedScales[k] = QuantizedSerializers.factor(speedScale);
+        throttles[k] = physics.throttle();
+        physics.update(car, controls, speedMultipliers[k], collidingNow, tireTurns[k], speedScales[k], timeStep);
+        world.step(timeStep, 8, 3);
+        save(k, car, physics);
+        return lastSeq;
+    }
+
+    /**
+     * Puts every step the server has not acknowledged into {@code p}, oldest first, and the run's anchor
+     * state while none of its steps is acknowledged. Reuse {@code p}: its arrays are allocated on the first
+     * call; {@code p.base} is owned by this object.
+     */
+    public void fill(Packets.PlayerInputPacket p) {
+        int max = QuantizedSerializers.MAX_INPUTS;
+        if (p.controls == null || p.controls.length < max) {
+            p.controls = new byte[max];
+            p.speedMultipliers = new float[max]; p.tireTurns = new float[max]; p.speedScales = new float[max];
+        }
+        if (count - 1 > max) {
+            // 서버 ACK가 한참 없다: 한 패킷에 실을 수 있는 가장 오래된 스텝 직전 상태에서 새 구간을 시작한다
+            int drop = count - 1 - max;
+            head = (head + drop) & MASK;
+            count -= drop;
+            anchored = true;
+        }
+        int n = Math.max(0, count - 1);
+        p.inputSeq = lastSeq;
+        p.count = n;
+        for (int i = 0; i < n; i++) {
+            int j = (head + 1 + i) & MASK;
+            p.controls[i] = (byte) (inputs[j] | (colliding[j] ? Packets.PlayerInputPacket.COLLIDING : 0));
+            p.speedMultipliers[i] = speedMultipliers[j]; p.tireTurns[i] = tireTurns[j]; p.speedScales[i] = speedScales[j];
+        }
+        if (anchored && count > 0) {
+            base.x = xs[head]; base.y = ys[head]; base.rotation = angles[head];
+            base.velocityX = vxs[head]; base.velocityY = vys[head]; base.angularVelocity = spins[head];
+            p.baseSeq = seqs[head];
+            p.baseThrottle = endThrottles[head];
+            p.base = base;
+        } else {
+            p.baseSeq = 0;
+            p.base = null;
+        }
+    }
+
+    /** Forgets unacknowledged steps, e.g. while the car is held at the start or after the finish. */
+    public void clear() {
+        head = 0; count = 0;
+        anchored = false;
+    }
+
+    /** {@code inputSeq} of the newest step, sent with the car's state; 0 before the first. */
+    public int lastSeq() { return lastSeq; }
+
+    /** Id of the newest correction applied, acknowledged to the server with each state. */
+    public int appliedCorrectionId() { return appliedCorrectionId; }
+
+    /** True once steps have been recorded since the last {@link #clear}. */
+    public boolean running() { return count > 0; }
+
+    /** True while {@link #reconcile} replays steps, so contact callbacks can skip one-off effects. */
+    public boolean replaying() { return replaying; }
+
+    /** Distance between the prediction and the server's state at the step of the last correction. */
+    public float lastError() { return lastError; }
+
+    /** Steps replayed by the last correction. */
+    public int replayedSteps() { return replayedSteps; }
+
+    /**
+     * Applies the server's state {@code s} for step {@code inputSeq}: drops the older steps and, unless
+     * {@code s} agrees with the prediction, rewinds the car to it and replays the later steps. Corrections
+     * are applied once each and only the newest counts, since each one is built from states that already
+     * include the earlier ones.
+     * @return false if the correction was stale or its step is no longer held (the car is left as is)
+     */
+    public boolean reconcile(int correctionId, int inputSeq, Packets.PlayerState s, World world, Body car,
+                             CarPhysics physics, float timeStep) {
+        if (correctionId <= appliedCorrectionId) return false;
+        appliedCorrectionId = correctionId;
+        int at = indexOf(inputSeq);
+        if (at < 0) return false;
+        int k = (head + at) & MASK;
+        lastError = Vector2.len(xs[k] - s.x, ys[k] - s.y);
+        // 이 스텝 이전 기록은 더 필요 없다 (서버가 이 스텝까지 받았다)
+        head = k;
+        count -= at;
+        if (at > 0) anchored = false;
+        if (agrees(k, s)) {
+            replayedSteps = 0;
+            return true;
+        }
+
+        Vector2 before = car.getPosition();
+        float beforeX = before.x, beforeY = before.y, beforeAngle = car.getAngle();
+        car.setTransform(s.x, s.y, s.rotation);
+        car.setLinearVelocity(s.velocityX, s.velocityY);
+        car.setAngularVelocity(s.angularVelocity);
+        save(k, car, physics);
+        replaying = true;
+        try {
+            for (int i = 1; i < count; i++) {
+                int j = (head + i) & MASK;
+                replayControls.set(inputs[j]);
+                physics.throttle(throttles[j]);
+                physics.update(car, replayControls, speedMultipliers[j], colliding[j], tireTurns[j], speedScales[j], timeStep);
+                world.step(timeStep, 8, 3);
+                save(j, car, physics);
+            }
+        } finally {
+            replaying = false;
+        }
+        replayedSteps = count - 1;
+
+        // 화면에서는 이전 위치에서 새 위치로 서서히 옮겨 간다
+        Vector2 after = car.getPosition();
+        offsetX += beforeX - after.x;
+        offsetY += beforeY - after.y;
+        offsetAngle += wrap(beforeAngle - car.getAngle());
+        if (Vector2.len(offsetX, offsetY) > SNAP_DISTANCE) {
+            offsetX = offsetY = offsetAngle = 0;
+        }
+        return true;
+    }
+
+    /** Shrinks the render offset; once per frame. */
+    public void decay(float delta) {
+        float keep = (float) Math.exp(-SMOOTHING_RATE * delta);
+        offsetX *= keep; offsetY *= keep; offsetAngle *= keep;
+    }
+
+    /** Add to the car's body position/angle when drawing it. */
+    public float offsetX() { return offsetX; }
+
+    public float offsetY() { return offsetY; }
+
+    public float offsetAngle() { return offsetAngle; }
+
+    private int indexOf(int seq) {
+        if (count == 0) return -1;
+        int at = seq - seqs[head];
+        if (at < 0 || at >= count) return -1;
+        return seqs[(head + at) & MASK] == seq ? at : -1;
+    }
+
+    // 링 끝에 seq 칸을 잡는다 (가득 차면 가장 오래된 칸을 버리고, 구간 시작점이 없어졌으므로 다시 잡는다)
+    private int push(int seq) {
+        if (count == CAPACITY) {
+            head = (head + 1) & MASK;
+            count--;
+            anchored = true;
+        }
+        int k = (head + count++) & MASK;
+        seqs[k] = seq;
+        return k;
+    }
+
+    private boolean agrees(int k, Packets.PlayerState s) {
+        return Math.abs(xs[k] - s.x) <= AGREE_POSITION && Math.abs(ys[k] - s.y) <= AGREE_POSITION
+            && Math.abs(vxs[k] - s.velocityX) <= AGREE_VELOCITY && Math.abs(vys[k] - s.velocityY) <= AGREE_VELOCITY;
+    }
+
+    private void save(int k, Body car, CarPhysics physics) {
+        Vector2 p = car.getPosition();
+        xs[k] = p.x; ys[k] = p.y; angles[k] = car.getAngle();
+        Vector2 v = car.getLinearVelocity();
+        vxs[k] = v.x; vys[k] = v.y; spins[k] = car.getAngularVelocity();
+        endThrottles[k] = physics.throttle();
+    }
+
+    private static float wrap(float radians) {
+        return (float) Math.IEEEremainder(radians, MathUtils.PI2);
+    }
+}
@@ -452,7 +452,7 @@ public class MultiplayerPlaceholderScreen implements Screen {
         connectThread.setDaemon(true);
         connectThread.start();
 
-        client.onRoomList(rooms -> Gdx.app.postRunnable(() -> handleRoomList(rooms)));
+        client.onRoomPage(page -> Gdx.app.postRunnable(() -> handleRoomPage(page)));
         client.onRoomState(state -> Gdx.app.postRunnable(() -> {
             lastRoomState = state;
             if (state != null) {
@@ -494,16 +494,29 @@ public class MultiplayerPlaceholderScreen implements Screen {
         }));
         client.onChat(msg -> Gdx.app.postRunnable(() -> appendChat(chatTable, chatScroll, msg.sender, msg.text, msg.ts)));
         client.onError(msg -> Gdx.app.postRunnable(() -> setStatus("Error: " + msg)));
+        // 서버 드레인으로 방이 다른 서버로 옮겨지면 새 연결의 플레이어 ID로 바꾼다
+        client.onRoomMoved(res -> Gdx.app.postRunnable(() -> {
+            if (!res.ok) {
+                currentRoomId = null;
+                leaveRoom();
+                setStatus("Room lost: " + res.message);
+                return;
+            }
+            selfId = res.self.playerId;
+            lastRoomState = res.state;
+            setStatus("Room moved to another server");
+            renderPlayers(res.state);
+            updateStartButton();
+        }));
     }
 
-    private void handleRoomList(List<Packets.RoomState> rooms) {
+    private void handleRoomPage(Packets.RoomQueryResponse page) {
         if (currentRoomId != null) return;
         if (creatingRoom || joiningRoom) return;
-        if (rooms == null || rooms.isEmpty()) {
+        if (page.rooms == null || page.rooms.length == 0) {
             createRoomAuto();
         } else {
-            Packets.RoomState r = rooms.get(0);
-            joinRoom(r.roomId, safeName(game.playerName));
+            joinRoom(page.rooms[0].roomId, safeName(game.playerName));
         }
     }
 
@@ -522,7 +535,6 @@ public class MultiplayerPlaceholderScreen implements Screen {
             selfId = res.self.playerId;
             isReady = false;
             setStatus("Created room " + res.roomId);
-            refreshRooms();
         }));
     }
 
@@ -550,9 +562,10 @@ public class MultiplayerPlaceholderScreen implements Screen {
         }));
     }
 
+    // 빈자리가 있는 대기 방 하나만 받아 온다 (전체 목록 대신 서버 인덱스로 필터)
     private void refreshRooms() {
         if (!client.isConnected()) { setStatus("Not connected"); return; }
-        client.requestRoomList();
+        client.queryRooms(Packets.RoomPhase.WAITING, -1, 1, null, 1, false);
     }
 
     private void toggleReady() {
@@ -0,0 +1,111 @@
+package com.mygame.f1.network;
+
+import com.mygame.f1.shared.Packets;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link SnapshotQueue} under real concurrency: a network-like producer thread offers snapshots at 2kHz
+ * for two seconds while a render-like thread drains at 60Hz, now and then stalling long enough for the
+ * ring to fill. Every snapshot stamps its sequence number into every field of every state, so a slot read
+ * while being rewritten shows up as a mix. The drained sequence must be exactly the accepted offers, in
+ * order, and accepted plus {@link SnapshotQueue#dropped()} must equal what was offered.
+ */
+class SnapshotQueueTest {
+    private static final long DURATION_NANOS = 2_000_000_000L;
+    private static final long OFFER_NANOS = 500_000L;
+    private static final long FRAME_NANOS = 16_666_667L;
+    // 이 프레임마다 로딩처럼 멈춰 링이 차게 한다 (CAPACITY개를 2kHz로 채우는 32ms보다 길게)
+    private static final int STALL_EVERY = 20;
+    private static final long STALL_NANOS = 80_000_000L;
+
+    @Test
+    void producerAndDrainerAgreeUnderLoad() throws Exception {
+        SnapshotQueue queue = new SnapshotQueue();
+        // 받아들여진 제안의 순번 (생산자만 쓴다): 소비자가 본 순번과 그대로 같아야 한다
+        long[] accepted = new long[(int) (DURATION_NANOS / OFFER_NANOS) * 2];
+        int[] acceptedCount = {0};
+        long[] offered = {0};
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            Packets.PlayerState[] src = new Packets.PlayerState[SnapshotQueue.MAX_STATES];
+            for (int i = 0; i < src.length; i++) src[i] = new Packets.PlayerState();
+            long start = System.nanoTime(), next = start;
+            for (long seq = 1; System.nanoTime() - start < DURATION_NANOS; seq++) {
+                int count = 1 + (int) (seq % SnapshotQueue.MAX_STATES);
+                for (int i = 0; i < count; i++) stamp(src[i], seq, i);
+                offered[0]++;
+                if (queue.offer(seq, src, count)) accepted[acceptedCount[0]++] = seq;
+                next += OFFER_NANOS;
+                while (System.nanoTime() < next) Thread.onSpinWait();
+            }
+        }, "producer");
+        producer.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+
+        long[] seen = new long[accepted.length];
+        int[] seenCount = {0};
+        SnapshotQueue.Sink check = (serverMillis, arrivalNanos, states, count) -> {
+            long previous = seenCount[0] == 0 ? 0 : seen[seenCount[0] - 1];
+            assertTrue(serverMillis > previous, "snapshot " + serverMillis + " after " + previous);
+            assertEquals(1 + (int) (serverMillis % SnapshotQueue.MAX_STATES), count, "count of " + serverMillis);
+            for (int i = 0; i < count; i++) assertStamped(states[i], serverMillis, i);
+            seen[seenCount[0]++] = serverMillis;
+        };
+        producer.start();
+        int frames = 0;
+        while (producer.isAlive()) {
+            try {
+                queue.drain(check);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                break;
+            }
+            LockSupport.parkNanos(++frames % STALL_EVERY == 0 ? STALL_NANOS : FRAME_NANOS);
+        }
+        producer.join();
+        assertNull(failure.get(), () -> "failed: " + failure.get());
+        queue.drain(check);
+
+        long seconds = DURATION_NANOS / 1_000_000_000L;
+        assertTrue(offered[0] >= 1000 * seconds, "producer offered " + offered[0] + " in " + seconds + "s");
+        assertTrue(queue.dropped() > 0, "the stalls never filled the ring");
+        assertEquals(offered[0], acceptedCount[0] + queue.dropped(), "offers = accepted + dropped");
+        assertEquals(acceptedCount[0], seenCount[0], "drained snapshots");
+        for (int i = 0; i < seenCount[0]; i++) assertEquals(accepted[i], seen[i], "drained snapshot " + i);
+    }
+
+    // 상태의 모든 필드에 순번과 차 번호를 새긴다
+    private static void stamp(Packets.PlayerState s, long seq, int car) {
+        int v = (int) seq;
+        s.playerId = car;
+        s.x = v; s.y = -v;
+        s.rotation = v + 0.5f;
+        s.velocityX = v + 1; s.velocityY = v + 2;
+        s.angularVelocity = v + 3;
+        s.currentLap = v;
+        s.lapTime = v + 4;
+        s.vehicleIndex = v ^ car;
+    }
+
+    private static void assertStamped(Packets.PlayerState s, long seq, int car) {
+        Packets.PlayerState expected = new Packets.PlayerState();
+        stamp(expected, seq, car);
+        String what = "car " + car + " of snapshot " + seq;
+        assertEquals(expected.playerId, s.playerId, what);
+        assertEquals(expected.x, s.x, what);
+        assertEquals(expected.y, s.y, what);
+        assertEquals(expected.rotation, s.rotation, what);
+        assertEquals(expected.velocityX, s.velocityX, what);
+        assertEquals(expected.velocityY, s.velocityY, what);
+        assertEquals(expected.angularVelocity, s.angularVelocity, what);
+        assertEquals(expected.currentLap, s.currentLap, what);
+        assertEquals(expected.lapTime, s.lapTime, what);
+        assertEquals(expected.vehicleIndex, s.vehicleIndex, what);
+    }
+}
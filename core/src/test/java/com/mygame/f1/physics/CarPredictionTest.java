@@ -0,0 +1,431 @@
+package com.mygame.f1.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.mygame.f1.shared.BitReader;
+import com.mygame.f1.shared.BitWriter;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.QuantizedSerializers;
+import com.mygame.f1.shared.StateQuantizer;
+import com.mygame.f1.shared.UplinkRedundancy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link CarPrediction} against collision corrections. The scenario is {@code ReconciliationBenchmark}'s:
+ * a car weaves at 60Hz, and once a second the simulated server shoves the state it received sideways and
+ * damps it. The correction is quantized as on the wire and comes back one way later. A reference car gets
+ * each shove at the exact step. The drawn car (render offset included) must stay within a bound of the
+ * reference for each round trip, and far closer than ignoring corrections would. Separate cases cover the
+ * rewind and replay themselves and the smoothing and snap of the render offset.
+ */
+class CarPredictionTest {
+    private static final float TIME_STEP = 1 / 60f;
+    private static final int PUSH_EVERY = 60;
+    private static final float PUSH = 0.12f;
+    private static final float DAMPING = 0.3f;
+    private static final int LOG = 64;
+    private static final int RESTART_EVERY = 300;
+    private static final int STEPS = 20 * 60;
+    private static final float START_X = 30f, START_Y = 20f;
+    // 입력 모드: 30Hz 송신, 밀리지 않은 동안 100ms마다 서버 상태
+    private static final int SEND_EVERY = 2;
+    private static final int SYNC_EVERY = 6;
+
+    private World clientWorld, referenceWorld;
+    private Body client, reference;
+    private CarPhysics clientPhysics, referencePhysics;
+    private final CarPhysics.Controls left = new CarPhysics.Controls();
+    private final CarPhysics.Controls right = new CarPhysics.Controls();
+
+    @BeforeAll
+    static void natives() {
+        Box2D.init();
+    }
+
+    @BeforeEach
+    void cars() {
+        clientWorld = new World(new Vector2(0, 0), true);
+        referenceWorld = new World(new Vector2(0, 0), true);
+        clientPhysics = new CarPhysics();
+        referencePhysics = new CarPhysics();
+        client = clientPhysics.createBody(clientWorld, START_X, START_Y, (float) Math.PI / 2f);
+        reference = referencePhysics.createBody(referenceWorld, START_X, START_Y, (float) Math.PI / 2f);
+        left.accelerate = true; left.left = true;
+        right.accelerate = true; right.right = true;
+    }
+
+    @AfterEach
+    void dispose() {
+        clientWorld.dispose();
+        referenceWorld.dispose();
+    }
+
+    // 벤치마크 측정값(평균 0.037 / 0.053 / 0.107m, 최대 0.24 / 0.31 / 0.47m)에 여유를 둔 한도
+    @ParameterizedTest(name = "rtt {0}ms")
+    @CsvSource({"50, 0.06, 0.35", "100, 0.09, 0.45", "200, 0.16, 0.65"})
+    void drawnErrorStaysWithinBoundPerRtt(int rtt, double maxMean, double maxError) {
+        Run reconciled = drive(rtt, true);
+        assertTrue(reconciled.replays >= STEPS / PUSH_EVERY - 2, "replays " + reconciled.replays);
+        assertTrue(reconciled.mean() <= maxMean, "mean drawn error " + reconciled.mean() + "m at " + rtt + "ms");
+        assertTrue(reconciled.max <= maxError, "max drawn error " + reconciled.max + "m at " + rtt + "ms");
+        // 다시 시뮬레이션한 직후의 물리 상태는 양자화 오차 수준으로 기준 차와 같아야 한다
+        assertTrue(reconciled.afterReplayMean() < 0.005, "physics error after replay " + reconciled.afterReplayMean() + "m");
+
+        cars();
+        Run ignored = drive(rtt, false);
+        assertTrue(reconciled.mean() * 5 < ignored.mean(),
+            "reconcile " + reconciled.mean() + "m vs ignoring corrections " + ignored.mean() + "m");
+    }
+
+    // 입력 모드: 서버가 받은 입력으로 직접 시뮬레이션하므로 밀린 때만 되감고, 업링크는 상태보다 작아야 한다
+    @ParameterizedTest(name = "inputs, rtt {0}ms")
+    @CsvSource({"50, 0.06, 0.35", "100, 0.09, 0.45", "200, 0.16, 0.65"})
+    void inputDrivenErrorStaysWithinBoundPerRtt(int rtt, double maxMean, double maxError) {
+        InputRun run = driveByInputs(rtt);
+        System.out.printf("inputs at %dms RTT: drawn error mean %.3fm max %.3fm, %d rewinds of %d server states, "
+                + "uplink %.0f B/s (states %.0f B/s)%n", rtt, run.drawn.mean(), run.drawn.max, run.drawn.replays,
+            run.syncs, run.inputBytes / (STEPS * TIME_STEP), run.stateBytes / (STEPS * TIME_STEP));
+        int pushes = STEPS / PUSH_EVERY;
+        assertTrue(run.drawn.mean() <= maxMean, "mean drawn error " + run.drawn.mean() + "m at " + rtt + "ms");
+        assertTrue(run.drawn.max <= maxError, "max drawn error " + run.drawn.max + "m at " + rtt + "ms");
+        // 같은 입력이면 서버와 클라이언트가 같은 상태에 오므로 밀린 때만 되감는다
+        assertTrue(run.drawn.replays >= pushes - 2 && run.drawn.replays <= pushes + 2, "rewinds " + run.drawn.replays);
+        assertTrue(run.syncs > run.drawn.replays * 2, "server states " + run.syncs);
+        assertTrue(run.drawn.afterReplayMean() < 0.005, "physics error after replay " + run.drawn.afterReplayMean() + "m");
+        assertTrue(run.inputBytes < run.stateBytes, "input uplink " + run.inputBytes + "B vs states " + run.stateBytes + "B");
+    }
+
+    @Test
+    void agreeingStateOnlyAcknowledgesAndReplayReproducesThePrediction() {
+        CarPrediction prediction = new CarPrediction();
+        Packets.PlayerState at = new Packets.PlayerState();
+        Packets.PlayerState later = new Packets.PlayerState();
+        for (int k = 1; k <= 30; k++) {
+            int seq = prediction.step(clientWorld, client, clientPhysics, k < 15 ? left : right, 1f, false, 1f, 1f, TIME_STEP);
+            if (seq == 10) sample(client, at);
+            if (seq == 12) sample(client, later);
+        }
+        Vector2 before = client.getPosition().cpy();
+        float angle = client.getAngle();
+
+        // 서버 상태가 예측과 같으면 그 스텝까지 ACK만 하고 차는 그대로 둔다
+        assertTrue(prediction.reconcile(1, 10, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertEquals(0, prediction.replayedSteps());
+        assertEquals(0f, prediction.lastError(), 1e-6f);
+        assertEquals(before.x, client.getPosition().x);
+        assertEquals(before.y, client.getPosition().y);
+
+        // 되감을 만큼 다르면 같은 입력을 다시 돌리고, 원래 상태로 되감으면 같은 자리에 온다
+        later.velocityX += CarPrediction.AGREE_VELOCITY * 2;
+        assertTrue(prediction.reconcile(2, 12, later, clientWorld, client, clientPhysics, TIME_STEP));
+        assertEquals(18, prediction.replayedSteps());
+        later.velocityX -= CarPrediction.AGREE_VELOCITY * 2;
+        for (int i = 0; i < 2; i++) {
+            // 두 번째는 보정 id만 새로 받은 같은 상태라 ACK만 한다
+            assertTrue(prediction.reconcile(3 + i, 12, later, clientWorld, client, clientPhysics, TIME_STEP));
+        }
+        assertEquals(0, prediction.replayedSteps());
+        assertEquals(before.x, client.getPosition().x, 1e-4f);
+        assertEquals(before.y, client.getPosition().y, 1e-4f);
+        assertEquals(angle, client.getAngle(), 1e-4f);
+
+        // 이미 적용한 보정과 기록 밖의 스텝은 무시한다
+        assertFalse(prediction.reconcile(1, 14, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertFalse(prediction.reconcile(5, 5, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertFalse(prediction.reconcile(6, 99, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertEquals(6, prediction.appliedCorrectionId());
+    }
+
+    @Test
+    void smallCorrectionIsSmoothedAndLargeOneSnaps() {
+        CarPrediction prediction = new CarPrediction();
+        Packets.PlayerState at = new Packets.PlayerState();
+        for (int k = 1; k <= 20; k++) {
+            int seq = prediction.step(clientWorld, client, clientPhysics, left, 1f, false, 1f, 1f, TIME_STEP);
+            if (seq == 10) sample(client, at);
+        }
+        float push = 0.5f;
+        at.x += push;
+        Vector2 before = client.getPosition().cpy();
+        assertTrue(prediction.reconcile(1, 10, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertEquals(push, prediction.lastError(), 1e-4f);
+        // 그린 위치는 보정 직후 그대로이고, 물리 위치만 옮겨졌다
+        assertEquals(before.x, client.getPosition().x + prediction.offsetX(), 1e-4f);
+        assertEquals(before.y, client.getPosition().y + prediction.offsetY(), 1e-4f);
+        float offset = Vector2.len(prediction.offsetX(), prediction.offsetY());
+        assertTrue(offset > push / 2, "render offset " + offset);
+
+        // 1/SMOOTHING_RATE초에 1/e로 줄어든다
+        for (int i = 0; i < 6; i++) prediction.decay(TIME_STEP);
+        float tenth = Vector2.len(prediction.offsetX(), prediction.offsetY());
+        assertEquals(offset * Math.exp(-CarPrediction.SMOOTHING_RATE * 6 * TIME_STEP), tenth, 1e-4);
+        for (int i = 0; i < 30; i++) prediction.decay(TIME_STEP);
+        assertTrue(Vector2.len(prediction.offsetX(), prediction.offsetY()) < offset * 0.01f);
+
+        // SNAP_DISTANCE보다 큰 보정은 바로 보인다
+        for (int k = 21; k <= 40; k++) {
+            int seq = prediction.step(clientWorld, client, clientPhysics, right, 1f, false, 1f, 1f, TIME_STEP);
+            if (seq == 30) sample(client, at);
+        }
+        at.x += CarPrediction.SNAP_DISTANCE + 1;
+        assertTrue(prediction.reconcile(2, 30, at, clientWorld, client, clientPhysics, TIME_STEP));
+        assertEquals(0f, prediction.offsetX());
+        assertEquals(0f, prediction.offsetY());
+        assertEquals(0f, prediction.offsetAngle());
+    }
+
+    /** Drawn error of one run: mean and max against the reference, and physics error right after replays. */
+    private static final class Run {
+        double errorSum, max, afterReplaySum;
+        int samples, replays;
+
+        double mean() { return errorSum / Math.max(1, samples); }
+
+        double afterReplayMean() { return afterReplaySum / Math.max(1, replays); }
+    }
+
+    // ReconciliationBenchmark와 같은 시나리오를 STEPS 스텝 돌린다
+    private Run drive(int rtt, boolean reconcile) {
+        CarPrediction prediction = new CarPrediction();
+        int oneWay = Math.round(rtt / 2f / 1000f / TIME_STEP);
+        Packets.PlayerState[] uploads = new Packets.PlayerState[LOG];
+        Packets.PlayerState[] corrections = new Packets.PlayerState[LOG];
+        int[] correctionSeqs = new int[LOG];
+        for (int i = 0; i < LOG; i++) {
+            uploads[i] = new Packets.PlayerState();
+            corrections[i] = new Packets.PlayerState();
+        }
+        BitWriter bits = new BitWriter(32);
+        BitReader reader = new BitReader();
+        int correctionId = 0;
+        Run run = new Run();
+        for (int k = 1; k <= STEPS; k++) {
+            if (k % RESTART_EVERY == 0) {
+                restart(client, clientPhysics);
+                restart(reference, referencePhysics);
+                prediction.clear();
+            }
+            // 이번 스텝에 도착한 보정 (GameScreen과 같이 스텝 전에 적용)
+            int slot = k % LOG;
+            if (correctionSeqs[slot] != 0) {
+                int seq = correctionSeqs[slot];
+                correctionSeqs[slot] = 0;
+                if (reconcile && prediction.reconcile(++correctionId, seq, corrections[slot], clientWorld, client, clientPhysics, TIME_STEP)) {
+                    run.afterReplaySum += distance(client, reference);
+                    run.replays++;
+                }
+            }
+
+            CarPhysics.Controls controls = (k / 45 & 1) == 0 ? left : right;
+            int seq = prediction.step(clientWorld, client, clientPhysics, controls, 1f, false, 1f, 1f, TIME_STEP);
+            referencePhysics.update(reference, controls, TIME_STEP);
+            referenceWorld.step(TIME_STEP, 8, 3);
+            if (pushed(seq)) push(reference);
+
+            // 업로드는 편도 지연 후 서버에 도착하고, 밀린 상태는 양자화되어 다시 편도 지연 후 돌아온다
+            sample(client, uploads[seq % LOG]);
+            int arrived = seq - oneWay;
+            if (arrived > 0 && pushed(arrived)) {
+                int back = (k + oneWay) % LOG;
+                Packets.PlayerState c = corrections[back];
+                bits.reset();
+                StateQuantizer.DEFAULT.write(uploads[arrived % LOG], bits);
+                reader.reset(bits.buffer(), bits.flush());
+                StateQuantizer.DEFAULT.read(reader, c);
+                c.x += PUSH;
+                c.velocityX *= DAMPING; c.velocityY *= DAMPING;
+                correctionSeqs[back] = arrived;
+            }
+
+            Vector2 p = client.getPosition();
+            Vector2 r = reference.getPosition();
+            double error = Vector2.len(p.x + prediction.offsetX() - r.x, p.y + prediction.offsetY() - r.y);
+            run.errorSum += error;
+            run.max = Math.max(run.max, error);
+            run.samples++;
+            prediction.decay(TIME_STEP);
+        }
+        return run;
+    }
+
+    /** An input-driven run: drawn error, server states received, and uplink bytes against sending states. */
+    private static final class InputRun {
+        final Run drawn = new Run();
+        int syncs;
+        long inputBytes, stateBytes;
+    }
+
+    // 같은 시나리오를 입력으로: 클라이언트는 SEND_EVERY 스텝마다 미확인 입력을 보내고, 서버는 도착한 입력을 자기 월드에서
+    // 돌려 (GameServer의 CarSimulation처럼) 밀린 스텝에서 차를 밀고, 밀면 바로, 아니면 SYNC_EVERY 스텝마다 상태를 돌려보낸다
+    private InputRun driveByInputs(int rtt) {
+        CarPrediction prediction = new CarPrediction();
+        int oneWay = Math.round(rtt / 2f / 1000f / TIME_STEP);
+        Kryo clientKryo = new Kryo(), serverKryo = new Kryo();
+        QuantizedSerializers.register(clientKryo, StateQuantizer.DEFAULT, false);
+        QuantizedSerializers.register(serverKryo, StateQuantizer.DEFAULT, true);
+        Output output = new Output(512);
+        Input input = new Input();
+        byte[][] uplink = new byte[LOG][];
+        Packets.PlayerState[] corrections = new Packets.PlayerState[LOG];
+        int[] correctionSeqs = new int[LOG];
+        for (int i = 0; i < LOG; i++) corrections[i] = new Packets.PlayerState();
+        Packets.PlayerInputPacket packet = new Packets.PlayerInputPacket();
+        // 같은 빈도로 상태를 보냈다면 (LobbyClient.sendPlayerState와 같은 재전송 포함)
+        UplinkRedundancy redundancy = new UplinkRedundancy(1 << 20, 3);
+        Packets.PlayerStateUpdate update = new Packets.PlayerStateUpdate();
+        update.roomId = "3f2a9c1e";
+
+        World serverWorld = new World(new Vector2(0, 0), true);
+        CarPhysics serverPhysics = new CarPhysics();
+        CarPhysics.Controls serverControls = new CarPhysics.Controls();
+        Body server = null;
+        int baseSeq = 0, serverSeq = 0, syncedSeq = 0, correctionId = 0;
+        InputRun run = new InputRun();
+        try {
+            for (int k = 1; k <= STEPS; k++) {
+                if (k % RESTART_EVERY == 0) {
+                    restart(client, clientPhysics);
+                    restart(reference, referencePhysics);
+                    prediction.clear();
+                }
+                int slot = k % LOG;
+                if (correctionSeqs[slot] != 0) {
+                    int seq = correctionSeqs[slot];
+                    correctionSeqs[slot] = 0;
+                    if (prediction.reconcile(++correctionId, seq, corrections[slot], clientWorld, client, clientPhysics, TIME_STEP)
+                        && prediction.replayedSteps() > 0) {
+                        run.drawn.afterReplaySum += distance(client, reference);
+                        run.drawn.replays++;
+                    }
+                }
+
+                // 서버: 이번 스텝에 도착한 입력 중 이어지는 것만 돌린다
+                if (uplink[slot] != null) {
+                    input.setBuffer(uplink[slot]);
+                    uplink[slot] = null;
+                    Packets.PlayerInputPacket in = (Packets.PlayerInputPacket) serverKryo.readClassAndObject(input);
+                    if (in.base != null && (server == null || in.baseSeq > baseSeq)) {
+                        if (server == null) server = serverPhysics.createBody(serverWorld, in.base.x, in.base.y, in.base.rotation);
+                        server.setTransform(in.base.x, in.base.y, in.base.rotation);
+                        server.setLinearVelocity(in.base.velocityX, in.base.velocityY);
+                        server.setAngularVelocity(in.base.angularVelocity);
+                        serverPhysics.throttle(in.baseThrottle);
+                        baseSeq = serverSeq = in.baseSeq;
+                    }
+                    boolean pushedNow = false;
+                    for (int i = 0; i < in.count && server != null; i++) {
+                        int seq = in.inputSeq - in.count + 1 + i;
+                        if (seq != serverSeq + 1) continue;
+                        serverControls.set(in.controls[i]);
+                        serverPhysics.update(server, serverControls, in.speedMultipliers[i], (in.controls[i] & Packets.PlayerInputPacket.COLLIDING) != 0,
+                            in.tireTurns[i], in.speedScales[i], TIME_STEP);
+                        serverWorld.step(TIME_STEP, 8, 3);
+                        serverSeq = seq;
+                        if (pushed(seq)) {
+                            push(server);
+                            pushedNow = true;
+                        }
+                    }
+                    if (server != null && serverSeq != syncedSeq && (pushedNow || serverSeq - syncedSeq >= SYNC_EVERY)) {
+                        int back = (k + oneWay) % LOG;
+                        sample(server, corrections[back]);
+                        quantize(corrections[back]);
+                        correctionSeqs[back] = serverSeq;
+                        syncedSeq = serverSeq;
+                        run.syncs++;
+                    }
+                }
+
+                CarPhysics.Controls controls = (k / 45 & 1) == 0 ? left : right;
+                int seq = prediction.step(clientWorld, client, clientPhysics, controls, 1f, false, 1f, 1f, TIME_STEP);
+                referencePhysics.update(reference, controls, TIME_STEP);
+                referenceWorld.step(TIME_STEP, 8, 3);
+                if (pushed(seq)) push(reference);
+
+                if (k % SEND_EVERY == 0) {
+                    prediction.fill(packet);
+                    packet.seq = k / SEND_EVERY;
+                    output.clear();
+                    clientKryo.writeClassAndObject(output, packet);
+                    uplink[(k + oneWay) % LOG] = output.toBytes();
+                    run.inputBytes += output.position();
+
+                    update.state = new Packets.PlayerState();
+                    sample(client, update.state);
+                    update.seq = packet.seq;
+                    update.inputSeq = seq;
+                    redundancy.fill(update, k * 16_666_667L);
+                    output.clear();
+                    clientKryo.writeClassAndObject(output, update);
+                    redundancy.sent(update, output.position());
+                    run.stateBytes += output.position();
+                }
+
+                Vector2 p = client.getPosition();
+                Vector2 r = reference.getPosition();
+                double error = Vector2.len(p.x + prediction.offsetX() - r.x, p.y + prediction.offsetY() - r.y);
+                run.drawn.errorSum += error;
+                run.drawn.max = Math.max(run.drawn.max, error);
+                run.drawn.samples++;
+                prediction.decay(TIME_STEP);
+            }
+        } finally {
+            serverWorld.dispose();
+        }
+        return run;
+    }
+
+    // 보정 패킷처럼 양자화한다
+    private static void quantize(Packets.PlayerState s) {
+        BitWriter bits = new BitWriter(32);
+        BitReader reader = new BitReader();
+        StateQuantizer.DEFAULT.write(s, bits);
+        reader.reset(bits.buffer(), bits.flush());
+        StateQuantizer.DEFAULT.read(reader, s);
+    }
+
+    private static boolean pushed(int seq) {
+        return seq % PUSH_EVERY == PUSH_EVERY / 2;
+    }
+
+    private static double distance(Body a, Body b) {
+        return Vector2.len(a.getPosition().x - b.getPosition().x, a.getPosition().y - b.getPosition().y);
+    }
+
+    private static void restart(Body car, CarPhysics physics) {
+        car.setTransform(START_X, START_Y, (float) Math.PI / 2f);
+        car.setLinearVelocity(0, 0);
+        car.setAngularVelocity(0);
+        physics.throttle(0);
+    }
+
+    private static void push(Body car) {
+        Vector2 p = car.getPosition();
+        car.setTransform(p.x + PUSH, p.y, car.getAngle());
+        Vector2 v = car.getLinearVelocity();
+        car.setLinearVelocity(v.x * DAMPING, v.y * DAMPING);
+    }
+
+    private static void sample(Body car, Packets.PlayerState out) {
+        Vector2 p = car.getPosition();
+        out.x = p.x; out.y = p.y; out.rotation = car.getAngle();
+        Vector2 v = car.getLinearVelocity();
+        out.velocityX = v.x; out.velocityY = v.y;
+        out.angularVelocity = car.getAngularVelocity();
+    }
+}
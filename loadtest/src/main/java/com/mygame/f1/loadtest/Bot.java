@@ -0,0 +1,292 @@
+package com.mygame.f1.loadtest;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.esotericsoftware.kryonet.Listener;
+import com.mygame.f1.server.PacketRegistry;
+import com.mygame.f1.shared.Packets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * One headless player. Walks the real client protocol: create or join a room, ready up, let the host start
+ * the race, stream {@link Packets.PlayerStateUpdate} around an oval at the rate the server negotiates
+ * (30Hz to start), report the finish and wait for the results. The connect call runs on a connector
+ * thread; everything else, including the KryoNet callbacks, runs on the bot's driver thread through
+ * {@link #pump}.
+ */
+final class Bot extends Listener {
+    enum Phase { NEW, CONNECTING, CONNECTED, JOINING, LOBBY, COUNTDOWN, RACING, FINISHED, DONE, FAILED }
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+    // 타원 코스: 맵(64 x 38.4m) 중앙 기준
+    private static final float CENTER_X = 32f, CENTER_Y = 19.2f, RADIUS_X = 24f, RADIUS_Y = 12f;
+
+    final int index;
+    final RoomGroup group;
+    final boolean host;
+    final Client client;
+    private final LoadConfig config;
+    private final LoadStats stats;
+
+    volatile Phase phase = Phase.NEW;
+    private final String name;
+    private int playerId;
+    private long joinSentNanos;
+    private boolean readySent, startSent;
+    private Packets.RoomState lastRoomState;
+    private long raceStartMillis;
+    private long nextSendNanos;
+    private long lastSnapshotNanos;
+    private int ackSnapshotId;
+    private int sendSeq;
+    // 서버가 NetRatePacket으로 정해 주는 빈도 (스냅샷 간격 지터도 이 주기로 잰다)
+    private long sendPeriodNanos = SECOND_NANOS / 30;
+    private long snapshotPeriodMicros = SECOND_NANOS / 30 / 1000;
+    private volatile int snapshotHz = 30;
+    private int lapsDone;
+    private float lastLapEnd;
+    private float[] lapTimes;
+    private final float pace, lane, phaseOffset;
+    private final Packets.PlayerState state = new Packets.PlayerState();
+    private final Packets.PlayerStateUpdate update = new Packets.PlayerStateUpdate();
+
+    Bot(int index, RoomGroup group, boolean host, LoadConfig config, LoadStats stats) {
+        this.index = index; this.group = group; this.host = host; this.config = config; this.stats = stats;
+        this.name = "bot" + index;
+        this.client = new Client(16384, 8192, new CountingSerialization(stats));
+        PacketRegistry.register(client.getKryo());
+        client.addListener(this);
+        // 봇마다 속도/차선/출발 위치를 조금씩 다르게
+        this.pace = 0.95f + (index % 11) * 0.01f;
+        this.lane = (index % 4) * 0.6f;
+        this.phaseOffset = (float) (-0.02 * (index % group.size));
+    }
+
+    /** Blocking connect; call from a connector thread while a driver is already pumping this bot. */
+    void connect() {
+        long start = System.nanoTime();
+        phase = Phase.CONNECTING; // 드라이버가 update()를 돌려야 연결 등록이 끝난다
+        try {
+            client.connect(config.connectTimeoutMs(), config.host(), config.tcpPort(), config.udpPort());
+            stats.connect.record((System.nanoTime() - start) / 1000);
+            stats.connected.increment();
+            phase = Phase.CONNECTED;
+        } catch (IOException e) {
+            if (stats.connectFailures.sum() < 5) System.out.printf("[%s] connect failed: %s%n", name, e);
+            stats.connectFailures.increment();
+            fail();
+        }
+    }
+
+    /** Runs network I/O and the bot's state machine; driver thread only. */
+    void pump(long nowNanos) {
+        Phase p = phase;
+        if (p == Phase.NEW || p == Phase.FAILED) return;
+        try {
+            client.update(0);
+        } catch (IOException e) {
+            fail();
+            return;
+        }
+        tick(nowNanos);
+    }
+
+    /** Snapshot rate the server last negotiated for this bot. */
+    int snapshotHz() { return snapshotHz; }
+
+    boolean isDone() {
+        Phase p = phase;
+        return p == Phase.DONE || p == Phase.FAILED;
+    }
+
+    void close() {
+        client.close();
+        try {
+            client.dispose();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void tick(long now) {
+        switch (phase) {
+            case CONNECTED -> {
+                if (host) {
+                    Packets.CreateRoomRequest req = new Packets.CreateRoomRequest();
+                    req.roomName = "load-" + group.index; req.username = name; req.maxPlayers = group.size;
+                    joinSentNanos = now;
+                    client.sendTCP(req);
+                    phase = Phase.JOINING;
+                } else if (group.abandoned) {
+                    fail();
+                } else if (group.roomId != null) {
+                    Packets.JoinRoomRequest req = new Packets.JoinRoomRequest();
+                    req.roomId = group.roomId; req.username = name;
+                    joinSentNanos = now;
+                    client.sendTCP(req);
+                    phase = Phase.JOINING;
+                }
+            }
+            case LOBBY -> {
+                if (!readySent) {
+                    Packets.ReadyRequest req = new Packets.ReadyRequest();
+                    req.roomId = group.roomId; req.ready = true;
+                    client.sendTCP(req);
+                    readySent = true;
+                }
+                if (host && !startSent && readyPlayers() >= group.expected() && group.expected() >= 2) {
+                    Packets.StartRaceRequest req = new Packets.StartRaceRequest();
+                    req.roomId = group.roomId; req.hostName = name; req.countdownSeconds = config.countdownSeconds();
+                    client.sendTCP(req);
+                    startSent = true;
+                }
+            }
+            case COUNTDOWN -> {
+                if (System.currentTimeMillis() >= raceStartMillis) {
+                    phase = Phase.RACING;
+                    stats.racing.increment();
+                    nextSendNanos = now;
+                }
+            }
+            case RACING -> {
+                if (now >= nextSendNanos) {
+                    drive();
+                    nextSendNanos += sendPeriodNanos;
+                    if (now - nextSendNanos > sendPeriodNanos) nextSendNanos = now + sendPeriodNanos;
+                }
+            }
+            default -> { }
+        }
+    }
+
+    // 타원을 따라 주행: 한 바퀴 = raceSeconds / laps (pace로 ±5% 변동)
+    private void drive() {
+        float t = (System.currentTimeMillis() - raceStartMillis) / 1000f;
+        float omega = (float) (2 * Math.PI * config.laps() / config.raceSeconds()) * pace;
+        float theta = phaseOffset + omega * t;
+        float rx = RADIUS_X + lane, ry = RADIUS_Y + lane;
+        float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+        int lap = (int) Math.floor((theta - phaseOffset) / (2 * Math.PI));
+        if (lap > lapsDone && lapsDone < config.laps()) {
+            lapTimes[lapsDone] = t - lastLapEnd;
+            lastLapEnd = t;
+            lapsDone++;
+        }
+        state.playerId = playerId;
+        state.x = CENTER_X + rx * cos;
+        state.y = CENTER_Y + ry * sin;
+        state.velocityX = -rx * sin * omega;
+        state.velocityY = ry * cos * omega;
+        state.rotation = (float) Math.atan2(state.velocityY, state.velocityX);
+        state.angularVelocity = omega;
+        state.currentLap = Math.min(lapsDone + 1, config.laps());
+        state.lapTime = t - lastLapEnd;
+        state.vehicleIndex = index % 3;
+        update.roomId = group.roomId;
+        update.state = state;
+        update.ackSnapshotId = ackSnapshotId;
+        update.ackDelayMillis = lastSnapshotNanos == 0 ? 0 : (int) ((System.nanoTime() - lastSnapshotNanos) / 1_000_000L);
+        update.seq = sendSeq++;
+        client.sendUDP(update);
+        stats.statesSent.increment();
+
+        if (lapsDone >= config.laps()) {
+            Packets.PlayerFinishedPacket pkt = new Packets.PlayerFinishedPacket();
+            pkt.roomId = group.roomId; pkt.playerId = playerId; pkt.totalTime = t; pkt.lapTimes = lapTimes;
+            client.sendTCP(pkt);
+            stats.finished.increment();
+            phase = Phase.FINISHED;
+        }
+    }
+
+    private int readyPlayers() {
+        if (lastRoomState == null || lastRoomState.players == null) return 0;
+        int n = 0;
+        for (Packets.PlayerInfo p : lastRoomState.players) if (p.ready) n++;
+        return n;
+    }
+
+    private void joined(boolean ok, Packets.PlayerInfo self, Packets.RoomState roomState) {
+        if (!ok || self == null) {
+            stats.errors.increment();
+            fail();
+            return;
+        }
+        stats.join.record((System.nanoTime() - joinSentNanos) / 1000);
+        stats.joined.increment();
+        playerId = self.playerId;
+        if (roomState != null) lastRoomState = roomState;
+        lapTimes = new float[config.laps()];
+        phase = Phase.LOBBY;
+    }
+
+    private void fail() {
+        Phase p = phase;
+        if (p == Phase.FAILED || p == Phase.DONE) return;
+        if (host && group.roomId == null) group.abandoned = true;
+        if (p.ordinal() < Phase.COUNTDOWN.ordinal()) group.drop();
+        phase = Phase.FAILED;
+    }
+
+    @Override public void received(Connection connection, Object object) {
+        if (object instanceof Packets.GameStateDeltaPacket pkt) {
+            long now = System.nanoTime();
+            if (lastSnapshotNanos != 0) stats.snapshotArrived((now - lastSnapshotNanos) / 1000, snapshotPeriodMicros);
+            lastSnapshotNanos = now;
+            if (pkt.snapshotId > ackSnapshotId) ackSnapshotId = pkt.snapshotId;
+            stats.snapshots.increment();
+        } else if (object instanceof Packets.NetRatePacket pkt) {
+            if (pkt.sendHz > 0) sendPeriodNanos = SECOND_NANOS / pkt.sendHz;
+            if (pkt.snapshotHz > 0) {
+                snapshotHz = pkt.snapshotHz;
+                snapshotPeriodMicros = SECOND_NANOS / pkt.snapshotHz / 1000;
+            }
+            stats.rateUpdates.increment();
+        } else if (object instanceof Packets.CreateRoomResponse res) {
+            if (res.ok) group.roomId = res.roomId;
+            joined(res.ok, res.self, null);
+        } else if (object instanceof Packets.JoinRoomResponse res) {
+            joined(res.ok, res.self, res.state);
+        } else if (object instanceof Packets.RoomStatePacket pkt) {
+            lastRoomState = pkt.state;
+        } else if (object instanceof Packets.RaceStartPacket pkt) {
+            raceStartMillis = pkt.startTimeMillis;
+            if (phase == Phase.LOBBY) phase = Phase.COUNTDOWN;
+        } else if (object instanceof Packets.RaceResultsPacket) {
+            stats.results.increment();
+            phase = Phase.DONE;
+        } else if (object instanceof Packets.ErrorResponse err) {
+            stats.errors.increment();
+            if (stats.errors.sum() <= 10) System.out.printf("[%s] server error: %s%n", name, err.message);
+        }
+    }
+
+    @Override public void disconnected(Connection connection) {
+        if (!isDone()) {
+            stats.disconnects.increment();
+            fail();
+        }
+    }
+
+    /** Counts wire bytes in both directions; one instance per client, like KryoNet's default. */
+    private static final class CountingSerialization extends KryoSerialization {
+        private final LoadStats stats;
+
+        CountingSerialization(LoadStats stats) { this.stats = stats; }
+
+        @Override public synchronized void write(Connection connection, ByteBuffer buffer, Object object) {
+            int before = buffer.position();
+            super.write(connection, buffer, object);
+            stats.bytesSent.add(buffer.position() - before);
+        }
+
+        @Override public synchronized Object read(Connection connection, ByteBuffer buffer) {
+            int before = buffer.position();
+            Object object = super.read(connection, buffer);
+            stats.bytesReceived.add(buffer.position() - before);
+            return object;
+        }
+    }
+}
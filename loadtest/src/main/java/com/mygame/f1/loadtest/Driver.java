@@ -0,0 +1,38 @@
+package com.mygame.f1.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pumps a share of the bots on one thread: non-blocking {@code Client.update(0)} plus the bot state machine
+ * for each, then a short park. A handful of drivers replaces the one-thread-per-client model of
+ * {@code Client.start()}, which does not scale to thousands of connections.
+ */
+final class Driver implements Runnable {
+    private static final long PARK_NANOS = 500_000L;
+
+    private final ConcurrentLinkedQueue<Bot> incoming = new ConcurrentLinkedQueue<>();
+    private final List<Bot> bots = new ArrayList<>();
+    private volatile boolean running = true;
+
+    void add(Bot bot) { incoming.add(bot); }
+
+    void stop() { running = false; }
+
+    @Override public void run() {
+        while (running) {
+            for (Bot b; (b = incoming.poll()) != null; ) bots.add(b);
+            long now = System.nanoTime();
+            for (int i = 0; i < bots.size(); i++) {
+                try {
+                    bots.get(i).pump(now);
+                } catch (RuntimeException e) {
+                    System.out.printf("[driver] bot %d failed: %s%n", bots.get(i).index, e);
+                }
+            }
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
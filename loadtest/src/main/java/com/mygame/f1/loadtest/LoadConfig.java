@@ -0,0 +1,61 @@
+package com.mygame.f1.loadtest;
+
+import com.mygame.f1.server.GameServer;
+
+/**
+ * Load test settings, parsed from {@code --key=value} arguments.
+ *
+ * @param bots         number of bot connections
+ * @param roomSize     bots per room (2 to {@link GameServer#MAX_ROOM_PLAYERS}); leftover bots are spread over the other rooms
+ * @param connectRate  new connections per second during ramp-up
+ * @param drivers      threads pumping the KryoNet clients
+ * @param raceSeconds  nominal race length; each bot's pace varies by +-5%
+ * @param laps         laps per race
+ * @param embedded     start a {@code GameServer} in this JVM on the given ports
+ */
+record LoadConfig(String host, int tcpPort, int udpPort, int bots, int roomSize, int connectRate, int drivers,
+                  int raceSeconds, int laps, int countdownSeconds, int connectTimeoutMs, boolean embedded) {
+
+    static final String USAGE = """
+        usage: loadtest [--host=127.0.0.1] [--tcp=54555] [--udp=54777] [--bots=100] [--room-size=8]
+                        [--connect-rate=200] [--drivers=<cores>] [--race-seconds=30] [--laps=3]
+                        [--countdown=3] [--connect-timeout=5000] [--embedded]""";
+
+    static LoadConfig parse(String[] args) {
+        String host = "127.0.0.1";
+        int tcp = 54555, udp = 54777, bots = 100, roomSize = 8, connectRate = 200;
+        int drivers = Runtime.getRuntime().availableProcessors();
+        int raceSeconds = 30, laps = 3, countdown = 3, connectTimeout = 5000;
+        boolean embedded = false;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--host" -> host = value;
+                case "--tcp" -> tcp = Integer.parseInt(value);
+                case "--udp" -> udp = Integer.parseInt(value);
+                case "--bots" -> bots = Integer.parseInt(value);
+                case "--room-size" -> roomSize = Integer.parseInt(value);
+                case "--connect-rate" -> connectRate = Integer.parseInt(value);
+                case "--drivers" -> drivers = Integer.parseInt(value);
+                case "--race-seconds" -> raceSeconds = Integer.parseInt(value);
+                case "--laps" -> laps = Integer.parseInt(value);
+                case "--countdown" -> countdown = Integer.parseInt(value);
+                case "--connect-timeout" -> connectTimeout = Integer.parseInt(value);
+                case "--embedded" -> embedded = true;
+                default -> throw new IllegalArgumentException("unknown option " + arg + "\n" + USAGE);
+            }
+        }
+        if (bots < 2) throw new IllegalArgumentException("--bots must be at least 2");
+        if (roomSize < 2 || roomSize > GameServer.MAX_ROOM_PLAYERS) {
+            throw new IllegalArgumentException("--room-size must be 2.." + GameServer.MAX_ROOM_PLAYERS);
+        }
+        if (connectRate <= 0 || drivers <= 0 || raceSeconds <= 0 || laps <= 0) {
+            throw new IllegalArgumentException("rates, drivers, race length and laps must be positive");
+        }
+        countdown = Math.max(1, Math.min(countdown, 10)); // 서버가 1..10초로 제한한다
+        return new LoadConfig(host, tcp, udp, bots, roomSize, connectRate, drivers,
+            raceSeconds, laps, countdown, connectTimeout, embedded);
+    }
+}
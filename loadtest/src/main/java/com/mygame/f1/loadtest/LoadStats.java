@@ -0,0 +1,33 @@
+package com.mygame.f1.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Measurements shared by every bot; all fields are safe to update from any driver thread. */
+final class LoadStats {
+    final Percentiles connect = new Percentiles();
+    final Percentiles join = new Percentiles();
+    final Percentiles snapshotGap = new Percentiles();
+    final Percentiles snapshotJitter = new Percentiles();
+
+    final LongAdder connected = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder joined = new LongAdder();
+    final LongAdder racing = new LongAdder();
+    final LongAdder finished = new LongAdder();
+    final LongAdder results = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder disconnects = new LongAdder();
+    /** NetRatePackets received, the one sent on join included. */
+    final LongAdder rateUpdates = new LongAdder();
+
+    final LongAdder snapshots = new LongAdder();
+    final LongAdder statesSent = new LongAdder();
+    final LongAdder bytesReceived = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+
+    /** @param periodMicros the bot's negotiated snapshot period, which the jitter is measured against */
+    void snapshotArrived(long gapMicros, long periodMicros) {
+        snapshotGap.record(gapMicros);
+        snapshotJitter.record(Math.abs(gapMicros - periodMicros));
+    }
+}
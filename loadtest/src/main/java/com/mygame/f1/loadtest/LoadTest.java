@@ -0,0 +1,158 @@
+package com.mygame.f1.loadtest;
+
+import com.esotericsoftware.minlog.Log;
+import com.mygame.f1.server.GameServer;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load generator for {@link GameServer}: spawns bot connections that play full lobby-to-results
+ * races over the real KryoNet protocol and prints connect latency, room-join latency, snapshot
+ * inter-arrival/jitter percentiles and throughput. Runs against localhost by default; {@code --embedded}
+ * starts the server in this JVM so no other process is needed.
+ *
+ * <pre>./gradlew loadtest:run --args="--embedded --bots=500 --room-size=8"</pre>
+ */
+public final class LoadTest {
+    private static final int CONNECTOR_THREADS = 32;
+    private static final int REPORT_INTERVAL_SECONDS = 5;
+    // 마지막 완주 후 서버가 결과를 보내기까지 10초 + 여유
+    private static final int RESULTS_GRACE_SECONDS = 20;
+    private static final int LOBBY_GRACE_SECONDS = 30;
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        GameServer embedded = null;
+        if (config.embedded()) {
+            embedded = new GameServer(config.tcpPort(), config.udpPort());
+            embedded.start();
+        }
+        // 봇 수천 개의 연결 로그를 막는다 (GameServer 생성자가 INFO로 올려 두므로 그 뒤에 설정)
+        Log.set(Log.LEVEL_WARN);
+
+        LoadStats stats = new LoadStats();
+        List<Bot> bots = createBots(config, stats);
+        int rooms = bots.get(bots.size() - 1).group.index + 1;
+        System.out.printf("Load test: %d bots in %d rooms -> %s:%d/%d, %d drivers, %ds race x %d laps%n",
+            bots.size(), rooms, config.host(), config.tcpPort(), config.udpPort(), config.drivers(),
+            config.raceSeconds(), config.laps());
+
+        Driver[] drivers = new Driver[config.drivers()];
+        List<Thread> driverThreads = new ArrayList<>();
+        for (int i = 0; i < drivers.length; i++) {
+            drivers[i] = new Driver();
+            Thread t = new Thread(drivers[i], "bot-driver-" + i);
+            t.setDaemon(true);
+            t.start();
+            driverThreads.add(t);
+        }
+
+        long started = System.nanoTime();
+        ExecutorService connectors = Executors.newFixedThreadPool(CONNECTOR_THREADS, r -> {
+            Thread t = new Thread(r, "bot-connector");
+            t.setDaemon(true);
+            return t;
+        });
+        long connectGapNanos = 1_000_000_000L / config.connectRate();
+        for (int i = 0; i < bots.size(); i++) {
+            Bot bot = bots.get(i);
+            drivers[i % drivers.length].add(bot);
+            long due = started + i * connectGapNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            connectors.execute(bot::connect);
+        }
+        connectors.shutdown();
+
+        long rampSeconds = bots.size() / config.connectRate() + 1;
+        long deadline = started + TimeUnit.SECONDS.toNanos(rampSeconds + LOBBY_GRACE_SECONDS + config.countdownSeconds()
+            + (long) Math.ceil(config.raceSeconds() * 1.1) + RESULTS_GRACE_SECONDS);
+        long raceWindowStart = 0;
+        long snapshotsAtRaceStart = 0, bytesInAtRaceStart = 0, bytesOutAtRaceStart = 0, statesAtRaceStart = 0;
+        while (System.nanoTime() < deadline && !allDone(bots)) {
+            TimeUnit.SECONDS.sleep(REPORT_INTERVAL_SECONDS);
+            if (raceWindowStart == 0 && stats.racing.sum() > 0) {
+                raceWindowStart = System.nanoTime();
+                snapshotsAtRaceStart = stats.snapshots.sum();
+                bytesInAtRaceStart = stats.bytesReceived.sum();
+                bytesOutAtRaceStart = stats.bytesSent.sum();
+                statesAtRaceStart = stats.statesSent.sum();
+            }
+            System.out.printf("[%3ds] connected=%d joined=%d racing=%d finished=%d results=%d failed=%d snapshots=%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), stats.connected.sum(), stats.joined.sum(),
+                stats.racing.sum(), stats.finished.sum(), stats.results.sum(),
+                stats.connectFailures.sum() + stats.disconnects.sum(), stats.snapshots.sum());
+        }
+        long ended = System.nanoTime();
+        boolean timedOut = !allDone(bots);
+
+        for (Driver d : drivers) d.stop();
+        for (Thread t : driverThreads) t.join(1000);
+        for (Bot b : bots) b.close();
+        if (embedded != null) embedded.stop();
+
+        System.out.println();
+        System.out.printf("=== Load test report: %d bots, %d rooms, %.1fs%s ===%n", bots.size(), rooms,
+            (ended - started) / 1e9, timedOut ? " (timed out)" : "");
+        System.out.println(stats.connect.summary("connect"));
+        System.out.println(stats.join.summary("room join"));
+        System.out.println(stats.snapshotGap.summary("snapshot gap"));
+        System.out.println(stats.snapshotJitter.summary("snapshot jitter"));
+        IntSummaryStatistics hz = bots.stream().mapToInt(Bot::snapshotHz).summaryStatistics();
+        System.out.printf("negotiated rate  min=%dHz avg=%.1fHz max=%dHz (%d rate updates)%n",
+            hz.getMin(), hz.getAverage(), hz.getMax(), stats.rateUpdates.sum());
+        if (raceWindowStart != 0) {
+            double secs = Math.max(1e-9, (ended - raceWindowStart) / 1e9);
+            System.out.printf("throughput (race window %.1fs): snapshots %.0f/s, state updates %.0f/s, down %.1f KB/s, up %.1f KB/s%n",
+                secs, (stats.snapshots.sum() - snapshotsAtRaceStart) / secs,
+                (stats.statesSent.sum() - statesAtRaceStart) / secs,
+                (stats.bytesReceived.sum() - bytesInAtRaceStart) / secs / 1024,
+                (stats.bytesSent.sum() - bytesOutAtRaceStart) / secs / 1024);
+        }
+        System.out.printf("races: %d/%d results received, %d connect failures, %d disconnects, %d server errors%n",
+            stats.results.sum(), bots.size(), stats.connectFailures.sum(), stats.disconnects.sum(), stats.errors.sum());
+        System.out.println("note: snapshot jitter is |gap - negotiated period| and includes up to ~1ms of driver polling delay");
+        System.exit(timedOut ? 1 : 0);
+    }
+
+    // 방 수 = bots / roomSize, 남는 봇은 앞쪽 방부터 하나씩 더 배정 (방당 최대 GameServer.MAX_ROOM_PLAYERS명)
+    private static List<Bot> createBots(LoadConfig config, LoadStats stats) {
+        int max = GameServer.MAX_ROOM_PLAYERS;
+        int rooms = Math.max(1, config.bots() / config.roomSize());
+        int base = config.bots() / rooms, extra = config.bots() % rooms;
+        if (base + (extra > 0 ? 1 : 0) > max) {
+            rooms = (config.bots() + max - 1) / max;
+            base = config.bots() / rooms;
+            extra = config.bots() % rooms;
+        }
+        List<Bot> bots = new ArrayList<>(config.bots());
+        int index = 0;
+        for (int r = 0; r < rooms; r++) {
+            RoomGroup group = new RoomGroup(r, base + (r < extra ? 1 : 0));
+            for (int m = 0; m < group.size; m++) {
+                bots.add(new Bot(index++, group, m == 0, config, stats));
+            }
+        }
+        return bots;
+    }
+
+    private static boolean allDone(List<Bot> bots) {
+        for (Bot b : bots) if (!b.isDone()) return false;
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.mygame.f1.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent log-linear histogram of microsecond values. Values below 128 are exact; above that each
+ * power of two is split into 64 buckets, so a reported percentile is within 1.6% of the true value.
+ * Memory is fixed (about 30 KB) no matter how many samples are recorded.
+ */
+final class Percentiles {
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int LINEAR = SUB * 2;
+    private static final int BUCKETS = LINEAR + (62 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    long count() { return count.sum(); }
+
+    /** Value at quantile {@code q} (0..1), in microseconds; 0 when empty. */
+    long percentile(double q) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(valueAt(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** One report line with values in milliseconds. */
+    String summary(String label) {
+        long n = count.sum();
+        if (n == 0) return String.format("%-16s n=0", label);
+        return String.format("%-16s n=%-8d mean=%8.2fms p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms",
+            label, n, sum.sum() / (double) n / 1000.0, ms(percentile(0.50)), ms(percentile(0.90)),
+            ms(percentile(0.99)), ms(percentile(0.999)), ms(max.get()));
+    }
+
+    private static double ms(long micros) { return micros / 1000.0; }
+
+    static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int shift = e - SUB_BITS;
+        return LINEAR + (e - SUB_BITS - 1) * SUB + (int) ((v >> shift) - SUB);
+    }
+
+    /** Midpoint of bucket {@code i}. */
+    static long valueAt(int i) {
+        if (i < LINEAR) return i;
+        int k = i - LINEAR;
+        int shift = k / SUB + 1;
+        long lower = (long) (k % SUB + SUB) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+}
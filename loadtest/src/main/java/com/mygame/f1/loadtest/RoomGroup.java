@@ -0,0 +1,23 @@
+package com.mygame.f1.loadtest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Bots that race in the same room. The first bot creates the room; the others join once its id is known. */
+final class RoomGroup {
+    final int index;
+    final int size;
+    volatile String roomId;
+    /** Set when the host could not create the room; the other members give up. */
+    volatile boolean abandoned;
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    RoomGroup(int index, int size) {
+        this.index = index; this.size = size;
+    }
+
+    /** A member failed to connect or join; the host stops waiting for it. */
+    void drop() { dropped.incrementAndGet(); }
+
+    /** Members the host waits for before starting the race. */
+    int expected() { return size - dropped.get(); }
+}
@@ -0,0 +1,135 @@
+package com.mygame.f1.server;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.DeadReckoning;
+import com.mygame.f1.shared.Packets;
+
+/**
+ * The server's own copy of one player's car: a Box2D world with the track's {@link TrackWalls} and the
+ * car, driven by the player's inputs through the same {@link CarPhysics} and step size as the client's
+ * prediction. Given the same inputs from the same start, both end up in the same state, so the client only
+ * rewinds when the server's result differs (a collision with another car, or a step that diverged). Steps
+ * run no faster than real time plus {@value #MAX_LEAD_MILLIS}ms of lead for bursts, so a client cannot
+ * drive faster by sending steps faster; steps over that budget wait in the {@link InputBuffer}.
+ *
+ * <p>Used on the room's tick shard; {@link #dispose} may come from the room's mailbox when the player
+ * leaves. Both hold this object's lock, so the native world is never freed while it steps.
+ */
+final class CarSimulation {
+    static final float TIME_STEP = 1f / DeadReckoning.CLIENT_STEP_HZ;
+    static final long STEP_NANOS = 1_000_000_000L / DeadReckoning.CLIENT_STEP_HZ;
+    /** Steps a client may run ahead of real time, for packets that arrive in a burst after a delay. */
+    static final long MAX_LEAD_MILLIS = 250;
+    /** Interval of the server state sent back while nothing changed it, from {@code -Df1.inputAckMillis} (default 100). */
+    static final long ACK_NANOS = Math.max(1, Integer.getInteger("f1.inputAckMillis", 100)) * 1_000_000L;
+
+    static {
+        Box2D.init();
+    }
+
+    final int trackIndex;
+    private final World world = new World(new Vector2(0, 0), true);
+    private final CarPhysics physics = new CarPhysics();
+    private final CarPhysics.Controls controls = new CarPhysics.Controls();
+    private final InputBuffer.Batch batch = new InputBuffer.Batch();
+    private Body car;
+    private int vehicleIndex;
+    // 마지막으로 시뮬레이션한 스텝과 그 스텝을 클라이언트가 돌린 추정 시각
+    private int seq;
+    private long sampleNanos;
+    // 실시간으로 쌓이는 스텝 허용량 (나노초, MAX_LEAD_MILLIS까지)
+    private long allowanceNanos = MAX_LEAD_MILLIS * 1_000_000L;
+    private long lastNanos;
+    private boolean disposed;
+
+    CarSimulation(int trackIndex, TrackWalls walls, long nowNanos) {
+        this.trackIndex = trackIndex;
+        this.lastNanos = nowNanos;
+        walls.build(world);
+        // 서버 월드에는 벽과 이 차뿐이므로 모든 접촉이 벽 충돌이다
+        world.setContactListener(new ContactListener() {
+            @Override public void beginContact(Contact contact) { physics.onWallContact(car); }
+            @Override public void endContact(Contact contact) {}
+            @Override public void preSolve(Contact contact, Manifold oldManifold) {}
+            @Override public void postSolve(Contact contact, ContactImpulse impulse) {}
+        });
+    }
+
+    /**
+     * Runs the buffered steps real time allows and writes the car's state after the last one into
+     * {@code out}. Nothing runs before the first run start arrives.
+     * @return steps simulated
+     */
+    synchronized int advance(InputBuffer inputs, long nowNanos, Packets.PlayerState out) {
+        if (disposed) return 0;
+        long lead = MAX_LEAD_MILLIS * 1_000_000L;
+        allowanceNanos = Math.min(lead, allowanceNanos + Math.max(0, nowNanos - lastNanos));
+        lastNanos = nowNanos;
+        inputs.take(batch, (int) (allowanceNanos / STEP_NANOS));
+        if (batch.rebased) start(batch);
+        if (car == null || batch.count == 0) return 0;
+        for (int i = 0; i < batch.count; i++) {
+            int bits = batch.controls[i];
+            controls.set(bits);
+            // 클라이언트의 배율(출발 가속, 타이어, 잔디와 내구도)은 1 이하다: 더 빨리 달리겠다는 값은 1로 자른다
+            physics.update(car, controls, Math.min(batch.speedMultipliers[i], 1f), (bits & Packets.PlayerInputPacket.COLLIDING) != 0,
+                Math.min(batch.tireTurns[i], 1f), Math.min(batch.speedScales[i], 1f), TIME_STEP);
+            world.step(TIME_STEP, 8, 3);
+        }
+        allowanceNanos -= batch.count * STEP_NANOS;
+        seq = batch.firstSeq + batch.count - 1;
+        sampleNanos = batch.sampleNanos[batch.count - 1];
+        write(out);
+        return batch.count;
+    }
+
+    /** Moves the car to where a collision with another car put it ({@code s}), so later steps start there. */
+    synchronized void absorb(Packets.PlayerState s) {
+        if (disposed || car == null) return;
+        car.setTransform(s.x, s.y, car.getAngle());
+        car.setLinearVelocity(s.velocityX, s.velocityY);
+    }
+
+    /** The last simulated step; 0 before the first. */
+    synchronized int seq() { return seq; }
+
+    /** When the client ran {@link #seq()}, estimated from arrival time and RTT. */
+    synchronized long sampleNanos() { return sampleNanos; }
+
+    /** Frees the world; later calls do nothing. */
+    synchronized void dispose() {
+        if (disposed) return;
+        disposed = true;
+        world.dispose();
+        car = null;
+    }
+
+    // 새 구간: 클라이언트가 보낸 시작 상태와 가속 평활값에서 다시 출발한다 (허용량은 이어 간다)
+    private void start(InputBuffer.Batch b) {
+        Packets.PlayerState s = b.base;
+        if (car == null) car = physics.createBody(world, s.x, s.y, s.rotation);
+        else car.setTransform(s.x, s.y, s.rotation);
+        car.setLinearVelocity(s.velocityX, s.velocityY);
+        car.setAngularVelocity(s.angularVelocity);
+        physics.throttle(b.baseThrottle);
+        vehicleIndex = s.vehicleIndex;
+        seq = b.baseSeq;
+    }
+
+    private void write(Packets.PlayerState out) {
+        Vector2 p = car.getPosition();
+        out.x = p.x; out.y = p.y; out.rotation = car.getAngle();
+        Vector2 v = car.getLinearVelocity();
+        out.velocityX = v.x; out.velocityY = v.y;
+        out.angularVelocity = car.getAngularVelocity();
+        out.vehicleIndex = vehicleIndex;
+    }
+}
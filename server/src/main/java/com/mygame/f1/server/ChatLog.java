@@ -0,0 +1,105 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A room's chat pipeline: accepted messages wait in {@link #pending} until the next flush sends them as
+ * one {@link Packets.ChatBatch}, each sender is limited by a token bucket, and the last {@value #HISTORY}
+ * sent messages stay in a ring for late joiners. Owned by the room's mailbox; not thread-safe.
+ */
+final class ChatLog {
+    static final int HISTORY = 32;
+    static final int MAX_TEXT = 200;
+    // 발신자별 토큰 버킷: 연속 BURST개, 이후 초당 REFILL_PER_SECOND개
+    static final int BURST = 5;
+    static final double REFILL_PER_SECOND = 1.0;
+    // 한 번에 보낼 수 있는 최대 메시지 수 (버킷이 있어도 인원 x BURST까지 쌓일 수 있다)
+    static final int MAX_PENDING = 64;
+
+    private final String roomId;
+    private final Packets.ChatMessage[] ring = new Packets.ChatMessage[HISTORY];
+    private int head, size;
+    private final List<Packets.ChatMessage> pending = new ArrayList<>();
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+
+    ChatLog(String roomId) {
+        this.roomId = roomId;
+    }
+
+    private static final class Bucket {
+        double tokens = BURST;
+        long lastNanos;
+
+        Bucket(long now) { lastNanos = now; }
+
+        boolean take(long now) {
+            tokens = Math.min(BURST, tokens + (now - lastNanos) * REFILL_PER_SECOND / 1e9);
+            lastNanos = now;
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * Queues {@code msg} for the next batch unless the sender is over its rate or the batch is full.
+     * Returns false when the message was dropped.
+     */
+    boolean offer(int senderId, Packets.ChatMessage msg, long nowNanos) {
+        if (pending.size() >= MAX_PENDING) return false;
+        if (!buckets.computeIfAbsent(senderId, id -> new Bucket(nowNanos)).take(nowNanos)) return false;
+        if (msg.text != null && msg.text.length() > MAX_TEXT) msg.text = msg.text.substring(0, MAX_TEXT);
+        msg.roomId = roomId;
+        pending.add(msg);
+        return true;
+    }
+
+    /** True if messages are waiting for a flush. */
+    boolean hasPending() { return !pending.isEmpty(); }
+
+    /** Takes the pending messages as one batch and moves them into the history ring; null if none. */
+    Packets.ChatBatch drain() {
+        if (pending.isEmpty()) return null;
+        Packets.ChatBatch batch = new Packets.ChatBatch();
+        batch.roomId = roomId;
+        batch.messages = pending.toArray(new Packets.ChatMessage[0]);
+        pending.clear();
+        for (Packets.ChatMessage m : batch.messages) {
+            ring[(head + size) % HISTORY] = m;
+            if (size < HISTORY) size++; else head = (head + 1) % HISTORY;
+        }
+        return batch;
+    }
+
+    /** Already-sent messages, oldest first, as a backfill batch; null if the room has no chat yet. */
+    Packets.ChatBatch history() {
+        if (size == 0) return null;
+        Packets.ChatBatch batch = new Packets.ChatBatch();
+        batch.roomId = roomId;
+        batch.history = true;
+        batch.messages = new Packets.ChatMessage[size];
+        for (int i = 0; i < size; i++) batch.messages[i] = ring[(head + i) % HISTORY];
+        return batch;
+    }
+
+    /** Seeds the history ring with messages sent elsewhere (a room handed over from another server). */
+    void restore(Packets.ChatMessage[] messages) {
+        if (messages == null) return;
+        for (Packets.ChatMessage m : messages) {
+            if (m == null) continue;
+            m.roomId = roomId;
+            ring[(head + size) % HISTORY] = m;
+            if (size < HISTORY) size++; else head = (head + 1) % HISTORY;
+        }
+    }
+
+    /** Drops the sender's bucket, so the map only holds current members. */
+    void forget(int senderId) {
+        buckets.remove(senderId);
+    }
+}
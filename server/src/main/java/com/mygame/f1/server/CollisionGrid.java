@@ -0,0 +1,132 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+
+import java.util.Arrays;
+
+/**
+ * Spatial-hash broadphase for the server's car-to-car circle collisions.
+ * Cells are one collision diameter wide, so a car can only touch cars in its own or the eight
+ * neighbouring cells. Every array is owned by the grid and reused across ticks; they only grow
+ * when a room holds more cars than it ever has before.
+ */
+final class CollisionGrid {
+    static final float RADIUS = 0.19f; // 대략 차량 반경(로컬 렌더 크기 19px/PPM=0.19m)
+    private static final float MIN_DIST = RADIUS * 2f;
+    private static final float MIN_DIST_SQ = MIN_DIST * MIN_DIST;
+    private static final float DAMPING = 0.3f; // 속도 감쇠
+    private static final float PUSH_SCALE = 0.5f; // 겹침 깊이의 절반만큼 밀어내기
+    private static final float INV_CELL = 1f / MIN_DIST;
+
+    private Packets.PlayerState[] cars = new Packets.PlayerState[8];
+    private int[] bucketOf = new int[8];
+    private int[] next = new int[8];
+    private int[] heads = new int[32];
+    private int count;
+    private final int[] visited = new int[9];
+
+    CollisionGrid() {
+        Arrays.fill(heads, -1);
+    }
+
+    /** Replaces the grid contents with the first {@code n} cars of {@code states}. */
+    void load(Packets.PlayerState[] states, int n) {
+        clear();
+        for (int i = 0; i < n; i++) add(states[i]);
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            heads[bucketOf[i]] = -1;
+            cars[i] = null;
+        }
+        count = 0;
+    }
+
+    void add(Packets.PlayerState s) {
+        if (count == cars.length) grow();
+        int i = count++;
+        cars[i] = s;
+        int b = bucket(cell(s.x), cell(s.y));
+        bucketOf[i] = b;
+        next[i] = heads[b];
+        heads[b] = i;
+    }
+
+    int size() { return count; }
+
+    /**
+     * Resolves every overlapping pair: both cars lose speed and are pushed apart along the contact normal.
+     * States are mutated in place, so callers see the result without re-inserting them.
+     * @return number of colliding pairs
+     */
+    int resolve() {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            Packets.PlayerState a = cars[i];
+            int cx = cell(a.x), cy = cell(a.y);
+            int seen = 0;
+            for (int ox = -1; ox <= 1; ox++) {
+                for (int oy = -1; oy <= 1; oy++) {
+                    int b = bucket(cx + ox, cy + oy);
+                    // 서로 다른 셀이 같은 버킷으로 해시되면 한 번만 순회
+                    boolean dup = false;
+                    for (int k = 0; k < seen; k++) {
+                        if (visited[k] == b) { dup = true; break; }
+                    }
+                    if (dup) continue;
+                    visited[seen++] = b;
+                    for (int j = heads[b]; j >= 0; j = next[j]) {
+                        if (j > i && collide(a, cars[j])) hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    // 단순 원형 충돌 처리: 서로 붙어 있으면 속도 감쇠 + 겹침 해소
+    private static boolean collide(Packets.PlayerState a, Packets.PlayerState b) {
+        float dx = a.x - b.x;
+        float dy = a.y - b.y;
+        float distSq = dx * dx + dy * dy;
+        if (distSq >= MIN_DIST_SQ) return false;
+        // 속도 감쇠
+        a.velocityX *= DAMPING; a.velocityY *= DAMPING;
+        b.velocityX *= DAMPING; b.velocityY *= DAMPING;
+        // 겹침 해소 및 반발
+        float len = (float) Math.sqrt(distSq);
+        if (len > 0.0001f) {
+            float nx = dx / len, ny = dy / len;
+            float move = (MIN_DIST - len) * PUSH_SCALE;
+            a.x += nx * move; a.y += ny * move;
+            b.x -= nx * move; b.y -= ny * move;
+        }
+        return true;
+    }
+
+    private static int cell(float v) {
+        return (int) Math.floor(v * INV_CELL);
+    }
+
+    private int bucket(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA6B;
+        return (h ^ (h >>> 15)) & (heads.length - 1);
+    }
+
+    private void grow() {
+        int cap = cars.length * 2;
+        cars = Arrays.copyOf(cars, cap);
+        bucketOf = Arrays.copyOf(bucketOf, cap);
+        next = Arrays.copyOf(next, cap);
+        // 버킷 수는 차량 수의 4배 이상 유지 (기존 엔트리는 새 테이블 크기로 다시 해시)
+        heads = new int[cap * 4];
+        Arrays.fill(heads, -1);
+        for (int i = 0; i < count; i++) {
+            int b = bucket(cell(cars[i].x), cell(cars[i].y));
+            bucketOf[i] = b;
+            next[i] = heads[b];
+            heads[b] = i;
+        }
+    }
+}
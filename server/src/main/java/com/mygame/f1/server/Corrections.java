@@ -0,0 +1,103 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * Server states of one client's car sent back to it. While the client drives by inputs, the server
+ * simulates the car itself and {@link #sync}s its state now and then, with nothing to track. A client that
+ * uploads states owns them, and collision corrections are the only server-side change to them: until the
+ * client applies a correction, the states it uploads were predicted without it, so the same push is added
+ * to them here; otherwise the next upload would undo the collision for everyone else until the correction
+ * arrives. An entry that is never acknowledged (its packet was lost) expires after {@value #EXPIRE_MILLIS}ms
+ * and the client's own state wins again. The tick shard adds entries, the network thread adjusts uploads.
+ */
+final class Corrections {
+    static final int CAPACITY = 8;
+    static final long EXPIRE_MILLIS = 1000;
+    // 이 정도보다 작게 바뀌면 보정을 보내지 않는다 (양자화 오차 수준)
+    static final float MIN_POSITION_CHANGE = 0.005f;
+    static final float MIN_VELOCITY_CHANGE = 0.02f;
+
+    private final int[] ids = new int[CAPACITY];
+    private final long[] sentNanos = new long[CAPACITY];
+    private final float[] dx = new float[CAPACITY], dy = new float[CAPACITY];
+    private final float[] dvx = new float[CAPACITY], dvy = new float[CAPACITY];
+    private int count;
+    private int lastId;
+    private volatile boolean pending;
+    /** Reused packet for the member's corrections; shard thread only. */
+    final Packets.PlayerCorrectionPacket packet = new Packets.PlayerCorrectionPacket();
+
+    Corrections() {
+        packet.state = new Packets.PlayerState();
+    }
+
+    /** True if {@code after} differs from {@code before} by more than quantization noise. */
+    static boolean changed(Packets.PlayerState before, Packets.PlayerState after) {
+        return Math.abs(after.x - before.x) > MIN_POSITION_CHANGE || Math.abs(after.y - before.y) > MIN_POSITION_CHANGE
+            || Math.abs(after.velocityX - before.velocityX) > MIN_VELOCITY_CHANGE
+            || Math.abs(after.velocityY - before.velocityY) > MIN_VELOCITY_CHANGE;
+    }
+
+    /**
+     * Records that the server moved the state the client reported at {@code inputSeq} from {@code before}
+     * to {@code after}, and fills {@link #packet} to send. Shard thread.
+     */
+    synchronized Packets.PlayerCorrectionPacket add(int inputSeq, Packets.PlayerState before, Packets.PlayerState after, long nowNanos) {
+        if (count == CAPACITY) remove(0);
+        int i = count++;
+        ids[i] = ++lastId;
+        sentNanos[i] = nowNanos;
+        dx[i] = after.x - before.x; dy[i] = after.y - before.y;
+        dvx[i] = after.velocityX - before.velocityX; dvy[i] = after.velocityY - before.velocityY;
+        pending = true;
+        packet.correctionId = lastId;
+        packet.inputSeq = inputSeq;
+        SnapshotCodec.copy(after, packet.state);
+        return packet;
+    }
+
+    /**
+     * Fills {@link #packet} with the server's own state of a simulated car after step {@code inputSeq}. The
+     * client rewinds to it only if its prediction differs. Shard thread.
+     */
+    synchronized Packets.PlayerCorrectionPacket sync(int inputSeq, Packets.PlayerState state) {
+        packet.correctionId = ++lastId;
+        packet.inputSeq = inputSeq;
+        SnapshotCodec.copy(state, packet.state);
+        return packet;
+    }
+
+    /**
+     * Drops the corrections the client has applied and adds the rest to its uploaded {@code state}.
+     * Network thread; returns at once while nothing is pending.
+     */
+    void adjust(Packets.PlayerState state, int ackedId, long nowNanos) {
+        if (!pending) return;
+        synchronized (this) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (ids[i] <= ackedId || nowNanos - sentNanos[i] > EXPIRE_MILLIS * 1_000_000L) continue;
+                if (kept != i) move(i, kept);
+                kept++;
+            }
+            count = kept;
+            pending = kept > 0;
+            for (int i = 0; i < count; i++) {
+                state.x += dx[i]; state.y += dy[i];
+                state.velocityX += dvx[i]; state.velocityY += dvy[i];
+            }
+        }
+    }
+
+    private void remove(int at) {
+        for (int i = at + 1; i < count; i++) move(i, i - 1);
+        count--;
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from]; sentNanos[to] = sentNanos[from];
+        dx[to] = dx[from]; dy[to] = dy[from]; dvx[to] = dvx[from]; dvy[to] = dvy[from];
+    }
+}
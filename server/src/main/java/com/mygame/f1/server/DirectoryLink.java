@@ -0,0 +1,122 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.mygame.f1.shared.Packets;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A game server's connection to the {@link DirectoryServer}. Registers the server's client-facing
+ * address, then rides the room browser's own diff stream: the link is an unfiltered subscriber of the
+ * server's {@link RoomDirectory}, so room changes reach the directory with the same batching as any
+ * browsing client. Reconnects every {@value #RETRY_SECONDS}s while the directory is down and resends
+ * the full room list each time. Room handoffs between servers are relayed by the directory over this
+ * link and handed to {@code inbound} on the link's network thread.
+ */
+final class DirectoryLink {
+    /** Subscriber key of the link; KryoNet connection ids start at 1. */
+    static final int SUBSCRIBER_KEY = -1;
+    private static final int RETRY_SECONDS = 2;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final RoomDirectory.Filter ALL = new RoomDirectory.Filter(null, -1, 0);
+
+    private final Client client;
+    private final RoomDirectory directory;
+    private final ScheduledExecutorService flushThread;
+    private final Packets.ShardHello hello;
+    private final String host;
+    private final int tcpPort, udpPort;
+    // connect()는 막히므로 전용 스레드에서 시도한다
+    private final ScheduledExecutorService connector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "directory-link");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param flushThread the thread that runs {@link RoomDirectory#flush}; the initial room list is sent
+     *                    from it so no diff can overtake it
+     */
+    DirectoryLink(FanoutSerialization serialization, RoomDirectory directory, ScheduledExecutorService flushThread,
+                  String host, int tcpPort, int udpPort, Packets.ShardHello hello, Consumer<Object> inbound) {
+        this.directory = directory; this.flushThread = flushThread;
+        this.host = host; this.tcpPort = tcpPort; this.udpPort = udpPort; this.hello = hello;
+        // 서버와 같은 직렬화 (이미 등록된 Kryo, Frame 전송)
+        this.client = new Client(16384, 8192, serialization);
+        client.addListener(new Listener() {
+            @Override public void connected(Connection c) {
+                c.setKeepAliveTCP(8000);
+                c.sendTCP(DirectoryLink.this.hello);
+                DirectoryLink.this.flushThread.execute(() -> subscribe(c));
+            }
+
+            @Override public void received(Connection c, Object object) {
+                if (object instanceof Packets.RoomHandoff || object instanceof Packets.RoomHandoffResult) inbound.accept(object);
+            }
+
+            @Override public void disconnected(Connection c) {
+                directory.unsubscribe(SUBSCRIBER_KEY);
+                if (connector.isShutdown()) return;
+                System.out.printf("directory link lost, retrying in %ds%n", RETRY_SECONDS);
+                connector.schedule(DirectoryLink.this::connect, RETRY_SECONDS, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    void start() {
+        client.start();
+        connector.execute(this::connect);
+    }
+
+    /** Closes the link for good; no reconnects follow. */
+    void stop() {
+        connector.shutdownNow();
+        client.stop();
+    }
+
+    /** Sends to the directory; false if the link is down. */
+    boolean send(Object packet) {
+        if (!client.isConnected()) return false;
+        client.sendTCP(packet);
+        return true;
+    }
+
+    /** Tells the directory to stop sending new rooms here (also on every reconnect). */
+    void announceDraining() {
+        hello.draining = true;
+        send(hello);
+    }
+
+    private void connect() {
+        if (client.isConnected()) return;
+        try {
+            // 디렉터리도 UDP를 바인드하므로 UDP 등록까지 마쳐야 연결로 인정된다
+            client.connect(CONNECT_TIMEOUT_MILLIS, host, tcpPort, udpPort);
+            System.out.printf("directory link up: %s:%d%n", host, tcpPort);
+        } catch (IOException e) {
+            connector.schedule(this::connect, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // flush 스레드에서 실행: 구독 후 현재 방 전체를 보내면 그 뒤의 변경은 모두 다음 flush에 실린다
+    private void subscribe(Connection c) {
+        if (!c.isConnected()) return;
+        directory.subscribe(SUBSCRIBER_KEY, c, ALL);
+        String cursor = null;
+        do {
+            Packets.RoomQueryResponse page = directory.query(ALL, cursor, RoomDirectory.MAX_PAGE);
+            if (page.rooms.length > 0) {
+                Packets.RoomDirectoryUpdate upd = new Packets.RoomDirectoryUpdate();
+                upd.changed = page.rooms;
+                c.sendTCP(upd);
+            }
+            cursor = page.nextCursor;
+        } while (cursor != null);
+    }
+}
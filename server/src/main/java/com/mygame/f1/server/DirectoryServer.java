@@ -0,0 +1,301 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+import com.esotericsoftware.minlog.Log;
+import com.mygame.f1.shared.Packets;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Front door for a set of {@link GameServer} processes that each own some rooms. Game servers register
+ * with a {@link Packets.ShardHello} and stream their room summaries; clients browse the merged list here
+ * and are sent a {@link Packets.RedirectResponse} for create (least-loaded server) and join (the room's
+ * owner), which {@code LobbyClient} follows by reconnecting. A draining game server gets no new rooms
+ * and hands its waiting rooms over through here: the directory forwards each {@link Packets.RoomHandoff}
+ * to the least-loaded other server and relays the result back. Holds no room state of its own, so it is
+ * cheap to run next to the game servers on one host with different ports.
+ *
+ * <p>Clients and game servers share the port, so a hello registers a game server only if its secret matches
+ * {@code -Df1.shardSecret}; without that property only connections from this host may register. Shard
+ * packets (room updates, handoffs) from any other connection are ignored.
+ */
+public class DirectoryServer {
+    private static final int DIRECTORY_FLUSH_MILLIS = 250;
+
+    /** A registered game server and the rooms it reported. */
+    private static final class Shard {
+        final Connection connection;
+        final Packets.ShardHello address;
+        volatile boolean draining;
+        final Set<String> roomIds = ConcurrentHashMap.newKeySet();
+        // 마지막 방 변경 보고 이후 이 서버로 보낸 방 생성 수 (보고가 오기 전 몰림 방지)
+        int pendingCreates;
+
+        Shard(Connection connection, Packets.ShardHello address) {
+            this.connection = connection; this.address = address; this.draining = address.draining;
+        }
+    }
+
+    private final int tcpPort;
+    private final int udpPort;
+    private final Server server;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final FanoutSerialization serialization = new FanoutSerialization(metrics);
+    // 모든 게임 서버의 방을 합친 인덱스 (KryoNet 업데이트 스레드가 갱신, scheduler가 diff 전송)
+    private final RoomDirectory directory = new RoomDirectory();
+    // connectionId -> 게임 서버, roomId -> 그 방을 가진 게임 서버
+    private final Map<Integer, Shard> shards = new ConcurrentHashMap<>();
+    private final Map<String, Shard> owners = new ConcurrentHashMap<>();
+    // 진행 중인 방 이관: roomId -> 방을 보낸 게임 서버
+    private final Map<String, Shard> handoffs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ServerMetrics.Counter redirects = metrics.counter(
+        "f1_directory_redirects_total", "Create/join requests redirected to a game server");
+    private final ServerMetrics.Counter handoffsRelayed = metrics.counter(
+        "f1_directory_handoffs_total", "Rooms handed from a draining game server to another one");
+    private final ServerMetrics.Counter shardsRejected = metrics.counter(
+        "f1_directory_shards_rejected_total", "Shard hellos refused for a wrong secret or a remote address");
+    // 게임 서버 등록 비밀 (-Df1.shardSecret); null이면 루프백 연결만 등록한다
+    private final byte[] shardSecret = secretBytes(System.getProperty("f1.shardSecret"));
+
+    public DirectoryServer(int tcpPort, int udpPort) {
+        this.tcpPort = tcpPort; this.udpPort = udpPort;
+        Log.set(Log.LEVEL_INFO);
+        this.server = new Server(16384, 8192, serialization);
+        server.addListener(new DirectoryListener());
+        metrics.gauge("f1_directory_shards", "Registered game servers", shards::size);
+        metrics.gauge("f1_rooms", "Rooms across all game servers", directory::size);
+        metrics.gauge("f1_directory_subscribers", "Connections subscribed to room browser diffs", directory::subscribers);
+        scheduler.scheduleAtFixedRate(this::flushDirectory, DIRECTORY_FLUSH_MILLIS, DIRECTORY_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void start() throws IOException {
+        server.bind(tcpPort, udpPort);
+        server.start();
+        System.out.printf("Directory started TCP=%d UDP=%d%n", tcpPort, udpPort);
+    }
+
+    public ServerMetrics metrics() {
+        return metrics;
+    }
+
+    private class DirectoryListener extends Listener {
+        @Override public void connected(Connection connection) {
+            connection.setKeepAliveTCP(8000);
+            connection.setTimeout(20000);
+        }
+
+        @Override public void disconnected(Connection connection) {
+            directory.unsubscribe(connection.getID());
+            Shard shard = shards.remove(connection.getID());
+            if (shard == null) return;
+            handoffs.values().removeIf(s -> s == shard);
+            // 게임 서버가 끊기면 그 방들은 목록에서 뺀다 (다시 연결하면 전체 목록을 새로 보낸다)
+            for (String id : shard.roomIds) {
+                owners.remove(id, shard);
+                directory.remove(id);
+            }
+            System.out.printf("shard gone: %s:%d (%d rooms)%n", shard.address.host, shard.address.tcpPort, shard.roomIds.size());
+        }
+
+        // 모든 처리가 맵 갱신이나 조회뿐이라 업데이트 스레드에서 바로 한다
+        @Override public void received(Connection c, Object object) {
+            if (object instanceof Packets.ShardHello hello) {
+                Shard known = shards.get(c.getID());
+                if (known != null) {
+                    known.draining = hello.draining;
+                    System.out.printf("shard %s:%d draining=%s%n", hello.host, hello.tcpPort, hello.draining);
+                } else if (admits(c, hello)) {
+                    shards.put(c.getID(), new Shard(c, hello));
+                    System.out.printf("shard registered: %s:%d/%d%n", hello.host, hello.tcpPort, hello.udpPort);
+                } else {
+                    shardsRejected.inc();
+                    System.out.printf("shard hello rejected from %s%n", c.getRemoteAddressTCP());
+                    c.close();
+                }
+            } else if (object instanceof Packets.RoomHandoff handoff) {
+                onHandoff(c, handoff);
+            } else if (object instanceof Packets.RoomHandoffResult result) {
+                onHandoffResult(c, result);
+            } else if (object instanceof Packets.RoomDirectoryUpdate upd) {
+                onShardUpdate(c, upd);
+            } else if (object instanceof Packets.RoomQueryRequest req) {
+                RoomDirectory.Filter filter = RoomDirectory.Filter.of(req);
+                if (req.subscribe) directory.subscribe(c, filter);
+                c.sendTCP(directory.query(filter, req.cursor, req.limit));
+            } else if (object instanceof Packets.RoomUnsubscribeRequest) {
+                directory.unsubscribe(c.getID());
+            } else if (object instanceof Packets.RoomListRequest req) {
+                c.sendTCP(roomList(req));
+            } else if (object instanceof Packets.CreateRoomRequest) {
+                onCreateRoom(c);
+            } else if (object instanceof Packets.JoinRoomRequest req) {
+                onJoinRoom(c, req);
+            }
+        }
+    }
+
+    /** Whether {@code hello} may register its connection as a game server. */
+    private boolean admits(Connection c, Packets.ShardHello hello) {
+        if (shardSecret != null) return hello.secret != null && MessageDigest.isEqual(shardSecret, secretBytes(hello.secret));
+        InetSocketAddress from = c.getRemoteAddressTCP();
+        return from != null && from.getAddress() != null && from.getAddress().isLoopbackAddress();
+    }
+
+    private static byte[] secretBytes(String secret) {
+        return secret == null || secret.isEmpty() ? null : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 아래 세 처리는 등록된 게임 서버의 연결에서 온 것만 받는다 (클라이언트가 보낸 것은 버린다)
+    private void onShardUpdate(Connection c, Packets.RoomDirectoryUpdate upd) {
+        Shard shard = shards.get(c.getID());
+        if (shard == null) return;
+        shard.pendingCreates = 0;
+        if (upd.changed != null) {
+            for (Packets.RoomSummary s : upd.changed) {
+                Shard prev = owners.put(s.roomId, shard);
+                if (prev != null && prev != shard) prev.roomIds.remove(s.roomId);
+                shard.roomIds.add(s.roomId);
+                directory.update(s);
+            }
+        }
+        if (upd.removed != null) {
+            for (String id : upd.removed) {
+                if (!owners.remove(id, shard)) continue;
+                shard.roomIds.remove(id);
+                directory.remove(id);
+            }
+        }
+    }
+
+    private void onHandoff(Connection c, Packets.RoomHandoff handoff) {
+        Shard from = shards.get(c.getID());
+        if (from == null) return;
+        Shard target = leastLoaded(from);
+        if (target == null) {
+            Packets.RoomHandoffResult res = new Packets.RoomHandoffResult();
+            res.roomId = handoff.roomId; res.ok = false; res.message = "no game server to take the room";
+            c.sendTCP(res);
+            return;
+        }
+        handoffs.put(handoff.roomId, from);
+        target.pendingCreates += handoff.players != null ? handoff.players.length : 0;
+        target.connection.sendTCP(handoff);
+    }
+
+    // 받은 서버의 결과에 그 서버 주소를 채워 보낸 서버에 돌려준다
+    private void onHandoffResult(Connection c, Packets.RoomHandoffResult res) {
+        Shard target = shards.get(c.getID());
+        Shard from = handoffs.remove(res.roomId);
+        if (target == null || from == null) return;
+        if (res.ok) {
+            res.host = target.address.host; res.tcpPort = target.address.tcpPort; res.udpPort = target.address.udpPort;
+            handoffsRelayed.inc();
+        }
+        from.connection.sendTCP(res);
+    }
+
+    private void onCreateRoom(Connection c) {
+        Shard target = leastLoaded(null);
+        if (target == null) {
+            Packets.CreateRoomResponse res = new Packets.CreateRoomResponse();
+            res.ok = false; res.message = "no game server available";
+            c.sendTCP(res);
+            return;
+        }
+        target.pendingCreates++;
+        redirect(c, target, null);
+    }
+
+    private void onJoinRoom(Connection c, Packets.JoinRoomRequest req) {
+        Shard owner = req.roomId != null ? owners.get(req.roomId) : null;
+        if (owner == null) {
+            Packets.JoinRoomResponse res = new Packets.JoinRoomResponse();
+            res.ok = false; res.message = "room not found";
+            c.sendTCP(res);
+            return;
+        }
+        redirect(c, owner, req.roomId);
+    }
+
+    private void redirect(Connection c, Shard shard, String roomId) {
+        Packets.RedirectResponse res = new Packets.RedirectResponse();
+        res.host = shard.address.host; res.tcpPort = shard.address.tcpPort; res.udpPort = shard.address.udpPort;
+        res.roomId = roomId;
+        redirects.inc();
+        c.sendTCP(res);
+    }
+
+    /** The non-draining game server with the fewest players, other than {@code except}; null if none. */
+    private Shard leastLoaded(Shard except) {
+        Shard target = null;
+        int best = Integer.MAX_VALUE;
+        for (Shard shard : shards.values()) {
+            if (shard == except || shard.draining) continue;
+            int load = load(shard);
+            if (load < best) { best = load; target = shard; }
+        }
+        return target;
+    }
+
+    // 플레이어 수 + 아직 보고되지 않은 방 생성 수 (방 생성자 한 명씩)
+    private int load(Shard shard) {
+        int players = shard.pendingCreates;
+        for (String id : shard.roomIds) {
+            Packets.RoomSummary s = directory.get(id);
+            if (s != null) players += s.players;
+        }
+        return players;
+    }
+
+    /** The legacy full list, built from summaries: rooms carry no player list here. */
+    private Packets.RoomListResponse roomList(Packets.RoomListRequest req) {
+        Map<String, Integer> known = new HashMap<>();
+        if (req.knownRoomIds != null && req.knownVersions != null) {
+            int n = Math.min(req.knownRoomIds.length, req.knownVersions.length);
+            for (int i = 0; i < n; i++) known.put(req.knownRoomIds[i], req.knownVersions[i]);
+        }
+        Packets.RoomListResponse res = new Packets.RoomListResponse();
+        res.rooms = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        String cursor = null;
+        RoomDirectory.Filter any = new RoomDirectory.Filter(null, -1, 0);
+        do {
+            Packets.RoomQueryResponse page = directory.query(any, cursor, RoomDirectory.MAX_PAGE);
+            for (Packets.RoomSummary s : page.rooms) {
+                Integer v = known.get(s.roomId);
+                if (v != null && v == s.version) { unchanged.add(s.roomId); continue; }
+                Packets.RoomState state = new Packets.RoomState();
+                state.roomId = s.roomId; state.roomName = s.roomName; state.phase = s.phase;
+                state.maxPlayers = s.maxPlayers; state.selectedTrackIndex = s.trackIndex; state.version = s.version;
+                state.players = new ArrayList<>();
+                res.rooms.add(state);
+            }
+            cursor = page.nextCursor;
+        } while (cursor != null);
+        if (!unchanged.isEmpty()) res.unchangedRoomIds = unchanged.toArray(new String[0]);
+        return res;
+    }
+
+    private void flushDirectory() {
+        try {
+            directory.flush(serialization);
+        } catch (Exception e) {
+            Log.error("directory", "flush failed", e);
+        }
+    }
+}
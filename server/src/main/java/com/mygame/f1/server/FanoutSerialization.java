@@ -0,0 +1,98 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.KryoSerialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * KryoNet serialization that can encode a packet once and write the same bytes to every recipient.
+ * {@link #encode} fills a reusable {@link Frame}; passing that frame to {@code sendTCP}/{@code sendUDP}
+ * copies its bytes straight into the connection buffer, and the receiver decodes the original packet.
+ * KryoNet copies synchronously during the send call, so a frame can be refilled right after the loop.
+ * Also records wire bytes and serialization time for every packet into {@link ServerMetrics}.
+ *
+ * <p>Both the network Kryo and each encoding thread's own Kryo are registered through {@link PacketRegistry}.
+ * Only KryoNet's {@link #write}/{@link #read} share the network Kryo and its lock; tick shards encode in
+ * parallel without waiting on each other or on incoming packets.
+ */
+final class FanoutSerialization extends KryoSerialization {
+    private final ServerMetrics.Counter encodes;
+    private final ServerMetrics.Counter frameWrites;
+    private final ServerMetrics.Counter bytesSent;
+    private final ServerMetrics.Counter bytesReceived;
+    private final ServerMetrics.Histogram encodeTime;
+    private final ServerMetrics.Histogram writeTime;
+    private final ServerMetrics.Histogram readTime;
+    // encode()용 스레드별 Kryo (Kryo는 스레드 안전하지 않다; 등록 순서가 같아 ID도 네트워크 Kryo와 같다)
+    private final ThreadLocal<Kryo> encoders = ThreadLocal.withInitial(() -> {
+        Kryo kryo = new KryoSerialization().getKryo();
+        PacketRegistry.register(kryo);
+        return kryo;
+    });
+
+    FanoutSerialization(ServerMetrics metrics) {
+        PacketRegistry.register(getKryo());
+        encodes = metrics.counter("f1_fanout_encodes_total", "Packets serialized once for a room broadcast");
+        frameWrites = metrics.counter("f1_fanout_frame_writes_total", "Connection writes served from a pre-encoded frame");
+        bytesSent = metrics.counter("f1_bytes_sent_total", "Serialized bytes handed to TCP/UDP connections");
+        bytesReceived = metrics.counter("f1_bytes_received_total", "Bytes of packets decoded from TCP/UDP connections");
+        String help = "Kryo serialization time by operation";
+        encodeTime = metrics.histogram("f1_serialization_seconds", help, ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS, "op", "encode");
+        writeTime = metrics.histogram("f1_serialization_seconds", help, ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS, "op", "write");
+        readTime = metrics.histogram("f1_serialization_seconds", help, ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS, "op", "read");
+    }
+
+    /** Pre-encoded packet bytes; owned by one thread at a time, or shared read-only once it is never re-encoded. */
+    static final class Frame {
+        private final Output output = new Output(512, -1);
+        private int length;
+
+        int length() { return length; }
+
+        /** The encoded packet; only the first {@link #length()} bytes are valid. */
+        byte[] bytes() { return output.getBuffer(); }
+    }
+
+    /** Serializes {@code packet} into {@code frame}, replacing its previous contents. Any thread; takes no lock. */
+    Frame encode(Object packet, Frame frame) {
+        long start = System.nanoTime();
+        frame.output.clear();
+        encoders.get().writeClassAndObject(frame.output, packet);
+        frame.length = frame.output.position();
+        encodeTime.record(System.nanoTime() - start);
+        encodes.inc();
+        return frame;
+    }
+
+    @Override public synchronized void write(Connection connection, ByteBuffer buffer, Object object) {
+        if (object instanceof Frame frame) {
+            buffer.put(frame.output.getBuffer(), 0, frame.length);
+            bytesSent.add(frame.length);
+            frameWrites.inc();
+            return;
+        }
+        long start = System.nanoTime();
+        int before = buffer.position();
+        super.write(connection, buffer, object);
+        writeTime.record(System.nanoTime() - start);
+        bytesSent.add(buffer.position() - before);
+    }
+
+    @Override public synchronized Object read(Connection connection, ByteBuffer buffer) {
+        long start = System.nanoTime();
+        int before = buffer.position();
+        Object object = super.read(connection, buffer);
+        readTime.record(System.nanoTime() - start);
+        bytesReceived.add(buffer.position() - before);
+        return object;
+    }
+
+    /** Total fan-out encodes. */
+    long encodes() { return encodes.sum(); }
+
+    /** Total connection writes served from pre-encoded frames. */
+    long frameWrites() { return frameWrites.sum(); }
+}
@@ -1,50 +1,493 @@
 package com.mygame.f1.server;
 
-import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
 import com.esotericsoftware.minlog.Log;
 import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
 
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
- * Minimal lobby server: create/join/leave rooms with max 4 players; broadcasts room state.
+ * Minimal lobby server: create/join/leave rooms with up to {@value #MAX_ROOM_PLAYERS} players; broadcasts room state.
  * Physics/state-sync will be added later per docs/specs/network/MULTIPLAYER-SYNC.md.
  */
 public class GameServer {
+    /** Hard cap on cars per room; collisions use a spatial-hash broadphase so 20+ car grids stay cheap. */
+    public static final int MAX_ROOM_PLAYERS = 24;
+    private static final int STATS_INTERVAL_SECONDS = 30;
+    /** How often room browser subscribers get their batched diffs. */
+    private static final int DIRECTORY_FLUSH_MILLIS = 250;
+    /** Chat coalescing window: messages arriving within it go out as one batch. */
+    private static final int CHAT_FLUSH_MILLIS = 100;
+    /** Seconds between the first finisher and the results, unless everyone finishes sooner. */
+    private static final int FINISH_COUNTDOWN_SECONDS = 10;
+    /** How often a draining server re-checks its rooms and retries handoffs. */
+    private static final int DRAIN_CHECK_MILLIS = 1000;
+    /** Seats of a handed-over room stay reserved this long for their players to reconnect. */
+    private static final int RESUME_TIMEOUT_SECONDS = 15;
+    /** Time the network thread may spend on one packet before it counts as over budget. */
+    private static final long DISPATCH_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
     private final int tcpPort;
     private final int udpPort;
     private final Server server;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final FanoutSerialization serialization = new FanoutSerialization(metrics);
+    // TCP 브로드캐스트용 프레임 (호출 스레드마다 하나씩 재사용)
+    private final ThreadLocal<FanoutSerialization.Frame> tcpFrame = ThreadLocal.withInitial(FanoutSerialization.Frame::new);
 
     // roomId -> Room
     private final Map<String, Room> rooms = new ConcurrentHashMap<>();
     // connectionId -> roomId (single membership for now)
     private final Map<Integer, String> membership = new ConcurrentHashMap<>();
+    // 방 브라우저 인덱스와 구독자 (방 메일박스에서 갱신, scheduler가 diff 전송)
+    private final RoomDirectory directory = new RoomDirectory();
+    // 방 틱은 샤드별 워커가 담당하고, 이 스케줄러는 통계 로그 같은 하우스키핑만 처리한다
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final TickEngine tickEngine;
+    // 로비 핸들러 실행 풀: 방마다 직렬 메일박스가 이 풀 위에서 돈다 (방 생성/목록 조회는 풀에서 바로 실행)
+    private final ExecutorService handlerPool;
+    private MetricsHttpServer metricsHttp;
+    // 스냅샷 델타 압축 효과 측정용
+    private final ServerMetrics.Counter snapshotBytesSent = metrics.counter(
+        "f1_snapshot_bytes_sent_total", "Delta snapshot bytes sent over UDP");
+    private final ServerMetrics.Counter snapshotBytesRaw = metrics.counter(
+        "f1_snapshot_bytes_full_equivalent_total", "Bytes the same snapshots would take as uncompressed full states");
+    private final ServerMetrics.Counter carsDeferred = metrics.counter(
+        "f1_interest_cars_deferred_total", "Changed cars left out of a recipient's snapshot by its byte budget");
+    private final ServerMetrics.Counter udpDropped = metrics.counter(
+        "f1_udp_send_dropped_total", "UDP snapshot sends that failed or were truncated");
+    private final ServerMetrics.Counter rateChanges = metrics.counter(
+        "f1_link_rate_changes_total", "Per-connection snapshot rate changes sent to clients");
+    private final ServerMetrics.Counter corrections = metrics.counter(
+        "f1_corrections_sent_total", "Collision responses sent back to the client that owns the car");
+    private final ServerMetrics.Counter inputSyncs = metrics.counter(
+        "f1_input_syncs_sent_total", "Server states sent back to a client driving by inputs, acknowledging its steps");
+    private final ServerMetrics.Counter inputSteps = metrics.counter(
+        "f1_input_steps_simulated_total", "Client physics steps the server ran from received inputs");
+    private final ServerMetrics.Counter uplinkHoles = metrics.counter(
+        "f1_uplink_holes_total", "Ticks where a car's due state had not arrived, so it held an older one");
+    private final ServerMetrics.Counter uplinkRecovered = metrics.counter(
+        "f1_uplink_recovered_total", "States played from a later packet's redundant copy after their own packet was lost");
+    private final ServerMetrics.Counter uplinkStale = metrics.counter(
+        "f1_uplink_stale_total", "State packets that arrived twice or after their playout turn");
+    private final ServerMetrics.Counter chatDropped = metrics.counter(
+        "f1_chat_dropped_total", "Chat messages dropped by the per-sender rate limit or a full batch");
+    private final ServerMetrics.Histogram tcpQueueBytes = metrics.histogram(
+        "f1_tcp_send_queue_bytes", "Pending TCP write buffer bytes sampled after each room broadcast send",
+        ServerMetrics.BYTE_BUCKETS, 1);
+    // 패킷 타입별 received() 처리 시간 (클래스마다 한 번만 등록)
+    private final ClassValue<ServerMetrics.Histogram> handlerTime = new ClassValue<>() {
+        @Override protected ServerMetrics.Histogram computeValue(Class<?> type) {
+            return metrics.histogram("f1_handler_seconds", "received() handler time by packet type",
+                ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS, "type", type.getSimpleName());
+        }
+    };
+    private final ServerMetrics.Histogram dispatchTime = metrics.histogram(
+        "f1_dispatch_seconds", "Time received() spends on the network thread per packet",
+        ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS);
+    private final ServerMetrics.Counter dispatchOverBudget = metrics.counter(
+        "f1_dispatch_over_budget_total", "Packets whose network-thread dispatch exceeded the 500us budget");
+    // 통계 로그 구간 계산용 직전 누적값 (scheduler 스레드 전용)
+    private long lastEncodes, lastFrameWrites, lastSnapshotSent, lastSnapshotRaw;
+    // 연결별 스냅샷/송신 빈도 범위 (방 틱은 최대 빈도로 돈다)
+    private final LinkRate.Bounds rateBounds;
+    // 방 디렉터리 연결 (없으면 단독 서버)
+    private volatile DirectoryLink directoryLink;
+    // 드레인: 새 방/입장을 받지 않고, 레이스 중인 방은 끝나길 기다리고, 대기 중인 방은 디렉터리를 통해 다른 서버로 옮긴다 (없으면 닫는다)
+    private volatile boolean draining;
+    private volatile long drainStartNanos;
+    private volatile int drainStartRooms;
+    private volatile double drainEmptySeconds = -1;
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    private final SecureRandom resumeTokens = new SecureRandom();
+    private final ServerMetrics.Counter roomsMigrated = metrics.counter(
+        "f1_drain_rooms_migrated_total", "Waiting rooms handed over to another server while draining");
+    private final ServerMetrics.Counter roomsClosed = metrics.counter(
+        "f1_drain_rooms_closed_total", "Waiting rooms closed while draining because no directory could take them");
+    private final ServerMetrics.Counter handoffFailures = metrics.counter(
+        "f1_drain_handoff_failures_total", "Room handoffs the directory or the target server refused");
+    // 레이스 기록 (없으면 기록하지 않음)
+    private volatile RaceRecordings recordings;
 
     public GameServer(int tcpPort, int udpPort) {
-        this.tcpPort = tcpPort; this.udpPort = udpPort;
+        this(tcpPort, udpPort, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameServer(int tcpPort, int udpPort, int tickWorkers) {
+        this(tcpPort, udpPort, tickWorkers, LinkRate.Bounds.fromSystemProperties());
+    }
+
+    GameServer(int tcpPort, int udpPort, int tickWorkers, LinkRate.Bounds rateBounds) {
+        this.tcpPort = tcpPort; this.udpPort = udpPort; this.rateBounds = rateBounds;
+        int handlerThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.handlerPool = Executors.newFixedThreadPool(handlerThreads, new ThreadFactory() {
+            private final AtomicInteger seq = new AtomicInteger();
+
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "room-handler-" + seq.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        });
         // 과도한 로그로 인한 I/O 부담을 줄이기 위해 INFO로 설정
         Log.set(Log.LEVEL_INFO);
-        this.server = new Server(16384, 8192);
-        Kryo kryo = server.getKryo();
-        PacketRegistry.register(kryo);
+        this.server = new Server(16384, 8192, serialization) {
+            @Override protected Connection newConnection() {
+                return new PlayerConnection();
+            }
+        };
         server.addListener(new ServerListener());
-        scheduler.scheduleAtFixedRate(this::broadcastStates, 33, 33, TimeUnit.MILLISECONDS); // 30Hz (더 부드러운 동기화)
+        ServerMetrics.Histogram tickTime = metrics.histogram("f1_tick_seconds", "Duration of one shard pass over its rooms",
+            ServerMetrics.LATENCY_BUCKETS, ServerMetrics.NANOS);
+        // 최대 빈도로 틱하고, 연결마다 자기 빈도가 된 틱에만 스냅샷을 받는다
+        this.tickEngine = new TickEngine(tickWorkers, rateBounds.tickNanos(), TimeUnit.NANOSECONDS, tickTime::record);
+        registerGauges();
+        scheduler.scheduleAtFixedRate(this::logTickStats, STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::flushDirectory, DIRECTORY_FLUSH_MILLIS, DIRECTORY_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     public void start() throws IOException {
         server.bind(tcpPort, udpPort);
         server.start();
-        System.out.printf("Server started TCP=%d UDP=%d%n", tcpPort, udpPort);
+        registerMBean();
+        System.out.printf("Server started TCP=%d UDP=%d tickWorkers=%d rate=%d-%dHz%n", tcpPort, udpPort,
+            tickEngine.workers(), rateBounds.minHz(), rateBounds.maxHz());
+    }
+
+    /**
+     * Stops the server at once: closes every connection and both ports, the tick shards, the room handlers,
+     * the stats scheduler, the metrics endpoint and the directory link. Races in progress are dropped, so
+     * {@link #drain()} first for a graceful shutdown. Safe to call more than once.
+     */
+    public void stop() {
+        server.stop();
+        DirectoryLink link = directoryLink;
+        if (link != null) link.stop();
+        tickEngine.shutdown();
+        handlerPool.shutdownNow();
+        scheduler.shutdownNow();
+        MetricsHttpServer http = metricsHttp;
+        if (http != null) http.stop();
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName());
+        } catch (Exception ignored) {
+            // start() 전이거나 등록에 실패한 경우
+        }
+    }
+
+    /**
+     * Records every race from now on into {@code dir}, one subdirectory per race, within the limits of
+     * {@code -Df1.recordMaxMB}, {@code -Df1.recordCompactAfterHours} and {@code -Df1.recordMaxAgeDays}.
+     * Read recordings with {@link RaceLogReader}.
+     */
+    public void recordRaces(Path dir) {
+        RaceRecordings.Policy policy = RaceRecordings.Policy.fromSystemProperties();
+        recordings = new RaceRecordings(dir, policy, metrics);
+        System.out.printf("Recording races to %s (up to %d MB)%n", dir.toAbsolutePath(), policy.maxBytes() >> 20);
+    }
+
+    /**
+     * Registers with a {@link DirectoryServer} at {@code host:tcpPort/udpPort} and keeps it told about this server's
+     * rooms; clients the directory redirects here connect to {@code advertisedHost} and this server's ports.
+     * Registers with {@code -Df1.shardSecret}, which must match the directory's unless both run on one host.
+     * Call after {@link #start()}. The link reconnects by itself if the directory restarts.
+     */
+    public void joinDirectory(String host, int tcpPort, int udpPort, String advertisedHost) {
+        Packets.ShardHello hello = new Packets.ShardHello();
+        hello.host = advertisedHost; hello.tcpPort = this.tcpPort; hello.udpPort = this.udpPort;
+        hello.draining = draining;
+        hello.secret = System.getProperty("f1.shardSecret");
+        DirectoryLink link = new DirectoryLink(serialization, directory, scheduler, host, tcpPort, udpPort, hello,
+            this::onDirectoryMessage);
+        directoryLink = link;
+        link.start();
+        System.out.printf("Joining directory %s:%d as %s:%d%n", host, tcpPort, advertisedHost, this.tcpPort);
+    }
+
+    /**
+     * Stops taking new rooms and joins, lets racing rooms finish and hands waiting rooms to other servers
+     * through the directory (without one they are closed with a notice, since nothing would empty them
+     * before the timeout). The future completes once no room
+     * is waiting or racing; rooms that only show results are not waited for. Safe to call more than once.
+     */
+    public CompletableFuture<Void> drain() {
+        if (draining) return drained;
+        drainStartNanos = System.nanoTime();
+        drainStartRooms = activeRooms();
+        draining = true;
+        DirectoryLink link = directoryLink;
+        if (link != null) link.announceDraining();
+        System.out.printf("Draining: %d active rooms%s%n", drainStartRooms,
+            link != null ? "" : " (no directory: waiting rooms are closed)");
+        scheduler.scheduleAtFixedRate(this::drainStep, 0, DRAIN_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        return drained;
+    }
+
+    // 결과 화면만 남은 방(FINISHED)은 기다리지 않는다
+    private int activeRooms() {
+        int n = 0;
+        for (Room r : rooms.values()) {
+            if (r.phase() != Packets.RoomPhase.FINISHED) n++;
+        }
+        return n;
+    }
+
+    private void drainStep() {
+        if (drained.isDone()) return;
+        int remaining = 0;
+        for (Room room : rooms.values()) {
+            if (room.phase() == Packets.RoomPhase.FINISHED) continue;
+            remaining++;
+            if (room.phase() != Packets.RoomPhase.WAITING) continue;
+            if (directoryLink != null) room.mailbox.execute(() -> handOff(room));
+            else room.mailbox.execute(() -> closeForDrain(room));
+        }
+        if (remaining == 0) {
+            drainEmptySeconds = (System.nanoTime() - drainStartNanos) / 1e9;
+            System.out.printf("Drained in %.1fs (%d rooms migrated, %d closed)%n", drainEmptySeconds,
+                roomsMigrated.sum(), roomsClosed.sum());
+            drained.complete(null);
+        }
+    }
+
+    // 남은 방 수를 지금까지 비운 속도로 나눈 추정치 (아직 하나도 비지 않았으면 -1), 끝났으면 실제 걸린 시간
+    private double drainSecondsToEmpty() {
+        if (!draining) return 0;
+        if (drainEmptySeconds >= 0) return drainEmptySeconds;
+        int remaining = activeRooms();
+        int done = drainStartRooms - remaining;
+        if (done <= 0) return -1;
+        double elapsed = (System.nanoTime() - drainStartNanos) / 1e9;
+        return elapsed + remaining * elapsed / done;
+    }
+
+    // 방 메일박스: 옮길 디렉터리가 없으면 대기 방을 비워질 때까지 기다리지 않고 안내와 함께 닫는다
+    private void closeForDrain(Room room) {
+        if (room.phase() != Packets.RoomPhase.WAITING || rooms.get(room.id) != room) return;
+        for (Room.Member m : room.members) {
+            sendError(m.connection, "server is shutting down: room closed");
+            membership.remove(m.id);
+            room.leave(m.connection);
+        }
+        room.dropReservations();
+        cleanupIfEmpty(room);
+        roomsClosed.inc();
+    }
+
+    // 방 메일박스: 대기 중인 방의 상태와 멤버별 재접속 토큰을 디렉터리로 보낸다 (응답은 finishHandOff).
+    // 옮겨 받아 아직 자리가 예약된 방은 예약이 풀린 뒤에 옮긴다
+    private void handOff(Room room) {
+        DirectoryLink link = directoryLink;
+        if (link == null || room.movingOut || room.phase() != Packets.RoomPhase.WAITING
+                || rooms.get(room.id) != room || room.hasReservations()) return;
+        Map<Integer, Long> tokens = new HashMap<>();
+        Packets.RoomHandoff handoff = room.handoff(tokens, () -> {
+            long t;
+            do { t = resumeTokens.nextLong(); } while (t == 0);
+            return t;
+        });
+        if (handoff.players.length == 0) return;
+        room.movingOut = true;
+        room.handoffTokens = tokens;
+        if (!link.send(handoff)) room.movingOut = false;
+    }
+
+    // 디렉터리 연결 스레드에서 호출된다
+    private void onDirectoryMessage(Object message) {
+        if (message instanceof Packets.RoomHandoff handoff) {
+            handlerPool.execute(() -> onRoomHandoff(handoff));
+        } else if (message instanceof Packets.RoomHandoffResult res) {
+            Room room = rooms.get(res.roomId);
+            if (room != null) room.mailbox.execute(() -> finishHandOff(room, res));
+        }
+    }
+
+    // 보낸 쪽: 성공하면 멤버마다 새 서버 주소와 토큰을 보내고 방을 내린다. 실패하면 다음 drainStep에서 다시 시도
+    private void finishHandOff(Room room, Packets.RoomHandoffResult res) {
+        if (!room.movingOut) return;
+        if (!res.ok) {
+            room.movingOut = false;
+            handoffFailures.inc();
+            System.out.printf("handoff of %s refused: %s%n", room.id, res.message);
+            return;
+        }
+        for (Room.Member m : room.members) {
+            Long token = room.handoffTokens.get(m.id);
+            if (token != null) {
+                Packets.RedirectResponse move = new Packets.RedirectResponse();
+                move.host = res.host; move.tcpPort = res.tcpPort; move.udpPort = res.udpPort;
+                move.roomId = room.id; move.resumeToken = token;
+                m.connection.sendTCP(move);
+            }
+            membership.remove(m.id);
+            room.leave(m.connection);
+        }
+        rooms.remove(room.id);
+        directory.remove(room.id);
+        if (room.tick != null) room.tick.cancel();
+        roomsMigrated.inc();
+        System.out.printf("room %s handed over to %s:%d%n", room.id, res.host, res.tcpPort);
+    }
+
+    // 받는 쪽: 같은 ID로 방을 만들고 자리를 토큰별로 예약한 뒤 공개하고 나서 수락한다
+    private void onRoomHandoff(Packets.RoomHandoff handoff) {
+        Packets.RoomHandoffResult res = new Packets.RoomHandoffResult();
+        res.roomId = handoff.roomId;
+        if (draining || handoff.roomId == null || rooms.containsKey(handoff.roomId)
+                || handoff.players == null || handoff.players.length == 0) {
+            res.ok = false;
+            res.message = draining ? "target is draining" : "room cannot be restored";
+        } else {
+            int max = Math.max(1, Math.min(handoff.maxPlayers, MAX_ROOM_PLAYERS));
+            Room room = new Room(handoff.roomId, Optional.ofNullable(handoff.roomName).orElse("Room"), max,
+                new Mailbox(handlerPool), rateBounds);
+            room.selectTrack(handoff.trackIndex);
+            for (int i = 0; i < handoff.players.length; i++) room.reserve(handoff.players[i].resumeToken, handoff.players[i], i);
+            room.chat.restore(handoff.chat);
+            room.tick = tickEngine.register(() -> tickRoom(room));
+            // 돌아오지 않은 자리는 풀어 주고, 아무도 없으면 방을 닫는다
+            room.tick.schedule(() -> room.mailbox.execute(() -> {
+                room.dropReservations();
+                cleanupIfEmpty(room);
+            }), RESUME_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            rooms.put(room.id, room);
+            room.mailbox.execute(() -> directory.update(room));
+            res.ok = true;
+            System.out.printf("room %s taken over (%d seats reserved)%n", room.id, handoff.players.length);
+        }
+        DirectoryLink link = directoryLink;
+        if (link != null) link.send(res);
+    }
+
+    private void onResumeRoom(Connection c, Packets.ResumeRoomRequest req) {
+        if (!c.isConnected()) return;
+        Room room = rooms.get(req.roomId);
+        Packets.ResumeRoomResponse res = new Packets.ResumeRoomResponse();
+        Packets.PlayerInfo self = room != null ? room.resume(c, req.resumeToken) : null;
+        if (self == null) {
+            res.ok = false; res.message = "resume denied: seat not found";
+            c.sendTCP(res);
+            return;
+        }
+        membership.put(c.getID(), room.id);
+        directory.unsubscribe(c.getID());
+        res.ok = true; res.message = "resumed"; res.self = self; res.state = room.snapshot().state;
+        c.sendTCP(res);
+        sendRate(c);
+        Packets.ChatBatch history = room.chat.history();
+        if (history != null) c.sendTCP(history);
+        broadcastRoomState(room);
+    }
+
+    /** Serves {@link #metrics()} in the Prometheus text format at {@code http://address/metrics}. */
+    public void startMetrics(InetSocketAddress address) throws IOException {
+        metricsHttp = new MetricsHttpServer(metrics, address);
+        metricsHttp.start();
+        System.out.printf("Metrics at http://%s:%d/metrics%n",
+            address.getHostString(), metricsHttp.address().getPort());
+    }
+
+    public ServerMetrics metrics() {
+        return metrics;
+    }
+
+    private void registerGauges() {
+        metrics.gauge("f1_rooms", "Open rooms", rooms::size);
+        metrics.gauge("f1_players", "Players in a room", membership::size);
+        metrics.gauge("f1_connections", "Connected clients", () -> server.getConnections().length);
+        metrics.gauge("f1_tcp_send_queue_max_bytes", "Largest pending TCP write buffer across connections", () -> {
+            int max = 0;
+            for (Connection c : server.getConnections()) max = Math.max(max, c.getTcpWriteBufferSize());
+            return max;
+        });
+        metrics.gauge("f1_directory_subscribers", "Connections subscribed to room browser diffs", directory::subscribers);
+        metrics.gauge("f1_draining", "1 while the server is draining for shutdown", () -> draining ? 1 : 0);
+        metrics.gauge("f1_drain_rooms_remaining", "Waiting or racing rooms left before a drain completes",
+            () -> draining ? activeRooms() : 0);
+        metrics.gauge("f1_drain_elapsed_seconds", "Time since the drain started",
+            () -> !draining ? 0 : drainEmptySeconds >= 0 ? drainEmptySeconds : (System.nanoTime() - drainStartNanos) / 1e9);
+        metrics.gauge("f1_drain_time_to_empty_seconds",
+            "Drain duration: estimated from the rate rooms emptied so far (-1 until one has), actual once done",
+            this::drainSecondsToEmpty);
+        metrics.gauge("f1_room_timers", "Room timers pending in the tick shards' timer wheels", tickEngine::pendingTimers);
+        metrics.gauge("f1_mailbox_pending", "Handler tasks queued or running across room mailboxes", () -> {
+            int pending = 0;
+            for (Room r : rooms.values()) pending += r.mailbox.pending();
+            return pending;
+        });
+        metrics.sampled("f1_room_players", "Players per room", ServerMetrics.Type.GAUGE, "room", () -> {
+            Map<String, Integer> out = new TreeMap<>();
+            for (Room r : rooms.values()) out.put(r.id, r.players.size());
+            return out;
+        });
+        metrics.sampled("f1_link_rate_hz", "Effective snapshot/send rate per connection in a room",
+            ServerMetrics.Type.GAUGE, "player", () -> linkSamples(m -> m.link.hz()));
+        metrics.sampled("f1_link_rtt_seconds", "Smoothed round-trip time per connection in a room",
+            ServerMetrics.Type.GAUGE, "player", () -> linkSamples(m -> Math.max(0, m.link.srttNanos()) / 1e9));
+        metrics.sampled("f1_link_loss_ratio", "Smoothed uplink packet loss per connection in a room",
+            ServerMetrics.Type.GAUGE, "player", () -> linkSamples(m -> m.link.loss()));
+        metrics.sampled("f1_shard_rooms", "Rooms pinned to each tick shard", ServerMetrics.Type.GAUGE, "shard", () -> {
+            Map<String, Integer> out = new TreeMap<>();
+            for (TickEngine.ShardStats st : tickEngine.peekStats()) out.put(Integer.toString(st.shard()), st.rooms());
+            return out;
+        });
+        metrics.sampled("f1_tick_skipped_total", "Ticks skipped because a shard fell a full period behind",
+            ServerMetrics.Type.COUNTER, "shard", () -> {
+                Map<String, Long> out = new TreeMap<>();
+                for (TickEngine.ShardStats st : tickEngine.peekStats()) out.put(Integer.toString(st.shard()), st.skippedTicks());
+                return out;
+            });
+    }
+
+    private Map<String, Number> linkSamples(Function<Room.Member, Number> value) {
+        Map<String, Number> out = new TreeMap<>();
+        for (Room r : rooms.values()) {
+            for (Room.Member m : r.members) out.put(Integer.toString(m.id), value.apply(m));
+        }
+        return out;
+    }
+
+    // 같은 JVM에 서버가 여러 개 뜰 수 있으므로 포트로 구분한다
+    private ObjectName mbeanName() throws MalformedObjectNameException {
+        return new ObjectName("com.mygame.f1.server:type=ServerMetrics,port=" + tcpPort);
+    }
+
+    private void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(metrics), mbeanName());
+        } catch (Exception e) {
+            System.out.printf("JMX metrics disabled: %s%n", e);
+        }
+    }
+
+    /** Per-shard tick duration stats; the max is reset on every call. */
+    public List<TickEngine.ShardStats> tickStats() {
+        return tickEngine.stats();
+    }
+
+    /** Connection that points straight at its room slot, so the per-packet state path needs no map lookups. */
+    static final class PlayerConnection extends Connection {
+        volatile Room.Member member;
     }
 
     private class ServerListener extends Listener {
@@ -58,71 +501,131 @@ public class GameServer {
 
         @Override public void disconnected(Connection connection) {
             System.out.printf("disconnected: %d%n", connection.getID());
-            leaveAll(connection);
+            directory.unsubscribe(connection.getID());
+            dispatch(mailboxOf(membership.get(connection.getID())), connection, null, () -> leaveAll(connection));
         }
 
+        // KryoNet 업데이트 스레드: 디코딩된 패킷을 방 메일박스로 넘기기만 한다.
+        // 방 상태는 그 방의 메일박스에서만 바뀌고, 방이 없으면 not-found 응답만 하므로 바로 처리한다
         @Override public void received(Connection c, Object object) {
+            long start = System.nanoTime();
             try {
-                if (object instanceof Packets.CreateRoomRequest req) {
-                    onCreateRoom(c, req);
+                if (object instanceof Packets.PlayerStateUpdate upd) {
+                    // 재사용 객체로 디코딩되므로 다음 패킷이 덮어쓰기 전에 이 스레드에서 슬롯으로 복사
+                    onPlayerState(c, upd);
+                    handlerTime.get(Packets.PlayerStateUpdate.class).record(System.nanoTime() - start);
+                } else if (object instanceof Packets.PlayerInputPacket in) {
+                    onPlayerInputs(c, in);
+                    handlerTime.get(Packets.PlayerInputPacket.class).record(System.nanoTime() - start);
+                } else if (object instanceof Packets.CreateRoomRequest req) {
+                    dispatch(handlerPool, c, object, () -> onCreateRoom(c, req));
+                } else if (object instanceof Packets.RoomListRequest req) {
+                    dispatch(handlerPool, c, object, () -> onRoomList(c, req));
+                } else if (object instanceof Packets.RoomQueryRequest req) {
+                    dispatch(handlerPool, c, object, () -> onRoomQuery(c, req));
+                } else if (object instanceof Packets.RoomUnsubscribeRequest) {
+                    directory.unsubscribe(c.getID());
                 } else if (object instanceof Packets.JoinRoomRequest req) {
-                    onJoinRoom(c, req);
-            } else if (object instanceof Packets.LeaveRoomRequest req) {
-                onLeaveRoom(c, req);
-            } else if (object instanceof Packets.ReadyRequest req) {
-                onReady(c, req);
-            } else if (object instanceof Packets.SelectionRequest req) {
-                onSelection(c, req);
-            } else if (object instanceof Packets.RoomListRequest) {
-                onRoomList(c);
-            } else if (object instanceof Packets.StartRaceRequest req) {
-                onStartRace(c, req);
-            } else if (object instanceof Packets.ChatMessage msg) {
-                onChat(c, msg);
-            } else if (object instanceof Packets.PlayerStateUpdate upd) {
-                onPlayerState(c, upd);
-            } else if (object instanceof Packets.PlayerFinishedPacket pkt) {
-                onPlayerFinished(c, pkt);
-            }
-        } catch (Exception e) {
-            Packets.ErrorResponse err = new Packets.ErrorResponse();
-            err.message = "server error: " + e.getMessage();
-            c.sendTCP(err);
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onJoinRoom(c, req));
+                } else if (object instanceof Packets.ResumeRoomRequest req) {
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onResumeRoom(c, req));
+                } else if (object instanceof Packets.LeaveRoomRequest req) {
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onLeaveRoom(c, req));
+                } else if (object instanceof Packets.ReadyRequest req) {
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onReady(c, req));
+                } else if (object instanceof Packets.SelectionRequest req) {
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onSelection(c, req));
+                } else if (object instanceof Packets.StartRaceRequest req) {
+                    dispatch(mailboxOf(req.roomId), c, object, () -> onStartRace(c, req));
+                } else if (object instanceof Packets.ChatMessage msg) {
+                    dispatch(mailboxOf(msg.roomId), c, object, () -> onChat(c, msg));
+                } else if (object instanceof Packets.PlayerFinishedPacket pkt) {
+                    dispatch(mailboxOf(membership.get(c.getID())), c, object, () -> onPlayerFinished(c, pkt));
+                }
+            } finally {
+                long took = System.nanoTime() - start;
+                dispatchTime.record(took);
+                if (took > DISPATCH_BUDGET_NANOS) dispatchOverBudget.inc();
             }
         }
     }
 
+    /** The room's mailbox, or a direct executor when the room is gone (the handler then only replies not-found). */
+    private Executor mailboxOf(String roomId) {
+        Room room = roomId != null ? rooms.get(roomId) : null;
+        return room != null ? room.mailbox : Runnable::run;
+    }
+
+    /** Runs {@code handler} on {@code executor} with timing and the usual error reply; {@code packet} is null for events. */
+    private void dispatch(Executor executor, Connection c, Object packet, Runnable handler) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                handler.run();
+            } catch (Exception e) {
+                Packets.ErrorResponse err = new Packets.ErrorResponse();
+                err.message = "server error: " + e.getMessage();
+                c.sendTCP(err);
+            } finally {
+                if (packet != null) handlerTime.get(packet.getClass()).record(System.nanoTime() - start);
+            }
+        });
+    }
+
     private void onCreateRoom(Connection c, Packets.CreateRoomRequest req) {
         // 단일 로비 유지: 이미 방이 있으면 새로 만들지 않고 첫 방에 합류
         // 방은 생성 요청마다 새로 만든다 (재사용 제거)
+        if (draining) {
+            Packets.CreateRoomResponse res = new Packets.CreateRoomResponse();
+            res.ok = false; res.message = "server draining";
+            c.sendTCP(res);
+            return;
+        }
         int max = req.maxPlayers > 0 ? req.maxPlayers : 4;
-        if (max > 4) max = 4; // hard cap per request
+        if (max > MAX_ROOM_PLAYERS) max = MAX_ROOM_PLAYERS; // hard cap per request
         String newRoomId = UUID.randomUUID().toString().substring(0, 8);
-        Room room = new Room(newRoomId, Optional.ofNullable(req.roomName).orElse("Room"), max);
-        rooms.put(newRoomId, room);
+        Room room = new Room(newRoomId, Optional.ofNullable(req.roomName).orElse("Room"), max, new Mailbox(handlerPool), rateBounds);
+        room.tick = tickEngine.register(() -> tickRoom(room));
         System.out.printf("createRoom: %s by %s%n", room.id, req.username);
 
+        // 방장을 먼저 넣고 공개한다: 공개 전에는 다른 스레드가 이 방을 볼 수 없으므로 메일박스 밖에서 바꿔도 된다
         Packets.PlayerInfo self = new Packets.PlayerInfo();
         self.playerId = c.getID();
         self.username = safeName(req.username);
         self.vehicleIndex = 0;
         room.join(c, self);
         membership.put(c.getID(), room.id);
-
-        Packets.CreateRoomResponse res = new Packets.CreateRoomResponse();
-        res.ok = true; res.roomId = room.id; res.message = "created"; res.self = self;
-        c.sendTCP(res);
-        broadcastRoomState(room);
+        directory.unsubscribe(c.getID());
+        // 응답/브로드캐스트(디렉터리 갱신 포함)도 메일박스에서 해야 같은 방의 다른 핸들러와 겹치지 않는다
+        room.mailbox.execute(() -> {
+            // 생성 중에 연결이 끊겼다면 disconnected()가 이 방을 찾지 못했으므로 여기서 정리한다
+            if (!c.isConnected()) {
+                leaveAll(c);
+                return;
+            }
+            Packets.CreateRoomResponse res = new Packets.CreateRoomResponse();
+            res.ok = true; res.roomId = room.id; res.message = "created"; res.self = self;
+            c.sendTCP(res);
+            sendRate(c);
+            broadcastRoomState(room);
+        });
+        rooms.put(newRoomId, room);
     }
 
     private void onJoinRoom(Connection c, Packets.JoinRoomRequest req) {
+        // 메일박스에서 기다리는 사이에 끊긴 연결은 유령 멤버가 되지 않게 버린다
+        if (!c.isConnected()) return;
         Room room = rooms.get(req.roomId);
         Packets.JoinRoomResponse res = new Packets.JoinRoomResponse();
         if (room == null) {
             res.ok = false; res.message = "room not found";
             c.sendTCP(res); return;
         }
-        if (room.players.size() >= room.maxPlayers) {
+        if (draining) {
+            res.ok = false; res.message = "server draining";
+            c.sendTCP(res); return;
+        }
+        if (room.seatsTaken() >= room.maxPlayers) {
             res.ok = false; res.message = "room full";
             c.sendTCP(res); return;
         }
@@ -132,19 +635,24 @@ public class GameServer {
         self.vehicleIndex = 0;
         room.join(c, self);
         membership.put(c.getID(), room.id);
+        directory.unsubscribe(c.getID());
 
-        res.ok = true; res.message = "joined"; res.self = self; res.state = room.toState();
+        res.ok = true; res.message = "joined"; res.self = self; res.state = room.snapshot().state;
         c.sendTCP(res);
+        sendRate(c);
+        Packets.ChatBatch history = room.chat.history();
+        if (history != null) c.sendTCP(history);
         broadcastRoomState(room);
     }
 
     private void onLeaveRoom(Connection c, Packets.LeaveRoomRequest req) {
         Room room = rooms.get(req.roomId);
         if (room != null) {
-            room.leave(c.getID());
+            room.leave(c);
             membership.remove(c.getID());
             broadcastRoomState(room);
             cleanupIfEmpty(room);
+            finishEarlyIfDone(room);
         }
     }
 
@@ -162,13 +670,50 @@ public class GameServer {
         broadcastRoomState(room);
     }
 
-    private void onRoomList(Connection c) {
+    private void onRoomList(Connection c, Packets.RoomListRequest req) {
+        c.sendTCP(roomList(rooms.values(), req));
+    }
+
+    // 구독을 먼저 걸고 조회한다: 조회 이후의 변경은 모두 다음 diff에 실린다
+    private void onRoomQuery(Connection c, Packets.RoomQueryRequest req) {
+        RoomDirectory.Filter filter = RoomDirectory.Filter.of(req);
+        if (req.subscribe) directory.subscribe(c, filter);
+        c.sendTCP(directory.query(filter, req.cursor, req.limit));
+    }
+
+    private void flushDirectory() {
+        try {
+            directory.flush(serialization);
+        } catch (Exception e) {
+            Log.error("directory", "flush failed", e);
+        }
+    }
+
+    /**
+     * Room list from cached snapshots. Rooms the client already holds at their current version (from
+     * {@code req.knownRoomIds}/{@code knownVersions}) are listed by id only.
+     */
+    static Packets.RoomListResponse roomList(Collection<Room> rooms, Packets.RoomListRequest req) {
+        Map<String, Integer> known = Collections.emptyMap();
+        if (req != null && req.knownRoomIds != null && req.knownVersions != null) {
+            int n = Math.min(req.knownRoomIds.length, req.knownVersions.length);
+            known = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) known.put(req.knownRoomIds[i], req.knownVersions[i]);
+        }
         Packets.RoomListResponse res = new Packets.RoomListResponse();
         res.rooms = new ArrayList<>();
-        for (Room r : rooms.values()) {
-            res.rooms.add(r.toState());
+        List<String> unchanged = new ArrayList<>();
+        for (Room r : rooms) {
+            Room.Snapshot s = r.snapshot();
+            Integer v = known.get(r.id);
+            if (v != null && v == s.version) {
+                unchanged.add(r.id);
+            } else {
+                res.rooms.add(s.state);
+            }
         }
-        c.sendTCP(res);
+        if (!unchanged.isEmpty()) res.unchangedRoomIds = unchanged.toArray(new String[0]);
+        return res;
     }
 
     private void onStartRace(Connection c, Packets.StartRaceRequest req) {
@@ -177,10 +722,14 @@ public class GameServer {
             sendError(c, "start denied: room not found");
             return;
         }
-        if (room.phase != Packets.RoomPhase.WAITING) {
+        if (room.phase() != Packets.RoomPhase.WAITING) {
             sendError(c, "start denied: not in WAITING phase");
             return;
         }
+        if (room.movingOut) {
+            sendError(c, "start denied: room is moving to another server");
+            return;
+        }
         if (!room.isHost(c.getID())) {
             sendError(c, "start denied: only host can start");
             return;
@@ -195,9 +744,11 @@ public class GameServer {
         }
         int seconds = req.countdownSeconds <= 0 ? 5 : Math.min(req.countdownSeconds, 10);
         // 트랙 인덱스 확정: 요청값이 유효하면 설정, 아니면 room의 선택 사용
-        int trackIdx = req.trackIndex >= 0 ? req.trackIndex : room.selectedTrackIndex;
-        room.selectedTrackIndex = trackIdx;
-        room.phase = Packets.RoomPhase.COUNTDOWN;
+        int trackIdx = req.trackIndex >= 0 ? req.trackIndex : room.selectedTrackIndex();
+        room.startCountdown(trackIdx);
+        // 기록은 레이스 시작 패킷부터 (대기실 상태는 바로 뒤의 방 상태 패킷에 담긴다)
+        RaceRecordings rec = recordings;
+        if (rec != null) room.recorder = rec.open(room.id, System.currentTimeMillis());
         Packets.RaceStartPacket start = new Packets.RaceStartPacket();
         start.countdownSeconds = seconds;
         start.startTimeMillis = System.currentTimeMillis() + seconds * 1000L;
@@ -209,80 +760,206 @@ public class GameServer {
             Packets.PlayerInfo p = room.players.get(id);
             return p != null ? p.vehicleIndex : 0;
         }).toArray();
-        for (int connId : room.connectionIds()) {
-            server.sendToTCP(connId, start);
-        }
+        broadcastTCP(room, start);
         broadcastRoomState(room);
     }
 
+    // 바로 브로드캐스트하지 않고 방의 채팅 큐에 모았다가 CHAT_FLUSH_MILLIS 뒤 한 패킷으로 보낸다
     private void onChat(Connection c, Packets.ChatMessage msg) {
         Room room = rooms.get(msg.roomId);
         if (room == null) { sendError(c, "chat denied: room not found"); return; }
-        msg.sender = safeName(msg.sender);
+        Packets.PlayerInfo sender = room.players.get(c.getID());
+        if (sender == null) { sendError(c, "chat denied: not in room"); return; }
+        msg.sender = sender.username;
         msg.ts = msg.ts == 0 ? System.currentTimeMillis() : msg.ts;
-        for (int connId : room.connectionIds()) {
-            server.sendToTCP(connId, msg);
+        boolean first = !room.chat.hasPending();
+        if (!room.chat.offer(c.getID(), msg, System.nanoTime())) {
+            chatDropped.inc();
+            return;
+        }
+        if (first) {
+            room.tick.schedule(() -> room.mailbox.execute(() -> flushChat(room)), CHAT_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
         }
     }
 
+    private void flushChat(Room room) {
+        Packets.ChatBatch batch = room.chat.drain();
+        if (batch != null) broadcastTCP(room, batch);
+    }
+
+    // 네트워크 스레드: 재사용 객체로 디코딩된 상태(와 함께 실린 이전 상태들)를 멤버의 업링크 버퍼에 넣는다.
+    // 같은 번호는 한 번만 받고, 틱이 그 버퍼에서 차례가 된 상태를 꺼낸다.
+    // 방은 패킷의 roomId가 아니라 연결의 멤버십으로 찾는다
     private void onPlayerState(Connection c, Packets.PlayerStateUpdate upd) {
-        Room room = rooms.get(upd.roomId);
-        if (room == null) return;
-        Packets.PlayerState state = upd.state;
-        if (state == null) return;
-        state.playerId = c.getID();
-        room.latestStates.put(c.getID(), state);
+        Room.Member m = ((PlayerConnection) c).member;
+        if (m == null || upd.state == null) return;
+        long now = System.nanoTime();
+        // 클라이언트가 이 상태를 샘플링한 시각 추정 (도착 시각 - RTT/2), 지연 보상 충돌에 쓴다
+        long srtt = m.link.srttNanos();
+        if (!m.uplink.receive(upd, now, srtt > 0 ? now - srtt / 2 : now)) uplinkStale.inc();
+        m.uplinkReceived(upd.seq, false);
+        acknowledge(c, m, upd.seq, upd.ackSnapshotId, upd.ackDelayMillis, now);
     }
 
-    private void broadcastStates() {
-        for (Room room : rooms.values()) {
-            if (room.latestStates.isEmpty()) continue;
-            applySimpleCollisions(room);
-            Packets.GameStatePacket gs = new Packets.GameStatePacket();
-            gs.serverTimestamp = System.currentTimeMillis();
-            Collection<Packets.PlayerState> values = room.latestStates.values();
-            gs.playerStates = values.toArray(new Packets.PlayerState[0]);
-            for (int connId : room.connectionIds()) {
-                server.sendToUDP(connId, gs);
-            }
+    // 네트워크 스레드: 주행 중인 클라이언트의 입력을 멤버의 입력 버퍼에 넣는다 (재사용 객체라 여기서 복사).
+    // 틱이 그 버퍼에서 실시간만큼 꺼내 서버의 차로 시뮬레이션한다
+    private void onPlayerInputs(Connection c, Packets.PlayerInputPacket in) {
+        Room.Member m = ((PlayerConnection) c).member;
+        if (m == null || in.controls == null) return;
+        long now = System.nanoTime();
+        long srtt = m.link.srttNanos();
+        if (m.inputs.receive(in, srtt > 0 ? now - srtt / 2 : now) <= 0) uplinkStale.inc();
+        m.uplinkReceived(in.seq, true);
+        acknowledge(c, m, in.seq, in.ackSnapshotId, in.ackDelayMillis, now);
+    }
+
+    // 업링크 패킷에 실린 스냅샷 ACK와 송신 번호로 연결 상태와 빈도를 갱신한다
+    private void acknowledge(Connection c, Room.Member m, int seq, int ackSnapshotId, int ackDelayMillis, long now) {
+        int acked = m.ack.ackedId();
+        m.ack.acknowledge(ackSnapshotId, m.room.snapshots.latestId());
+        int newlyAcked = m.ack.ackedId() != acked ? m.ack.ackedId() : SnapshotCodec.NO_BASELINE;
+        if (m.link.received(seq, newlyAcked, ackDelayMillis, now)) {
+            rateChanges.inc();
+            sendRate(c);
         }
     }
 
-    // 단순 원형 충돌 처리: 서로 붙어 있으면 속도 감쇠 + 겹침 해소
-    private void applySimpleCollisions(Room room) {
-        final float radius = 0.19f; // 대략 차량 반경(로컬 렌더 크기 19px/PPM=0.19m)
-        final float minDist = radius * 2f;
-        final float minDistSq = minDist * minDist;
-        final float damping = 0.3f; // 속도 감쇠
-        final float pushScale = 0.5f; // 겹침 깊이의 절반만큼 밀어내기
-        List<Packets.PlayerState> states = new ArrayList<>(room.latestStates.values());
-        int n = states.size();
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                Packets.PlayerState a = states.get(i);
-                Packets.PlayerState b = states.get(j);
-                float dx = a.x - b.x;
-                float dy = a.y - b.y;
-                float distSq = dx * dx + dy * dy;
-                if (distSq < minDistSq) {
-                    // 속도 감쇠
-                    a.velocityX *= damping; a.velocityY *= damping;
-                    b.velocityX *= damping; b.velocityY *= damping;
-                    // 겹침 해소 및 반발
-                    float nx = dx, ny = dy;
-                    float len = (float)Math.sqrt(distSq);
-                    if (len > 0.0001f) {
-                        nx /= len; ny /= len;
-                        float penetration = minDist - len;
-                        float move = penetration * pushScale;
-                        a.x += nx * move; a.y += ny * move;
-                        b.x -= nx * move; b.y -= ny * move;
-                    }
-                    room.latestStates.put(a.playerId, a);
-                    room.latestStates.put(b.playerId, b);
-                }
+    // 클라이언트는 스냅샷을 받는 빈도로 자기 상태도 보낸다
+    private static void sendRate(Connection c) {
+        Room.Member m = ((PlayerConnection) c).member;
+        if (m == null) return;
+        Packets.NetRatePacket pkt = new Packets.NetRatePacket();
+        pkt.snapshotHz = pkt.sendHz = m.link.hz();
+        c.sendTCP(pkt);
+    }
+
+    // 방 하나의 틱: 해당 방이 고정된 샤드 스레드에서만 실행된다.
+    // 이번 틱에 스냅샷을 받을 멤버가 없으면 충돌, 이력, 기록까지 틱 전체를 건너뛴다 (연결마다 빈도가 다르다).
+    // 같은 빈도의 멤버는 같은 틱에 차례가 오므로(LinkRate.due) 방의 틱 빈도는 멤버의 최고 빈도를 따른다.
+    // 방 인원이 늘어 배열이 커지는 경우를 빼면 할당이 없다 (TickAllocationTest가 확인한다)
+    void tickRoom(Room room) {
+        Room.Member[] members = room.members;
+        long nowNanos = System.nanoTime();
+        boolean anyDue = false;
+        for (Room.Member m : members) anyDue |= m.dueThisTick = m.link.due(nowNanos);
+        if (!anyDue) return;
+        int count = room.gatherStates(members, nowNanos);
+        if (room.uplinkHoles > 0) uplinkHoles.add(room.uplinkHoles);
+        if (room.uplinkRecovered > 0) uplinkRecovered.add(room.uplinkRecovered);
+        if (room.inputSteps > 0) inputSteps.add(room.inputSteps);
+        if (count == 0) return;
+        Packets.PlayerState[] states = room.tickStates;
+        room.recordHistory(members, count);
+        room.savePreCollision(count);
+        sendCorrections(room, members, count, applySimpleCollisions(room, states, count, nowNanos) > 0, nowNanos);
+        long now = System.currentTimeMillis();
+        int snapshotId = ++room.snapshotSeq;
+        room.snapshots.record(snapshotId, states, count);
+        RaceRecorder recorder = room.recorder;
+        if (recorder != null) recorder.tick(snapshotId, now, states, count);
+        room.frameCount = 0;
+        boolean interest = count > Interest.ALL_CARS_MAX;
+        for (Room.Member m : members) {
+            if (!m.dueThisTick) continue;
+            FanoutSerialization.Frame frame = snapshotFor(room, m, snapshotId, interest, now, serialization);
+            m.link.sent(snapshotId, nowNanos);
+            if (interest) carsDeferred.add(m.interest.deferred());
+            snapshotBytesSent.add(frame.length());
+            snapshotBytesRaw.add((long) count * SnapshotCodec.RAW_STATE_BYTES);
+            if (m.connection.sendUDP(frame) <= 0) udpDropped.inc();
+        }
+    }
+
+    // 멤버에게 서버가 정한 자기 차 상태를 돌려보낸다 (gatherStates와 같은 순서).
+    // 입력으로 달리는 차는 서버가 시뮬레이션하므로 충돌로 바뀌면 서버의 차에도 옮기고 곧바로, 아니면 주기적으로 (입력 ACK 겸) 보낸다.
+    // 상태를 올리는 차는 클라이언트가 정하고, 서버가 바꾸는 것은 충돌 응답뿐이다
+    private void sendCorrections(Room room, Room.Member[] members, int count, boolean collided, long nowNanos) {
+        Packets.PlayerState[] states = room.tickStates;
+        int n = 0;
+        for (Room.Member m : members) {
+            if (n == count) break;
+            if (states[n] != m.state) continue;
+            Packets.PlayerState before = room.preCollision[n++];
+            boolean changed = collided && Corrections.changed(before, m.state);
+            if (m.simulatedThisTick) {
+                if (changed) m.absorbCollision();
+                if (!changed && !m.syncDue(nowNanos)) continue;
+                m.connection.sendUDP(m.corrections.sync(m.inputSeq, m.state));
+                m.synced(nowNanos);
+                if (changed) corrections.inc(); else inputSyncs.inc();
+                continue;
             }
+            int inputSeq = m.inputSeq;
+            if (inputSeq == 0 || !changed) continue;
+            m.connection.sendUDP(m.corrections.add(inputSeq, before, m.state, nowNanos));
+            corrections.inc();
+        }
+    }
+
+    /**
+     * The recorded {@code snapshotId} encoded for one member. Small rooms send every car as a delta
+     * against the member's last acknowledged snapshot, sharing one frame per baseline; rooms over
+     * {@link Interest#ALL_CARS_MAX} cars pick cars per member by priority and byte budget.
+     */
+    static FanoutSerialization.Frame snapshotFor(Room room, Room.Member m, int snapshotId, boolean interest,
+                                                 long now, FanoutSerialization serialization) {
+        if (interest) {
+            Packets.GameStateDeltaPacket pkt = m.interest.plan(room.snapshots, snapshotId, m.ack.ackedId(), m.id, now);
+            return serialization.encode(pkt, room.memberFrame);
+        }
+        // 연결마다 마지막으로 ACK된 스냅샷 대비 변경분만 전송 (ACK가 없으면 전체 스냅샷).
+        // 같은 기준 스냅샷을 쓰는 연결끼리는 한 번 직렬화한 프레임을 공유한다.
+        // 기준 시점에 일부 차량만 받았다면(관심 관리 중이었다면) 공유 기준으로 쓸 수 없다
+        int baselineId = room.snapshots.baselineFor(m.ack.ackedId(), snapshotId);
+        if (!m.interest.heldFull(baselineId)) baselineId = SnapshotCodec.NO_BASELINE;
+        m.interest.sentFull(snapshotId);
+        FanoutSerialization.Frame frame = room.frameFor(baselineId);
+        if (frame == null) {
+            Packets.GameStateDeltaPacket pkt = room.snapshots.encode(snapshotId, baselineId, now);
+            frame = serialization.encode(pkt, room.claimFrame(baselineId));
+        }
+        return frame;
+    }
+
+    private void logTickStats() {
+        if (rooms.isEmpty()) return;
+        long totalEncodes = serialization.encodes();
+        long totalWrites = serialization.frameWrites();
+        long encodes = totalEncodes - lastEncodes;
+        long writes = totalWrites - lastFrameWrites;
+        lastEncodes = totalEncodes;
+        lastFrameWrites = totalWrites;
+        System.out.printf("[Fanout] %d encodes served %d sends, %.1f serializations saved/s%n",
+            encodes, writes, Math.max(0, writes - encodes) / (double) STATS_INTERVAL_SECONDS);
+        long totalSent = snapshotBytesSent.sum();
+        long totalRaw = snapshotBytesRaw.sum();
+        long sent = totalSent - lastSnapshotSent;
+        long raw = totalRaw - lastSnapshotRaw;
+        lastSnapshotSent = totalSent;
+        lastSnapshotRaw = totalRaw;
+        if (raw > 0) {
+            System.out.printf("[Snapshot] sent=%d bytes, full-state equivalent=%d bytes (%.1fx smaller)%n",
+                sent, raw, raw / (double) Math.max(1, sent));
         }
+        for (TickEngine.ShardStats s : tickEngine.stats()) {
+            if (s.rooms() == 0) continue;
+            System.out.printf("[Tick %d] rooms=%d ticks=%d skipped=%d avg=%.3fms max=%.3fms alloc=%.0fB/tick%n",
+                s.shard(), s.rooms(), s.ticks(), s.skippedTicks(), s.avgTickMillis(), s.maxTickMillis(),
+                s.avgAllocBytes());
+        }
+    }
+
+    // 브로드페이즈(공간 해시) 후 근접한 차량 쌍만 원형 충돌 검사.
+    // 지연이 다른 클라이언트의 상태는 서로 다른 시점의 위치이므로, 기록이 있으면 모든 차량을 같은 시점으로
+    // 되감아 검사하고 그 결과(밀어내기/감속)만 최신 상태에 옮긴다. 충돌한 쌍의 수를 돌려준다
+    static int applySimpleCollisions(Room room, Packets.PlayerState[] states, int count, long nowNanos) {
+        CollisionGrid grid = room.collisionGrid;
+        Packets.PlayerState[] aligned = room.history.align(states, count, nowNanos);
+        grid.load(aligned != null ? aligned : states, count);
+        int hits = grid.resolve();
+        grid.clear();
+        if (aligned != null) room.history.applyResponse(states, count);
+        return hits;
     }
 
     private void sendError(Connection c, String message) {
@@ -296,28 +973,53 @@ public class GameServer {
         if (roomId != null) {
             Room room = rooms.get(roomId);
             if (room != null) {
-                room.leave(c.getID());
+                room.leave(c);
                 broadcastRoomState(room);
                 cleanupIfEmpty(room);
+                finishEarlyIfDone(room);
             }
         }
     }
 
+    // 버전당 한 번만 만들고 직렬화한 RoomStatePacket 바이트를 그대로 보낸다
+    // 방 상태가 바뀌는 모든 경로가 여기를 지나므로 브라우저 인덱스도 함께 갱신한다
     private void broadcastRoomState(Room room) {
-        Packets.RoomStatePacket pkt = new Packets.RoomStatePacket();
-        pkt.state = room.toState();
-        for (int connId : room.connectionIds()) {
-            server.sendToTCP(connId, pkt);
+        broadcastFrame(room, room.snapshot().frame(serialization));
+        directory.update(room);
+    }
+
+    // 패킷을 한 번만 직렬화해서 방의 모든 연결에 같은 바이트를 전송
+    private void broadcastTCP(Room room, Object packet) {
+        broadcastFrame(room, serialization.encode(packet, tcpFrame.get()));
+    }
+
+    // 방에 보내는 모든 패킷이 여기를 지나므로 레이스 기록도 여기서 남긴다
+    private void broadcastFrame(Room room, FanoutSerialization.Frame frame) {
+        RaceRecorder recorder = room.recorder;
+        if (recorder != null) recorder.event(System.currentTimeMillis(), frame);
+        for (Room.Member m : room.members) {
+            m.connection.sendTCP(frame);
+            tcpQueueBytes.record(m.connection.getTcpWriteBufferSize());
         }
     }
 
     private void cleanupIfEmpty(Room room) {
-        if (room.players.isEmpty()) {
+        if (room.players.isEmpty() && !room.hasReservations()) {
             rooms.remove(room.id);
+            directory.remove(room.id);
+            if (room.tick != null) room.tick.cancel();
+            closeRecording(room);
             System.out.printf("cleanup room: %s%n", room.id);
         }
     }
 
+    private void closeRecording(Room room) {
+        RaceRecorder recorder = room.recorder;
+        if (recorder == null) return;
+        room.recorder = null;
+        recorder.close(System.currentTimeMillis());
+    }
+
     private static String safeName(String s) {
         String n = (s == null || s.isBlank()) ? "Player" : s.trim();
         return n.length() > 24 ? n.substring(0, 24) : n;
@@ -332,184 +1034,122 @@ public class GameServer {
         Room room = rooms.get(roomId);
         if (room == null) return;
 
-        synchronized (room) {
-            // 완주 데이터 저장
-            room.finishedPlayers.put(pkt.playerId, pkt);
-            System.out.printf("[Room %s] Player %d finished with time %.2fs%n", roomId, pkt.playerId, pkt.totalTime);
-
-            // 첫 번째 완주자인 경우 카운트다운 시작
-            if (room.finishedPlayers.size() == 1) {
-                room.firstFinishTime = System.currentTimeMillis();
-                room.countdownActive = true;
-
-                // 첫 번째 완주자 정보 브로드캐스트
-                Packets.PlayerInfo firstPlayer = room.players.get(pkt.playerId);
-                Packets.CountdownStartPacket countdownPkt = new Packets.CountdownStartPacket();
-                countdownPkt.firstPlacePlayerId = pkt.playerId;
-                countdownPkt.firstPlaceUsername = firstPlayer != null ? firstPlayer.username : "Player";
-                countdownPkt.firstPlaceTime = pkt.totalTime;
-                countdownPkt.remainingSeconds = 10;
-
-                for (int connId : room.connectionIds()) {
-                    server.sendToTCP(connId, countdownPkt);
-                }
-
-                // 10초 후 결과 계산 및 전송 스케줄
-                scheduler.schedule(() -> finalizeRace(room), 10, TimeUnit.SECONDS);
-
-                // 카운트다운 업데이트 (1초마다)
-                for (int i = 9; i >= 1; i--) {
-                    final int remaining = i;
-                    scheduler.schedule(() -> {
-                        Packets.CountdownUpdatePacket updatePkt = new Packets.CountdownUpdatePacket();
-                        updatePkt.remainingSeconds = remaining;
-                        for (int connId : room.connectionIds()) {
-                            server.sendToTCP(connId, updatePkt);
-                        }
-                    }, (10 - i), TimeUnit.SECONDS);
-                }
-            }
-        }
-    }
+        // 완주 데이터 저장
+        room.finishedPlayers.put(pkt.playerId, pkt);
+        RaceRecorder recorder = room.recorder;
+        if (recorder != null) recorder.event(System.currentTimeMillis(), serialization.encode(pkt, tcpFrame.get()));
+        System.out.printf("[Room %s] Player %d finished with time %.2fs%n", roomId, pkt.playerId, pkt.totalTime);
 
-    private void finalizeRace(Room room) {
-        synchronized (room) {
-            // 순위 계산
-            List<Packets.PlayerFinishedPacket> finishedList = new ArrayList<>(room.finishedPlayers.values());
-            finishedList.sort(Comparator.comparingDouble(p -> p.totalTime));
-
-            // 미완주자 목록
-            List<Integer> failedIds = new ArrayList<>();
-            for (Integer playerId : room.players.keySet()) {
-                if (!room.finishedPlayers.containsKey(playerId)) {
-                    failedIds.add(playerId);
-                }
-            }
-
-            // 결과 패킷 생성
-            Packets.RaceResultsPacket resultsPkt = new Packets.RaceResultsPacket();
-            resultsPkt.results = new Packets.PlayerResult[finishedList.size() + failedIds.size()];
+        // 첫 번째 완주자인 경우 카운트다운 시작
+        if (room.finishedPlayers.size() == 1 && !room.countdownActive) {
+            room.firstFinishTime = System.currentTimeMillis();
+            room.countdownActive = true;
 
-            // 완주자
-            for (int i = 0; i < finishedList.size(); i++) {
-                Packets.PlayerFinishedPacket fp = finishedList.get(i);
-                Packets.PlayerInfo pInfo = room.players.get(fp.playerId);
+            // 첫 번째 완주자 정보 브로드캐스트
+            Packets.PlayerInfo firstPlayer = room.players.get(pkt.playerId);
+            Packets.CountdownStartPacket countdownPkt = new Packets.CountdownStartPacket();
+            countdownPkt.firstPlacePlayerId = pkt.playerId;
+            countdownPkt.firstPlaceUsername = firstPlayer != null ? firstPlayer.username : "Player";
+            countdownPkt.firstPlaceTime = pkt.totalTime;
+            countdownPkt.remainingSeconds = FINISH_COUNTDOWN_SECONDS;
 
-                Packets.PlayerResult result = new Packets.PlayerResult();
-                result.playerId = fp.playerId;
-                result.username = pInfo != null ? pInfo.username : "Player";
-                result.rank = i + 1;
-                result.totalTime = fp.totalTime;
-                result.lapTimes = fp.lapTimes;
-                result.failed = false;
+            broadcastTCP(room, countdownPkt);
 
-                resultsPkt.results[i] = result;
-            }
+            // 방마다 1초 주기 타이머 하나 (타이머는 샤드 스레드, 실행은 방 메일박스): 매초 남은 시간, 0이면 결과
+            room.countdownRemaining = FINISH_COUNTDOWN_SECONDS;
+            room.finishCountdown = room.tick.schedule(() -> room.mailbox.execute(() -> countdownStep(room)),
+                1, 1, TimeUnit.SECONDS);
+        }
+        finishEarlyIfDone(room);
+    }
 
-            // 미완주자 (FAIL)
-            for (int i = 0; i < failedIds.size(); i++) {
-                int playerId = failedIds.get(i);
-                Packets.PlayerInfo pInfo = room.players.get(playerId);
+    private void countdownStep(Room room) {
+        if (!room.countdownActive) return;
+        if (--room.countdownRemaining <= 0) {
+            finalizeRace(room);
+            return;
+        }
+        Packets.CountdownUpdatePacket updatePkt = new Packets.CountdownUpdatePacket();
+        updatePkt.remainingSeconds = room.countdownRemaining;
+        broadcastTCP(room, updatePkt);
+    }
 
-                Packets.PlayerResult result = new Packets.PlayerResult();
-                result.playerId = playerId;
-                result.username = pInfo != null ? pInfo.username : "Player";
-                result.rank = 0; // FAIL은 순위 없음
-                result.totalTime = 0;
-                result.lapTimes = new float[0];
-                result.failed = true;
+    // 남은 인원이 모두 완주했으면 카운트다운을 기다리지 않고 결과를 낸다
+    private void finishEarlyIfDone(Room room) {
+        if (room.countdownActive && !room.players.isEmpty()
+                && room.finishedPlayers.keySet().containsAll(room.players.keySet())) {
+            finalizeRace(room);
+        }
+    }
 
-                resultsPkt.results[finishedList.size() + i] = result;
-            }
+    private void finalizeRace(Room room) {
+        // 카운트다운 중에만 한 번 (조기 종료 후 남은 주기 타이머는 취소)
+        if (!room.countdownActive) return;
+        room.countdownActive = false;
+        if (room.finishCountdown != null) {
+            room.finishCountdown.cancel();
+            room.finishCountdown = null;
+        }
 
-            resultsPkt.failedPlayerIds = failedIds.stream().mapToInt(Integer::intValue).toArray();
+        // 순위 계산
+        List<Packets.PlayerFinishedPacket> finishedList = new ArrayList<>(room.finishedPlayers.values());
+        finishedList.sort(Comparator.comparingDouble(p -> p.totalTime));
 
-            // 모든 플레이어에게 결과 전송
-            for (int connId : room.connectionIds()) {
-                server.sendToTCP(connId, resultsPkt);
+        // 미완주자 목록
+        List<Integer> failedIds = new ArrayList<>();
+        for (Integer playerId : room.players.keySet()) {
+            if (!room.finishedPlayers.containsKey(playerId)) {
+                failedIds.add(playerId);
             }
-
-            // 방 상태를 FINISHED로 변경
-            room.phase = Packets.RoomPhase.FINISHED;
-            broadcastRoomState(room);
-
-            System.out.printf("[Room %s] Race finalized. %d finished, %d failed%n",
-                room.id, finishedList.size(), failedIds.size());
         }
-    }
 
-    private static final class Room {
-        final String id; final String name; final int maxPlayers;
-        final Map<Integer, Packets.PlayerInfo> players = new ConcurrentHashMap<>();
-        final List<Integer> order = new CopyOnWriteArrayList<>();
-        final Set<Integer> ready = Collections.synchronizedSet(new HashSet<>());
-        Packets.RoomPhase phase = Packets.RoomPhase.WAITING;
-        int selectedTrackIndex = 0;
-        final Map<Integer, Packets.PlayerState> latestStates = new ConcurrentHashMap<>();
+        // 결과 패킷 생성
+        Packets.RaceResultsPacket resultsPkt = new Packets.RaceResultsPacket();
+        resultsPkt.results = new Packets.PlayerResult[finishedList.size() + failedIds.size()];
 
-        // Race finish tracking
-        final Map<Integer, Packets.PlayerFinishedPacket> finishedPlayers = new ConcurrentHashMap<>();
-        long firstFinishTime = 0;
-        boolean countdownActive = false;
+        // 완주자
+        for (int i = 0; i < finishedList.size(); i++) {
+            Packets.PlayerFinishedPacket fp = finishedList.get(i);
+            Packets.PlayerInfo pInfo = room.players.get(fp.playerId);
 
-        Room(String id, String name, int maxPlayers) {
-            this.id = id; this.name = name; this.maxPlayers = maxPlayers;
-        }
+            Packets.PlayerResult result = new Packets.PlayerResult();
+            result.playerId = fp.playerId;
+            result.username = pInfo != null ? pInfo.username : "Player";
+            result.rank = i + 1;
+            result.totalTime = fp.totalTime;
+            result.lapTimes = fp.lapTimes;
+            result.failed = false;
 
-        synchronized void join(Connection c, Packets.PlayerInfo info) {
-            players.put(c.getID(), info);
-            if (!order.contains(c.getID())) order.add(c.getID());
+            resultsPkt.results[i] = result;
         }
 
-        synchronized void leave(int connectionId) {
-            players.remove(connectionId);
-            order.remove((Integer) connectionId);
-            ready.remove(connectionId);
-            latestStates.remove(connectionId);
-        }
+        // 미완주자 (FAIL)
+        for (int i = 0; i < failedIds.size(); i++) {
+            int playerId = failedIds.get(i);
+            Packets.PlayerInfo pInfo = room.players.get(playerId);
 
-        List<Integer> connectionIds() { return new ArrayList<>(players.keySet()); }
+            Packets.PlayerResult result = new Packets.PlayerResult();
+            result.playerId = playerId;
+            result.username = pInfo != null ? pInfo.username : "Player";
+            result.rank = 0; // FAIL은 순위 없음
+            result.totalTime = 0;
+            result.lapTimes = new float[0];
+            result.failed = true;
 
-        Packets.RoomState toState() {
-            Packets.RoomState rs = new Packets.RoomState();
-            rs.roomId = id; rs.roomName = name; rs.maxPlayers = maxPlayers; rs.phase = phase;
-            rs.players = new ArrayList<>();
-            for (Integer id : order) {
-                Packets.PlayerInfo p = players.get(id);
-                if (p != null) {
-                    Packets.PlayerInfo copy = new Packets.PlayerInfo();
-                    copy.playerId = p.playerId;
-                    copy.username = p.username;
-                    copy.ready = ready.contains(id);
-                    copy.vehicleIndex = p.vehicleIndex;
-                    rs.players.add(copy);
-                }
-            }
-            rs.selectedTrackIndex = selectedTrackIndex;
-            return rs;
+            resultsPkt.results[finishedList.size() + i] = result;
         }
 
-        synchronized void setReady(int connectionId, boolean value) {
-            if (!players.containsKey(connectionId)) return;
-            if (value) ready.add(connectionId); else ready.remove(connectionId);
-        }
+        resultsPkt.failedPlayerIds = failedIds.stream().mapToInt(Integer::intValue).toArray();
 
-        synchronized void setSelection(int connectionId, int trackIndex, int vehicleIndex) {
-            Packets.PlayerInfo p = players.get(connectionId);
-            if (p == null) return;
-            if (vehicleIndex >= 0) p.vehicleIndex = vehicleIndex;
-            boolean isHost = !order.isEmpty() && order.get(0) == connectionId;
-            if (isHost && trackIndex >= 0) {
-                selectedTrackIndex = trackIndex;
-            }
-        }
+        // 모든 플레이어에게 결과 전송
+        broadcastTCP(room, resultsPkt);
 
-        synchronized boolean allReady() {
-            return !players.isEmpty() && ready.containsAll(players.keySet());
-        }
+        // 방 상태를 FINISHED로 변경
+        room.setPhase(Packets.RoomPhase.FINISHED);
+        broadcastRoomState(room);
+        closeRecording(room);
 
-        synchronized boolean isHost(int connectionId) {
-            return !order.isEmpty() && order.get(0) == connectionId;
-        }
+        System.out.printf("[Room %s] Race finalized. %d finished, %d failed%n",
+            room.id, finishedList.size(), failedIds.size());
     }
 }
@@ -0,0 +1,100 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * One member's driving inputs not yet simulated, by client physics step. Each
+ * {@link Packets.PlayerInputPacket} repeats every step the server has not acknowledged, so the network
+ * thread {@link #receive}s only the steps that continue the run from where the buffer stands: older ones
+ * were stored already, and after a gap (the packets in between were lost) nothing is stored until a later
+ * packet fills it, which the next one always does. A packet whose run starts at a newer anchor than the
+ * current run's begins a new run from its {@code base} state. The tick shard {@link #take}s steps in order
+ * together with any new run start, so the two always match.
+ *
+ * <p>A ring of {@value #CAPACITY} steps in primitive arrays; the two threads meet under this object's lock.
+ */
+final class InputBuffer {
+    static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+
+    private final byte[] controls = new byte[CAPACITY];
+    private final float[] speedMultipliers = new float[CAPACITY], tireTurns = new float[CAPACITY], speedScales = new float[CAPACITY];
+    private final long[] sampleNanos = new long[CAPACITY];
+    // first부터 count개가 아직 꺼내지 않은 스텝, nextSeq는 다음에 이어 받을 스텝 번호
+    private int first, count, nextSeq;
+    // 지금 구간의 시작 스텝과 상태 (rebased면 샤드가 아직 가져가지 않았다)
+    private boolean started, rebased;
+    private int baseSeq;
+    private float baseThrottle;
+    private final Packets.PlayerState base = new Packets.PlayerState();
+
+    /** Steps and run start handed to the tick shard by {@link #take}; reused by the shard. */
+    static final class Batch {
+        boolean rebased;
+        int baseSeq;
+        float baseThrottle;
+        final Packets.PlayerState base = new Packets.PlayerState();
+        int firstSeq, count;
+        final byte[] controls = new byte[CAPACITY];
+        final float[] speedMultipliers = new float[CAPACITY], tireTurns = new float[CAPACITY], speedScales = new float[CAPACITY];
+        final long[] sampleNanos = new long[CAPACITY];
+    }
+
+    /**
+     * Stores the packet's steps that continue the run. {@code sampleNanos} is when the client ran the newest
+     * one; earlier steps are placed a physics step apart. Network thread.
+     * @return steps stored, or -1 if no run has started yet (the packet carried no base)
+     */
+    synchronized int receive(Packets.PlayerInputPacket p, long sampleNanos) {
+        if (p.base != null && (!started || p.baseSeq - baseSeq > 0)) {
+            // 새 구간: 이전 구간의 남은 스텝은 클라이언트가 더 이상 기준으로 삼지 않는다
+            started = rebased = true;
+            baseSeq = p.baseSeq;
+            baseThrottle = p.baseThrottle;
+            SnapshotCodec.copy(p.base, base);
+            count = 0;
+            nextSeq = baseSeq + 1;
+        }
+        if (!started) return -1;
+        int stored = 0;
+        int oldest = p.inputSeq - p.count + 1;
+        for (int i = 0; i < p.count; i++) {
+            int seq = oldest + i;
+            if (seq - nextSeq < 0) continue;
+            if (seq != nextSeq || count == CAPACITY) break;
+            int k = (first + count++) & MASK;
+            controls[k] = p.controls[i];
+            speedMultipliers[k] = p.speedMultipliers[i]; tireTurns[k] = p.tireTurns[i]; speedScales[k] = p.speedScales[i];
+            this.sampleNanos[k] = sampleNanos - (long) (p.inputSeq - seq) * CarSimulation.STEP_NANOS;
+            nextSeq++;
+            stored++;
+        }
+        return stored;
+    }
+
+    /** Moves up to {@code max} of the oldest steps into {@code out}, with the run's start if it is new. Shard thread. */
+    synchronized void take(Batch out, int max) {
+        out.rebased = rebased;
+        if (rebased) {
+            out.baseSeq = baseSeq;
+            out.baseThrottle = baseThrottle;
+            SnapshotCodec.copy(base, out.base);
+            rebased = false;
+        }
+        int n = Math.min(Math.max(0, max), count);
+        out.firstSeq = nextSeq - count;
+        out.count = n;
+        for (int i = 0; i < n; i++) {
+            int k = (first + i) & MASK;
+            out.controls[i] = controls[k];
+            out.speedMultipliers[i] = speedMultipliers[k]; out.tireTurns[i] = tireTurns[k]; out.speedScales[i] = speedScales[k];
+            out.sampleNanos[i] = sampleNanos[k];
+        }
+        first = (first + n) & MASK;
+        count -= n;
+    }
+
+    /** Steps waiting for the shard. */
+    synchronized int pending() { return count; }
+}
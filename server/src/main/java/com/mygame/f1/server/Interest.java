@@ -0,0 +1,241 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+import java.util.Arrays;
+
+/**
+ * One recipient's view of a large race. Every tick each remote car earns priority for this recipient (full
+ * inside the on-screen radius, falling with squared distance outside it, doubled when the recipient is
+ * heading towards it); the snapshot then carries the highest-priority cars until {@value #BUDGET_BYTES}
+ * bytes are used, and the rest keep the value the recipient already holds. Cars not sent for
+ * {@value #MAX_STALE_TICKS} ticks and cars the recipient has never seen always go out.
+ *
+ * <p>Because recipients no longer hold the room's snapshot, this class remembers, per snapshot it sent,
+ * which room snapshot each car's value came from; deltas are encoded against that reconstructed baseline.
+ * Used only from the room's tick thread and allocation-free once sized to the room.
+ */
+final class Interest {
+    /** Rooms with at most this many cars send every car to everyone (shared frames are cheaper then). */
+    static final int ALL_CARS_MAX = 8;
+    static final int BUDGET_BYTES = 160;
+    static final int MAX_STALE_TICKS = 10;
+    /** Roughly the half-diagonal of the race camera's view (32x18m viewport at zoom 0.22) plus a margin. */
+    static final float VIEW_RADIUS = 6f;
+    static final float MIN_PRIORITY = 0.05f;
+    private static final int RING = SnapshotHistory.RING_SIZE;
+    private static final int NONE = SnapshotCodec.NO_BASELINE;
+
+    // 보낸 스냅샷마다 차량별 값의 출처 스냅샷 ID (방 링의 같은 스냅샷과 같은 순서, 0이면 수신자에게 없음).
+    // full이면 그 스냅샷을 통째로 보냈다는 뜻
+    private final int[] sentIds = new int[RING];
+    private final boolean[] full = new boolean[RING];
+    private final int[][] from = new int[RING][0];
+
+    // 차량별 우선순위 누적 (playerId로 찾는다)
+    private int[] accumIds = new int[0];
+    private float[] accum = new float[0];
+    private int accumCount;
+
+    // 틱마다 재사용하는 작업 배열
+    private Packets.PlayerState[] base = new Packets.PlayerState[0];
+    private int[] baseFrom = new int[0];
+    private int[] removedIds = new int[0];
+    private int[] nextFrom = new int[0];
+    private int[] baseIndex = new int[0];
+    private int[] masks = new int[0];
+    private Packets.PlayerState[] changed = new Packets.PlayerState[0];
+    private int[] changedMasks = new int[0];
+    private int[] order = new int[0];
+    private float[] keys = new float[0];
+    private int deferred;
+
+    /** Cars left out of the last {@link #plan}. */
+    int deferred() { return deferred; }
+
+    /** Records that {@code snapshotId} went out whole (the shared-frame path). */
+    void sentFull(int snapshotId) {
+        int slot = Math.floorMod(snapshotId, RING);
+        sentIds[slot] = snapshotId;
+        full[slot] = true;
+    }
+
+    /** True if the recipient held the whole room snapshot {@code snapshotId}, so it can be a shared baseline. */
+    boolean heldFull(int snapshotId) {
+        int slot = Math.floorMod(snapshotId, RING);
+        return sentIds[slot] == snapshotId && full[slot];
+    }
+
+    /**
+     * Chooses this tick's cars for the recipient and encodes them against its reconstructed baseline.
+     * The returned packet is {@code history}'s reusable one.
+     */
+    Packets.GameStateDeltaPacket plan(SnapshotHistory history, int snapshotId, int ackedId, int selfId, long now) {
+        int n = history.count(snapshotId);
+        Packets.PlayerState[] room = history.states(snapshotId);
+        ensure(n);
+        if (accumCount > 2 * n) prune(room, n);
+
+        int baselineId = history.baselineFor(ackedId, snapshotId);
+        if (baselineId != NONE && sentIds[Math.floorMod(baselineId, RING)] != baselineId) baselineId = NONE;
+        int baseCount = baselineId == NONE ? 0 : loadBase(history, baselineId);
+        if (baseCount < 0) {
+            baselineId = NONE;
+            baseCount = 0;
+        }
+
+        Packets.PlayerState self = history.state(snapshotId, selfId);
+        int candidates = 0;
+        for (int k = 0; k < n; k++) {
+            Packets.PlayerState car = room[k];
+            nextFrom[k] = snapshotId;
+            int b = baselineId == NONE ? -1 : indexOf(base, baseCount, car.playerId, k);
+            baseIndex[k] = b;
+            masks[k] = b < 0 ? SnapshotCodec.ALL_FIELDS : SnapshotCodec.changedFields(car, base[b]);
+            // 기준이 없으면 전부 보내고, 수신자 값과 같으면 보내지 않고도 최신으로 친다
+            if (baselineId == NONE || masks[k] == 0) continue;
+            float a = accumulate(car.playerId, k, priority(self, car));
+            boolean forced = b < 0 || snapshotId - baseFrom[b] >= MAX_STALE_TICKS;
+            // 강제 전송은 우선순위보다 먼저
+            insert(candidates++, k, forced ? Float.MAX_VALUE : a);
+        }
+
+        int budgetBits = BUDGET_BYTES * 8;
+        deferred = 0;
+        for (int i = 0; i < candidates; i++) {
+            int k = order[i];
+            Packets.PlayerState car = room[k];
+            int cost = SnapshotCodec.stateBits(car.playerId, masks[k]);
+            if (keys[i] == Float.MAX_VALUE || cost <= budgetBits) {
+                budgetBits -= cost;
+                reset(car.playerId);
+            } else {
+                masks[k] = 0;
+                nextFrom[k] = baseFrom[baseIndex[k]];
+                deferred++;
+            }
+        }
+
+        int changedCount = 0;
+        for (int k = 0; k < n; k++) {
+            if (masks[k] == 0) continue;
+            changed[changedCount] = room[k];
+            changedMasks[changedCount++] = masks[k];
+        }
+        int removedCount = 0;
+        for (int j = 0; j < baseCount; j++) {
+            if (indexOf(room, n, base[j].playerId, j) < 0) removedIds[removedCount++] = base[j].playerId;
+        }
+
+        int slot = Math.floorMod(snapshotId, RING);
+        sentIds[slot] = snapshotId;
+        full[slot] = baselineId == NONE;
+        if (from[slot].length < n) from[slot] = new int[nextFrom.length];
+        System.arraycopy(nextFrom, 0, from[slot], 0, n);
+        return history.encodeChanges(snapshotId, baselineId, now, changed, changedMasks, changedCount,
+            removedIds, removedCount);
+    }
+
+    // 기준 스냅샷 시점에 수신자가 가진 값들; 출처 스냅샷이 링에서 밀려났으면 -1
+    private int loadBase(SnapshotHistory history, int baselineId) {
+        int slot = Math.floorMod(baselineId, RING);
+        Packets.PlayerState[] room = history.states(baselineId);
+        int nb = history.count(baselineId);
+        if (base.length < nb) {
+            base = new Packets.PlayerState[nb];
+            baseFrom = new int[nb];
+            removedIds = new int[nb];
+        }
+        int count = 0;
+        for (int k = 0; k < nb; k++) {
+            int f = full[slot] ? baselineId : from[slot][k];
+            if (f == NONE) continue;
+            Packets.PlayerState s = f == baselineId ? room[k] : history.contains(f) ? history.state(f, room[k].playerId, k) : null;
+            if (s == null) return -1;
+            base[count] = s;
+            baseFrom[count++] = f;
+        }
+        return count;
+    }
+
+    /** Per-tick priority of {@code car} for the recipient driving {@code self}. */
+    static float priority(Packets.PlayerState self, Packets.PlayerState car) {
+        if (self == null) return 1f;
+        // 자기 차는 클라이언트가 직접 시뮬레이션한다
+        if (car.playerId == self.playerId) return MIN_PRIORITY;
+        float dx = car.x - self.x, dy = car.y - self.y;
+        float d2 = dx * dx + dy * dy;
+        if (d2 <= VIEW_RADIUS * VIEW_RADIUS) return 1f;
+        float p = VIEW_RADIUS * VIEW_RADIUS / d2;
+        // 진행 방향 앞쪽 차는 곧 화면에 들어온다
+        if (dx * self.velocityX + dy * self.velocityY > 0) p *= 2f;
+        return Math.max(MIN_PRIORITY, Math.min(1f, p));
+    }
+
+    private float accumulate(int playerId, int hint, float p) {
+        if (hint < accumCount && accumIds[hint] == playerId) return accum[hint] += p;
+        for (int i = 0; i < accumCount; i++) {
+            if (accumIds[i] == playerId) return accum[i] += p;
+        }
+        if (accumCount == accumIds.length) {
+            int grow = Math.max(4, accumCount * 2);
+            accumIds = Arrays.copyOf(accumIds, grow);
+            accum = Arrays.copyOf(accum, grow);
+        }
+        accumIds[accumCount] = playerId;
+        return accum[accumCount++] = p;
+    }
+
+    private void reset(int playerId) {
+        for (int i = 0; i < accumCount; i++) {
+            if (accumIds[i] == playerId) {
+                accum[i] = 0f;
+                return;
+            }
+        }
+    }
+
+    // 후보 정렬 (키 내림차순 삽입 정렬, 차량 수가 적어 충분하다)
+    private void insert(int size, int k, float key) {
+        int i = size;
+        while (i > 0 && keys[i - 1] < key) {
+            keys[i] = keys[i - 1];
+            order[i] = order[i - 1];
+            i--;
+        }
+        keys[i] = key;
+        order[i] = k;
+    }
+
+    // 방 인원이 그대로면 스냅샷마다 순서가 같으므로 hint 자리부터 본다
+    private static int indexOf(Packets.PlayerState[] states, int count, int playerId, int hint) {
+        if (hint < count && states[hint].playerId == playerId) return hint;
+        for (int i = 0; i < count; i++) {
+            if (states[i].playerId == playerId) return i;
+        }
+        return -1;
+    }
+
+    private void ensure(int n) {
+        if (nextFrom.length >= n) return;
+        nextFrom = new int[n];
+        baseIndex = new int[n];
+        masks = new int[n];
+        changed = new Packets.PlayerState[n];
+        changedMasks = new int[n];
+        order = new int[n];
+        keys = new float[n];
+    }
+
+    // 떠난 차량의 누적값 정리 (방 인원의 두 배를 넘을 때만)
+    private void prune(Packets.PlayerState[] room, int n) {
+        int kept = 0;
+        for (int i = 0; i < accumCount; i++) {
+            if (indexOf(room, n, accumIds[i], i) < 0) continue;
+            accumIds[kept] = accumIds[i];
+            accum[kept++] = accum[i];
+        }
+        accumCount = kept;
+    }
+}
@@ -0,0 +1,171 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * One connection's snapshot and uplink rate. The network thread feeds it every {@link
+ * com.mygame.f1.shared.Packets.PlayerStateUpdate}: gaps in the client's send sequence give the loss ratio,
+ * and each newly acknowledged snapshot gives an RTT sample (minus the time the client held the ack).
+ * Once per {@value #ADJUST_MILLIS}ms the rate backs off by a quarter when packets are lost or the RTT
+ * climbs well above its recent minimum (a queue is building), and creeps up by {@value #STEP_HZ}Hz
+ * while the link is clean, always inside {@link Bounds}. The room's tick shard asks {@link #due} each
+ * tick, so a member at 20Hz on a 60Hz shard gets every third snapshot.
+ */
+final class LinkRate {
+    static final int ADJUST_MILLIS = 1000;
+    static final int STEP_HZ = 5;
+    /** Loss above this backs off; below {@link #CLEAN_LOSS} (and a short queue) allows a step up. */
+    static final double BACKOFF_LOSS = 0.05, CLEAN_LOSS = 0.01;
+    /** RTT above the recent minimum, in milliseconds, that counts as queueing. */
+    static final long BACKOFF_QUEUE_MILLIS = 50, CLEAN_QUEUE_MILLIS = 15;
+    // 최소 RTT는 이 구간마다 새로 잡는다 (경로가 바뀌어도 따라가도록)
+    private static final int MIN_RTT_WINDOWS = 10;
+    private static final int RING = SnapshotHistory.RING_SIZE;
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Rate limits in Hz for every connection; the server ticks at {@code maxHz}. Read from
+     * {@code -Df1.minRateHz} (default 10), {@code -Df1.maxRateHz} (60) and {@code -Df1.initialRateHz} (30).
+     */
+    record Bounds(int minHz, int initialHz, int maxHz) {
+        static final Bounds DEFAULT = new Bounds(10, 30, 60);
+
+        Bounds {
+            if (minHz <= 0 || minHz > maxHz) throw new IllegalArgumentException("need 0 < minHz <= maxHz");
+            initialHz = Math.max(minHz, Math.min(maxHz, initialHz));
+        }
+
+        static Bounds fromSystemProperties() {
+            return new Bounds(Integer.getInteger("f1.minRateHz", DEFAULT.minHz),
+                Integer.getInteger("f1.initialRateHz", DEFAULT.initialHz),
+                Integer.getInteger("f1.maxRateHz", DEFAULT.maxHz));
+        }
+
+        long tickNanos() { return 1_000_000_000L / maxHz; }
+    }
+
+    private final Bounds bounds;
+    private volatile int hz;
+    private volatile long intervalNanos;
+
+    // 샤드 스레드 전용: 다음 전송 시각과 보낸 스냅샷의 전송 시각 링
+    private long nextDueNanos;
+    private final int[] sentIds = new int[RING];
+    private final long[] sentNanos = new long[RING];
+    // 위 링의 공개용 (volatile 쓰기 이후에 읽으면 그 전의 링 쓰기도 보인다)
+    private volatile int lastSentId;
+
+    // 네트워크 스레드 전용: 업링크 손실과 RTT
+    private boolean started;
+    private int highestSeq, windowStartSeq, windowReceived;
+    private long windowStartNanos;
+    private long windowMinRtt = Long.MAX_VALUE, baseRtt = Long.MAX_VALUE;
+    private int rttWindows;
+    private volatile long srttNanos = -1;
+    private volatile double loss;
+
+    LinkRate(Bounds bounds) {
+        this.bounds = bounds;
+        setHz(bounds.initialHz());
+    }
+
+    int hz() { return hz; }
+
+    /** Current snapshot (and client send) interval. */
+    long intervalNanos() { return intervalNanos; }
+
+    /** Smoothed round-trip time in nanoseconds, or -1 before the first sample. */
+    long srttNanos() { return srttNanos; }
+
+    /** Smoothed uplink loss ratio. */
+    double loss() { return loss; }
+
+    private void setHz(int value) {
+        hz = value;
+        intervalNanos = 1_000_000_000L / value;
+    }
+
+    /**
+     * True if this member gets a snapshot on the tick at {@code nowNanos}; shard thread only, once per tick.
+     * Due times sit on multiples of the interval, so members at the same rate come due on the same ticks.
+     * Half a shard tick of slack keeps scheduling jitter from pushing a send to the next tick.
+     */
+    boolean due(long nowNanos) {
+        long slack = bounds.tickNanos() / 2;
+        if (nowNanos < nextDueNanos - slack) return false;
+        long interval = intervalNanos;
+        // 다음 차례는 접속 시점이 아니라 간격의 배수에 맞춘다: 같은 빈도의 멤버는 같은 틱에 차례가 오므로
+        // 모두 30Hz인 방은 60Hz 샤드에서도 한 틱 걸러 한 번만 틱 전체(충돌, 이력, 스냅샷)를 돈다.
+        // 오래 쉬었거나 한참 밀렸을 때도 밀린 만큼 몰아 보내지 않고 지금 기준 다음 배수로 간다
+        nextDueNanos = Math.floorDiv(nowNanos + slack, interval) * interval + interval;
+        return true;
+    }
+
+    /** Remembers when {@code snapshotId} went out, for RTT samples; shard thread only. */
+    void sent(int snapshotId, long nowNanos) {
+        int slot = Math.floorMod(snapshotId, RING);
+        sentNanos[slot] = nowNanos;
+        sentIds[slot] = snapshotId;
+        lastSentId = snapshotId;
+    }
+
+    /**
+     * Takes one uplink packet's sequence number and, if its ack moved forward, an RTT sample. Returns true
+     * when the rate changed and the client should be told; network thread only.
+     */
+    boolean received(int seq, int newlyAckedId, int ackDelayMillis, long nowNanos) {
+        if (!started) {
+            started = true;
+            windowStartSeq = highestSeq = seq;
+            windowStartNanos = nowNanos;
+        }
+        // 순서가 바뀌어 늦게 온 패킷도 수신으로 센다 (중복은 드물어 무시)
+        if (seq - windowStartSeq >= 0) windowReceived++;
+        if (seq - highestSeq > 0) highestSeq = seq;
+        if (newlyAckedId != SnapshotCodec.NO_BASELINE) sampleRtt(newlyAckedId, ackDelayMillis, nowNanos);
+        if (nowNanos - windowStartNanos < ADJUST_MILLIS * MILLIS) return false;
+        return adjust(nowNanos);
+    }
+
+    private void sampleRtt(int ackedId, int ackDelayMillis, long nowNanos) {
+        if (ackedId - lastSentId > 0) return;
+        int slot = Math.floorMod(ackedId, RING);
+        if (sentIds[slot] != ackedId) return;
+        long sentAt = sentNanos[slot];
+        // 읽는 사이 링이 한 바퀴 돌아 덮였으면 버린다
+        if (sentIds[slot] != ackedId) return;
+        long rtt = nowNanos - sentAt - Math.max(0, ackDelayMillis) * MILLIS;
+        if (rtt <= 0) return;
+        long s = srttNanos;
+        srttNanos = s < 0 ? rtt : s + (rtt - s) / 8;
+        windowMinRtt = Math.min(windowMinRtt, rtt);
+    }
+
+    private boolean adjust(long nowNanos) {
+        int expected = highestSeq - windowStartSeq + 1;
+        double windowLoss = expected <= 0 ? 0 : Math.max(0, 1 - windowReceived / (double) expected);
+        loss = loss + (windowLoss - loss) / 2;
+        if (++rttWindows >= MIN_RTT_WINDOWS) {
+            rttWindows = 0;
+            baseRtt = windowMinRtt;
+        } else {
+            baseRtt = Math.min(baseRtt, windowMinRtt);
+        }
+        windowMinRtt = Long.MAX_VALUE;
+        windowStartSeq = highestSeq + 1;
+        windowReceived = 0;
+        windowStartNanos = nowNanos;
+
+        long srtt = srttNanos;
+        long queue = srtt < 0 || baseRtt == Long.MAX_VALUE ? 0 : Math.max(0, srtt - baseRtt);
+        int cur = hz, next = cur;
+        if (windowLoss > BACKOFF_LOSS || queue > BACKOFF_QUEUE_MILLIS * MILLIS) {
+            next = Math.max(bounds.minHz(), cur * 3 / 4);
+        } else if (windowLoss < CLEAN_LOSS && queue < CLEAN_QUEUE_MILLIS * MILLIS) {
+            next = Math.min(bounds.maxHz(), cur + STEP_HZ);
+        }
+        if (next == cur) return false;
+        setHz(next);
+        return true;
+    }
+}
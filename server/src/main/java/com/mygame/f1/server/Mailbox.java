@@ -0,0 +1,52 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.minlog.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serial executor over a shared pool: tasks run one at a time in submission order, so state owned by a
+ * mailbox needs no locks. A mailbox occupies at most one pool thread and gives it back after
+ * {@value #BATCH} tasks, so one busy room cannot starve the others; the pool's own queue therefore never
+ * holds more than one entry per mailbox.
+ */
+final class Mailbox implements Executor {
+    static final int BATCH = 32;
+
+    private final Executor pool;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // 큐에 들어갔지만 아직 끝나지 않은 작업 수; 0 -> 1 전이를 만든 쪽이 드레인을 예약한다
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Runnable drain = this::drain;
+
+    Mailbox(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override public void execute(Runnable task) {
+        queue.add(task);
+        if (pending.getAndIncrement() == 0) pool.execute(drain);
+    }
+
+    /** Tasks submitted and not yet finished. */
+    int pending() { return pending.get(); }
+
+    private void drain() {
+        int ran = 0;
+        while (true) {
+            Runnable task = queue.poll();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Log.error("mailbox", "task failed", t);
+            }
+            if (pending.decrementAndGet() == 0) return;
+            if (++ran >= BATCH) {
+                pool.execute(drain);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mygame.f1.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@link ServerMetrics} at {@code GET /metrics} in the Prometheus text format, using the JDK's
+ * built-in HTTP server on its own single dispatcher thread.
+ */
+final class MetricsHttpServer {
+    private final HttpServer http;
+
+    MetricsHttpServer(ServerMetrics metrics, InetSocketAddress address) throws IOException {
+        this.http = HttpServer.create(address, 0);
+        http.createContext("/metrics", exchange -> serve(metrics, exchange));
+    }
+
+    void start() {
+        http.start();
+    }
+
+    void stop() {
+        http.stop(0);
+    }
+
+    InetSocketAddress address() {
+        return http.getAddress();
+    }
+
+    private static void serve(ServerMetrics metrics, HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder sb = new StringBuilder(8192);
+            metrics.writePrometheus(sb);
+            byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mygame.f1.server;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JMX view of {@link ServerMetrics}: every sample is a read-only {@code Double} attribute named like its
+ * Prometheus series, e.g. {@code f1_rooms} or {@code f1_handler_seconds_count{type="ChatMessage"}}.
+ * The attribute set follows the registry, so new rooms and packet types appear without re-registration.
+ */
+final class MetricsMBean implements DynamicMBean {
+    private final ServerMetrics metrics;
+
+    MetricsMBean(ServerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private Map<String, Double> samples() {
+        Map<String, Double> out = new LinkedHashMap<>();
+        metrics.collect((name, labels, value) -> out.put(labels.isEmpty() ? name : name + "{" + labels + "}", value));
+        return out;
+    }
+
+    @Override public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double v = samples().get(attribute);
+        if (v == null) throw new AttributeNotFoundException(attribute);
+        return v;
+    }
+
+    @Override public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> all = samples();
+        AttributeList list = new AttributeList();
+        for (String a : attributes) {
+            Double v = all.get(a);
+            if (v != null) list.add(new Attribute(a, v));
+        }
+        return list;
+    }
+
+    @Override public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("metrics are read-only: " + attribute.getName());
+    }
+
+    @Override public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    // 연산이 없으므로 JMX 클라이언트가 처리할 수 있는 표준 예외로 알린다
+    @Override public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override public MBeanInfo getMBeanInfo() {
+        Map<String, Double> all = samples();
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[all.size()];
+        int i = 0;
+        for (String name : all.keySet()) {
+            attrs[i++] = new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "F1 game server metrics", attrs, null, new MBeanOperationInfo[0], null);
+    }
+}
@@ -2,6 +2,8 @@ package com.mygame.f1.server;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.QuantizedSerializers;
+import com.mygame.f1.shared.StateQuantizer;
 
 /** Registers all shared packet classes with Kryo/KryoNet. */
 public final class PacketRegistry {
@@ -42,5 +44,46 @@ public final class PacketRegistry {
         kryo.register(Packets.RoomPhase.class);
         kryo.register(java.util.ArrayList.class);
         kryo.register(Packets.PlayerState[].class);
+
+        // Delta snapshots
+        kryo.register(Packets.GameStateDeltaPacket.class);
+        kryo.register(byte[].class);
+
+        // 방 목록 버전 비교 (knownRoomIds, unchangedRoomIds)
+        kryo.register(String[].class);
+
+        // Room browser
+        kryo.register(Packets.RoomSummary.class);
+        kryo.register(Packets.RoomSummary[].class);
+        kryo.register(Packets.RoomQueryRequest.class);
+        kryo.register(Packets.RoomQueryResponse.class);
+        kryo.register(Packets.RoomDirectoryUpdate.class);
+        kryo.register(Packets.RoomUnsubscribeRequest.class);
+
+        // Chat batches / history backfill
+        kryo.register(Packets.ChatBatch.class);
+        kryo.register(Packets.ChatMessage[].class);
+
+        // Adaptive snapshot/send rate
+        kryo.register(Packets.NetRatePacket.class);
+
+        // Room sharding
+        kryo.register(Packets.RedirectResponse.class);
+        kryo.register(Packets.ShardHello.class);
+
+        // Drain / room handoff
+        kryo.register(Packets.HandoffPlayer.class);
+        kryo.register(Packets.HandoffPlayer[].class);
+        kryo.register(Packets.RoomHandoff.class);
+        kryo.register(Packets.RoomHandoffResult.class);
+        kryo.register(Packets.ResumeRoomRequest.class);
+        kryo.register(Packets.ResumeRoomResponse.class);
+
+        // Server state of the client's own car: input acks and collision corrections
+        kryo.register(Packets.PlayerCorrectionPacket.class);
+
+        // 상태 동기화 패킷: 기본 FieldSerializer 대신 양자화 비트 패킹 (등록 ID는 그대로 유지).
+        // 서버는 수신한 PlayerStateUpdate/PlayerInputPacket을 재사용 객체에 디코딩한다 (GameServer가 즉시 방 슬롯으로 복사)
+        QuantizedSerializers.register(kryo, StateQuantizer.DEFAULT, true);
     }
 }
@@ -0,0 +1,158 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * On-disk format of a race recording, shared by {@link RaceRecorder}, {@link RaceRecordings} and
+ * {@link RaceLogReader}. A recording is a directory holding numbered segment files; each segment starts
+ * with a {@value #HEADER_BYTES}-byte header and a keyframe, so segments decode on their own and
+ * retention can drop whole files.
+ *
+ * <p>Records are {@code [u8 type][i32 length][i64 serverMillis][i32 seq][payload]}, little-endian. A
+ * {@link #KEYFRAME} or {@link #DELTA} payload is a {@link SnapshotCodec} payload (against nothing, or
+ * against the previous tick); an {@link #EVENT} payload is a Kryo-encoded packet as sent to the room. A
+ * zero type byte means end of written data (mapped files are zero-filled), {@link #END} marks a race that
+ * was closed normally. Each segment has a {@code .idx} companion of {@value #INDEX_ENTRY_BYTES}-byte
+ * {@code [i64 serverMillis][i32 seq][i32 offset]} entries, one per keyframe, for seeking.
+ */
+final class RaceLog {
+    private RaceLog() {}
+
+    static final int MAGIC = 0x43523146; // "F1RC"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_HEADER_BYTES = 17;
+    static final int INDEX_ENTRY_BYTES = 16;
+    /** Header flag: delta ticks were dropped, only keyframes and events remain. */
+    static final short FLAG_COMPACTED = 1;
+
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    static final byte EVENT = 3;
+    static final byte END = 4;
+
+    static final String SEGMENT_SUFFIX = ".f1r";
+    static final String INDEX_SUFFIX = ".idx";
+
+    static Path segment(Path recording, int number) {
+        return recording.resolve(String.format("seg-%05d%s", number, SEGMENT_SUFFIX));
+    }
+
+    static Path index(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /** Segment files of a recording in order. */
+    static List<Path> segments(Path recording) throws IOException {
+        try (Stream<Path> files = Files.list(recording)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    static void writeHeader(ByteBuffer b, short flags, int segment, long startMillis, String roomId) {
+        b.putInt(0, MAGIC);
+        b.putShort(4, VERSION);
+        b.putShort(6, flags);
+        b.putInt(8, segment);
+        b.putLong(12, startMillis);
+        byte[] id = roomId.getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(id.length, HEADER_BYTES - 21);
+        b.put(20, (byte) n);
+        b.put(21, id, 0, n);
+    }
+
+    /** Header of a segment. */
+    record Header(short flags, int segment, long startMillis, String roomId) {
+        boolean compacted() { return (flags & FLAG_COMPACTED) != 0; }
+    }
+
+    /** One record; {@code payload} is valid until the cursor moves. */
+    record Record(byte type, long serverMillis, int seq, ByteBuffer payload) {}
+
+    /**
+     * Forward reader over one segment, on a read-only mapping of whatever has been written so far (a
+     * segment still being recorded can be re-opened later to see more).
+     */
+    static final class Cursor implements AutoCloseable {
+        final Header header;
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private int position = HEADER_BYTES;
+
+        Cursor(Path segment) throws IOException {
+            channel = FileChannel.open(segment, StandardOpenOption.READ);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.limit() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("not a race recording segment: " + segment);
+            }
+            byte[] id = new byte[map.get(20)];
+            map.get(21, id);
+            header = new Header(map.getShort(6), map.getInt(8), map.getLong(12), new String(id, StandardCharsets.UTF_8));
+        }
+
+        int position() { return position; }
+
+        void seek(int offset) { position = Math.max(HEADER_BYTES, offset); }
+
+        /** The next complete record, or null at the end of written data. */
+        Record next() {
+            if (position + RECORD_HEADER_BYTES > map.limit()) return null;
+            byte type = map.get(position);
+            if (type == 0) return null;
+            int length = map.getInt(position + 1);
+            int start = position + RECORD_HEADER_BYTES;
+            if (length < 0 || start + length > map.limit()) return null;
+            long millis = map.getLong(position + 5);
+            int seq = map.getInt(position + 13);
+            ByteBuffer payload = map.slice(start, length);
+            position = start + length;
+            return new Record(type, millis, seq, payload);
+        }
+
+        @Override public void close() throws IOException { channel.close(); }
+    }
+
+    /** A keyframe index entry. */
+    record Keyframe(long serverMillis, int seq, int offset) {}
+
+    /** The keyframes of a segment (entries past the written end are zero and skipped). */
+    static List<Keyframe> keyframes(Path segment) throws IOException {
+        Path idx = index(segment);
+        List<Keyframe> out = new ArrayList<>();
+        if (!Files.exists(idx)) return out;
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(idx)).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.remaining() >= INDEX_ENTRY_BYTES) {
+            long millis = b.getLong();
+            int seq = b.getInt();
+            int offset = b.getInt();
+            if (offset == 0) break;
+            out.add(new Keyframe(millis, seq, offset));
+        }
+        return out;
+    }
+
+    /** Applies a tick record to {@code states} (the previous tick's cars); returns the new car count. */
+    static int decodeTick(Record r, Packets.PlayerState[] states, int count, byte[] scratch) {
+        int n = r.payload().remaining();
+        r.payload().get(r.payload().position(), scratch, 0, n);
+        if (r.type() == KEYFRAME) return SnapshotCodec.decode(scratch, n, null, 0, states);
+        return SnapshotCodec.decode(scratch, n, states, count, states);
+    }
+}
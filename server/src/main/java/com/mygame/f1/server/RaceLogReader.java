@@ -0,0 +1,222 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.shared.Packets;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Command-line reader for race recordings written by {@link RaceRecorder}. Prints ticks and the packets
+ * the room was sent (decoded with the server's own Kryo registration), from the start or from a seek
+ * point found through the keyframe index, or follows a race that is still being recorded.
+ *
+ * <pre>./gradlew server:raceLog --args="dump recordings/ab12cd34-1760000000000 --states --from=90"</pre>
+ */
+public final class RaceLogReader {
+    static final String USAGE = """
+        usage: raceLog list [recordings]
+               raceLog dump <recording> [--states] [--from=<seconds>]
+               raceLog stream <recording> [--states]""";
+    private static final long POLL_MILLIS = 50;
+
+    private final Kryo kryo = new KryoSerialization().getKryo();
+    private final boolean states;
+    private final Packets.PlayerState[] cars = new Packets.PlayerState[64];
+    private final byte[] scratch = new byte[64 << 10];
+    private int carCount;
+    private long startMillis;
+
+    private RaceLogReader(boolean states) {
+        this.states = states;
+        PacketRegistry.register(kryo);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || (args.length < 2 && !args[0].equals("list"))) {
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        boolean states = false;
+        double from = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--states")) states = true;
+            else if (args[i].startsWith("--from=")) from = Double.parseDouble(args[i].substring(7));
+            else {
+                System.err.println("unknown option: " + args[i]);
+                System.err.println(USAGE);
+                System.exit(2);
+                return;
+            }
+        }
+        switch (args[0]) {
+            case "list" -> list(Path.of(args.length >= 2 ? args[1] : "recordings"));
+            case "dump" -> new RaceLogReader(states).dump(Path.of(args[1]), (long) (from * 1000));
+            case "stream" -> new RaceLogReader(states).stream(Path.of(args[1]));
+            default -> {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void list(Path root) throws IOException {
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory).sorted()::iterator) {
+                List<Path> segments = RaceLog.segments(dir);
+                if (segments.isEmpty()) continue;
+                long bytes = 0;
+                for (Path seg : segments) bytes += Files.size(seg) + Files.size(RaceLog.index(seg));
+                try (RaceLog.Cursor c = new RaceLog.Cursor(segments.get(0))) {
+                    RaceLog.Header h = c.header;
+                    System.out.printf("%s  room=%s start=%s segments=%d size=%dKB%s%n", dir.getFileName(), h.roomId(),
+                        Instant.ofEpochMilli(h.startMillis()), segments.size(), bytes >> 10, h.compacted() ? " compacted" : "");
+                }
+            }
+        }
+    }
+
+    /** Prints the recording, starting at the last keyframe at or before {@code fromMillis} into the race. */
+    private void dump(Path dir, long fromMillis) throws IOException {
+        List<Path> segments = RaceLog.segments(dir);
+        int first = 0, offset = 0;
+        if (fromMillis > 0) {
+            // 인덱스만 읽어 시작 세그먼트와 키프레임 위치를 찾는다
+            for (int s = 0; s < segments.size(); s++) {
+                List<RaceLog.Keyframe> keys = RaceLog.keyframes(segments.get(s));
+                if (keys.isEmpty()) continue;
+                long start;
+                try (RaceLog.Cursor c = new RaceLog.Cursor(segments.get(s))) { start = c.header.startMillis(); }
+                if (keys.get(0).serverMillis() - start > fromMillis) break;
+                first = s;
+                offset = keys.get(0).offset();
+                for (RaceLog.Keyframe k : keys) {
+                    if (k.serverMillis() - start > fromMillis) break;
+                    offset = k.offset();
+                }
+            }
+        }
+        for (int s = first; s < segments.size(); s++) {
+            try (RaceLog.Cursor c = new RaceLog.Cursor(segments.get(s))) {
+                if (s == first) {
+                    header(c.header);
+                    c.seek(offset);
+                }
+                for (RaceLog.Record r = c.next(); r != null; r = c.next()) print(r);
+            }
+        }
+    }
+
+    /** Prints a recording as it is written, until its end marker. */
+    private void stream(Path dir) throws IOException, InterruptedException {
+        int number = 0;
+        while (!Files.exists(RaceLog.segment(dir, number))) Thread.sleep(POLL_MILLIS);
+        while (true) {
+            try (RaceLog.Cursor c = new RaceLog.Cursor(RaceLog.segment(dir, number))) {
+                if (number == 0) header(c.header);
+                while (true) {
+                    RaceLog.Record r = c.next();
+                    if (r != null) {
+                        print(r);
+                        if (r.type() == RaceLog.END) return;
+                        continue;
+                    }
+                    // 다음 세그먼트에 기록이 시작됐으면 넘어간다 (미리 만들어 둔 빈 세그먼트는 무시)
+                    if (started(RaceLog.segment(dir, number + 1))) break;
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+            number++;
+        }
+    }
+
+    private static boolean started(Path segment) throws IOException {
+        if (!Files.exists(segment)) return false;
+        try (RaceLog.Cursor c = new RaceLog.Cursor(segment)) {
+            return c.next() != null;
+        }
+    }
+
+    private void header(RaceLog.Header h) {
+        startMillis = h.startMillis();
+        System.out.printf("room %s, recorded %s%s%n", h.roomId(), Instant.ofEpochMilli(h.startMillis()),
+            h.compacted() ? " (compacted: keyframes only)" : "");
+    }
+
+    private void print(RaceLog.Record r) {
+        double t = (r.serverMillis() - startMillis) / 1000.0;
+        switch (r.type()) {
+            case RaceLog.KEYFRAME, RaceLog.DELTA -> {
+                carCount = RaceLog.decodeTick(r, cars, carCount, scratch);
+                System.out.printf("%9.3fs tick %d%s cars=%d%n", t, r.seq(), r.type() == RaceLog.KEYFRAME ? " key" : "", carCount);
+                if (!states) return;
+                for (int i = 0; i < carCount; i++) {
+                    Packets.PlayerState s = cars[i];
+                    System.out.printf("           #%d pos=(%.2f, %.2f) rot=%.1f vel=(%.2f, %.2f) lap=%d lapTime=%.2f%n",
+                        s.playerId, s.x, s.y, s.rotation, s.velocityX, s.velocityY, s.currentLap, s.lapTime);
+                }
+            }
+            case RaceLog.EVENT -> {
+                byte[] bytes = new byte[r.payload().remaining()];
+                r.payload().get(bytes);
+                Object packet = kryo.readClassAndObject(new Input(bytes));
+                System.out.printf("%9.3fs %s%n", t, describe(packet));
+            }
+            case RaceLog.END -> System.out.printf("%9.3fs end%n", t);
+            default -> System.out.printf("%9.3fs unknown record type %d%n", t, r.type());
+        }
+    }
+
+    // 패킷 클래스 이름과 public 필드
+    private static String describe(Object packet) {
+        StringBuilder sb = new StringBuilder(packet.getClass().getSimpleName()).append(' ');
+        boolean first = true;
+        for (Field f : packet.getClass().getFields()) {
+            if (Modifier.isStatic(f.getModifiers())) continue;
+            sb.append(first ? "{" : ", ").append(f.getName()).append('=');
+            first = false;
+            try {
+                appendValue(sb, f.get(packet));
+            } catch (IllegalAccessException e) {
+                sb.append('?');
+            }
+        }
+        return sb.append(first ? "{}" : "}").toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object v) {
+        if (v == null) {
+            sb.append("null");
+        } else if (v.getClass().isArray()) {
+            sb.append('[');
+            for (int i = 0, n = Array.getLength(v); i < n; i++) {
+                if (i > 0) sb.append(", ");
+                appendValue(sb, Array.get(v, i));
+            }
+            sb.append(']');
+        } else if (v instanceof Iterable<?> it) {
+            sb.append('[');
+            boolean first = true;
+            for (Object o : it) {
+                if (!first) sb.append(", ");
+                first = false;
+                appendValue(sb, o);
+            }
+            sb.append(']');
+        } else if (v.getClass().getName().startsWith(Packets.class.getName()) && !v.getClass().isEnum()) {
+            sb.append(describe(v).substring(v.getClass().getSimpleName().length() + 1));
+        } else {
+            sb.append(v);
+        }
+    }
+}
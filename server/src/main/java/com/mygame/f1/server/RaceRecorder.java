@@ -0,0 +1,244 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.BitWriter;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only recording of one race in the {@link RaceLog} format. The tick shard only copies each tick's
+ * states into a ring of {@value #RING_SIZE} preallocated slots (the same copy {@link SnapshotHistory}
+ * does, no locks, no allocation); the {@code race-recorder-io} thread calls {@link #drain} a few times a
+ * second to delta-encode the ticks, with a keyframe every {@value #KEYFRAME_TICKS} ticks and at every
+ * segment start, and appends them to a memory-mapped segment. Events come from the room's mailbox as
+ * copies of the packet bytes the room was sent and are written in time order between the ticks. If the
+ * io thread falls a whole ring behind, ticks are dropped (counted) and the next one is a keyframe.
+ */
+final class RaceRecorder {
+    static final int KEYFRAME_TICKS = 60;
+    /** Ticks the io thread may fall behind before ticks are dropped: about four seconds at 60Hz. */
+    static final int RING_SIZE = 256;
+    // 세그먼트 크기: 20대 60Hz 델타 기준 수 분 분량. 인덱스는 키프레임 하나에 16바이트
+    static final int SEGMENT_BYTES = 4 << 20;
+    static final int INDEX_BYTES = 64 << 10;
+    private static final int MAX_CARS = 64;
+
+    private record Mapped(int number, FileChannel channel, MappedByteBuffer data,
+                          FileChannel indexChannel, MappedByteBuffer index) {}
+    private record Event(long serverMillis, byte[] bytes) {}
+
+    final Path dir;
+    private final String roomId;
+    private final long startMillis;
+    private final ServerMetrics.Counter droppedTicks;
+
+    // 샤드 스레드가 채우고 io 스레드가 비우는 틱 링 (단일 생산자/단일 소비자)
+    private final Packets.PlayerState[][] ring = new Packets.PlayerState[RING_SIZE][];
+    private final int[] ringCounts = new int[RING_SIZE];
+    private final int[] ringSeqs = new int[RING_SIZE];
+    private final long[] ringMillis = new long[RING_SIZE];
+    private final boolean[] ringKey = new boolean[RING_SIZE];
+    private volatile long published;
+    private volatile long consumed;
+    private boolean skipped;
+    // 메일박스가 넣고 io 스레드가 가져가는 이벤트 (드물어서 락으로 충분)
+    private List<Event> events = new ArrayList<>();
+    private volatile long closeMillis = -1;
+
+    // io 스레드 전용
+    private Mapped current;
+    private final BitWriter writer = new BitWriter(1024);
+    private final Packets.PlayerState[] previous = new Packets.PlayerState[MAX_CARS];
+    private int previousCount;
+    private int ticksSinceKey = KEYFRAME_TICKS;
+    private long bytesWritten;
+    private boolean failed;
+
+    RaceRecorder(Path dir, String roomId, long startMillis, ServerMetrics.Counter droppedTicks) {
+        this.dir = dir; this.roomId = roomId; this.startMillis = startMillis; this.droppedTicks = droppedTicks;
+        for (int i = 0; i < MAX_CARS; i++) previous[i] = new Packets.PlayerState();
+    }
+
+    /** Queues the post-collision states of one tick. Tick shard only; never blocks. */
+    void tick(int seq, long serverMillis, Packets.PlayerState[] states, int count) {
+        long n = published;
+        if (n - consumed >= RING_SIZE) {
+            // io 스레드가 링 하나만큼 밀렸다: 버리고 다음 틱을 키프레임으로
+            skipped = true;
+            droppedTicks.inc();
+            return;
+        }
+        int slot = (int) (n % RING_SIZE);
+        count = Math.min(count, MAX_CARS);
+        Packets.PlayerState[] dst = ring[slot];
+        if (dst == null || dst.length < count) {
+            Packets.PlayerState[] grown = new Packets.PlayerState[Math.max(count, 4)];
+            int have = dst == null ? 0 : dst.length;
+            if (dst != null) System.arraycopy(dst, 0, grown, 0, have);
+            for (int i = have; i < grown.length; i++) grown[i] = new Packets.PlayerState();
+            ring[slot] = dst = grown;
+        }
+        for (int i = 0; i < count; i++) SnapshotCodec.copy(states[i], dst[i]);
+        ringCounts[slot] = count;
+        ringSeqs[slot] = seq;
+        ringMillis[slot] = serverMillis;
+        ringKey[slot] = skipped;
+        skipped = false;
+        published = n + 1;
+    }
+
+    /** Queues a packet sent to the room, copying its already-encoded bytes. */
+    void event(long serverMillis, FanoutSerialization.Frame frame) {
+        Event e = new Event(serverMillis, Arrays.copyOf(frame.bytes(), frame.length()));
+        synchronized (this) {
+            events.add(e);
+        }
+    }
+
+    /** Ends the recording; the io thread writes what is queued, the end marker, and trims the file. */
+    void close(long serverMillis) {
+        closeMillis = serverMillis;
+    }
+
+    /** Bytes appended so far (io thread). */
+    long bytesWritten() { return bytesWritten; }
+
+    /**
+     * Writes everything queued so far. io thread only.
+     * @return true once the recording is closed and its last segment is on disk
+     */
+    boolean drain() {
+        // close 표시를 먼저 읽어야 그 전에 들어온 틱과 이벤트를 모두 쓴다
+        long closing = closeMillis;
+        List<Event> pending;
+        synchronized (this) {
+            pending = events;
+            events = new ArrayList<>();
+        }
+        if (failed) {
+            consumed = published;
+            return closing >= 0;
+        }
+        try {
+            if (current == null) {
+                Files.createDirectories(dir);
+                current = map(0);
+            }
+            int next = 0;
+            long end = published;
+            for (long n = consumed; n < end; n++) {
+                int slot = (int) (n % RING_SIZE);
+                for (; next < pending.size() && pending.get(next).serverMillis <= ringMillis[slot]; next++) {
+                    writeEvent(pending.get(next));
+                }
+                writeTick(ringSeqs[slot], ringMillis[slot], ring[slot], ringCounts[slot], ringKey[slot]);
+                consumed = n + 1;
+            }
+            for (; next < pending.size(); next++) writeEvent(pending.get(next));
+            if (closing < 0) return false;
+            if (fits(0)) append(RaceLog.END, closing, 0, null, 0);
+            finish(current);
+            return true;
+        } catch (IOException e) {
+            System.out.printf("race recording %s stopped: %s%n", roomId, e);
+            failed = true;
+            consumed = published;
+            if (current != null) finish(current);
+            return closing >= 0;
+        }
+    }
+
+    private void writeTick(int seq, long serverMillis, Packets.PlayerState[] states, int count, boolean afterGap)
+            throws IOException {
+        writer.reset();
+        boolean key = ticksSinceKey >= KEYFRAME_TICKS || afterGap;
+        int length = SnapshotCodec.encode(states, count, previous, key ? 0 : previousCount, writer);
+        if (!fits(length)) {
+            // 새 세그먼트는 키프레임으로 시작한다
+            roll();
+            key = true;
+            writer.reset();
+            length = SnapshotCodec.encode(states, count, previous, 0, writer);
+        }
+        if (key) {
+            current.index.putLong(serverMillis).putInt(seq).putInt(current.data.position());
+            ticksSinceKey = 0;
+        }
+        append(key ? RaceLog.KEYFRAME : RaceLog.DELTA, serverMillis, seq, writer.buffer(), length);
+        ticksSinceKey++;
+        for (int i = 0; i < count; i++) SnapshotCodec.copy(states[i], previous[i]);
+        previousCount = count;
+    }
+
+    private void writeEvent(Event e) throws IOException {
+        if (!fits(e.bytes.length)) {
+            roll();
+            ticksSinceKey = KEYFRAME_TICKS;
+        }
+        append(RaceLog.EVENT, e.serverMillis, 0, e.bytes, e.bytes.length);
+    }
+
+    private boolean fits(int payload) {
+        // 인덱스가 차도 세그먼트를 넘긴다 (키프레임마다 한 칸)
+        return current.data.remaining() >= RaceLog.RECORD_HEADER_BYTES + payload
+            && current.index.remaining() >= RaceLog.INDEX_ENTRY_BYTES;
+    }
+
+    private void append(byte type, long serverMillis, int seq, byte[] payload, int length) {
+        MappedByteBuffer b = current.data;
+        int at = b.position();
+        // type은 맨 나중에 쓴다: 따라 읽는 쪽은 type이 0이 아닌 레코드만 읽는다
+        b.position(at + 1);
+        b.putInt(length).putLong(serverMillis).putInt(seq);
+        if (length > 0) b.put(payload, 0, length);
+        b.put(at, type);
+        bytesWritten += RaceLog.RECORD_HEADER_BYTES + length;
+    }
+
+    private void roll() throws IOException {
+        Mapped old = current;
+        current = map(old.number + 1);
+        finish(old);
+    }
+
+    private Mapped map(int number) throws IOException {
+        Path path = RaceLog.segment(dir, number);
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        RaceLog.writeHeader(data, (short) 0, number, startMillis, roomId);
+        data.position(RaceLog.HEADER_BYTES);
+        FileChannel ich = FileChannel.open(RaceLog.index(path), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer index = ich.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_BYTES);
+        index.order(ByteOrder.LITTLE_ENDIAN);
+        return new Mapped(number, ch, data, ich, index);
+    }
+
+    // 디스크에 내리고 쓴 만큼만 남긴다. 매핑이 남아 있어 잘라내기를 거부하는 OS에서는 0으로 채워진 꼬리를 남긴다
+    private static void finish(Mapped m) {
+        try {
+            m.data.force();
+            m.index.force();
+            try {
+                m.channel.truncate(m.data.position());
+                m.indexChannel.truncate(m.index.position());
+            } catch (IOException ignored) {
+                // 읽는 쪽은 type 0에서 멈춘다
+            }
+            m.channel.close();
+            m.indexChannel.close();
+        } catch (IOException e) {
+            System.out.printf("race recording flush failed: %s%n", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.mygame.f1.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The server's race recordings under one directory: opens a {@link RaceRecorder} per race and keeps the
+ * directory inside its {@link Policy}. Every file operation (encoding and appending queued ticks every
+ * {@value #DRAIN_MILLIS}ms, flushing, retention) runs on one {@code race-recorder-io} thread, so retention
+ * never sees a segment that is still being written. Retention runs at startup and after every race: finished recordings older than
+ * {@code compactAfter} lose their delta ticks (keyframes and events stay, so they still seek and replay
+ * at keyframe rate), those older than {@code maxAge} are deleted, and then the oldest are deleted until
+ * the directory fits in {@code maxBytes}. Recordings in progress are never touched.
+ */
+final class RaceRecordings {
+    /**
+     * Limits of the recording directory. Read from {@code -Df1.recordMaxMB} (default 1024),
+     * {@code -Df1.recordCompactAfterHours} (24) and {@code -Df1.recordMaxAgeDays} (7).
+     */
+    record Policy(long maxBytes, long compactAfterMillis, long maxAgeMillis) {
+        static final Policy DEFAULT = new Policy(1024L << 20, TimeUnit.HOURS.toMillis(24), TimeUnit.DAYS.toMillis(7));
+
+        static Policy fromSystemProperties() {
+            return new Policy(Long.getLong("f1.recordMaxMB", DEFAULT.maxBytes >> 20) << 20,
+                TimeUnit.HOURS.toMillis(Long.getLong("f1.recordCompactAfterHours", TimeUnit.MILLISECONDS.toHours(DEFAULT.compactAfterMillis))),
+                TimeUnit.DAYS.toMillis(Long.getLong("f1.recordMaxAgeDays", TimeUnit.MILLISECONDS.toDays(DEFAULT.maxAgeMillis))));
+        }
+    }
+
+    static final int DRAIN_MILLIS = 100;
+
+    private record Recording(Path dir, long startMillis, long bytes) {}
+
+    private final Path root;
+    private final Policy policy;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "race-recorder-io");
+        t.setDaemon(true);
+        return t;
+    });
+    // 기록 중인 레이스 (보존 정책 대상에서 제외)
+    private final Map<Path, RaceRecorder> active = new ConcurrentHashMap<>();
+    private volatile long diskBytes;
+    private final ServerMetrics.Counter bytesRecorded;
+    private final ServerMetrics.Counter deleted;
+    private final ServerMetrics.Counter droppedTicks;
+
+    RaceRecordings(Path root, Policy policy, ServerMetrics metrics) {
+        this.root = root; this.policy = policy;
+        metrics.gauge("f1_recordings_active", "Races being recorded", active::size);
+        metrics.gauge("f1_recordings_disk_bytes", "Bytes in the recording directory after the last retention pass", () -> diskBytes);
+        bytesRecorded = metrics.counter("f1_recording_bytes_total", "Bytes appended to race recordings");
+        deleted = metrics.counter("f1_recordings_deleted_total", "Recordings deleted by the retention policy");
+        droppedTicks = metrics.counter("f1_recording_ticks_dropped_total", "Ticks not recorded because the recorder thread fell behind");
+        io.execute(this::retain);
+        io.scheduleWithFixedDelay(this::drainAll, DRAIN_MILLIS, DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Starts recording a race. Files are created on the io thread; if that fails the race runs unrecorded. */
+    RaceRecorder open(String roomId, long startMillis) {
+        Path dir = root.resolve(roomId + "-" + startMillis);
+        RaceRecorder recorder = new RaceRecorder(dir, roomId, startMillis, droppedTicks);
+        active.put(dir, recorder);
+        return recorder;
+    }
+
+    // 기록마다 쌓인 틱/이벤트를 쓰고, 끝난 기록이 있으면 보존 정책을 적용한다
+    private void drainAll() {
+        boolean finished = false;
+        for (RaceRecorder r : active.values()) {
+            try {
+                if (!r.drain()) continue;
+            } catch (RuntimeException e) {
+                System.out.printf("race recording %s failed: %s%n", r.dir.getFileName(), e);
+            }
+            active.remove(r.dir);
+            bytesRecorded.add(r.bytesWritten());
+            finished = true;
+        }
+        if (finished) retain();
+    }
+
+    private void retain() {
+        try {
+            List<Recording> finished = new ArrayList<>();
+            long total = 0;
+            long now = System.currentTimeMillis();
+            if (!Files.isDirectory(root)) return;
+            try (Stream<Path> dirs = Files.list(root)) {
+                for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                    if (active.containsKey(dir)) {
+                        total += size(dir);
+                        continue;
+                    }
+                    long start = startMillis(dir);
+                    long age = now - start;
+                    if (age > policy.maxAgeMillis) {
+                        delete(dir);
+                        continue;
+                    }
+                    if (age > policy.compactAfterMillis) compact(dir);
+                    Recording r = new Recording(dir, start, size(dir));
+                    finished.add(r);
+                    total += r.bytes;
+                }
+            }
+            // 용량 초과분은 오래된 기록부터 지운다
+            finished.sort(Comparator.comparingLong(Recording::startMillis));
+            for (Recording r : finished) {
+                if (total <= policy.maxBytes) break;
+                delete(r.dir);
+                total -= r.bytes;
+            }
+            diskBytes = total;
+        } catch (IOException e) {
+            System.out.printf("race recording retention failed: %s%n", e);
+        }
+    }
+
+    /**
+     * Rewrites each segment of a finished recording without its delta ticks. Keyframes decode on their
+     * own, so the result still replays (at keyframe rate) and keeps every event.
+     */
+    static void compact(Path dir) throws IOException {
+        for (Path seg : RaceLog.segments(dir)) {
+            ByteBuffer out, index;
+            try (RaceLog.Cursor c = new RaceLog.Cursor(seg)) {
+                if (c.header.compacted()) continue;
+                out = ByteBuffer.allocate((int) Files.size(seg)).order(ByteOrder.LITTLE_ENDIAN);
+                index = ByteBuffer.allocate(RaceRecorder.INDEX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                RaceLog.Header h = c.header;
+                RaceLog.writeHeader(out, RaceLog.FLAG_COMPACTED, h.segment(), h.startMillis(), h.roomId());
+                out.position(RaceLog.HEADER_BYTES);
+                for (RaceLog.Record r = c.next(); r != null; r = c.next()) {
+                    if (r.type() == RaceLog.DELTA) continue;
+                    if (r.type() == RaceLog.KEYFRAME && index.remaining() >= RaceLog.INDEX_ENTRY_BYTES) {
+                        index.putLong(r.serverMillis()).putInt(r.seq()).putInt(out.position());
+                    }
+                    out.put(r.type()).putInt(r.payload().remaining()).putLong(r.serverMillis()).putInt(r.seq());
+                    out.put(r.payload());
+                }
+            }
+            replace(seg, out);
+            replace(RaceLog.index(seg), index);
+        }
+    }
+
+    // 임시 파일에 쓰고 교체해서, 중간에 죽어도 원본이나 압축본 중 하나는 온전하다
+    private static void replace(Path target, ByteBuffer content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        content.flip();
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        Files.write(tmp, bytes);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 디렉터리 이름의 시작 시각 (압축하면 수정 시각이 바뀌므로 나이는 이름으로 잰다)
+    private static long startMillis(Path dir) throws IOException {
+        String name = dir.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(name.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return Files.getLastModifiedTime(dir).toMillis();
+        }
+    }
+
+    private static long size(Path dir) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) bytes += Files.size(f);
+        }
+        return bytes;
+    }
+
+    private void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) Files.deleteIfExists(f);
+        }
+        Files.deleteIfExists(dir);
+        deleted.inc();
+    }
+}
@@ -0,0 +1,523 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.mygame.f1.shared.DeadReckoning;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * One lobby/race room: the player list, lobby flags and race results, changed only from the room's
+ * {@link #mailbox}, plus the tick-path state (member slots, snapshot history, reusable frames) owned by
+ * the room's tick shard. Every lobby change bumps {@link #version()}; readers on other threads get an
+ * immutable {@link Snapshot} of the latest version, rebuilt at most once per change.
+ */
+final class Room {
+    final String id; final String name; final int maxPlayers;
+    final Mailbox mailbox;
+    // 새 멤버의 스냅샷 빈도 범위
+    final LinkRate.Bounds rateBounds;
+    final Map<Integer, Packets.PlayerInfo> players = new ConcurrentHashMap<>();
+    final List<Integer> order = new CopyOnWriteArrayList<>();
+    final Set<Integer> ready = Collections.synchronizedSet(new HashSet<>());
+    private volatile Packets.RoomPhase phase = Packets.RoomPhase.WAITING;
+    private volatile int selectedTrackIndex = 0;
+    // 로비 상태 버전과 그 버전의 캐시 (변경은 모니터 안에서만)
+    private volatile int version = 1;
+    private volatile Snapshot snapshot;
+    // 틱 경로용 멤버 배열 (join/leave 때만 새 배열로 교체) 과 틱마다 채우는 상태 배열 (샤드 스레드 전용)
+    volatile Member[] members = new Member[0];
+    Packets.PlayerState[] tickStates = new Packets.PlayerState[4];
+    // 충돌 처리 전 상태 사본 (예측하는 클라이언트에게 보낼 보정 계산용, 샤드 스레드 전용)
+    Packets.PlayerState[] preCollision = new Packets.PlayerState[0];
+    // 마지막 gatherStates에서 차례가 된 상태가 없었던 멤버 수와 재전송분으로 채운 멤버 수 (샤드 스레드 전용)
+    int uplinkHoles, uplinkRecovered;
+    // 마지막 gatherStates에서 서버가 시뮬레이션한 입력 스텝 수 (샤드 스레드 전용)
+    int inputSteps;
+    TickEngine.Handle tick;
+    // 틱마다 재사용하는 충돌 브로드페이즈와 지연 보상용 위치 기록 (방의 샤드 스레드에서만 사용)
+    final CollisionGrid collisionGrid = new CollisionGrid();
+    final StateHistory history;
+    private Member[] historyMembers;
+    // 최근 전송 스냅샷(델타 인코딩 기준)
+    final SnapshotHistory snapshots = new SnapshotHistory();
+    int snapshotSeq = 0;
+    // 틱마다 기준 스냅샷별로 한 번만 직렬화한 프레임 (샤드 스레드 전용, 재사용)
+    final int[] frameBaselines = new int[4];
+    final FanoutSerialization.Frame[] frames = new FanoutSerialization.Frame[4];
+    int frameCount;
+    // 관심 관리 중 수신자별 스냅샷 프레임 (샤드 스레드 전용, 보내자마자 다음 수신자가 재사용)
+    final FanoutSerialization.Frame memberFrame = new FanoutSerialization.Frame();
+
+    // 채팅 배치/기록 (메일박스 전용)
+    final ChatLog chat;
+
+    // Race finish tracking
+    final Map<Integer, Packets.PlayerFinishedPacket> finishedPlayers = new ConcurrentHashMap<>();
+    long firstFinishTime = 0;
+    boolean countdownActive = false;
+    // 완주 카운트다운 주기 타이머와 남은 초 (메일박스 전용)
+    TimerWheel.Timeout finishCountdown;
+    int countdownRemaining;
+    // 레이스 기록: 메일박스가 열고 닫고, 틱은 샤드 스레드에서 남긴다
+    volatile RaceRecorder recorder;
+
+    // 드레인: 다른 서버로 옮기는 중과 멤버별 재접속 토큰 (메일박스 전용). 옮겨 받은 방은 토큰별 예약 자리와 입장 순서를 가진다
+    volatile boolean movingOut;
+    Map<Integer, Long> handoffTokens = Map.of();
+    private record Reservation(Packets.PlayerInfo info, boolean ready, int rank) {}
+    private final Map<Long, Reservation> reserved = new HashMap<>();
+    private final Map<Integer, Integer> ranks = new HashMap<>();
+
+    Room(String id, String name, int maxPlayers, Mailbox mailbox) {
+        this(id, name, maxPlayers, mailbox, LinkRate.Bounds.DEFAULT);
+    }
+
+    Room(String id, String name, int maxPlayers, Mailbox mailbox, LinkRate.Bounds rateBounds) {
+        this.id = id; this.name = name; this.maxPlayers = maxPlayers; this.mailbox = mailbox;
+        this.rateBounds = rateBounds;
+        this.chat = new ChatLog(id);
+        this.history = new StateHistory(maxPlayers);
+    }
+
+    /**
+     * One version of the lobby state, shared by every reader: never modify {@link #state}. The
+     * {@code RoomStatePacket} bytes are encoded on first use and then sent as-is.
+     */
+    static final class Snapshot {
+        final int version;
+        final Packets.RoomState state;
+        private volatile FanoutSerialization.Frame frame;
+
+        Snapshot(int version, Packets.RoomState state) {
+            this.version = version; this.state = state;
+        }
+
+        FanoutSerialization.Frame frame(FanoutSerialization serialization) {
+            FanoutSerialization.Frame f = frame;
+            if (f == null) {
+                synchronized (this) {
+                    f = frame;
+                    if (f == null) {
+                        Packets.RoomStatePacket pkt = new Packets.RoomStatePacket();
+                        pkt.state = state;
+                        frame = f = serialization.encode(pkt, new FanoutSerialization.Frame());
+                    }
+                }
+            }
+            return f;
+        }
+    }
+
+    /**
+     * A player's slot: the state played from its uplink or simulated from its inputs (copied in place), the
+     * snapshot ack and the link's rate.
+     */
+    static final class Member {
+        final int id;
+        final Connection connection;
+        final Room room;
+        final Packets.PlayerState state = new Packets.PlayerState();
+        // state를 클라이언트가 샘플링한 추정 시각 (System.nanoTime 기준)
+        volatile long stateNanos;
+        final SnapshotHistory.Ack ack = new SnapshotHistory.Ack();
+        // 이 수신자에게 보낸 차량 선택과 우선순위 (샤드 스레드 전용)
+        final Interest interest = new Interest();
+        final LinkRate link;
+        // 이번 틱에 스냅샷을 받는지 (샤드 스레드 전용)
+        boolean dueThisTick;
+        volatile boolean hasState;
+        // state를 만든 클라이언트 물리 스텝 (0 = 예측하지 않는 클라이언트)과 아직 적용 안 된 충돌 보정
+        volatile int inputSeq;
+        final Corrections corrections = new Corrections();
+        // 받은 상태를 틱에 조금 늦게 내보내는 버퍼 (네트워크 스레드가 넣고 샤드 스레드가 꺼낸다)
+        final UplinkBuffer uplink = new UplinkBuffer();
+        // 마지막으로 재생한 상태의 재생 시각과 inputSeq, 추측 항법으로 state를 옮겨 둔 시각 (샤드 스레드 전용)
+        private long playedNanos, reckonedNanos;
+        private int playedInputSeq;
+        // 주행 중인 클라이언트가 보낸 입력과 그 입력으로 서버가 돌리는 차 (입력이 처음 올 때 만들고, 나갈 때 닫는다)
+        final InputBuffer inputs = new InputBuffer();
+        private CarSimulation simulation;
+        private boolean closed;
+        // 가장 최근 송신 번호의 패킷이 입력이었는지 (네트워크 스레드가 정한다), 이번 틱에 어느 쪽으로 state를 만들었는지 (샤드 스레드 전용)
+        private int newestUplinkSeq;
+        private boolean uplinkStarted;
+        private volatile boolean sendingInputs;
+        boolean simulatedThisTick;
+        // 마지막으로 서버 상태를 돌려보낸 시각과 스텝 (샤드 스레드 전용)
+        private long syncedNanos;
+        private int syncedSeq;
+
+        Member(Connection connection, Room room) {
+            this.id = connection.getID(); this.connection = connection; this.room = room;
+            this.link = new LinkRate(room.rateBounds);
+            state.playerId = id;
+        }
+
+        /**
+         * Takes the state due on this tick from {@link #uplink} into {@link #state}; on ticks with none,
+         * moves the last one on by {@link DeadReckoning}, as the client expects when it holds back its
+         * sends. Shard thread.
+         * @return true if a new state was played
+         */
+        boolean playUplink(long nowNanos) {
+            if (!uplink.play(nowNanos, link.intervalNanos(), state)) {
+                reckon(nowNanos);
+                return false;
+            }
+            state.playerId = id;
+            // 클라이언트가 아직 받지 못한 충돌 보정은 업로드에 다시 더한다
+            corrections.adjust(state, uplink.playedAckCorrectionId(), nowNanos);
+            inputSeq = playedInputSeq = uplink.playedInputSeq();
+            stateNanos = uplink.playedSampleNanos();
+            playedNanos = reckonedNanos = nowNanos;
+            hasState = true;
+            return true;
+        }
+
+        /**
+         * Notes whether the packet with send number {@code seq} carried inputs or a state; the newest one
+         * decides how the tick makes this member's state. Network thread.
+         */
+        void uplinkReceived(int seq, boolean inputs) {
+            if (uplinkStarted && seq - newestUplinkSeq <= 0) return;
+            uplinkStarted = true;
+            newestUplinkSeq = seq;
+            sendingInputs = inputs;
+        }
+
+        /**
+         * Makes this tick's {@link #state}: by running the client's new inputs on the server's own car while
+         * it sends inputs, otherwise from {@link #playUplink}. Shard thread.
+         * @return input steps simulated
+         */
+        int play(long nowNanos) {
+            simulatedThisTick = sendingInputs;
+            if (!simulatedThisTick) {
+                playUplink(nowNanos);
+                return 0;
+            }
+            CarSimulation sim = simulation(nowNanos);
+            if (sim == null) return 0;
+            int steps = sim.advance(inputs, nowNanos, state);
+            if (steps == 0) return 0;
+            state.playerId = id;
+            inputSeq = sim.seq();
+            stateNanos = sim.sampleNanos();
+            hasState = true;
+            return steps;
+        }
+
+        /** Writes a collision response applied to {@link #state} back into the server's car. Shard thread. */
+        void absorbCollision() {
+            CarSimulation sim = currentSimulation();
+            if (sim != null) sim.absorb(state);
+        }
+
+        /** True if a simulated step is newer than the last state sent back and the interval has passed. */
+        boolean syncDue(long nowNanos) {
+            return inputSeq != syncedSeq && nowNanos - syncedNanos >= CarSimulation.ACK_NANOS;
+        }
+
+        void synced(long nowNanos) {
+            syncedNanos = nowNanos;
+            syncedSeq = inputSeq;
+        }
+
+        /** Frees the server's car; the member has left. Any thread. */
+        synchronized void close() {
+            closed = true;
+            if (simulation != null) simulation.dispose();
+            simulation = null;
+        }
+
+        // 방의 트랙으로 만든 시뮬레이션 (트랙이 바뀌었으면 새로 만든다)
+        private synchronized CarSimulation simulation(long nowNanos) {
+            if (closed) return null;
+            int track = room.selectedTrackIndex();
+            if (simulation != null && simulation.trackIndex != track) {
+                simulation.dispose();
+                simulation = null;
+            }
+            if (simulation == null) simulation = new CarSimulation(track, TrackWalls.forTrack(track), nowNanos);
+            return simulation;
+        }
+
+        private synchronized CarSimulation currentSimulation() { return simulation; }
+
+        // 새 상태가 없는 틱: 마지막 상태를 그 속도로 옮긴다 (충돌로 바뀐 것도 그대로 이어 간다).
+        // 충돌 보정이 가리키는 스텝도 흐른 시간만큼 뒤로 잡는다
+        private void reckon(long nowNanos) {
+            if (!hasState) return;
+            long until = Math.min(nowNanos, playedNanos + DeadReckoning.MAX_EXTRAPOLATION_MILLIS * 1_000_000L);
+            long dt = until - reckonedNanos;
+            if (dt <= 0) return;
+            DeadReckoning.advance(state, dt / 1e9f);
+            stateNanos += dt;
+            reckonedNanos = until;
+            if (playedInputSeq != 0) {
+                inputSeq = playedInputSeq + (int) ((until - playedNanos) * DeadReckoning.CLIENT_STEP_HZ / 1_000_000_000L);
+            }
+        }
+    }
+
+    synchronized void join(Connection c, Packets.PlayerInfo info) {
+        players.put(c.getID(), info);
+        if (!order.contains(c.getID())) order.add(c.getID());
+        addMember(c);
+        version++;
+    }
+
+    /** Holds a seat for a player of a room handed over from another server until they resume with the token. */
+    synchronized void reserve(long token, Packets.HandoffPlayer p, int rank) {
+        Packets.PlayerInfo info = new Packets.PlayerInfo();
+        info.username = p.username; info.vehicleIndex = p.vehicleIndex;
+        reserved.put(token, new Reservation(info, p.ready, rank));
+    }
+
+    /**
+     * Seats {@code c} in the reservation for {@code token}, at its old place in the join order (so the host
+     * stays host) and with its ready flag. Returns the player's info, or null if the token is unknown.
+     */
+    synchronized Packets.PlayerInfo resume(Connection c, long token) {
+        Reservation r = reserved.remove(token);
+        if (r == null) return null;
+        r.info().playerId = c.getID();
+        players.put(c.getID(), r.info());
+        ranks.put(c.getID(), r.rank());
+        // 먼저 돌아온 사람 중 나보다 앞 순서인 사람 뒤에 선다 (새로 들어온 사람은 맨 뒤로 취급)
+        int at = 0;
+        for (Integer id : order) {
+            if (ranks.getOrDefault(id, Integer.MAX_VALUE) < r.rank()) at++;
+        }
+        order.add(at, c.getID());
+        if (r.ready()) ready.add(c.getID());
+        addMember(c);
+        version++;
+        return r.info();
+    }
+
+    synchronized boolean hasReservations() { return !reserved.isEmpty(); }
+
+    /** Players plus seats reserved for players of a handed-over room. */
+    synchronized int seatsTaken() { return players.size() + reserved.size(); }
+
+    /** Gives up the seats nobody came back for. */
+    synchronized void dropReservations() { reserved.clear(); }
+
+    /**
+     * The compact lobby state for another server: players in join order with a fresh resume token each
+     * ({@code tokens} gets connection id to token) and the chat history.
+     */
+    synchronized Packets.RoomHandoff handoff(Map<Integer, Long> tokens, LongSupplier nextToken) {
+        Packets.RoomHandoff h = new Packets.RoomHandoff();
+        h.roomId = id; h.roomName = name; h.maxPlayers = maxPlayers; h.trackIndex = selectedTrackIndex;
+        List<Packets.HandoffPlayer> list = new ArrayList<>();
+        for (Integer cid : order) {
+            Packets.PlayerInfo p = players.get(cid);
+            if (p == null) continue;
+            Packets.HandoffPlayer hp = new Packets.HandoffPlayer();
+            hp.username = p.username; hp.vehicleIndex = p.vehicleIndex; hp.ready = ready.contains(cid);
+            hp.resumeToken = nextToken.getAsLong();
+            tokens.put(cid, hp.resumeToken);
+            list.add(hp);
+        }
+        h.players = list.toArray(new Packets.HandoffPlayer[0]);
+        Packets.ChatBatch history = chat.history();
+        if (history != null) h.chat = history.messages;
+        return h;
+    }
+
+    synchronized void selectTrack(int trackIndex) {
+        if (selectedTrackIndex == trackIndex) return;
+        selectedTrackIndex = trackIndex;
+        version++;
+    }
+
+    private void addMember(Connection c) {
+        Member m = new Member(c, this);
+        Member[] cur = members;
+        Member[] next = new Member[cur.length + 1];
+        int n = 0;
+        for (Member o : cur) {
+            if (o.id != m.id) next[n++] = o;
+            else o.close();
+        }
+        next[n++] = m;
+        members = Arrays.copyOf(next, n);
+        if (c instanceof GameServer.PlayerConnection pc) pc.member = m;
+    }
+
+    synchronized void leave(Connection c) {
+        int connectionId = c.getID();
+        players.remove(connectionId);
+        order.remove((Integer) connectionId);
+        ready.remove(connectionId);
+        ranks.remove(connectionId);
+        chat.forget(connectionId);
+        Member[] cur = members;
+        Member[] next = new Member[cur.length];
+        int n = 0;
+        for (Member o : cur) {
+            if (o.id != connectionId) next[n++] = o;
+            else o.close();
+        }
+        members = Arrays.copyOf(next, n);
+        if (c instanceof GameServer.PlayerConnection pc && pc.member != null && pc.member.room == this) pc.member = null;
+        version++;
+    }
+
+    /**
+     * Plays each member's uplink or simulates its inputs for this tick and collects the states of members that have reported at
+     * least once into {@link #tickStates}.
+     */
+    int gatherStates(Member[] members, long nowNanos) {
+        if (tickStates.length < members.length) tickStates = new Packets.PlayerState[members.length];
+        int n = 0;
+        long holes = 0, recovered = 0;
+        int steps = 0;
+        for (Member m : members) {
+            holes -= m.uplink.holes();
+            recovered -= m.uplink.recovered();
+            steps += m.play(nowNanos);
+            holes += m.uplink.holes();
+            recovered += m.uplink.recovered();
+            if (m.hasState) tickStates[n++] = m.state;
+        }
+        uplinkHoles = (int) holes;
+        uplinkRecovered = (int) recovered;
+        inputSteps = steps;
+        return n;
+    }
+
+    /** Copies this tick's states into {@link #preCollision} before collisions change them; shard thread. */
+    void savePreCollision(int count) {
+        if (preCollision.length < count) {
+            Packets.PlayerState[] grown = Arrays.copyOf(preCollision, tickStates.length);
+            for (int i = preCollision.length; i < grown.length; i++) grown[i] = new Packets.PlayerState();
+            preCollision = grown;
+        }
+        for (int i = 0; i < count; i++) SnapshotCodec.copy(tickStates[i], preCollision[i]);
+    }
+
+    /** Adds each reporting member's newest state to {@link #history}; shard thread, after {@link #gatherStates}. */
+    void recordHistory(Member[] members, int count) {
+        // 멤버가 바뀐 틱에만 떠난 차량의 기록 칸을 비운다
+        if (members != historyMembers) {
+            history.retain(tickStates, count);
+            historyMembers = members;
+        }
+        for (Member m : members) {
+            if (m.hasState) history.record(m.id, m.stateNanos, m.state.x, m.state.y);
+        }
+    }
+
+    FanoutSerialization.Frame frameFor(int baselineId) {
+        for (int i = 0; i < frameCount; i++) {
+            if (frameBaselines[i] == baselineId) return frames[i];
+        }
+        return null;
+    }
+
+    /** Next reusable frame for this tick; the last slot is overwritten once all are in use. */
+    FanoutSerialization.Frame claimFrame(int baselineId) {
+        int i = frameCount < frames.length ? frameCount++ : frames.length - 1;
+        if (frames[i] == null) frames[i] = new FanoutSerialization.Frame();
+        frameBaselines[i] = baselineId;
+        return frames[i];
+    }
+
+    int version() { return version; }
+
+    Packets.RoomPhase phase() { return phase; }
+
+    int selectedTrackIndex() { return selectedTrackIndex; }
+
+    /** Latest state; lock-free unless the version moved since the last call. */
+    Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s != null && s.version == version) return s;
+        synchronized (this) {
+            s = snapshot;
+            if (s == null || s.version != version) {
+                s = new Snapshot(version, toState());
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    /** Builds a fresh state; prefer {@link #snapshot()}, which reuses it until the next change. */
+    synchronized Packets.RoomState toState() {
+        Packets.RoomState rs = new Packets.RoomState();
+        rs.roomId = id; rs.roomName = name; rs.maxPlayers = maxPlayers; rs.phase = phase; rs.version = version;
+        rs.players = new ArrayList<>();
+        for (Integer id : order) {
+            Packets.PlayerInfo p = players.get(id);
+            if (p != null) {
+                Packets.PlayerInfo copy = new Packets.PlayerInfo();
+                copy.playerId = p.playerId;
+                copy.username = p.username;
+                copy.ready = ready.contains(id);
+                copy.vehicleIndex = p.vehicleIndex;
+                rs.players.add(copy);
+            }
+        }
+        rs.selectedTrackIndex = selectedTrackIndex;
+        return rs;
+    }
+
+    synchronized void setReady(int connectionId, boolean value) {
+        if (!players.containsKey(connectionId)) return;
+        boolean changed = value ? ready.add(connectionId) : ready.remove(connectionId);
+        if (changed) version++;
+    }
+
+    synchronized void setSelection(int connectionId, int trackIndex, int vehicleIndex) {
+        Packets.PlayerInfo p = players.get(connectionId);
+        if (p == null) return;
+        boolean changed = false;
+        if (vehicleIndex >= 0 && p.vehicleIndex != vehicleIndex) {
+            p.vehicleIndex = vehicleIndex;
+            changed = true;
+        }
+        boolean isHost = !order.isEmpty() && order.get(0) == connectionId;
+        if (isHost && trackIndex >= 0 && selectedTrackIndex != trackIndex) {
+            selectedTrackIndex = trackIndex;
+            changed = true;
+        }
+        if (changed) version++;
+    }
+
+    synchronized void setPhase(Packets.RoomPhase phase) {
+        if (this.phase == phase) return;
+        this.phase = phase;
+        version++;
+    }
+
+    /** Locks in the track and moves to {@link Packets.RoomPhase#COUNTDOWN}. */
+    synchronized void startCountdown(int trackIndex) {
+        selectedTrackIndex = trackIndex;
+        phase = Packets.RoomPhase.COUNTDOWN;
+        version++;
+    }
+
+    synchronized boolean allReady() {
+        return !players.isEmpty() && ready.containsAll(players.keySet());
+    }
+
+    synchronized boolean isHost(int connectionId) {
+        return !order.isEmpty() && order.get(0) == connectionId;
+    }
+}
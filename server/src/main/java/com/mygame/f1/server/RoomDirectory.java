@@ -0,0 +1,209 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.mygame.f1.shared.Packets;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Room browser index. Keeps one immutable {@link Packets.RoomSummary} per room, indexed by phase, track
+ * and open slots, answers filtered pages in room-id order (the last id is the cursor), and pushes
+ * add/change/remove diffs to subscribed connections in batches. Rooms update their entry from their
+ * mailbox; queries and {@link #flush} may run on any thread.
+ */
+final class RoomDirectory {
+    static final int MAX_PAGE = 50;
+    // 메시지 하나에 담는 변경분 수 (요약 하나가 50바이트 안팎이라 16KB TCP 버퍼에 여유 있게 들어간다)
+    static final int MAX_DIFF = 100;
+
+    /** A browse filter; {@code null} phase and negative track mean any. */
+    record Filter(Packets.RoomPhase phase, int trackIndex, int minFreeSlots) {
+        static Filter of(Packets.RoomQueryRequest req) {
+            return new Filter(req.phase, req.trackIndex, Math.max(0, req.minFreeSlots));
+        }
+
+        boolean matches(Packets.RoomSummary s) {
+            return s != null
+                && (phase == null || s.phase == phase)
+                && (trackIndex < 0 || s.trackIndex == trackIndex)
+                && s.maxPlayers - s.players >= minFreeSlots;
+        }
+    }
+
+    // fresh: 마지막 flush 이후에 조회한 구독자. published에 없는 방도 받았을 수 있어 제거를 넓게 보낸다
+    private record Subscription(int key, Connection connection, Filter filter, boolean fresh) {}
+
+    private record Group(Filter filter, boolean fresh) {}
+
+    private final ConcurrentSkipListMap<String, Packets.RoomSummary> all = new ConcurrentSkipListMap<>();
+    private final Map<Packets.RoomPhase, ConcurrentSkipListMap<String, Packets.RoomSummary>> byPhase =
+        new EnumMap<>(Packets.RoomPhase.class);
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListMap<String, Packets.RoomSummary>> byTrack =
+        new ConcurrentHashMap<>();
+    // 빈자리가 하나 이상인 방
+    private final ConcurrentSkipListMap<String, Packets.RoomSummary> open = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<Integer, Subscription> subscribers = new ConcurrentHashMap<>();
+    // 마지막 flush 이후 바뀐 방 ID
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // 구독자에게 마지막으로 알린 요약 (flush 스레드 전용)
+    private final Map<String, Packets.RoomSummary> published = new HashMap<>();
+    private final FanoutSerialization.Frame frame = new FanoutSerialization.Frame();
+
+    RoomDirectory() {
+        for (Packets.RoomPhase p : Packets.RoomPhase.values()) byPhase.put(p, new ConcurrentSkipListMap<>());
+    }
+
+    int size() { return all.size(); }
+
+    int subscribers() { return subscribers.size(); }
+
+    Packets.RoomSummary get(String roomId) { return all.get(roomId); }
+
+    /** Re-indexes the room if its version moved; call from the room's mailbox after a change. */
+    void update(Room room) {
+        Packets.RoomState state = room.snapshot().state;
+        Packets.RoomSummary prev = all.get(room.id);
+        if (prev != null && prev.version == state.version) return;
+        Packets.RoomSummary s = new Packets.RoomSummary();
+        s.roomId = state.roomId; s.roomName = state.roomName; s.phase = state.phase;
+        s.players = state.players != null ? state.players.size() : 0;
+        s.maxPlayers = state.maxPlayers; s.trackIndex = state.selectedTrackIndex; s.version = state.version;
+        update(s);
+    }
+
+    /** Indexes a summary taken from elsewhere (a game server's diff); same version is a no-op. */
+    void update(Packets.RoomSummary s) {
+        Packets.RoomSummary prev = all.get(s.roomId);
+        if (prev != null && prev.version == s.version) return;
+        if (prev != null) unindex(prev);
+        all.put(s.roomId, s);
+        byPhase.get(s.phase).put(s.roomId, s);
+        byTrack.computeIfAbsent(s.trackIndex, k -> new ConcurrentSkipListMap<>()).put(s.roomId, s);
+        if (s.players < s.maxPlayers) open.put(s.roomId, s);
+        dirty.add(s.roomId);
+    }
+
+    void remove(String roomId) {
+        Packets.RoomSummary prev = all.remove(roomId);
+        if (prev == null) return;
+        unindex(prev);
+        dirty.add(roomId);
+    }
+
+    private void unindex(Packets.RoomSummary s) {
+        byPhase.get(s.phase).remove(s.roomId, s);
+        ConcurrentSkipListMap<String, Packets.RoomSummary> track = byTrack.get(s.trackIndex);
+        if (track != null) track.remove(s.roomId, s);
+        open.remove(s.roomId, s);
+    }
+
+    /** One page of rooms matching {@code filter} after {@code cursor}, scanning the narrowest index. */
+    Packets.RoomQueryResponse query(Filter filter, String cursor, int limit) {
+        int max = limit <= 0 ? MAX_PAGE : Math.min(limit, MAX_PAGE);
+        NavigableMap<String, Packets.RoomSummary> source = all;
+        if (filter.phase() != null) source = narrower(source, byPhase.get(filter.phase()));
+        if (filter.trackIndex() >= 0) {
+            ConcurrentSkipListMap<String, Packets.RoomSummary> track = byTrack.get(filter.trackIndex());
+            if (track == null) source = new ConcurrentSkipListMap<>();
+            else source = narrower(source, track);
+        }
+        if (filter.minFreeSlots() > 0) source = narrower(source, open);
+        if (cursor != null) source = source.tailMap(cursor, false);
+
+        List<Packets.RoomSummary> page = new ArrayList<>(Math.min(max, 16));
+        for (Packets.RoomSummary s : source.values()) {
+            if (!filter.matches(s)) continue;
+            page.add(s);
+            if (page.size() == max) break;
+        }
+        Packets.RoomQueryResponse res = new Packets.RoomQueryResponse();
+        res.rooms = page.toArray(new Packets.RoomSummary[0]);
+        res.nextCursor = page.size() == max ? page.get(max - 1).roomId : null;
+        return res;
+    }
+
+    private static NavigableMap<String, Packets.RoomSummary> narrower(NavigableMap<String, Packets.RoomSummary> a,
+                                                                     NavigableMap<String, Packets.RoomSummary> b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    /** Starts or replaces the connection's subscription. */
+    void subscribe(Connection c, Filter filter) {
+        subscribe(c.getID(), c, filter);
+    }
+
+    /** Same, under an explicit key, for connections that are not one of this server's clients. */
+    void subscribe(int key, Connection c, Filter filter) {
+        subscribers.put(key, new Subscription(key, c, filter, true));
+    }
+
+    void unsubscribe(int key) {
+        subscribers.remove(key);
+    }
+
+    /**
+     * Sends every subscriber the rooms that changed since the last flush and match its filter, plus the
+     * rooms that stopped matching. Subscribers with equal filters share one encoded message. Call from a
+     * single housekeeping thread.
+     */
+    void flush(FanoutSerialization serialization) {
+        if (dirty.isEmpty()) return;
+        List<String> ids = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        Map<Group, List<Connection>> groups = new HashMap<>();
+        for (Subscription sub : subscribers.values()) {
+            groups.computeIfAbsent(new Group(sub.filter(), sub.fresh()), g -> new ArrayList<>()).add(sub.connection());
+            if (sub.fresh()) {
+                subscribers.replace(sub.key(), sub, new Subscription(sub.key(), sub.connection(), sub.filter(), false));
+            }
+        }
+        for (Map.Entry<Group, List<Connection>> g : groups.entrySet()) {
+            Filter filter = g.getKey().filter();
+            boolean fresh = g.getKey().fresh();
+            List<Packets.RoomSummary> changed = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (String id : ids) {
+                Packets.RoomSummary now = all.get(id);
+                if (filter.matches(now)) {
+                    changed.add(now);
+                } else if (fresh || filter.matches(published.get(id))) {
+                    removed.add(id);
+                }
+            }
+            send(serialization, g.getValue(), changed, removed);
+        }
+        for (String id : ids) {
+            Packets.RoomSummary now = all.get(id);
+            if (now != null) published.put(id, now); else published.remove(id);
+        }
+    }
+
+    private void send(FanoutSerialization serialization, List<Connection> to,
+                      List<Packets.RoomSummary> changed, List<String> removed) {
+        int c = 0, r = 0;
+        while (c < changed.size() || r < removed.size()) {
+            int nc = Math.min(MAX_DIFF, changed.size() - c);
+            int nr = Math.min(MAX_DIFF - nc, removed.size() - r);
+            Packets.RoomDirectoryUpdate update = new Packets.RoomDirectoryUpdate();
+            if (nc > 0) update.changed = changed.subList(c, c + nc).toArray(new Packets.RoomSummary[0]);
+            if (nr > 0) update.removed = removed.subList(r, r + nr).toArray(new String[0]);
+            c += nc;
+            r += nr;
+            serialization.encode(update, frame);
+            for (Connection conn : to) conn.sendTCP(frame);
+        }
+    }
+}
@@ -1,14 +1,65 @@
 package com.mygame.f1.server;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public class ServerLauncher {
     public static void main(String[] args) throws Exception {
+        // 방 디렉터리 모드: directory [tcp] [udp]. 게임 서버들은 -Df1.directory=host:tcp:udp 로 여기에 등록한다
+        // (다른 호스트의 게임 서버는 양쪽에 같은 -Df1.shardSecret이 있어야 등록된다)
+        if (args.length >= 1 && args[0].equals("directory")) {
+            int tcp = args.length >= 3 ? Integer.parseInt(args[1]) : 54555;
+            int udp = args.length >= 3 ? Integer.parseInt(args[2]) : 54777;
+            new DirectoryServer(tcp, udp).start();
+            return;
+        }
         int tcp = 54555;
         int udp = 54777;
+        // 방 틱 워커 수: 기본값은 코어 수 (-Df1.tickWorkers=N 또는 세 번째 인자로 변경)
+        int tickWorkers = Integer.getInteger("f1.tickWorkers", Runtime.getRuntime().availableProcessors());
         if (args.length >= 2) {
             tcp = Integer.parseInt(args[0]);
             udp = Integer.parseInt(args[1]);
         }
-        GameServer server = new GameServer(tcp, udp);
+        if (args.length >= 3) {
+            tickWorkers = Integer.parseInt(args[2]);
+        }
+        // 연결별 스냅샷 빈도 범위: -Df1.minRateHz / -Df1.maxRateHz / -Df1.initialRateHz (기본 10 / 60 / 30)
+        GameServer server = new GameServer(tcp, udp, tickWorkers);
         server.start();
+        // 여러 프로세스로 방을 나눌 때: 디렉터리 주소와 클라이언트가 이 서버에 접속할 주소 (기본 127.0.0.1)
+        String directory = System.getProperty("f1.directory");
+        if (directory != null && !directory.isBlank()) {
+            String[] parts = directory.split(":");
+            server.joinDirectory(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                System.getProperty("f1.advertiseHost", "127.0.0.1"));
+        }
+        // 레이스 기록: -Df1.recordDir=<디렉터리>를 줄 때만 켠다. 8대 레이스 1분에 약 0.5MB이고 기록 중인 레이스는
+        // 세그먼트마다 4MB를 미리 잡는다. 디렉터리 전체는 -Df1.recordMaxMB (기본 1024) 안으로 유지된다
+        // (그 밖의 보존 한도는 RaceRecordings.Policy 참고)
+        String recordDir = System.getProperty("f1.recordDir");
+        if (recordDir != null && !recordDir.isBlank()) server.recordRaces(Path.of(recordDir));
+        // 배포 시 SIGTERM에 드레인하려면 -Df1.drain=true (기본은 바로 종료): 레이스는 끝까지 기다리고, 대기 방은
+        // 디렉터리를 통해 다른 서버로 옮기거나 디렉터리가 없으면 안내와 함께 닫는다. 최대 -Df1.drainTimeoutSeconds (기본 30)
+        if (Boolean.getBoolean("f1.drain")) {
+            int drainTimeout = Integer.getInteger("f1.drainTimeoutSeconds", 30);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.drain().get(drainTimeout, TimeUnit.SECONDS);
+                    Thread.sleep(500); // 마지막 재접속 안내가 전송될 시간
+                } catch (TimeoutException e) {
+                    System.out.printf("Drain timed out after %ds%n", drainTimeout);
+                } catch (Exception e) {
+                    System.out.printf("Drain interrupted: %s%n", e);
+                }
+            }, "drain"));
+        }
+        // Prometheus 메트릭 엔드포인트: 기본은 로컬 전용 (-Df1.metricsPort=0 이면 끔, -Df1.metricsHost로 바인드 주소 변경)
+        int metricsPort = Integer.getInteger("f1.metricsPort", 9464);
+        if (metricsPort > 0) {
+            server.startMetrics(new InetSocketAddress(System.getProperty("f1.metricsHost", "127.0.0.1"), metricsPort));
+        }
     }
 }
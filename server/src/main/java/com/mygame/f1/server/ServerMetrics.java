@@ -0,0 +1,179 @@
+package com.mygame.f1.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process metrics registry: counters, gauges and fixed-bucket histograms with at most one label.
+ * Recording is a {@link LongAdder} update (plus a short bucket scan for histograms) and never allocates,
+ * so it stays on in production. Metrics are read in the Prometheus text format through
+ * {@link MetricsHttpServer} and as JMX attributes through {@link MetricsMBean}.
+ */
+public final class ServerMetrics {
+    /** Latency bucket bounds in nanoseconds (50us .. 250ms); record with {@link #NANOS} scale. */
+    public static final long[] LATENCY_BUCKETS = {
+        50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000,
+        10_000_000, 25_000_000, 50_000_000, 100_000_000, 250_000_000
+    };
+    /** Byte-size bucket bounds (0 .. 64 KiB). */
+    public static final long[] BYTE_BUCKETS = { 0, 256, 1024, 4096, 16384, 65536 };
+    /** Scale that renders nanosecond histograms in seconds, as Prometheus expects. */
+    public static final double NANOS = 1e-9;
+
+    enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    /** Receives one sample: metric name, label pairs without braces (may be empty) and value. */
+    interface Sink {
+        void sample(String name, String labels, double value);
+    }
+
+    private interface Series {
+        void collect(String name, String labels, Sink sink);
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /** Monotonic counter. */
+    public static final class Counter implements Series {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() { value.increment(); }
+        public void add(long n) { value.add(n); }
+        public long sum() { return value.sum(); }
+
+        @Override public void collect(String name, String labels, Sink sink) {
+            sink.sample(name, labels, value.sum());
+        }
+    }
+
+    /** Cumulative histogram over fixed upper bounds; values above the last bound land in {@code +Inf}. */
+    public static final class Histogram implements Series {
+        private final long[] bounds;
+        private final double scale;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        Histogram(long[] bounds, double scale) {
+            this.bounds = bounds; this.scale = scale;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        public void record(long value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) i++;
+            buckets[i].increment();
+            count.increment();
+            sum.add(value);
+        }
+
+        public long count() { return count.sum(); }
+
+        @Override public void collect(String name, String labels, Sink sink) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                sink.sample(name + "_bucket", prefix + "le=\"" + format(bounds[i] * scale) + "\"", cumulative);
+            }
+            cumulative += buckets[bounds.length].sum();
+            sink.sample(name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+            sink.sample(name + "_sum", labels, sum.sum() * scale);
+            sink.sample(name + "_count", labels, cumulative);
+        }
+    }
+
+    public Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    public Counter counter(String name, String help, String labelName, String labelValue) {
+        return (Counter) family(name, help, Type.COUNTER).series(labelName, labelValue, Counter::new);
+    }
+
+    public Histogram histogram(String name, String help, long[] bounds, double scale) {
+        return histogram(name, help, bounds, scale, null, null);
+    }
+
+    public Histogram histogram(String name, String help, long[] bounds, double scale, String labelName, String labelValue) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).series(labelName, labelValue, () -> new Histogram(bounds, scale));
+    }
+
+    /** Gauge read on every scrape. */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        family(name, help, Type.GAUGE).series(null, null, () -> (n, l, sink) -> sink.sample(n, l, value.getAsDouble()));
+    }
+
+    /**
+     * A family whose label values are only known at scrape time (per room, per shard).
+     * {@code type} is {@code COUNTER} or {@code GAUGE}; the supplier maps label value to sample value.
+     */
+    void sampled(String name, String help, Type type, String labelName, Supplier<Map<String, ? extends Number>> values) {
+        family(name, help, type).sampler = sink -> {
+            for (Map.Entry<String, ? extends Number> e : values.get().entrySet()) {
+                sink.sample(name, label(labelName, e.getKey()), e.getValue().doubleValue());
+            }
+        };
+    }
+
+    /** Renders every metric in the Prometheus text exposition format (version 0.0.4). */
+    public void writePrometheus(StringBuilder out) {
+        for (Family f : families.values()) {
+            out.append("# HELP ").append(f.name).append(' ').append(f.help).append('\n');
+            out.append("# TYPE ").append(f.name).append(' ').append(f.type.name().toLowerCase()).append('\n');
+            f.collect((name, labels, value) -> {
+                out.append(name);
+                if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+                out.append(' ').append(format(value)).append('\n');
+            });
+        }
+    }
+
+    /** Visits every current sample; used by the JMX view. */
+    void collect(Sink sink) {
+        for (Family f : families.values()) f.collect(sink);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family f = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (f.type != type) throw new IllegalArgumentException(name + " is already registered as " + f.type);
+        return f;
+    }
+
+    private static String label(String name, String value) {
+        if (name == null) return "";
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    static String format(double v) {
+        if (Double.isInfinite(v)) return v > 0 ? "+Inf" : "-Inf";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    private static final class Family {
+        final String name, help;
+        final Type type;
+        final Map<String, Series> series = new ConcurrentSkipListMap<>();
+        volatile Consumer<Sink> sampler;
+
+        Family(String name, String help, Type type) {
+            this.name = name; this.help = help; this.type = type;
+        }
+
+        Series series(String labelName, String labelValue, Supplier<Series> factory) {
+            return series.computeIfAbsent(label(labelName, labelValue), k -> factory.get());
+        }
+
+        void collect(Sink sink) {
+            for (Map.Entry<String, Series> e : series.entrySet()) e.getValue().collect(name, e.getKey(), sink);
+            Consumer<Sink> s = sampler;
+            if (s != null) s.accept(sink);
+        }
+    }
+}
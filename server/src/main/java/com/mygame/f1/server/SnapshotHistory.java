@@ -0,0 +1,134 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.BitWriter;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * Per-room ring of recently sent snapshots. Each recipient's outgoing snapshot is delta-encoded against
+ * the newest snapshot that recipient has acknowledged and that is still in the ring; without one a full
+ * snapshot is sent. Recipients that acknowledged the same snapshot receive identical bytes, which lets the
+ * tick encode once per distinct baseline. Written only from the room's tick thread, and allocation-free
+ * once the ring slots have grown to the room's car count.
+ */
+final class SnapshotHistory {
+    static final int RING_SIZE = 32;
+
+    private final int[] ids = new int[RING_SIZE];
+    private final int[] counts = new int[RING_SIZE];
+    private final Packets.PlayerState[][] states = new Packets.PlayerState[RING_SIZE][];
+    private final BitWriter writer = new BitWriter(256);
+    private final Packets.GameStateDeltaPacket packet = new Packets.GameStateDeltaPacket();
+    private volatile int latestId = SnapshotCodec.NO_BASELINE;
+
+    SnapshotHistory() {
+        for (int i = 0; i < RING_SIZE; i++) states[i] = new Packets.PlayerState[0];
+    }
+
+    int latestId() { return latestId; }
+
+    /** Copies {@code cur} into the ring under {@code snapshotId}. */
+    void record(int snapshotId, Packets.PlayerState[] cur, int count) {
+        int slot = Math.floorMod(snapshotId, RING_SIZE);
+        Packets.PlayerState[] dst = states[slot];
+        if (dst.length < count) {
+            Packets.PlayerState[] grown = new Packets.PlayerState[count];
+            System.arraycopy(dst, 0, grown, 0, dst.length);
+            for (int i = dst.length; i < count; i++) grown[i] = new Packets.PlayerState();
+            states[slot] = dst = grown;
+        }
+        for (int i = 0; i < count; i++) SnapshotCodec.copy(cur[i], dst[i]);
+        counts[slot] = count;
+        ids[slot] = snapshotId;
+        latestId = snapshotId;
+    }
+
+    /** Baseline to encode {@code snapshotId} against for a recipient that acknowledged {@code ackedId}. */
+    int baselineFor(int ackedId, int snapshotId) {
+        if (ackedId == SnapshotCodec.NO_BASELINE || ackedId >= snapshotId || snapshotId - ackedId >= RING_SIZE) {
+            return SnapshotCodec.NO_BASELINE;
+        }
+        return ids[Math.floorMod(ackedId, RING_SIZE)] == ackedId ? ackedId : SnapshotCodec.NO_BASELINE;
+    }
+
+    /** True if {@code snapshotId} is still in the ring. */
+    boolean contains(int snapshotId) {
+        return snapshotId != SnapshotCodec.NO_BASELINE && ids[Math.floorMod(snapshotId, RING_SIZE)] == snapshotId;
+    }
+
+    /** States of a recorded snapshot, in recording order; valid for {@link #count} entries. */
+    Packets.PlayerState[] states(int snapshotId) {
+        return states[Math.floorMod(snapshotId, RING_SIZE)];
+    }
+
+    int count(int snapshotId) {
+        return counts[Math.floorMod(snapshotId, RING_SIZE)];
+    }
+
+    /** One car's state in a recorded snapshot, or null if it was not in it. */
+    Packets.PlayerState state(int snapshotId, int playerId) {
+        return state(snapshotId, playerId, 0);
+    }
+
+    /** As {@link #state(int, int)}, checking position {@code hint} first (recording order rarely changes). */
+    Packets.PlayerState state(int snapshotId, int playerId, int hint) {
+        int slot = Math.floorMod(snapshotId, RING_SIZE);
+        Packets.PlayerState[] s = states[slot];
+        if (hint < counts[slot] && s[hint].playerId == playerId) return s[hint];
+        for (int i = 0, n = counts[slot]; i < n; i++) {
+            if (s[i].playerId == playerId) return s[i];
+        }
+        return null;
+    }
+
+    /**
+     * Encodes a recipient-specific diff against {@code baselineId} (see {@link SnapshotCodec#encodeChanges}).
+     * Same reuse rules as {@link #encode(int, int, long)}.
+     */
+    Packets.GameStateDeltaPacket encodeChanges(int snapshotId, int baselineId, long serverTimestamp,
+                                               Packets.PlayerState[] changed, int[] masks, int changedCount,
+                                               int[] removedIds, int removedCount) {
+        writer.reset();
+        int length = SnapshotCodec.encodeChanges(changed, masks, changedCount, removedIds, removedCount, writer);
+        packet.snapshotId = snapshotId;
+        packet.baselineId = baselineId;
+        packet.serverTimestamp = serverTimestamp;
+        packet.payload = writer.buffer();
+        packet.payloadLength = length;
+        return packet;
+    }
+
+    /**
+     * Encodes the recorded {@code snapshotId} against {@code baselineId} (from {@link #baselineFor}).
+     * The returned packet and its payload buffer are reused, so serialize it before the next call.
+     */
+    Packets.GameStateDeltaPacket encode(int snapshotId, int baselineId, long serverTimestamp) {
+        int slot = Math.floorMod(snapshotId, RING_SIZE);
+        writer.reset();
+        int length;
+        if (baselineId == SnapshotCodec.NO_BASELINE) {
+            length = SnapshotCodec.encode(states[slot], counts[slot], null, 0, writer);
+        } else {
+            int baseSlot = Math.floorMod(baselineId, RING_SIZE);
+            length = SnapshotCodec.encode(states[slot], counts[slot], states[baseSlot], counts[baseSlot], writer);
+        }
+        packet.snapshotId = snapshotId;
+        packet.baselineId = baselineId;
+        packet.serverTimestamp = serverTimestamp;
+        packet.payload = writer.buffer();
+        packet.payloadLength = length;
+        return packet;
+    }
+
+    /** A recipient's newest acknowledged snapshot id; updated from the network thread. */
+    static final class Ack {
+        private volatile int ackedId = SnapshotCodec.NO_BASELINE;
+
+        int ackedId() { return ackedId; }
+
+        /** Stale, out-of-order and not-yet-sent ids are ignored. */
+        void acknowledge(int snapshotId, int latestSentId) {
+            if (snapshotId > ackedId && snapshotId <= latestSentId) ackedId = snapshotId;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+
+import java.util.Arrays;
+
+/**
+ * Recent reported positions of every car in a room, for lag-compensated collisions. Each report is
+ * stamped with the time the client sampled it (arrival minus half the connection's RTT), so two cars
+ * whose reports arrive with different latencies can be compared at one moment: {@link #align} rewinds
+ * every car to the newest time all of them have reached, interpolating between samples.
+ *
+ * <p>One ring of {@value #CAPACITY} samples per slot, one slot per possible member, all in flat primitive
+ * arrays sized at construction; nothing allocates afterwards except the aligned copies, which grow only
+ * with the room's car count. Owned by the room's tick shard.
+ */
+final class StateHistory {
+    /** Samples kept per car: about half a second at the 60Hz maximum send rate. */
+    static final int CAPACITY = 32;
+    /** Never rewind further than this, so one very laggy car cannot pull everyone far into the past. */
+    static final long MAX_REWIND_NANOS = 200_000_000L;
+    static final long NONE = Long.MIN_VALUE;
+    private static final int FREE = -1;
+
+    private final int[] owners;
+    private final int[] heads;
+    private final int[] sizes;
+    private final long[] times;
+    private final float[] xs, ys;
+
+    // align()가 채우는 같은 시점으로 되감은 사본과 되감기 직후 위치 (충돌 응답만 원래 상태로 옮기기 위해)
+    private Packets.PlayerState[] aligned = new Packets.PlayerState[0];
+    private float[] alignedX = new float[0], alignedY = new float[0];
+
+    StateHistory(int slots) {
+        owners = new int[slots];
+        Arrays.fill(owners, FREE);
+        heads = new int[slots];
+        sizes = new int[slots];
+        times = new long[slots * CAPACITY];
+        xs = new float[slots * CAPACITY];
+        ys = new float[slots * CAPACITY];
+    }
+
+    /** Adds a sample unless it is not newer than the car's latest one; dropped if every slot is taken. */
+    void record(int playerId, long timeNanos, float x, float y) {
+        int slot = slotOf(playerId);
+        if (slot < 0) {
+            slot = slotOf(FREE);
+            if (slot < 0) return;
+            owners[slot] = playerId;
+            sizes[slot] = 0;
+        }
+        int base = slot * CAPACITY;
+        if (sizes[slot] > 0 && timeNanos - times[base + heads[slot]] <= 0) return;
+        int i = sizes[slot] == 0 ? 0 : (heads[slot] + 1) % CAPACITY;
+        times[base + i] = timeNanos;
+        xs[base + i] = x;
+        ys[base + i] = y;
+        heads[slot] = i;
+        if (sizes[slot] < CAPACITY) sizes[slot]++;
+    }
+
+    /** Sample time of the car's newest report, or {@link #NONE}. */
+    long latest(int playerId) {
+        int slot = slotOf(playerId);
+        return slot < 0 || sizes[slot] == 0 ? NONE : times[slot * CAPACITY + heads[slot]];
+    }
+
+    /** Frees the slots of cars that are no longer among {@code states}. */
+    void retain(Packets.PlayerState[] states, int count) {
+        for (int slot = 0; slot < owners.length; slot++) {
+            if (owners[slot] == FREE) continue;
+            boolean present = false;
+            for (int i = 0; i < count && !present; i++) present = states[i].playerId == owners[slot];
+            if (!present) owners[slot] = FREE;
+        }
+    }
+
+    /**
+     * Copies {@code states} and moves each copy to where its car was at the newest time every car has
+     * reported, but no earlier than {@code nowNanos - MAX_REWIND_NANOS}. Cars with no history keep their
+     * latest position. Returns the copies (valid for {@code count}), or null if no car has history.
+     */
+    Packets.PlayerState[] align(Packets.PlayerState[] states, int count, long nowNanos) {
+        long t = NONE;
+        for (int i = 0; i < count; i++) {
+            long latest = latest(states[i].playerId);
+            if (latest != NONE && (t == NONE || latest - t < 0)) t = latest;
+        }
+        if (t == NONE) return null;
+        if (nowNanos - MAX_REWIND_NANOS - t > 0) t = nowNanos - MAX_REWIND_NANOS;
+        ensure(count);
+        for (int i = 0; i < count; i++) {
+            Packets.PlayerState a = aligned[i];
+            copy(states[i], a);
+            rewind(a, t);
+            alignedX[i] = a.x;
+            alignedY[i] = a.y;
+        }
+        return aligned;
+    }
+
+    /**
+     * Carries the collision response worked out on the {@link #align aligned} copies over to the latest
+     * states: the same push (position change) and the damped velocities.
+     */
+    void applyResponse(Packets.PlayerState[] states, int count) {
+        for (int i = 0; i < count; i++) {
+            Packets.PlayerState a = aligned[i], s = states[i];
+            s.x += a.x - alignedX[i];
+            s.y += a.y - alignedY[i];
+            s.velocityX = a.velocityX;
+            s.velocityY = a.velocityY;
+        }
+    }
+
+    // 시각 t의 위치로 옮긴다: 앞뒤 샘플 사이는 선형 보간, 가장 오래된 샘플보다 이전이면 그 샘플
+    private void rewind(Packets.PlayerState s, long t) {
+        int slot = slotOf(s.playerId);
+        if (slot < 0 || sizes[slot] == 0) return;
+        int base = slot * CAPACITY;
+        int newer = heads[slot];
+        if (t - times[base + newer] >= 0) return;
+        for (int k = 1; k < sizes[slot]; k++) {
+            int older = Math.floorMod(heads[slot] - k, CAPACITY);
+            long to = times[base + older];
+            if (t - to >= 0) {
+                long tn = times[base + newer];
+                float f = (t - to) / (float) (tn - to);
+                s.x = xs[base + older] + (xs[base + newer] - xs[base + older]) * f;
+                s.y = ys[base + older] + (ys[base + newer] - ys[base + older]) * f;
+                return;
+            }
+            newer = older;
+        }
+        s.x = xs[base + newer];
+        s.y = ys[base + newer];
+    }
+
+    private int slotOf(int playerId) {
+        for (int i = 0; i < owners.length; i++) {
+            if (owners[i] == playerId) return i;
+        }
+        return -1;
+    }
+
+    private void ensure(int count) {
+        if (aligned.length >= count) return;
+        int old = aligned.length;
+        aligned = Arrays.copyOf(aligned, count);
+        for (int i = old; i < count; i++) aligned[i] = new Packets.PlayerState();
+        alignedX = new float[count];
+        alignedY = new float[count];
+    }
+
+    private static void copy(Packets.PlayerState src, Packets.PlayerState dst) {
+        dst.playerId = src.playerId;
+        dst.x = src.x; dst.y = src.y;
+        dst.velocityX = src.velocityX; dst.velocityY = src.velocityY;
+    }
+}
@@ -0,0 +1,252 @@
+package com.mygame.f1.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Room-sharded tick engine. Each room is pinned to one of N worker threads (shards) and stepped at a fixed
+ * rate. Deadlines are kept on an absolute {@link System#nanoTime()} grid so scheduling jitter does not
+ * accumulate, and a shard that falls behind skips the missed ticks instead of bursting to catch up.
+ * Room-scoped timers (race countdowns, chat flushes) live in a per-shard {@link TimerWheel} advanced by
+ * the same loop, so they never race the room's tick and cost O(1) to schedule or cancel.
+ * The tick loop itself does not allocate; each shard reports the bytes its thread allocated per tick.
+ */
+public final class TickEngine {
+    // 한 바퀴 안의 타임아웃은 도는 횟수 없이 바로 만료된다 (방 타이머는 대부분 수 초 이내)
+    private static final int WHEEL_SIZE = 512;
+
+    private final Shard[] shards;
+    private final long periodNanos;
+    private final LongConsumer tickObserver;
+
+    TickEngine(int workers, long period, TimeUnit unit) {
+        this(workers, period, unit, nanos -> { });
+    }
+
+    /** @param tickObserver receives the duration in nanoseconds of every shard pass, on the shard thread */
+    TickEngine(int workers, long period, TimeUnit unit, LongConsumer tickObserver) {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be > 0");
+        this.periodNanos = unit.toNanos(period);
+        this.tickObserver = tickObserver;
+        this.shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+    }
+
+    int workers() { return shards.length; }
+
+    /** Pins a room tick to the least-loaded shard. */
+    Handle register(Runnable tick) {
+        Shard target = shards[0];
+        for (Shard s : shards) {
+            if (s.rooms.length < target.rooms.length) target = s;
+        }
+        Handle h = new Handle(target, tick);
+        target.add(h);
+        return h;
+    }
+
+    /** Returns a snapshot of every shard and resets the per-window max. */
+    List<ShardStats> stats() {
+        List<ShardStats> out = new ArrayList<>(shards.length);
+        for (Shard s : shards) out.add(s.snapshot(true));
+        return out;
+    }
+
+    /** Like {@link #stats()} but leaves the per-window max and allocation figures untouched. */
+    List<ShardStats> peekStats() {
+        List<ShardStats> out = new ArrayList<>(shards.length);
+        for (Shard s : shards) out.add(s.snapshot(false));
+        return out;
+    }
+
+    /** Room timers scheduled and not yet fired or cancelled, across all shards. */
+    int pendingTimers() {
+        int n = 0;
+        for (Shard s : shards) n += s.timers.pending();
+        return n;
+    }
+
+    void shutdown() {
+        for (Shard s : shards) s.executor.shutdownNow();
+    }
+
+    /**
+     * Per-shard tick statistics; durations cover one full pass over the shard's rooms. {@code avgAllocBytes}
+     * is the thread's allocation per tick over the window, or -1 if the JVM does not track it.
+     */
+    public record ShardStats(int shard, int rooms, long ticks, long skippedTicks, double avgTickMillis,
+                             double maxTickMillis, double avgAllocBytes) {}
+
+    /** A room's slot on a shard. */
+    static final class Handle {
+        final Shard shard;
+        final Runnable tick;
+        private volatile boolean cancelled;
+        // 아직 실행/취소되지 않은 이 방의 타이머
+        private final Set<TimerWheel.Timeout> timers = ConcurrentHashMap.newKeySet();
+
+        private Handle(Shard shard, Runnable tick) {
+            this.shard = shard; this.tick = tick;
+        }
+
+        /** Runs a one-shot task on the room's shard thread. */
+        TimerWheel.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+            return schedule(task, delay, 0, unit);
+        }
+
+        /** Runs {@code task} on the room's shard thread after {@code delay}, then every {@code period} if positive. */
+        TimerWheel.Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+            TimerWheel.Timeout t = shard.timers.schedule(task, unit.toNanos(delay), unit.toNanos(period), timers);
+            // cancel()과 겹쳤다면 방금 건 타이머도 바로 취소
+            if (cancelled) t.cancel();
+            return t;
+        }
+
+        /** Stops the room's tick and cancels every timer it still has pending. */
+        void cancel() {
+            cancelled = true;
+            shard.remove(this);
+            for (TimerWheel.Timeout t : timers) t.cancel();
+        }
+
+        boolean isCancelled() { return cancelled; }
+    }
+
+    final class Shard implements Runnable {
+        final int index;
+        final ScheduledExecutorService executor;
+        // 틱 루프가 반복자 없이 순회하도록 방 목록은 배열로 두고 변경 시 통째로 교체한다
+        volatile Handle[] rooms = new Handle[0];
+        final TimerWheel timers;
+        private final Consumer<Runnable> guarded = this::runGuarded;
+        private long firstDeadline;
+        private long runs;
+
+        // 샤드 스레드만 쓰고 통계 조회 스레드가 읽는다
+        private volatile long ticks;
+        private volatile long skippedTicks;
+        private volatile long totalTickNanos;
+        // 통계 스레드가 초기화하는 사이의 갱신도 잃지 않도록 원자적으로 바꾼다
+        private final AtomicLong maxTickNanos = new AtomicLong();
+        private volatile long allocatedBytes;
+        private long windowTicks;
+        private long windowAllocatedBytes;
+
+        Shard(int index) {
+            this.index = index;
+            // 휠 한 칸 = 틱 주기라 한 바퀴는 WHEEL_SIZE × 주기 (60Hz 샤드면 약 8.5초)
+            this.timers = new TimerWheel(periodNanos, WHEEL_SIZE, System.nanoTime());
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "room-tick-" + index);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        synchronized void add(Handle h) {
+            Handle[] next = Arrays.copyOf(rooms, rooms.length + 1);
+            next[rooms.length] = h;
+            rooms = next;
+        }
+
+        synchronized void remove(Handle h) {
+            Handle[] cur = rooms;
+            for (int i = 0; i < cur.length; i++) {
+                if (cur[i] != h) continue;
+                Handle[] next = new Handle[cur.length - 1];
+                System.arraycopy(cur, 0, next, 0, i);
+                System.arraycopy(cur, i + 1, next, i, next.length - i);
+                rooms = next;
+                return;
+            }
+        }
+
+        void start() {
+            firstDeadline = System.nanoTime() + periodNanos;
+            // 고정 주기 작업 하나를 계속 재사용한다: 실행 시각은 firstDeadline + k*period 격자를 따른다
+            executor.scheduleAtFixedRate(this, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override public void run() {
+            long start = System.nanoTime();
+            long deadline = firstDeadline + runs++ * periodNanos;
+            // 타이머는 밀린 틱에서도 돌린다 (휠은 경과 시간 기준으로 빠진 칸을 따라잡는다)
+            timers.advance(start, guarded);
+            if (start - deadline >= periodNanos) {
+                // 한 주기 이상 밀린 실행은 건너뛴다 (따라잡기 위한 연속 실행 방지)
+                skippedTicks++;
+                return;
+            }
+            long allocBefore = ALLOCATION.currentThreadAllocatedBytes();
+            for (Handle h : rooms) {
+                if (!h.cancelled) runGuarded(h.tick);
+            }
+            long elapsed = System.nanoTime() - start;
+            allocatedBytes += ALLOCATION.currentThreadAllocatedBytes() - allocBefore;
+            ticks++;
+            totalTickNanos += elapsed;
+            maxTickNanos.accumulateAndGet(elapsed, Math::max);
+            tickObserver.accept(elapsed);
+        }
+
+        void runGuarded(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // Error까지 잡는다: 여기서 빠져나가면 scheduleAtFixedRate가 샤드의 주기 작업을 조용히 취소한다
+                System.out.printf("[Tick %d] task failed: %s%n", index, e);
+            }
+        }
+
+        synchronized ShardStats snapshot(boolean reset) {
+            long n = ticks;
+            double avg = n == 0 ? 0 : totalTickNanos / (double) n / 1_000_000.0;
+            double max = (reset ? maxTickNanos.getAndSet(0) : maxTickNanos.get()) / 1_000_000.0;
+            long windowN = n - windowTicks;
+            long alloc = allocatedBytes;
+            double allocPerTick = !ALLOCATION.supported() ? -1
+                : windowN == 0 ? 0 : (alloc - windowAllocatedBytes) / (double) windowN;
+            if (reset) {
+                windowTicks = n;
+                windowAllocatedBytes = alloc;
+            }
+            return new ShardStats(index, rooms.length, n, skippedTicks, avg, max, allocPerTick);
+        }
+    }
+
+    private static final Allocation ALLOCATION = new Allocation();
+
+    /** Per-thread allocation counter from the HotSpot ThreadMXBean extension; reads 0 where unsupported. */
+    private static final class Allocation {
+        private final com.sun.management.ThreadMXBean bean;
+
+        Allocation() {
+            com.sun.management.ThreadMXBean b = null;
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean hs
+                    && hs.isThreadAllocatedMemorySupported()) {
+                if (!hs.isThreadAllocatedMemoryEnabled()) hs.setThreadAllocatedMemoryEnabled(true);
+                b = hs;
+            }
+            this.bean = b;
+        }
+
+        boolean supported() { return bean != null; }
+
+        long currentThreadAllocatedBytes() {
+            return bean == null ? 0 : bean.getCurrentThreadAllocatedBytes();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.mygame.f1.server;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel driven by one owner thread (a tick shard). Any thread may {@link #schedule} or
+ * {@link Timeout#cancel} in O(1): new and cancelled timeouts go through lock-free queues that the owner
+ * drains on its next {@link #advance}, which then links or unlinks them in their bucket. Resolution is
+ * one wheel tick; timeouts further out than one rotation wait out their remaining rounds in place.
+ */
+final class TimerWheel {
+    private static final int PENDING = 0, CANCELLED = 1, DONE = 2;
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startNanos;
+    // 다음에 처리할 휠 틱 (소유 스레드 전용)
+    private long tick;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+
+    /**
+     * @param tickNanos the owner's tick period; one rotation spans {@code wheelSize * tickNanos}
+     * @param wheelSize bucket count, rounded up to a power of two
+     */
+    TimerWheel(long tickNanos, int wheelSize, long startNanos) {
+        this.tickNanos = tickNanos;
+        int n = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = new Bucket[n];
+        for (int i = 0; i < n; i++) buckets[i] = new Bucket();
+        this.mask = n - 1;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Runs {@code task} after {@code delayNanos}, then every {@code periodNanos} if that is positive,
+     * until cancelled. Tasks run on the owner thread inside {@link #advance}. The timeout stays in
+     * {@code group} (if given, a concurrent set) until it fires for the last time or is cancelled, so an
+     * owner can cancel all of its timers at once.
+     */
+    Timeout schedule(Runnable task, long delayNanos, long periodNanos, Set<Timeout> group) {
+        Timeout t = new Timeout(this, task, System.nanoTime() + Math.max(0, delayNanos), periodNanos, group);
+        if (group != null) group.add(t);
+        live.incrementAndGet();
+        added.add(t);
+        return t;
+    }
+
+    /** Timeouts scheduled and not yet fired (one-shot) or cancelled. */
+    int pending() { return live.get(); }
+
+    /** Fires every timeout due by {@code nowNanos} through {@code runner}; owner thread only. */
+    void advance(long nowNanos, Consumer<Runnable> runner) {
+        for (Timeout t; (t = cancelled.poll()) != null; ) {
+            if (t.bucket != null) t.bucket.unlink(t);
+        }
+        for (Timeout t; (t = added.poll()) != null; ) {
+            if (t.state.get() == PENDING) place(t, tick);
+        }
+        long target = (nowNanos - startNanos) / tickNanos;
+        for (; tick <= target; tick++) {
+            Bucket b = buckets[(int) (tick & mask)];
+            // 이번 틱에 다시 붙은 주기 타이머는 건너뛰도록 현재 꼬리까지만 본다
+            Timeout last = b.tail;
+            for (Timeout t = b.head; t != null; ) {
+                Timeout next = t.next;
+                boolean end = t == last;
+                if (t.rounds > 0) {
+                    t.rounds--;
+                } else {
+                    b.unlink(t);
+                    fire(t, runner);
+                }
+                if (end) break;
+                t = next;
+            }
+        }
+    }
+
+    private void fire(Timeout t, Consumer<Runnable> runner) {
+        if (t.state.get() != PENDING) return;
+        if (t.period <= 0) {
+            if (!t.state.compareAndSet(PENDING, DONE)) return;
+            t.release();
+            runner.accept(t.task);
+            return;
+        }
+        runner.accept(t.task);
+        if (t.state.get() != PENDING) return;
+        t.deadline += t.period;
+        // 같은 틱에서 다시 돌지 않도록 최소 다음 틱
+        place(t, tick + 1);
+    }
+
+    // 이미 지난 마감은 earliest 틱(보통 지금 처리 중인 틱)으로 당긴다
+    private void place(Timeout t, long earliest) {
+        long due = Math.max(earliest, (t.deadline - startNanos + tickNanos - 1) / tickNanos);
+        // 다음으로 이 칸을 보는 것은 earliest 이후이므로 거기서부터 센다 (한 바퀴 주기가 한 바퀴 늦게 돌지 않도록)
+        t.rounds = (due - earliest) / buckets.length;
+        buckets[(int) (due & mask)].link(t);
+    }
+
+    /** A scheduled task; cancel from any thread. */
+    static final class Timeout {
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long period;
+        private final Set<Timeout> group;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // 아래는 소유 스레드 전용
+        private long deadline;
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev, next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline, long period, Set<Timeout> group) {
+            this.wheel = wheel; this.task = task; this.deadline = deadline; this.period = period; this.group = group;
+        }
+
+        /** Stops the task; returns false if it already fired (one-shot) or was cancelled. */
+        boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            release();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        private void release() {
+            wheel.live.decrementAndGet();
+            if (group != null) group.remove(this);
+        }
+
+        boolean isCancelled() { return state.get() == CANCELLED; }
+    }
+
+    private static final class Bucket {
+        Timeout head, tail;
+
+        void link(Timeout t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t; else tail.next = t;
+            tail = t;
+        }
+
+        void unlink(Timeout t) {
+            if (t.bucket != this) return;
+            if (t.prev == null) head = t.next; else t.prev.next = t.next;
+            if (t.next == null) tail = t.prev; else t.next.prev = t.prev;
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+    }
+}
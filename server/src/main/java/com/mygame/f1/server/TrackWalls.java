@@ -0,0 +1,145 @@
+package com.mygame.f1.server;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.CarPhysics;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The static walls of one track, read from the TMX file the client loads: every rectangle of the
+ * {@code Collision} object layer plus the invisible walls on the map's edges, built into a Box2D world the
+ * way {@code GameScreen} builds them (same float arithmetic, friction and restitution), so a server
+ * simulation hits the walls where the client's prediction does. Parsed once per track from the classpath
+ * and shared; a track whose file is missing has no walls and is logged.
+ */
+final class TrackWalls {
+    // 클라이언트 트랙 목록과 같은 순서 (MultiplayerPlaceholderScreen), 범위 밖은 클라이언트처럼 첫 트랙
+    static final String[] FILES = {"f1_racing_map.tmx", "japan.tmx", "america.tmx"};
+    private static final float EDGE_THICKNESS = 0.05f;
+    private static final Map<Integer, TrackWalls> LOADED = new ConcurrentHashMap<>();
+
+    // 벽마다 왼쪽 아래 x, y와 너비, 높이 (미터)
+    private final float[] boxes;
+
+    private TrackWalls(float[] boxes) {
+        this.boxes = boxes;
+    }
+
+    /** Walls of the room's {@code trackIndex}. */
+    static TrackWalls forTrack(int trackIndex) {
+        int index = trackIndex >= 0 && trackIndex < FILES.length ? trackIndex : 0;
+        return LOADED.computeIfAbsent(index, i -> load(FILES[i]));
+    }
+
+    int count() { return boxes.length / 4; }
+
+    /** Adds every wall to {@code world} as a static box. */
+    void build(World world) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        PolygonShape shape = new PolygonShape();
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.friction = 0.3f;
+        fixtureDef.restitution = 0.02f;
+        try {
+            for (int i = 0; i < boxes.length; i += 4) {
+                float x = boxes[i], y = boxes[i + 1], width = boxes[i + 2], height = boxes[i + 3];
+                bodyDef.position.set(x + width / 2, y + height / 2);
+                Body body = world.createBody(bodyDef);
+                shape.setAsBox(width / 2, height / 2);
+                body.createFixture(fixtureDef);
+            }
+        } finally {
+            shape.dispose();
+        }
+    }
+
+    private static TrackWalls load(String file) {
+        try (InputStream in = TrackWalls.class.getClassLoader().getResourceAsStream(file)) {
+            if (in == null) {
+                System.err.printf("track %s not on the classpath: simulating without walls%n", file);
+                return new TrackWalls(new float[0]);
+            }
+            return parse(in);
+        } catch (Exception e) {
+            System.err.printf("track %s unreadable (%s): simulating without walls%n", file, e);
+            return new TrackWalls(new float[0]);
+        }
+    }
+
+    /** Reads the walls of one TMX document. */
+    static TrackWalls parse(InputStream tmx) throws Exception {
+        Element map = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(tmx).getDocumentElement();
+        int tilesX = intAttribute(map, "width"), tilesY = intAttribute(map, "height");
+        int tileW = intAttribute(map, "tilewidth"), tileH = intAttribute(map, "tileheight");
+        float[] boxes = new float[64];
+        int n = 0;
+        // TmxMapLoader처럼 y축을 뒤집는다: 오브젝트 y는 위에서부터, 월드 y는 아래에서부터
+        int mapHeightPixels = tilesY * tileH;
+        Element collision = collisionLayer(map);
+        NodeList objects = collision != null ? collision.getElementsByTagName("object") : null;
+        for (int i = 0; objects != null && i < objects.getLength(); i++) {
+            Element object = (Element) objects.item(i);
+            // 다각형, 타원, 점, 타일 오브젝트는 클라이언트도 벽으로 만들지 않는다 (RectangleMapObject만)
+            if (object.hasAttribute("gid") || hasChildElement(object)) continue;
+            float width = floatAttribute(object, "width"), height = floatAttribute(object, "height");
+            float x = floatAttribute(object, "x");
+            float y = mapHeightPixels - floatAttribute(object, "y") - height;
+            if (n + 4 > boxes.length) boxes = Arrays.copyOf(boxes, boxes.length * 2);
+            boxes[n++] = x / CarPhysics.PPM; boxes[n++] = y / CarPhysics.PPM;
+            boxes[n++] = width / CarPhysics.PPM; boxes[n++] = height / CarPhysics.PPM;
+        }
+        float worldWidth = tilesX * tileW / CarPhysics.PPM, worldHeight = tilesY * tileH / CarPhysics.PPM;
+        if (worldWidth > 0 && worldHeight > 0) {
+            if (n + 16 > boxes.length) boxes = Arrays.copyOf(boxes, n + 16);
+            float t = EDGE_THICKNESS;
+            float[] edges = {
+                0f, 0f, worldWidth, t,
+                0f, worldHeight - t, worldWidth, t,
+                0f, 0f, t, worldHeight,
+                worldWidth - t, 0f, t, worldHeight};
+            System.arraycopy(edges, 0, boxes, n, edges.length);
+            n += edges.length;
+        }
+        return new TrackWalls(Arrays.copyOf(boxes, n));
+    }
+
+    // 그룹 안에 중첩되어 있을 수 있다
+    private static Element collisionLayer(Element map) {
+        NodeList groups = map.getElementsByTagName("objectgroup");
+        for (int i = 0; i < groups.getLength(); i++) {
+            Element group = (Element) groups.item(i);
+            if ("Collision".equals(group.getAttribute("name"))) return group;
+        }
+        return null;
+    }
+
+    private static boolean hasChildElement(Element e) {
+        for (Node c = e.getFirstChild(); c != null; c = c.getNextSibling()) {
+            if (c.getNodeType() == Node.ELEMENT_NODE && !"properties".equals(c.getNodeName())) return true;
+        }
+        return false;
+    }
+
+    private static int intAttribute(Element e, String name) {
+        String v = e.getAttribute(name);
+        return v.isEmpty() ? 0 : Integer.parseInt(v);
+    }
+
+    private static float floatAttribute(Element e, String name) {
+        String v = e.getAttribute(name);
+        return v.isEmpty() ? 0f : Float.parseFloat(v);
+    }
+}
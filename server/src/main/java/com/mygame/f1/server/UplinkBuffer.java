@@ -0,0 +1,150 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+
+/**
+ * One member's uploaded states by send sequence number, played out to the room's tick slightly late so a
+ * lost packet can still be filled in from the next one. Each {@link Packets.PlayerStateUpdate} also carries
+ * the client's previous few states; the network thread {@link #receive}s all of them, dropping duplicates
+ * and states whose turn has passed. Each tick {@link #play} takes the newest held state no later than the
+ * one the client sent {@link #DELAY_INTERVALS} send intervals ago, counting time from the newest arrival.
+ * With one interval an isolated loss is recovered before its turn; a state that never arrives in time is a
+ * hole, and the room dead-reckons the car from its previous state one interval longer. {@code -Df1.uplinkDelayIntervals=0}
+ * plays the newest state at once, as before, at the cost of every loss showing.
+ *
+ * <p>A ring of {@value #CAPACITY} preallocated states; the two threads meet under this object's lock.
+ */
+final class UplinkBuffer {
+    static final int CAPACITY = 16;
+    /** Playout delay in send intervals, from {@code -Df1.uplinkDelayIntervals} (default 1). */
+    static final int DELAY_INTERVALS = Math.max(0, Integer.getInteger("f1.uplinkDelayIntervals", 1));
+    private static final int MASK = CAPACITY - 1;
+
+    private final int delayIntervals;
+    private final int[] seqs = new int[CAPACITY];
+    private final boolean[] held = new boolean[CAPACITY];
+    // 재전송분으로만 받은 상태 (원래 패킷이 손실된 것)
+    private final boolean[] recoveredOnly = new boolean[CAPACITY];
+    private final Packets.PlayerState[] states = new Packets.PlayerState[CAPACITY];
+    private final int[] inputSeqs = new int[CAPACITY];
+    private final long[] sampleNanos = new long[CAPACITY];
+    private final int[] ackCorrectionIds = new int[CAPACITY];
+    private boolean started;
+    private int highest, played;
+    private long highestArrivalNanos;
+    private int ackCorrectionId;
+
+    // play()가 고른 상태의 정보 (샤드 스레드 전용)
+    private int playedInputSeq;
+    private long playedSampleNanos;
+    private int playedAckCorrectionId;
+    private long holes, recovered;
+
+    UplinkBuffer() {
+        this(DELAY_INTERVALS);
+    }
+
+    UplinkBuffer(int delayIntervals) {
+        this.delayIntervals = delayIntervals;
+        for (int i = 0; i < CAPACITY; i++) states[i] = new Packets.PlayerState();
+    }
+
+    /**
+     * Stores the update's state and the earlier ones it carries. {@code sampleNanos} is when the client
+     * sampled the newest state; earlier ones are placed by the age the packet gives each. Network thread.
+     * @return false if the packet was a duplicate or arrived after its turn
+     */
+    synchronized boolean receive(Packets.PlayerStateUpdate upd, long nowNanos, long sampleNanos) {
+        int seq = upd.seq;
+        if (!started) {
+            started = true;
+            highest = seq;
+            played = seq - 1;
+        } else if (seq - played <= 0 || holds(seq)) {
+            return false;
+        }
+        store(seq, upd.state, upd.inputSeq, sampleNanos, upd.ackCorrectionId, false);
+        for (int i = 0; i < upd.redundantCount; i++) {
+            int s = seq - 1 - i;
+            if (s - played <= 0 || seq - s >= CAPACITY) break;
+            // 이전 상태를 보낼 때의 보정 ACK는 모르므로 지금까지 받은 값을 쓴다 (더 작을 수는 있어도 크지는 않다)
+            if (!holds(s)) {
+                long age = upd.redundantAgeMillis == null ? 0 : upd.redundantAgeMillis[i] * 1_000_000L;
+                store(s, upd.redundant[i], upd.redundantInputSeqs[i], sampleNanos - age, ackCorrectionId, true);
+            }
+        }
+        if (seq - highest >= 0) {
+            highest = seq;
+            highestArrivalNanos = nowNanos;
+        }
+        if (upd.ackCorrectionId - ackCorrectionId > 0) ackCorrectionId = upd.ackCorrectionId;
+        return true;
+    }
+
+    /**
+     * Copies the state due at {@code nowNanos} into {@code out}; shard thread, once per tick.
+     * @return false if no newer state is due (out is unchanged)
+     */
+    synchronized boolean play(long nowNanos, long intervalNanos, Packets.PlayerState out) {
+        if (!started) return false;
+        // 마지막 도착 이후 흐른 시간만큼 클라이언트가 더 보냈다고 보고, 그보다 delay만큼 이전 상태를 낸다.
+        // 아직 받지 못한 번호는 지나치지 않는다 (늦게 오면 그때 낸다)
+        long since = Math.max(0, nowNanos - highestArrivalNanos);
+        int target = highest - delayIntervals + (int) Math.min(since / intervalNanos, CAPACITY);
+        if (target - highest > 0) target = highest;
+        if (target - played <= 0) return false;
+        // 링보다 멀리 건너뛰면 (오래 끊겼다가 다시 온 경우) 앞부분은 이미 덮였다
+        if (target - played > CAPACITY) played = target - CAPACITY;
+        int best = -1, bestSeq = played;
+        for (int s = played + 1; s - target <= 0; s++) {
+            int k = s & MASK;
+            if (held[k] && seqs[k] == s) {
+                best = k;
+                bestSeq = s;
+                held[k] = false;
+            }
+        }
+        played = target;
+        // 차례가 된 상태가 없으면 차는 이전 상태에 머문다
+        if (bestSeq != target) holes++;
+        if (best < 0) return false;
+        if (recoveredOnly[best]) recovered++;
+        SnapshotCodec.copy(states[best], out);
+        playedInputSeq = inputSeqs[best];
+        playedSampleNanos = sampleNanos[best];
+        playedAckCorrectionId = ackCorrectionIds[best];
+        return true;
+    }
+
+    /** {@code inputSeq} of the state last played. */
+    int playedInputSeq() { return playedInputSeq; }
+
+    /** Estimated time the client sampled the state last played. */
+    long playedSampleNanos() { return playedSampleNanos; }
+
+    /** Newest correction the client had applied when it sent the state last played (a lower bound for redundant copies). */
+    int playedAckCorrectionId() { return playedAckCorrectionId; }
+
+    /** Plays whose due state had not arrived, so the car held an older one; shard thread. */
+    long holes() { return holes; }
+
+    /** Plays of a state that only arrived as a later packet's redundant copy; shard thread. */
+    long recovered() { return recovered; }
+
+    private boolean holds(int seq) {
+        int k = seq & MASK;
+        return held[k] && seqs[k] == seq;
+    }
+
+    private void store(int seq, Packets.PlayerState s, int inputSeq, long sampleNanos, int ackCorrectionId, boolean redundant) {
+        int k = seq & MASK;
+        seqs[k] = seq;
+        held[k] = true;
+        recoveredOnly[k] = redundant;
+        SnapshotCodec.copy(s, states[k]);
+        inputSeqs[k] = inputSeq;
+        this.sampleNanos[k] = sampleNanos;
+        ackCorrectionIds[k] = ackCorrectionId;
+    }
+}
@@ -0,0 +1,181 @@
+package com.mygame.f1.server;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mygame.f1.shared.CarPhysics;
+import com.mygame.f1.shared.Packets;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The server's car against a client's: a car on the Japan track drives into the map's left edge and
+ * steers along it, once in a local world built like {@code GameScreen}'s and once through
+ * {@link InputBuffer} and {@link CarSimulation} from 30Hz input packets. With the same walls and
+ * {@link CarPhysics} both must end up in exactly the same state. Separate cases cover the step budget
+ * against clients sending steps faster than real time, and how the buffer joins packets.
+ */
+class CarSimulationTest {
+    private static final int JAPAN = 1;
+    private static final int STEPS = 240;
+    private static final int SEND_EVERY = 2;
+    private static final float START_X = 1.5f, START_Y = 19f, START_ANGLE = (float) Math.PI / 2f;
+
+    @Test
+    void japanWallsMatchTheCollisionLayer() throws Exception {
+        try (InputStream tmx = getClass().getClassLoader().getResourceAsStream("japan.tmx")) {
+            assertNotNull(tmx, "japan.tmx on the test classpath");
+            // 충돌 레이어의 사각형 15개와 맵 가장자리 4개
+            assertEquals(19, TrackWalls.parse(tmx).count());
+        }
+    }
+
+    @Test
+    void serverCarEndsExactlyWhereTheClientsDoes() {
+        CarSimulation sim = new CarSimulation(JAPAN, TrackWalls.forTrack(JAPAN), 0);
+        World world = new World(new Vector2(0, 0), true);
+        try {
+            TrackWalls.forTrack(JAPAN).build(world);
+            CarPhysics physics = new CarPhysics();
+            Body car = physics.createBody(world, START_X, START_Y, START_ANGLE);
+            int[] contacts = {0};
+            world.setContactListener(new ContactListener() {
+                @Override public void beginContact(Contact contact) { contacts[0]++; physics.onWallContact(car); }
+                @Override public void endContact(Contact contact) {}
+                @Override public void preSolve(Contact contact, Manifold oldManifold) {}
+                @Override public void postSolve(Contact contact, ContactImpulse impulse) {}
+            });
+
+            InputBuffer buffer = new InputBuffer();
+            Packets.PlayerInputPacket packet = packet(0, car);
+            Packets.PlayerState server = new Packets.PlayerState();
+            CarPhysics.Controls controls = new CarPhysics.Controls();
+            int colliding = 0;
+            for (int seq = 1; seq <= STEPS; seq++) {
+                // 벽을 향해 달리다 닿은 뒤에는 오른쪽으로 꺾는다 (GameScreen처럼 잠깐 충돌 상태를 함께 보낸다)
+                controls.accelerate = true;
+                controls.right = contacts[0] > 0;
+                boolean collidingNow = colliding > 0;
+                int before = contacts[0];
+                physics.update(car, controls, 1f, collidingNow, 1f, 1f, CarSimulation.TIME_STEP);
+                world.step(CarSimulation.TIME_STEP, 8, 3);
+                colliding = contacts[0] > before ? 30 : Math.max(0, colliding - 1);
+                add(packet, controls.bits() | (collidingNow ? Packets.PlayerInputPacket.COLLIDING : 0));
+                if (seq % SEND_EVERY == 0) {
+                    packet.inputSeq = seq;
+                    buffer.receive(packet, seq * CarSimulation.STEP_NANOS);
+                    sim.advance(buffer, seq * CarSimulation.STEP_NANOS, server);
+                    packet.count = 0;
+                    packet.base = null;
+                }
+            }
+            assertTrue(contacts[0] > 0, "the car never reached the wall");
+            assertEquals(STEPS, sim.seq());
+            Vector2 p = car.getPosition(), v = car.getLinearVelocity();
+            assertEquals(p.x, server.x);
+            assertEquals(p.y, server.y);
+            assertEquals(car.getAngle(), server.rotation);
+            assertEquals(v.x, server.velocityX);
+            assertEquals(v.y, server.velocityY);
+            assertEquals(car.getAngularVelocity(), server.angularVelocity);
+        } finally {
+            world.dispose();
+            sim.dispose();
+        }
+    }
+
+    @Test
+    void stepsRunNoFasterThanRealTime() {
+        CarSimulation sim = new CarSimulation(JAPAN, TrackWalls.forTrack(JAPAN), 0);
+        try {
+            InputBuffer buffer = new InputBuffer();
+            Packets.PlayerInputPacket packet = packet(0, null);
+            for (int i = 0; i < InputBuffer.CAPACITY; i++) add(packet, Packets.PlayerInputPacket.ACCELERATE);
+            packet.inputSeq = packet.count;
+            assertEquals(packet.count, buffer.receive(packet, 0));
+            Packets.PlayerState out = new Packets.PlayerState();
+            // 처음에는 MAX_LEAD_MILLIS만큼 앞서 갈 수 있고, 그 뒤로는 흐른 시간만큼만 돈다
+            int lead = (int) (CarSimulation.MAX_LEAD_MILLIS * 1_000_000L / CarSimulation.STEP_NANOS);
+            assertEquals(lead, sim.advance(buffer, 0, out));
+            assertEquals(0, sim.advance(buffer, CarSimulation.STEP_NANOS / 2, out));
+            assertEquals(6, sim.advance(buffer, 100_000_000L, out));
+            assertEquals(lead + 6, sim.seq());
+            assertEquals(packet.count - lead - 6, buffer.pending());
+        } finally {
+            sim.dispose();
+        }
+    }
+
+    @Test
+    void bufferKeepsOnlyStepsThatContinueTheRun() {
+        InputBuffer buffer = new InputBuffer();
+        InputBuffer.Batch batch = new InputBuffer.Batch();
+        // 구간 시작점을 받기 전에는 아무것도 받지 않는다
+        Packets.PlayerInputPacket packet = steps(null, 11, 11);
+        assertEquals(-1, buffer.receive(packet, 0));
+
+        assertEquals(4, buffer.receive(steps(packet(10, null), 11, 14), 0));
+        // 15가 빠진 패킷은 이어지지 않고, 15부터 다시 실은 패킷에서 이미 받은 12..14는 건너뛴다
+        assertEquals(0, buffer.receive(steps(null, 16, 17), 0));
+        assertEquals(3, buffer.receive(steps(null, 12, 17), 0));
+
+        buffer.take(batch, 100);
+        assertTrue(batch.rebased);
+        assertEquals(10, batch.baseSeq);
+        assertEquals(11, batch.firstSeq);
+        assertEquals(7, batch.count);
+        for (int i = 0; i < batch.count; i++) assertEquals(11 + i, batch.controls[i]);
+
+        // 더 새로운 시작점의 패킷은 새 구간을 열고, 같은 시작점은 다시 열지 않는다
+        assertEquals(1, buffer.receive(steps(packet(40, null), 41, 41), 0));
+        assertEquals(1, buffer.receive(steps(packet(40, null), 41, 42), 0));
+        buffer.take(batch, 100);
+        assertTrue(batch.rebased);
+        assertEquals(40, batch.baseSeq);
+        assertEquals(41, batch.firstSeq);
+        assertEquals(2, batch.count);
+    }
+
+    // from..to 스텝을 실은 패킷 (컨트롤 값은 스텝 번호), p가 null이면 시작점 없이
+    private static Packets.PlayerInputPacket steps(Packets.PlayerInputPacket p, int from, int to) {
+        if (p == null) {
+            p = packet(0, null);
+            p.base = null;
+        }
+        for (int seq = from; seq <= to; seq++) add(p, seq);
+        p.inputSeq = to;
+        return p;
+    }
+
+    // baseSeq에서 시작하는 구간의 빈 패킷 (car가 있으면 그 상태를, 없으면 시작 위치를 시작점으로)
+    private static Packets.PlayerInputPacket packet(int baseSeq, Body car) {
+        Packets.PlayerInputPacket p = new Packets.PlayerInputPacket();
+        p.controls = new byte[InputBuffer.CAPACITY];
+        p.speedMultipliers = new float[InputBuffer.CAPACITY];
+        p.tireTurns = new float[InputBuffer.CAPACITY];
+        p.speedScales = new float[InputBuffer.CAPACITY];
+        p.base = new Packets.PlayerState();
+        p.baseSeq = baseSeq;
+        if (car != null) {
+            p.base.x = car.getPosition().x; p.base.y = car.getPosition().y; p.base.rotation = car.getAngle();
+        } else {
+            p.base.x = START_X; p.base.y = START_Y; p.base.rotation = START_ANGLE;
+        }
+        return p;
+    }
+
+    private static void add(Packets.PlayerInputPacket p, int controls) {
+        int i = p.count++;
+        p.controls[i] = (byte) controls;
+        p.speedMultipliers[i] = 1f; p.tireTurns[i] = 1f; p.speedScales[i] = 1f;
+    }
+}
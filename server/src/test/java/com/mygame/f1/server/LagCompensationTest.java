@@ -0,0 +1,98 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The trace of {@code LagCompensationBenchmark} through the server's collision pass: cars run in pairs at
+ * 20 m/s around a 15m circle, one car of each pair 10ms and the other 60ms away (20ms and 120ms RTT). In
+ * "near" pairs the laggy car leads by 0.9m and the two never touch; in "touching" pairs it trails by 0.3m
+ * and they overlap on every tick. With {@link StateHistory} rewinding every report to the same instant
+ * there must be no phantom and no missed hit once the history spans the 50ms skew (after the first few
+ * ticks); comparing the reports as they arrive gets every pair wrong.
+ */
+class LagCompensationTest {
+    private static final int TICKS = 600;
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+    private static final long FAST_NANOS = 10_000_000L, SLOW_NANOS = 60_000_000L;
+    private static final int SETTLE_TICKS = (int) (SLOW_NANOS / TICK_NANOS) + 1;
+    private static final float RADIUS = 15f, SPEED = 20f, NEAR_GAP = 0.9f, TOUCH_GAP = 0.3f;
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 24})
+    void rewindHasNoPhantomOrMissedHits(int cars) {
+        int[] wrong = replay(cars, true);
+        assertEquals(0, wrong[0], "phantom hits");
+        assertEquals(0, wrong[1], "missed hits");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 24})
+    void latestReportsGetEveryPairWrong(int cars) {
+        // 되감기 없이는 배치 자체가 틀린 판정을 내는지 확인한다 (위 테스트가 헛돌지 않도록)
+        int[] wrong = replay(cars, false);
+        int pairTicks = (TICKS - SETTLE_TICKS) * (cars / 4);
+        assertTrue(wrong[0] >= pairTicks * 9 / 10, "phantom hits " + wrong[0] + " of " + pairTicks);
+        assertTrue(wrong[1] >= pairTicks * 9 / 10, "missed hits " + wrong[1] + " of " + pairTicks);
+    }
+
+    // 틱마다 도착한 최신 보고로 충돌을 돌리고 {가짜 충돌, 놓친 충돌} 수를 돌려준다
+    private static int[] replay(int cars, boolean rewind) {
+        int pairs = cars / 2;
+        long[] latency = new long[cars];
+        float omega = SPEED / RADIUS;
+        float[] start = new float[cars];
+        for (int p = 0; p < pairs; p++) {
+            boolean touching = p % 2 == 1;
+            int lead = 2 * p, follow = lead + 1;
+            // 지연이 큰 쪽: near 쌍은 앞차, touching 쌍은 뒤차
+            latency[lead] = touching ? FAST_NANOS : SLOW_NANOS;
+            latency[follow] = touching ? SLOW_NANOS : FAST_NANOS;
+            start[lead] = (float) (2 * Math.PI * p / pairs);
+            start[follow] = start[lead] - (touching ? TOUCH_GAP : NEAR_GAP) / RADIUS;
+        }
+        Room room = new Room("lag", "lag", GameServer.MAX_ROOM_PLAYERS, new Mailbox(Runnable::run));
+        Packets.PlayerState[] states = new Packets.PlayerState[cars];
+        for (int i = 0; i < cars; i++) {
+            states[i] = new Packets.PlayerState();
+            states[i].playerId = i + 1;
+        }
+        Packets.PlayerState expected = new Packets.PlayerState();
+        int phantom = 0, missed = 0;
+        for (int t = 1; t <= TICKS; t++) {
+            long now = t * TICK_NANOS + SLOW_NANOS;
+            for (int i = 0; i < cars; i++) {
+                long sentTick = (now - latency[i]) / TICK_NANOS;
+                sample(start[i], omega, sentTick, states[i]);
+                if (rewind) room.history.record(states[i].playerId, sentTick * TICK_NANOS, states[i].x, states[i].y);
+            }
+            GameServer.applySimpleCollisions(room, states, cars, now);
+            // 빠른 차의 기록이 느린 차의 보고 시각까지 거슬러 올라갈 만큼 쌓인 뒤부터 센다
+            if (t <= SETTLE_TICKS) continue;
+            // 충돌한 차는 속도가 감쇠되므로 앞차의 속도가 보고와 다르면 충돌로 본다
+            for (int p = 0; p < pairs; p++) {
+                int lead = 2 * p;
+                sample(start[lead], omega, (now - latency[lead]) / TICK_NANOS, expected);
+                boolean hit = states[lead].velocityX != expected.velocityX || states[lead].velocityY != expected.velocityY;
+                boolean touching = p % 2 == 1;
+                if (hit && !touching) phantom++;
+                if (!hit && touching) missed++;
+            }
+        }
+        return new int[] {phantom, missed};
+    }
+
+    // 원 위에서 tick 시점의 위치와 속도
+    private static void sample(float start, float omega, long tick, Packets.PlayerState out) {
+        float theta = start + omega * tick * TICK_NANOS / 1e9f;
+        float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+        out.x = 32f + RADIUS * cos;
+        out.y = 19.2f + RADIUS * sin;
+        out.velocityX = -RADIUS * sin * omega;
+        out.velocityY = RADIUS * cos * omega;
+    }
+}
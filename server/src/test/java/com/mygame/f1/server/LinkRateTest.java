@@ -0,0 +1,42 @@
+package com.mygame.f1.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link LinkRate#due} on a 60Hz shard: members at 30Hz that joined at different moments come due on the
+ * same ticks, so a room of them runs its tick (collisions, history, snapshot) on every second shard tick.
+ */
+class LinkRateTest {
+    private static final long TICK = LinkRate.Bounds.DEFAULT.tickNanos();
+
+    @Test
+    void membersAtTheSameRateShareTicks() {
+        LinkRate[] members = new LinkRate[4];
+        long start = 1_000_000_000L + 12_345;
+        int roomTicks = 0, shardTicks = 600;
+        int[] sent = new int[members.length];
+        for (int k = 0; k < shardTicks; k++) {
+            long now = start + k * TICK + (k % 3) * 300_000; // 스케줄링 지터
+            // 멤버는 서로 다른 틱에 입장한다
+            for (int i = 0; i < members.length; i++) {
+                if (k == i * 7) members[i] = new LinkRate(LinkRate.Bounds.DEFAULT);
+            }
+            boolean any = false;
+            for (int i = 0; i < members.length; i++) {
+                if (members[i] == null || !members[i].due(now)) continue;
+                sent[i]++;
+                any = true;
+            }
+            if (any) roomTicks++;
+        }
+        // 입장 직후 한 번 어긋날 수 있는 것을 빼면 방은 30Hz로만 돈다
+        assertTrue(roomTicks <= shardTicks / 2 + members.length, "room ticks " + roomTicks + " of " + shardTicks);
+        for (int i = 0; i < members.length; i++) {
+            int expected = (shardTicks - i * 7) / 2;
+            assertEquals(expected, sent[i], 2, "snapshots to member " + i);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.mygame.f1.server;
+
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.SnapshotCodec;
+import com.mygame.f1.shared.StateQuantizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a synthetic 60s race at 30Hz through {@link SnapshotHistory} and {@link SnapshotCodec}: one
+ * recipient acknowledges each snapshot about 100ms late and loses some acks. Every decoded snapshot must
+ * match the server's on the wire (after quantization), and the deltas must beat the raw 40-byte states
+ * by a wide margin.
+ */
+class SnapshotReplayTest {
+    private static final int HZ = 30;
+    private static final int SNAPSHOTS = 60 * HZ;
+    private static final int CARS = 9;
+    private static final int ACK_LAG = 3;
+    // 측정값보다 여유를 둔 하한 (회귀를 잡을 만큼)
+    private static final double MIN_RATIO = 2.5;
+    private static final StateQuantizer Q = StateQuantizer.DEFAULT;
+
+    @Test
+    void replayedRaceRoundTripsAndCompresses() {
+        SnapshotHistory history = new SnapshotHistory();
+        Random random = new Random(7);
+        Packets.PlayerState[] cur = new Packets.PlayerState[CARS];
+        for (int i = 0; i < CARS; i++) cur[i] = new Packets.PlayerState();
+        // 수신 측: 스냅샷 id별로 복원한 상태 (서버 링과 같은 크기)
+        Packets.PlayerState[][] decoded = new Packets.PlayerState[SnapshotHistory.RING_SIZE][CARS];
+        int[] decodedIds = new int[SnapshotHistory.RING_SIZE];
+        int[] decodedCounts = new int[SnapshotHistory.RING_SIZE];
+        SnapshotHistory.Ack ack = new SnapshotHistory.Ack();
+
+        long raw = 0, sent = 0;
+        int fullSnapshots = 0;
+        for (int id = 1; id <= SNAPSHOTS; id++) {
+            int count = race(id / (float) HZ, cur);
+            history.record(id, cur, count);
+            int baseline = history.baselineFor(ack.ackedId(), id);
+            Packets.GameStateDeltaPacket p = history.encode(id, baseline, id);
+            if (baseline == SnapshotCodec.NO_BASELINE) fullSnapshots++;
+
+            int slot = Math.floorMod(id, SnapshotHistory.RING_SIZE);
+            int baseSlot = Math.floorMod(baseline, SnapshotHistory.RING_SIZE);
+            Packets.PlayerState[] base = baseline == SnapshotCodec.NO_BASELINE ? null : decoded[baseSlot];
+            int baseCount = base == null ? 0 : decodedCounts[baseSlot];
+            if (base != null) assertEquals(baseline, decodedIds[baseSlot], "baseline not held by the client");
+            Packets.PlayerState[] out = new Packets.PlayerState[CARS];
+            int n = SnapshotCodec.decode(p.payload, p.payloadLength, base, baseCount, out);
+            decoded[slot] = out;
+            decodedIds[slot] = id;
+            decodedCounts[slot] = n;
+
+            assertEquals(count, n, "car count of snapshot " + id);
+            for (int i = 0; i < count; i++) {
+                Packets.PlayerState got = find(out, n, cur[i].playerId);
+                assertNotNull(got, "car " + cur[i].playerId + " missing from snapshot " + id);
+                assertWire(cur[i], got, "car " + cur[i].playerId + " in snapshot " + id);
+            }
+            raw += (long) count * SnapshotCodec.RAW_STATE_BYTES;
+            sent += p.payloadLength;
+
+            // 약 100ms 뒤에 ACK, 그중 5%는 손실
+            int acked = id - ACK_LAG;
+            if (acked > 0 && random.nextInt(100) >= 5) ack.acknowledge(acked, id);
+        }
+
+        double ratio = raw / (double) sent;
+        System.out.printf("snapshot replay: %d B raw, %d B delta, ratio %.2f, %d full snapshots%n", raw, sent, ratio, fullSnapshots);
+        assertTrue(ratio >= MIN_RATIO, "compression ratio " + ratio + " below " + MIN_RATIO);
+        assertTrue(fullSnapshots <= ACK_LAG + 1, "full snapshots after the start: " + fullSnapshots);
+    }
+
+    /**
+     * The cars at time {@code t}: 3s on the grid, then laps of an oval. Cars 7 and 8 stand in the pit from
+     * 20s to 30s, car 6 leaves at 40s and car 9 joins at 45s. Returns how many cars are in {@code out}.
+     */
+    private static int race(float t, Packets.PlayerState[] out) {
+        int n = 0;
+        for (int id = 1; id <= CARS; id++) {
+            if (id == 6 && t >= 40 || id == 9 && t < 45) continue;
+            Packets.PlayerState s = out[n++];
+            s.playerId = id;
+            s.vehicleIndex = id % 3;
+            boolean parked = t < 3 || (id == 7 || id == 8) && t >= 20 && t < 30;
+            float driven = Math.max(0, t - 3) - ((id == 7 || id == 8) ? Math.max(0, Math.min(t, 30) - 20) : 0);
+            float speed = 3.5f + 0.05f * id;
+            double theta = -Math.PI / 2 + driven * speed / 17.0 - id * 0.06;
+            s.x = (float) (32 + 22 * Math.cos(theta));
+            s.y = (float) (19.2 + 11 * Math.sin(theta));
+            s.velocityX = parked ? 0 : (float) (-22 * Math.sin(theta) * speed / 17.0);
+            s.velocityY = parked ? 0 : (float) (11 * Math.cos(theta) * speed / 17.0);
+            s.rotation = (float) Math.atan2(s.velocityY, s.velocityX);
+            s.angularVelocity = parked ? 0 : speed / 17f;
+            s.currentLap = 1 + (int) (driven * speed / 107);
+            s.lapTime = t < 3 ? 0 : (driven * speed) % 107 / speed;
+        }
+        return n;
+    }
+
+    // 복원 값은 서버 상태를 양자화했다 되돌린 값과 정확히 같아야 한다
+    private static void assertWire(Packets.PlayerState expected, Packets.PlayerState got, String what) {
+        assertEquals(Q.dequantizeX(Q.quantizeX(expected.x)), got.x, what + ": x");
+        assertEquals(Q.dequantizeY(Q.quantizeY(expected.y)), got.y, what + ": y");
+        assertEquals(Q.dequantizeRotation(Q.quantizeRotation(expected.rotation)), got.rotation, what + ": rotation");
+        assertEquals(Q.dequantizeVelocity(Q.quantizeVelocity(expected.velocityX)), got.velocityX, what + ": velocityX");
+        assertEquals(Q.dequantizeVelocity(Q.quantizeVelocity(expected.velocityY)), got.velocityY, what + ": velocityY");
+        assertEquals(Q.dequantizeAngular(Q.quantizeAngular(expected.angularVelocity)), got.angularVelocity, what + ": angularVelocity");
+        assertEquals(Q.dequantizeLapTime(Q.quantizeLapTime(expected.lapTime)), got.lapTime, what + ": lapTime");
+        assertEquals(expected.currentLap, got.currentLap, what + ": currentLap");
+        assertEquals(expected.vehicleIndex, got.vehicleIndex, what + ": vehicleIndex");
+    }
+
+    private static Packets.PlayerState find(Packets.PlayerState[] states, int count, int playerId) {
+        for (int i = 0; i < count; i++) {
+            if (states[i].playerId == playerId) return states[i];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.shared.Packets;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The steady-state tick path does not allocate: after a warm-up, {@link GameServer#tickRoom} for a room of
+ * N moving cars and the in-place decode of an uplink packet allocate 0 bytes on the calling thread, as
+ * counted by the HotSpot {@code ThreadMXBean}. Rooms above {@link Interest#ALL_CARS_MAX} cars take the
+ * per-member interest path, so both sizes are covered.
+ */
+class TickAllocationTest {
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURE_TICKS = 5_000;
+    // 매 호출이 모든 멤버의 스냅샷 차례가 되도록 빈도를 아주 높게 잡는다 (워밍업이 JIT 컴파일까지 끝내도록)
+    private static final LinkRate.Bounds EVERY_CALL = new LinkRate.Bounds(1_000_000_000, 1_000_000_000, 1_000_000_000);
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void allocationCounters() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 24})
+    void tickRoomAllocatesNothing(int cars) {
+        GameServer server = new GameServer(0, 0, 1);
+        try {
+            Room room = new Room("alloc", "alloc", GameServer.MAX_ROOM_PLAYERS, new Mailbox(Runnable::run), EVERY_CALL);
+            SinkConnection[] connections = new SinkConnection[cars];
+            Packets.PlayerStateUpdate[] uploads = new Packets.PlayerStateUpdate[cars];
+            for (int i = 0; i < cars; i++) {
+                Packets.PlayerInfo info = new Packets.PlayerInfo();
+                info.playerId = i + 1;
+                info.username = "player" + (i + 1);
+                room.join(connections[i] = new SinkConnection(i + 1), info);
+                Packets.PlayerStateUpdate upd = uploads[i] = new Packets.PlayerStateUpdate();
+                upd.state = new Packets.PlayerState();
+                // 서로 6m 떨어진 격자: 충돌 없이 계속 움직인다
+                upd.state.playerId = i + 1;
+                upd.state.x = 5 + (i % 8) * 6;
+                upd.state.y = 5 + (i / 8) * 6;
+                upd.state.velocityY = 0.6f;
+            }
+
+            run(server, room, uploads, WARMUP_TICKS);
+            int sentBefore = sent(connections);
+            long allocated = run(server, room, uploads, MEASURE_TICKS);
+            int snapshots = sent(connections) - sentBefore;
+
+            assertTrue(snapshots >= cars * MEASURE_TICKS / 2, "too few snapshots sent to measure: " + snapshots);
+            assertEquals(0, allocated, "bytes allocated by tickRoom over " + snapshots + " snapshots");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void uplinkDecodeAllocatesNothing() {
+        Kryo client = new KryoSerialization().getKryo();
+        Kryo server = new KryoSerialization().getKryo();
+        PacketRegistry.register(client);
+        PacketRegistry.register(server);
+        Packets.PlayerStateUpdate upd = new Packets.PlayerStateUpdate();
+        upd.roomId = "alloc";
+        upd.state = new Packets.PlayerState();
+        upd.state.playerId = 3;
+        upd.state.x = 20;
+        upd.state.y = 10;
+        Output output = new Output(256);
+        client.writeClassAndObject(output, upd);
+        Input input = new Input();
+
+        long allocated = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            input.setBuffer(output.getBuffer(), 0, output.position());
+            server.readClassAndObject(input);
+            long delta = threads.getCurrentThreadAllocatedBytes() - before;
+            if (i >= 90_000) allocated += delta;
+        }
+        assertEquals(0, allocated, "bytes allocated decoding PlayerStateUpdate");
+    }
+
+    // 네트워크 스레드 몫(상태 수신)은 재지 않고, tickRoom 호출 동안 할당된 바이트만 더한다
+    private static long run(GameServer server, Room room, Packets.PlayerStateUpdate[] uploads, int ticks) {
+        long allocated = 0;
+        Room.Member[] members = room.members;
+        for (int t = 0; t < ticks; t++) {
+            long now = System.nanoTime();
+            for (int i = 0; i < members.length; i++) {
+                Packets.PlayerStateUpdate upd = uploads[i];
+                upd.state.y = 5 + (i / 8) * 6 + (upd.seq % 600) * 0.01f;
+                members[i].uplink.receive(upd, now, now);
+                upd.seq++;
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            server.tickRoom(room);
+            allocated += threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        return allocated;
+    }
+
+    private static int sent(SinkConnection[] connections) {
+        int n = 0;
+        for (SinkConnection c : connections) n += c.udp;
+        return n;
+    }
+
+    /** Swallows what the tick sends and counts UDP packets. */
+    private static final class SinkConnection extends Connection {
+        private final int id;
+        int udp;
+
+        SinkConnection(int id) { this.id = id; }
+
+        @Override public int getID() { return id; }
+
+        @Override public int sendUDP(Object object) {
+            udp++;
+            return 64;
+        }
+
+        @Override public int sendTCP(Object object) { return 64; }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mygame.f1.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TimerWheel} periods that are whole rotations: a periodic timer re-placed after firing must come
+ * back on time, not one rotation late in the bucket it just left.
+ */
+class TimerWheelTest {
+    // schedule()은 실제 시계로 마감을 잡으므로 호출 사이의 지연보다 충분히 크게
+    private static final long TICK = 10_000_000L;
+    private static final int SIZE = 8;
+
+    @Test
+    void periodOfWholeRotationsFiresOnTime() {
+        for (int rotations = 1; rotations <= 2; rotations++) {
+            long start = System.nanoTime();
+            TimerWheel wheel = new TimerWheel(TICK, SIZE, start);
+            List<Long> fired = new ArrayList<>();
+            long[] now = {start};
+            long period = rotations * SIZE * TICK;
+            wheel.schedule(() -> fired.add((now[0] - start) / TICK), 0, period, null);
+            for (int k = 0; k < 10 * SIZE * rotations; k++) {
+                wheel.advance(now[0], Runnable::run);
+                now[0] += TICK;
+            }
+            assertEquals(10, fired.size(), "firings of period " + rotations + " rotations");
+            for (int i = 1; i < fired.size(); i++) {
+                assertEquals(fired.get(0) + i * (long) rotations * SIZE, fired.get(i),
+                    "firing " + i + " of period " + rotations + " rotations");
+            }
+        }
+    }
+}
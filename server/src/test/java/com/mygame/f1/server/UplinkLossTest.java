@@ -0,0 +1,139 @@
+package com.mygame.f1.server;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.mygame.f1.shared.Packets;
+import com.mygame.f1.shared.UplinkRedundancy;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One car's uplink over a seeded lossy link, as in {@code UplinkLossBenchmark}: a 60Hz sender fills each
+ * {@link Packets.PlayerStateUpdate} through {@link UplinkRedundancy}, the real Kryo serializers encode and
+ * decode it, 5% of packets are dropped and the rest arrive 20-24ms later, and a server tick 10ms after each
+ * send plays the state due out of {@link UplinkBuffer}. A tick is a hitch when the state shown did not
+ * advance. With redundant states and one interval of playout delay almost no loss may show, and the
+ * uplink's bytes (KryoNet framing excluded) must stay within what the sender's token bucket allows.
+ */
+class UplinkLossTest {
+    private static final long INTERVAL_NANOS = 1_000_000_000L / 60;
+    private static final long TRANSIT_NANOS = 20_000_000L, JITTER_NANOS = 4_000_000L;
+    private static final long TICK_PHASE_NANOS = 10_000_000L;
+    private static final int TICKS = 5 * 60 * 60;
+    private static final double LOSS = 0.05;
+    // UplinkRedundancy의 기본 예산 (-Df1.uplinkBudgetBytes)
+    private static final int BUDGET = 4096;
+
+    @Test
+    void redundantStatesHideLossWithinTheDefaultBudget() {
+        Result baseline = run(new UplinkRedundancy(0, 0), new UplinkBuffer(0));
+        Result redundant = run(new UplinkRedundancy(BUDGET, 3), new UplinkBuffer(1));
+        System.out.printf("uplink at 5%% loss: baseline %.2f%% hitches %.0f B/s, redundant %.2f%% hitches %.0f B/s%n",
+            baseline.hitchPercent(), baseline.bytesPerSecond(),
+            redundant.hitchPercent(), redundant.bytesPerSecond());
+        // 재전송 없이는 손실이 그대로 보인다 (시드가 맞는지 확인)
+        assertTrue(baseline.hitchPercent() > 3, "baseline hitches " + baseline.hitchPercent() + "%");
+        assertTrue(redundant.hitchPercent() < 0.5, "redundant hitches " + redundant.hitchPercent() + "%");
+        assertWithinBudget(redundant, BUDGET);
+    }
+
+    @Test
+    void tightBudgetLowersTheDepthToFit() {
+        int budget = 3000;
+        Result tight = run(new UplinkRedundancy(budget, 3), new UplinkBuffer(1));
+        System.out.printf("uplink at 5%% loss, %d B/s budget: %.2f%% hitches %.0f B/s%n", budget,
+            tight.hitchPercent(), tight.bytesPerSecond());
+        assertWithinBudget(tight, budget);
+        // 깊이가 줄어도 손실의 절반 이상은 가린다
+        assertTrue(tight.hitchPercent() < LOSS * 100 / 2, "tight hitches " + tight.hitchPercent() + "%");
+    }
+
+    // 토큰 버킷이 허용하는 만큼: 예산 × 시간에 시작 시 쌓여 있던 0.25초 분량을 더한 것
+    private static void assertWithinBudget(Result r, int budget) {
+        double seconds = r.ticks() * INTERVAL_NANOS / 1e9;
+        assertTrue(r.bytes() <= budget * seconds + budget / 4.0,
+            "uplink " + r.bytesPerSecond() + " B/s over a budget of " + budget + " B/s");
+    }
+
+    private record Result(long ticks, long hitches, long bytes) {
+        double hitchPercent() { return 100.0 * hitches / ticks; }
+
+        double bytesPerSecond() { return bytes / (ticks * INTERVAL_NANOS / 1e9); }
+    }
+
+    private static Result run(UplinkRedundancy redundancy, UplinkBuffer buffer) {
+        Kryo clientKryo = new KryoSerialization().getKryo();
+        Kryo serverKryo = new KryoSerialization().getKryo();
+        PacketRegistry.register(clientKryo);
+        PacketRegistry.register(serverKryo);
+        SplittableRandom random = new SplittableRandom(42);
+        Output output = new Output(512);
+        Input input = new Input();
+        Packets.PlayerState state = new Packets.PlayerState();
+        state.playerId = 1;
+        state.vehicleIndex = 2;
+        state.currentLap = 1;
+        Packets.PlayerState shown = new Packets.PlayerState();
+        // 전송 중인 패킷: 지터가 송신 간격보다 작아 도착 순서는 송신 순서와 같다
+        byte[][] flight = new byte[8][];
+        long[] arrivals = new long[8];
+        int flightHead = 0, flightCount = 0;
+        int shownSeq = -1, lastShownSeq = -1;
+        long ticks = 0, hitches = 0, bytes = 0;
+        for (int period = 1; period <= TICKS; period++) {
+            long sendAt = period * INTERVAL_NANOS;
+            drive(state, sendAt);
+            Packets.PlayerStateUpdate upd = new Packets.PlayerStateUpdate();
+            upd.roomId = "loss-01";
+            upd.state = state;
+            upd.seq = period - 1;
+            // 재생된 상태가 어느 송신이었는지 알 수 있게 inputSeq = seq + 1
+            upd.inputSeq = period;
+            redundancy.fill(upd, sendAt);
+            output.clear();
+            clientKryo.writeClassAndObject(output, upd);
+            int length = output.position();
+            redundancy.sent(upd, length);
+            bytes += length;
+            if (random.nextDouble() >= LOSS) {
+                int k = (flightHead + flightCount++) % flight.length;
+                flight[k] = output.toBytes();
+                arrivals[k] = sendAt + TRANSIT_NANOS + random.nextLong(JITTER_NANOS);
+            }
+
+            long tickAt = sendAt + TICK_PHASE_NANOS;
+            while (flightCount > 0 && arrivals[flightHead] <= tickAt) {
+                input.setBuffer(flight[flightHead]);
+                Packets.PlayerStateUpdate in = (Packets.PlayerStateUpdate) serverKryo.readClassAndObject(input);
+                buffer.receive(in, arrivals[flightHead], arrivals[flightHead] - TRANSIT_NANOS);
+                flightHead = (flightHead + 1) % flight.length;
+                flightCount--;
+            }
+            if (buffer.play(tickAt, INTERVAL_NANOS, shown)) shownSeq = buffer.playedInputSeq() - 1;
+            if (lastShownSeq >= 0) {
+                if (shownSeq == lastShownSeq) hitches++;
+                ticks++;
+            }
+            lastShownSeq = shownSeq;
+        }
+        return new Result(ticks, hitches, bytes);
+    }
+
+    // 타원을 도는 차
+    private static void drive(Packets.PlayerState s, long nanos) {
+        double t = nanos / 1e9;
+        double theta = t * 0.25;
+        s.x = (float) (32 + 24 * Math.cos(theta));
+        s.y = (float) (19.2 + 12 * Math.sin(theta));
+        s.velocityX = (float) (-24 * Math.sin(theta) * 0.25);
+        s.velocityY = (float) (12 * Math.cos(theta) * 0.25);
+        s.rotation = (float) Math.atan2(s.velocityY, s.velocityX);
+        s.angularVelocity = 0.25f;
+        s.lapTime = (float) (t % 60);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mygame.f1.shared;
+
+/** MSB-first bit source matching {@link BitWriter}. */
+public final class BitReader {
+    private byte[] buf;
+    private int limit;
+    private int bytePos;
+    private long scratch;
+    private int scratchBits;
+
+    public BitReader() {}
+
+    public BitReader(byte[] buf, int length) { reset(buf, length); }
+
+    public BitReader reset(byte[] buf, int length) {
+        this.buf = buf; this.limit = length;
+        bytePos = 0; scratch = 0; scratchBits = 0;
+        return this;
+    }
+
+    /** Reads {@code bits} bits (1..32) as an unsigned value. */
+    public int read(int bits) {
+        while (scratchBits < bits) {
+            if (bytePos >= limit) throw new IllegalStateException("truncated bit stream");
+            scratch = (scratch << 8) | (buf[bytePos++] & 0xFF);
+            scratchBits += 8;
+        }
+        scratchBits -= bits;
+        return (int) ((scratch >>> scratchBits) & ((1L << bits) - 1));
+    }
+
+    public boolean readBoolean() { return read(1) != 0; }
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 4) {
+            int group = read(5);
+            result |= (group & 0xF) << shift;
+            if ((group & 0x10) == 0) return result;
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+}
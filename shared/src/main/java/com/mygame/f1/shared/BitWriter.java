@@ -0,0 +1,64 @@
+package com.mygame.f1.shared;
+
+import java.util.Arrays;
+
+/** Growable MSB-first bit sink, reused across encodes via {@link #reset()}. */
+public final class BitWriter {
+    private byte[] buf;
+    private int bytePos;
+    private long scratch;
+    private int scratchBits;
+
+    public BitWriter(int initialCapacity) { buf = new byte[Math.max(8, initialCapacity)]; }
+
+    public void reset() {
+        bytePos = 0; scratch = 0; scratchBits = 0;
+    }
+
+    /** Writes the low {@code bits} bits of {@code value} (1..32). */
+    public void write(int value, int bits) {
+        scratch = (scratch << bits) | (value & ((1L << bits) - 1));
+        scratchBits += bits;
+        while (scratchBits >= 8) {
+            scratchBits -= 8;
+            ensure(1);
+            buf[bytePos++] = (byte) (scratch >>> scratchBits);
+        }
+    }
+
+    public void writeBoolean(boolean value) { write(value ? 1 : 0, 1); }
+
+    /** Non-negative integer in 4-bit groups: small ids and counts cost 5 bits, anything fits in 40. */
+    public void writeVarInt(int value) {
+        do {
+            int group = value & 0xF;
+            value >>>= 4;
+            write(value != 0 ? group | 0x10 : group, 5);
+        } while (value != 0);
+    }
+
+    /** Pads the last partial byte with zeros; returns the number of bytes written. */
+    public int flush() {
+        if (scratchBits > 0) {
+            ensure(1);
+            buf[bytePos++] = (byte) (scratch << (8 - scratchBits));
+            scratch = 0; scratchBits = 0;
+        }
+        return bytePos;
+    }
+
+    /** Bits written so far, including the unflushed tail. */
+    public int bitCount() { return bytePos * 8 + scratchBits; }
+
+    /** Backing array; valid up to {@link #flush()}'s return value. */
+    public byte[] buffer() { return buf; }
+
+    public byte[] toByteArray() {
+        int n = flush();
+        return Arrays.copyOf(buf, n);
+    }
+
+    private void ensure(int n) {
+        if (bytePos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, bytePos + n));
+    }
+}
@@ -0,0 +1,214 @@
+package com.mygame.f1.shared;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+
+/**
+ * Top-down car handling on a Box2D body: smoothed throttle, speed-dependent steering, lateral tyre grip
+ * with forward drag, speed caps and the wall-contact response. Holds no rendering or input state, so it
+ * runs the same in {@code GameScreen}, on the server (which replays each client's inputs on its own world)
+ * and headless in benchmarks; client prediction and the server only agree while both go through this
+ * class. One instance per car; it keeps the smoothed throttle.
+ */
+public final class CarPhysics {
+    /** Pixels per metre, same as {@code GameScreen.PPM}. */
+    public static final float PPM = 100f;
+    public static final float HALF_WIDTH = 6.40f / PPM;
+    public static final float HALF_LENGTH = 12.80f / PPM;
+    private static final float BASE_MAX_ANGULAR_VELOCITY = MathUtils.degreesToRadians * 190;
+
+    /** Driver input for one frame. */
+    public static final class Controls {
+        public boolean accelerate, reverse, left, right, brake;
+
+        public boolean steering() { return left || right; }
+
+        /** These controls as {@link Packets.PlayerInputPacket} bits. */
+        public int bits() {
+            return (accelerate ? Packets.PlayerInputPacket.ACCELERATE : 0) | (reverse ? Packets.PlayerInputPacket.REVERSE : 0)
+                | (left ? Packets.PlayerInputPacket.LEFT : 0) | (right ? Packets.PlayerInputPacket.RIGHT : 0)
+                | (brake ? Packets.PlayerInputPacket.BRAKE : 0);
+        }
+
+        /** Sets every flag from {@link Packets.PlayerInputPacket} bits. */
+        public void set(int bits) {
+            accelerate = (bits & Packets.PlayerInputPacket.ACCELERATE) != 0;
+            reverse = (bits & Packets.PlayerInputPacket.REVERSE) != 0;
+            left = (bits & Packets.PlayerInputPacket.LEFT) != 0;
+            right = (bits & Packets.PlayerInputPacket.RIGHT) != 0;
+            brake = (bits & Packets.PlayerInputPacket.BRAKE) != 0;
+        }
+    }
+
+    // --- 물리 파라미터 ---
+    public float maxForwardSpeed = 4.0f;  // 약 15% 상향
+    public float maxReverseSpeed = 1.3f;  // 1.0 * 1.3 = 1.3 (30% 증가)
+    public float forwardAcceleration = 1.7f;  // 가속력은 유지
+    public float reverseAcceleration = 1.0f;  // 가속력은 유지
+    public float grip = 18.0f;
+    public float highSpeedTurnReduction = 0.5f;  // 고속에서 회전 감소 비율 (50%까지 감소)
+    public float accelerationSmoothness = 7f;
+    public float defaultLinearDamping = 2.0f;
+    public float brakingLinearDamping = 5.0f;
+    // 벽에 부딪힌 뒤 잠깐 동안의 감쇠와, 멈춰 버렸을 때 뒤로 빼 주는 힘
+    public float collisionLinearDamping = 4.0f;
+    public float stuckSpeed = 0.5f;
+    public float stuckImpulse = 0.3f;
+
+    private float currentAcceleration = 0f;
+    private final Vector2 tmp = new Vector2();
+    private final Vector2 tmp2 = new Vector2();
+
+    /** Creates the car body used by every player car: 12.8 x 25.6 px box, angle in radians. */
+    public Body createBody(World world, float x, float y, float angle) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.DynamicBody;
+        bodyDef.position.set(x, y);
+        bodyDef.linearDamping = defaultLinearDamping;
+        bodyDef.angularDamping = 20.0f;
+        bodyDef.angle = angle;
+        // 잠들면 속도가 0이 되므로, 예측과 서버 시뮬레이션이 잠자기 타이머 차이로 갈라지지 않게 깨어 있게 둔다
+        bodyDef.allowSleep = false;
+        Body body = world.createBody(bodyDef);
+
+        FixtureDef fixtureDef = new FixtureDef();
+        PolygonShape carShape = new PolygonShape();
+        carShape.setAsBox(HALF_WIDTH, HALF_LENGTH);
+        fixtureDef.shape = carShape;
+        fixtureDef.density = 3.5f;
+        fixtureDef.friction = 0.3f;
+        fixtureDef.restitution = 0.02f;
+
+        body.createFixture(fixtureDef);
+        carShape.dispose();
+        return body;
+    }
+
+    /** Forgets the smoothed throttle, e.g. after the car was stopped or respawned. */
+    public void reset() {
+        currentAcceleration = 0f;
+    }
+
+    /** The smoothed throttle force; saved with each predicted step so a replay starts from the same value. */
+    public float throttle() { return currentAcceleration; }
+
+    public void throttle(float acceleration) { currentAcceleration = acceleration; }
+
+    /**
+     * Velocity response to hitting a wall, applied from the world's contact listener while it steps. The
+     * server's worlds hold only walls and one car, so every contact there is a wall.
+     */
+    public void onWallContact(Body car) {
+        car.setLinearVelocity(tmp.set(car.getLinearVelocity()).scl(0.4f));
+        car.setAngularVelocity(car.getAngularVelocity() * 0.3f);
+    }
+
+    /**
+     * Brake or collision damping and throttle force. {@code speedMultiplier} is the race-start ramp;
+     * {@code colliding} is true for a short while after a wall contact, and a car that stalled against the
+     * wall then gets pushed back off it.
+     */
+    public void applyThrottle(Body car, Controls controls, float speedMultiplier, boolean colliding, float delta) {
+        if (controls.brake) {
+            car.setLinearDamping(brakingLinearDamping);
+        } else if (colliding) {
+            car.setLinearDamping(collisionLinearDamping);
+        } else {
+            car.setLinearDamping(defaultLinearDamping);
+        }
+        if (colliding && car.getLinearVelocity().len() < stuckSpeed) {
+            tmp.set(car.getWorldVector(tmp.set(0, -stuckImpulse)));
+            car.applyLinearImpulse(tmp, car.getWorldCenter(), true);
+        }
+
+        float targetAcceleration = 0;
+        if (controls.accelerate) targetAcceleration = forwardAcceleration * speedMultiplier;
+        if (controls.reverse) targetAcceleration = -reverseAcceleration * speedMultiplier;
+
+        currentAcceleration = MathUtils.lerp(currentAcceleration, targetAcceleration, accelerationSmoothness * delta);
+
+        if (Math.abs(currentAcceleration) > 0.1f) {
+            tmp.set(0, currentAcceleration);
+            car.applyForceToCenter(car.getWorldVector(tmp), true);
+        }
+    }
+
+    /** Drives the angular velocity towards the steering target; {@code tireTurnMultiplier} is the compound factor. */
+    public void applySteering(Body car, Controls controls, float tireTurnMultiplier) {
+        float targetAngularVelocity = 0;
+        float forwardSpeed = forwardSpeed(car);
+
+        // 속도에 따른 회전력 감소 계산
+        float currentSpeed = car.getLinearVelocity().len();
+        float speedRatio = Math.min(currentSpeed / maxForwardSpeed, 1.0f);  // 0.0 ~ 1.0
+        // 고속일수록 회전력 감소 + 타이어 회전 보정
+        float turnMultiplier = 1.0f - (speedRatio * highSpeedTurnReduction);
+        float maxAngularVelocity = BASE_MAX_ANGULAR_VELOCITY * turnMultiplier * tireTurnMultiplier;
+
+        boolean reversing = controls.reverse && forwardSpeed < -0.5f;
+        if (controls.left) {
+            targetAngularVelocity = reversing ? -maxAngularVelocity : maxAngularVelocity;
+        } else if (controls.right) {
+            targetAngularVelocity = reversing ? maxAngularVelocity : -maxAngularVelocity;
+        }
+
+        float velocityChange = targetAngularVelocity - car.getAngularVelocity();
+        car.applyAngularImpulse(car.getInertia() * velocityChange, true);
+    }
+
+    /** Cancels sideways slide (slightly less while steering) and applies speed-proportional drag. */
+    public void applyFriction(Body car, Controls controls) {
+        float gripFactor = controls.steering() ? 0.9f : 1.0f;
+        float mass = car.getMass();
+
+        // getWorldVector는 내부 벡터를 재사용하므로 바로 복사한다
+        tmp.set(car.getWorldVector(tmp.set(1, 0)));
+        tmp.scl(car.getLinearVelocity().dot(tmp));
+        car.applyForceToCenter(tmp.scl(-mass * grip * gripFactor), true);
+
+        tmp2.set(car.getWorldVector(tmp2.set(0, 1)));
+        tmp2.scl(car.getLinearVelocity().dot(tmp2));
+        float forwardSpeed = tmp2.len();
+        if (forwardSpeed > 0.1f) {
+            float dragCoefficient = 0.05f * forwardSpeed;
+            car.applyForceToCenter(tmp2.scl(-dragCoefficient * mass), true);
+        }
+    }
+
+    /** Caps speed at the forward/reverse maximum times {@code speedScale} (ramp, durability, tyre and grass factors). */
+    public void limitSpeed(Body car, float speedScale) {
+        float forwardSpeed = forwardSpeed(car);
+        float speed = car.getLinearVelocity().len();
+        float effectiveMaxForward = maxForwardSpeed * speedScale;
+        float effectiveMaxReverse = maxReverseSpeed * speedScale;
+
+        if (forwardSpeed > 0 && speed > effectiveMaxForward) {
+            car.setLinearVelocity(tmp.set(car.getLinearVelocity()).scl(effectiveMaxForward / speed));
+        } else if (forwardSpeed < 0 && speed > effectiveMaxReverse) {
+            car.setLinearVelocity(tmp.set(car.getLinearVelocity()).scl(effectiveMaxReverse / speed));
+        }
+    }
+
+    /** All four stages in GameScreen's order with neutral tyre, ramp and surface factors. */
+    public void update(Body car, Controls controls, float delta) {
+        update(car, controls, 1f, false, 1f, 1f, delta);
+    }
+
+    /** All four stages in GameScreen's order, with the race factors GameScreen derives for this step. */
+    public void update(Body car, Controls controls, float speedMultiplier, boolean colliding,
+                       float tireTurnMultiplier, float speedScale, float delta) {
+        applyThrottle(car, controls, speedMultiplier, colliding, delta);
+        applySteering(car, controls, tireTurnMultiplier);
+        applyFriction(car, controls);
+        limitSpeed(car, speedScale);
+    }
+
+    private float forwardSpeed(Body car) {
+        return car.getLinearVelocity().dot(car.getWorldVector(tmp.set(0, 1)));
+    }
+}
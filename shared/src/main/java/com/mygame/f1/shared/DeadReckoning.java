@@ -0,0 +1,33 @@
+package com.mygame.f1.shared;
+
+/**
+ * The motion model shared by both ends of the dead-reckoning uplink: between two reports a car keeps
+ * its reported linear and angular velocity, for at most {@value #MAX_EXTRAPOLATION_MILLIS}ms, and then
+ * holds (the same linear extrapolation remote clients use past their newest snapshot). The server moves
+ * a car this way on ticks without a new report; the client sends a report only once its car has moved
+ * away from where this model puts it, or when a heartbeat is due.
+ */
+public final class DeadReckoning {
+    private DeadReckoning() {}
+
+    /** Longest a report is extrapolated; longer than any sensible heartbeat, so it only matters under loss. */
+    public static final long MAX_EXTRAPOLATION_MILLIS = 500;
+    /** Fixed physics steps per second of a predicting client, so a reckoned state can name the step it stands for. */
+    public static final int CLIENT_STEP_HZ = 60;
+
+    /** Moves {@code s} in place by {@code seconds} of its own velocity. */
+    public static void advance(Packets.PlayerState s, float seconds) {
+        s.x += s.velocityX * seconds;
+        s.y += s.velocityY * seconds;
+        s.rotation += s.angularVelocity * seconds;
+    }
+
+    /**
+     * Where the model puts a car {@code elapsedMillis} after it reported {@code from} (capped at
+     * {@link #MAX_EXTRAPOLATION_MILLIS}): copies {@code from} into {@code out} and advances it.
+     */
+    public static void predict(Packets.PlayerState from, long elapsedMillis, Packets.PlayerState out) {
+        SnapshotCodec.copy(from, out);
+        advance(out, Math.min(Math.max(0, elapsedMillis), MAX_EXTRAPOLATION_MILLIS) / 1000f);
+    }
+}
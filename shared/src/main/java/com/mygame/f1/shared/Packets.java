@@ -18,15 +18,75 @@ public final class Packets {
     /** 호스트/플레이어 선택 사항 전달 (맵/차량) */
     public static class SelectionRequest { public String roomId; public int trackIndex; public int vehicleIndex; }
 
-    public static class RoomListRequest { }
-    public static class RoomListResponse { public List<RoomState> rooms; }
+    /** 클라이언트가 이미 가진 방 ID와 버전 (둘 다 null이면 전체 목록) */
+    public static class RoomListRequest { public String[] knownRoomIds; public int[] knownVersions; }
+    /** rooms: 새 방 또는 버전이 바뀐 방, unchangedRoomIds: 요청한 버전 그대로인 방. 둘 다에 없는 방은 사라진 방 */
+    public static class RoomListResponse { public List<RoomState> rooms; public String[] unchangedRoomIds; }
+
+    // Room browser: 필터/페이지 조회와 변경분 구독 (RoomListRequest는 전체 목록이라 방이 많으면 쓰지 않는다)
+    /** 방 목록의 한 줄: 플레이어 목록 없이 요약만 */
+    public static class RoomSummary { public String roomId; public String roomName; public RoomPhase phase; public int players; public int maxPlayers; public int trackIndex; public int version; }
+    /**
+     * 필터 조회: phase(null=전체), trackIndex(-1=전체), minFreeSlots 이상 빈자리. roomId 순으로 limit개까지,
+     * cursor는 이전 페이지의 nextCursor (null=처음). subscribe=true면 이 필터로 변경분을 RoomDirectoryUpdate로 받는다
+     * (방에 들어가거나 RoomUnsubscribeRequest를 보내면 끝)
+     */
+    public static class RoomQueryRequest { public RoomPhase phase; public int trackIndex = -1; public int minFreeSlots; public String cursor; public int limit; public boolean subscribe; }
+    /** nextCursor: 다음 페이지 요청용 (null이면 마지막 페이지) */
+    public static class RoomQueryResponse { public RoomSummary[] rooms; public String nextCursor; }
+    /** 구독 필터 기준 추가/변경된 방(changed)과 빠진 방(removed) */
+    public static class RoomDirectoryUpdate { public RoomSummary[] changed; public String[] removed; }
+    public static class RoomUnsubscribeRequest { }
 
     public static class StartRaceRequest { public String roomId; public int countdownSeconds; public String hostName; public int trackIndex; public int vehicleIndex; }
     public static class RaceStartPacket { public int countdownSeconds; public long startTimeMillis; public int trackIndex; public int[] playerIds; public int[] vehicleIndices; }
     /** 채팅 메시지 */
     public static class ChatMessage { public String roomId; public String sender; public String text; public long ts; }
-    /** 실시간 상태 송신 */
-    public static class PlayerStateUpdate { public String roomId; public PlayerState state; }
+    /** 서버가 묶어 보내는 채팅 (history=true면 입장 시 받는 최근 기록) */
+    public static class ChatBatch { public String roomId; public ChatMessage[] messages; public boolean history; }
+    /**
+     * 실시간 상태 송신 (주행 중이 아닐 때와 봇. 주행 중인 클라이언트는 PlayerInputPacket을 보낸다) (ackSnapshotId: 마지막으로 수신한 스냅샷 ID, 없으면 0).
+     * seq: 연결마다 1씩 늘어나는 송신 번호 (서버가 손실률 계산), ackDelayMillis: ackSnapshotId를 받고 이 패킷을 보내기까지 걸린 시간.
+     * inputSeq: state를 만든 클라이언트 물리 스텝 번호 (0 = 되감을 수 없음, 서버가 충돌 보정을 보내지 않는다),
+     * ackCorrectionId: 마지막으로 적용한 PlayerCorrectionPacket 번호.
+     * redundant[i] / redundantInputSeqs[i]: 손실 대비로 다시 싣는 이전 송신(seq - 1 - i)의 상태와 inputSeq (앞의 redundantCount개만 유효),
+     * redundantAgeMillis[i]: 그 상태를 보낸 뒤 이 패킷까지 흐른 시간 (송신 간격이 일정하지 않으므로)
+     */
+    public static class PlayerStateUpdate {
+        public String roomId; public PlayerState state; public int ackSnapshotId; public int seq; public int ackDelayMillis; public int inputSeq; public int ackCorrectionId;
+        public int redundantCount; public PlayerState[] redundant; public int[] redundantInputSeqs; public int[] redundantAgeMillis;
+    }
+    /**
+     * 서버 → 차량 주인 (UDP): inputSeq 스텝 직후의 서버 쪽 자기 차 상태. 입력을 보내는 동안에는 서버 시뮬레이션 결과를 주기적으로
+     * (충돌로 바뀌면 바로) 보내며 그 스텝까지의 입력 ACK를 겸한다. 상태를 보내는 동안(출발 전, 피트, 완주 뒤)에는 충돌 처리로 바뀐 때만 보낸다.
+     * 클라이언트는 예측과 다르면 그 스텝으로 되감고 이후 입력을 다시 시뮬레이션한다
+     */
+    public static class PlayerCorrectionPacket { public int correctionId; public int inputSeq; public PlayerState state; }
+    /** 서버가 정한 연결별 전송 빈도 (RTT/손실에 따라 바뀔 때마다 TCP로 보낸다) */
+    public static class NetRatePacket { public int snapshotHz; public int sendHz; }
+
+    // Room sharding (directory + several game servers)
+    /**
+     * 디렉터리 → 클라이언트: 방 생성/입장은 이 게임 서버가 처리한다. 그 서버로 다시 연결해 같은 요청을 보낸다.
+     * resumeToken이 0이 아니면 방이 옮겨진 것 (게임 서버 → 방 멤버): 새 서버에 ResumeRoomRequest로 자리를 되찾는다
+     */
+    public static class RedirectResponse { public String host; public int tcpPort; public int udpPort; public String roomId; public long resumeToken; }
+    /**
+     * 게임 서버 → 디렉터리: 등록 (클라이언트가 접속할 주소). 이후 방 변경은 RoomDirectoryUpdate로 보낸다. draining이면 새 방을 받지 않는다.
+     * secret은 디렉터리의 -Df1.shardSecret과 같아야 등록된다 (디렉터리에 비밀이 없으면 같은 호스트에서 온 연결만)
+     */
+    public static class ShardHello { public String host; public int tcpPort; public int udpPort; public boolean draining; public String secret; }
+
+    // Drain / room handoff
+    /** 옮겨지는 방의 자리 하나 (players 순서 = 입장 순서, 첫 번째가 방장) */
+    public static class HandoffPlayer { public String username; public int vehicleIndex; public boolean ready; public long resumeToken; }
+    /** 종료 중인 게임 서버 → 디렉터리 → 다른 게임 서버: 대기 중인 방의 상태 (채팅 기록 포함) */
+    public static class RoomHandoff { public String roomId; public String roomName; public int maxPlayers; public int trackIndex; public HandoffPlayer[] players; public ChatMessage[] chat; }
+    /** 받은 게임 서버 → 디렉터리 → 보낸 게임 서버: 복원 결과와 클라이언트가 다시 접속할 주소 */
+    public static class RoomHandoffResult { public String roomId; public boolean ok; public String message; public String host; public int tcpPort; public int udpPort; }
+    /** 클라이언트 → 방을 받은 게임 서버: RedirectResponse의 토큰으로 예약된 자리에 들어간다 */
+    public static class ResumeRoomRequest { public String roomId; public long resumeToken; }
+    public static class ResumeRoomResponse { public boolean ok; public String message; public PlayerInfo self; public RoomState state; }
 
     public static class RoomStatePacket { public RoomState state; }
     public static class ErrorResponse { public String message; }
@@ -69,15 +129,35 @@ public final class Packets {
         public boolean failed; // true면 FAIL
     }
 
-    // Game sync placeholders
+    // Game sync
+    /**
+     * 클라이언트 → 서버 (UDP): 주행 중 자기 차의 고정 스텝(1/60초) 입력. 서버가 같은 CarPhysics로 시뮬레이션하고 결과를
+     * PlayerCorrectionPacket으로 돌려준다. seq/ackSnapshotId/ackDelayMillis는 PlayerStateUpdate와 같은 송신 번호와 스냅샷 ACK.
+     * 서버가 ACK하지 않은 스텝을 모두 싣는다: inputSeq - count + 1 .. inputSeq (오래된 것부터, 앞의 count개만 유효).
+     * controls[i]: ACCELERATE..COLLIDING 비트, speedMultipliers/tireTurns/speedScales[i]: 그 스텝의 출발 가속/타이어/속도 보정
+     * (QuantizedSerializers.factor로 양자화한 값을 예측에도 쓴다). base가 있으면 새 구간의 시작: baseSeq 스텝 직후의 차 상태와
+     * 그때의 가속 평활값 (출발, 피트 아웃, 오래 ACK를 못 받은 경우)
+     */
     public static class PlayerInputPacket {
-        public int playerId; public long timestamp; public float acceleration; public float steering; public boolean braking; public int sequenceNumber;
+        public static final int ACCELERATE = 1, REVERSE = 2, LEFT = 4, RIGHT = 8, BRAKE = 16, COLLIDING = 32;
+        public int seq; public int ackSnapshotId; public int ackDelayMillis;
+        public int inputSeq; public int count; public byte[] controls; public float[] speedMultipliers; public float[] tireTurns; public float[] speedScales;
+        public int baseSeq; public PlayerState base; public float baseThrottle;
     }
 
     public static class GameStatePacket {
         public long serverTimestamp; public PlayerState[] playerStates;
     }
 
+    /**
+     * 기준 스냅샷(baselineId) 대비 변경분만 담은 상태 스냅샷. baselineId가 0이면 전체 스냅샷.
+     * payload 형식은 {@link SnapshotCodec} 참고. payload 앞쪽 payloadLength 바이트만 유효하다
+     * (서버는 재사용 버퍼를 그대로 넘긴다).
+     */
+    public static class GameStateDeltaPacket {
+        public int snapshotId; public int baselineId; public long serverTimestamp; public byte[] payload; public int payloadLength;
+    }
+
     // Data models
     public static class PlayerInfo { public int playerId; public String username; public boolean ready; public int vehicleIndex; }
 
@@ -85,8 +165,10 @@ public final class Packets {
         public int playerId; public float x; public float y; public float rotation; public float velocityX; public float velocityY; public float angularVelocity; public int currentLap; public float lapTime; public int vehicleIndex;
     }
 
+    /** version: 서버에서 방 상태가 바뀔 때마다 증가 (RoomListRequest.knownVersions로 되돌려 보낸다) */
     public static class RoomState {
         public String roomId; public String roomName; public int maxPlayers; public RoomPhase phase; public List<PlayerInfo> players; public int selectedTrackIndex;
+        public int version;
     }
 
     public enum RoomPhase { WAITING, COUNTDOWN, RUNNING, FINISHED }
@@ -0,0 +1,423 @@
+package com.mygame.f1.shared;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo serializers for the state-sync packets. {@link Packets.PlayerState}, {@link Packets.GameStatePacket}
+ * and {@link Packets.PlayerStateUpdate} are bit-packed through a {@link StateQuantizer} instead of Kryo's
+ * default FieldSerializer (ten 32-bit fields per state); {@link Packets.PlayerInputPacket} packs its steps
+ * as runs of equal input; {@link Packets.GameStateDeltaPacket} writes only the valid prefix of its payload
+ * buffer. Each serializer owns its scratch buffers, so register a fresh instance per Kryo.
+ */
+public final class QuantizedSerializers {
+    /** Most earlier states one {@link Packets.PlayerStateUpdate} carries; extra ones are not written. */
+    public static final int MAX_REDUNDANT_STATES = 8;
+    /** Most steps one {@link Packets.PlayerInputPacket} carries; a client further behind starts a new run. */
+    public static final int MAX_INPUTS = 32;
+    // 스텝별 보정값은 1/512 단위 10비트 (0 ~ 2.0)
+    private static final int FACTOR_BITS = 10;
+    private static final float FACTOR_SCALE = 512f;
+    private static final int CONTROL_BITS = 6;
+
+    private QuantizedSerializers() {}
+
+    /**
+     * {@code v} as the server receives it in a {@link Packets.PlayerInputPacket}; the client predicts with
+     * this value so both sides step with the same float.
+     */
+    public static float factor(float v) {
+        return dequantizeFactor(quantizeFactor(v));
+    }
+
+    private static int quantizeFactor(float v) {
+        return Math.max(0, Math.min((1 << FACTOR_BITS) - 1, Math.round(v * FACTOR_SCALE)));
+    }
+
+    private static float dequantizeFactor(int q) {
+        return q / FACTOR_SCALE;
+    }
+
+    /** Registers every serializer; call after the packet classes so their registration ids stay unchanged. */
+    public static void register(Kryo kryo, StateQuantizer quantizer) {
+        register(kryo, quantizer, false);
+    }
+
+    /**
+     * @param reuseDecoded decode {@link Packets.PlayerStateUpdate} and {@link Packets.PlayerInputPacket} into
+     *                     one reused instance each (server side); the received object is only valid until
+     *                     the next read on that Kryo
+     */
+    public static void register(Kryo kryo, StateQuantizer quantizer, boolean reuseDecoded) {
+        kryo.register(Packets.PlayerState.class, new PlayerStateSerializer(quantizer));
+        kryo.register(Packets.GameStatePacket.class, new GameStateSerializer(quantizer));
+        kryo.register(Packets.PlayerStateUpdate.class, new PlayerStateUpdateSerializer(quantizer, reuseDecoded));
+        kryo.register(Packets.PlayerInputPacket.class, new PlayerInputSerializer(reuseDecoded));
+        kryo.register(Packets.GameStateDeltaPacket.class, new DeltaPacketSerializer());
+    }
+
+    /** One state: a length-prefixed bit block of {@code varint playerId} plus every quantized field. */
+    public static final class PlayerStateSerializer extends Serializer<Packets.PlayerState> {
+        private final StateQuantizer quantizer;
+        private final BitWriter bits = new BitWriter(32);
+        private final BitReader reader = new BitReader();
+        private byte[] scratch = new byte[32];
+
+        public PlayerStateSerializer(StateQuantizer quantizer) { this.quantizer = quantizer; }
+
+        @Override public void write(Kryo kryo, Output output, Packets.PlayerState s) {
+            bits.reset();
+            bits.writeVarInt(s.playerId);
+            quantizer.write(s, bits);
+            int len = bits.flush();
+            output.writeVarInt(len, true);
+            output.writeBytes(bits.buffer(), 0, len);
+        }
+
+        @Override public Packets.PlayerState read(Kryo kryo, Input input, Class<Packets.PlayerState> type) {
+            int len = input.readVarInt(true);
+            if (scratch.length < len) scratch = new byte[len];
+            input.readBytes(scratch, 0, len);
+            reader.reset(scratch, len);
+            Packets.PlayerState s = new Packets.PlayerState();
+            s.playerId = reader.readVarInt();
+            quantizer.read(reader, s);
+            return s;
+        }
+    }
+
+    /** {@code varlong serverTimestamp}, {@code varint count}, then one bit block holding every state. */
+    public static final class GameStateSerializer extends Serializer<Packets.GameStatePacket> {
+        private final StateQuantizer quantizer;
+        private final BitWriter bits = new BitWriter(256);
+        private final BitReader reader = new BitReader();
+        private byte[] scratch = new byte[256];
+
+        public GameStateSerializer(StateQuantizer quantizer) { this.quantizer = quantizer; }
+
+        @Override public void write(Kryo kryo, Output output, Packets.GameStatePacket gs) {
+            Packets.PlayerState[] states = gs.playerStates;
+            int count = states == null ? 0 : states.length;
+            output.writeLong(gs.serverTimestamp, true);
+            output.writeVarInt(count, true);
+            bits.reset();
+            for (int i = 0; i < count; i++) {
+                bits.writeVarInt(states[i].playerId);
+                quantizer.write(states[i], bits);
+            }
+            int len = bits.flush();
+            output.writeVarInt(len, true);
+            output.writeBytes(bits.buffer(), 0, len);
+        }
+
+        @Override public Packets.GameStatePacket read(Kryo kryo, Input input, Class<Packets.GameStatePacket> type) {
+            Packets.GameStatePacket gs = new Packets.GameStatePacket();
+            gs.serverTimestamp = input.readLong(true);
+            int count = input.readVarInt(true);
+            int len = input.readVarInt(true);
+            if (scratch.length < len) scratch = new byte[len];
+            input.readBytes(scratch, 0, len);
+            reader.reset(scratch, len);
+            gs.playerStates = new Packets.PlayerState[count];
+            for (int i = 0; i < count; i++) {
+                Packets.PlayerState s = new Packets.PlayerState();
+                s.playerId = reader.readVarInt();
+                quantizer.read(reader, s);
+                gs.playerStates[i] = s;
+            }
+            return gs;
+        }
+    }
+
+    /**
+     * {@code varint ackSnapshotId}, {@code varint seq}, {@code varint ackDelayMillis}, {@code varint inputSeq},
+     * {@code varint ackCorrectionId}, {@code roomId}, then one length-prefixed bit block (0 = no state): the
+     * state, {@code varint redundantCount} and each earlier state as zigzag varint differences of its
+     * quantized fields from the newest one (a few bytes each instead of a full state; vehicleIndex is
+     * shared) plus {@code varint} milliseconds since it was sent. In reuse mode the room id is skipped
+     * rather than decoded and earlier states land in preallocated arrays: the server resolves the room from
+     * the connection, so the steady-state uplink decodes without allocating.
+     */
+    public static final class PlayerStateUpdateSerializer extends Serializer<Packets.PlayerStateUpdate> {
+        private final StateQuantizer quantizer;
+        private final boolean reuse;
+        private final BitWriter bits = new BitWriter(128);
+        private final BitReader reader = new BitReader();
+        private byte[] scratch = new byte[128];
+        private final Packets.PlayerStateUpdate reusedUpdate = new Packets.PlayerStateUpdate();
+        private final Packets.PlayerState reusedState = new Packets.PlayerState();
+
+        public PlayerStateUpdateSerializer(StateQuantizer quantizer, boolean reuse) {
+            this.quantizer = quantizer; this.reuse = reuse;
+            reusedUpdate.redundant = new Packets.PlayerState[MAX_REDUNDANT_STATES];
+            for (int i = 0; i < MAX_REDUNDANT_STATES; i++) reusedUpdate.redundant[i] = new Packets.PlayerState();
+            reusedUpdate.redundantInputSeqs = new int[MAX_REDUNDANT_STATES];
+            reusedUpdate.redundantAgeMillis = new int[MAX_REDUNDANT_STATES];
+        }
+
+        @Override public void write(Kryo kryo, Output output, Packets.PlayerStateUpdate upd) {
+            output.writeVarInt(upd.ackSnapshotId, true);
+            output.writeVarInt(upd.seq, true);
+            output.writeVarInt(upd.ackDelayMillis, true);
+            output.writeVarInt(upd.inputSeq, true);
+            output.writeVarInt(upd.ackCorrectionId, true);
+            output.writeString(upd.roomId);
+            if (upd.state == null) {
+                output.writeVarInt(0, true);
+                return;
+            }
+            Packets.PlayerState s = upd.state;
+            bits.reset();
+            bits.writeVarInt(s.playerId);
+            quantizer.write(s, bits);
+            int count = upd.redundant == null ? 0 : Math.min(upd.redundantCount, MAX_REDUNDANT_STATES);
+            bits.writeVarInt(count);
+            for (int i = 0; i < count; i++) {
+                Packets.PlayerState p = upd.redundant[i];
+                writeDiff(quantizer.quantizeX(p.x) - quantizer.quantizeX(s.x));
+                writeDiff(quantizer.quantizeY(p.y) - quantizer.quantizeY(s.y));
+                writeDiff(quantizer.quantizeRotation(p.rotation) - quantizer.quantizeRotation(s.rotation));
+                writeDiff(quantizer.quantizeVelocity(p.velocityX) - quantizer.quantizeVelocity(s.velocityX));
+                writeDiff(quantizer.quantizeVelocity(p.velocityY) - quantizer.quantizeVelocity(s.velocityY));
+                writeDiff(quantizer.quantizeAngular(p.angularVelocity) - quantizer.quantizeAngular(s.angularVelocity));
+                writeDiff(quantizer.quantizeLapTime(p.lapTime) - quantizer.quantizeLapTime(s.lapTime));
+                writeDiff(upd.redundantInputSeqs[i] - upd.inputSeq);
+                bits.writeVarInt(upd.redundantAgeMillis == null ? 0 : Math.max(0, upd.redundantAgeMillis[i]));
+                boolean lapChanged = p.currentLap != s.currentLap;
+                bits.writeBoolean(lapChanged);
+                if (lapChanged) bits.write(quantizer.quantizeLap(p.currentLap), StateQuantizer.LAP_BITS);
+            }
+            int len = bits.flush();
+            output.writeVarInt(len, true);
+            output.writeBytes(bits.buffer(), 0, len);
+        }
+
+        @Override public Packets.PlayerStateUpdate read(Kryo kryo, Input input, Class<Packets.PlayerStateUpdate> type) {
+            Packets.PlayerStateUpdate upd = reuse ? reusedUpdate : new Packets.PlayerStateUpdate();
+            upd.ackSnapshotId = input.readVarInt(true);
+            upd.seq = input.readVarInt(true);
+            upd.ackDelayMillis = input.readVarInt(true);
+            upd.inputSeq = input.readVarInt(true);
+            upd.ackCorrectionId = input.readVarInt(true);
+            if (reuse) {
+                skipString(input);
+                upd.roomId = null;
+            } else {
+                upd.roomId = input.readString();
+            }
+            upd.redundantCount = 0;
+            int len = input.readVarInt(true);
+            if (len == 0) {
+                upd.state = null;
+                return upd;
+            }
+            if (scratch.length < len) scratch = new byte[len];
+            input.readBytes(scratch, 0, len);
+            reader.reset(scratch, len);
+            Packets.PlayerState s = reuse ? reusedState : new Packets.PlayerState();
+            s.playerId = reader.readVarInt();
+            quantizer.read(reader, s);
+            upd.state = s;
+            int count = reader.readVarInt();
+            if (count > MAX_REDUNDANT_STATES) throw new IllegalStateException("too many redundant states: " + count);
+            if (!reuse) {
+                upd.redundant = new Packets.PlayerState[count];
+                upd.redundantInputSeqs = new int[count];
+                upd.redundantAgeMillis = new int[count];
+            }
+            int qx = quantizer.quantizeX(s.x), qy = quantizer.quantizeY(s.y), qr = quantizer.quantizeRotation(s.rotation);
+            int qvx = quantizer.quantizeVelocity(s.velocityX), qvy = quantizer.quantizeVelocity(s.velocityY);
+            int qa = quantizer.quantizeAngular(s.angularVelocity), qt = quantizer.quantizeLapTime(s.lapTime);
+            for (int i = 0; i < count; i++) {
+                Packets.PlayerState p = reuse ? upd.redundant[i] : (upd.redundant[i] = new Packets.PlayerState());
+                p.playerId = s.playerId;
+                p.x = quantizer.dequantizeX(qx + readDiff());
+                p.y = quantizer.dequantizeY(qy + readDiff());
+                p.rotation = quantizer.dequantizeRotation(qr + readDiff());
+                p.velocityX = quantizer.dequantizeVelocity(qvx + readDiff());
+                p.velocityY = quantizer.dequantizeVelocity(qvy + readDiff());
+                p.angularVelocity = quantizer.dequantizeAngular(qa + readDiff());
+                p.lapTime = quantizer.dequantizeLapTime(qt + readDiff());
+                upd.redundantInputSeqs[i] = upd.inputSeq + readDiff();
+                upd.redundantAgeMillis[i] = reader.readVarInt();
+                p.currentLap = reader.readBoolean() ? reader.read(StateQuantizer.LAP_BITS) : s.currentLap;
+                p.vehicleIndex = s.vehicleIndex;
+            }
+            upd.redundantCount = count;
+            return upd;
+        }
+
+        // 부호 있는 차이는 지그재그로 바꿔 작은 절댓값이 짧게 나오게 한다
+        private void writeDiff(int v) {
+            bits.writeVarInt((v << 1) ^ (v >> 31));
+        }
+
+        private int readDiff() {
+            int z = reader.readVarInt();
+            return (z >>> 1) ^ -(z & 1);
+        }
+
+        private static void skipString(Input input) {
+            // Kryo는 2~63자 ASCII 문자열을 마지막 바이트의 최상위 비트로 끝을 표시해 그대로 쓴다 (방 ID는 항상 이 경우)
+            if ((input.readByte() & 0x80) == 0) {
+                while ((input.readByte() & 0x80) == 0) { }
+                return;
+            }
+            input.setPosition(input.position() - 1);
+            input.readString();
+        }
+    }
+
+    /**
+     * {@code varint ackSnapshotId}, {@code varint seq}, {@code varint ackDelayMillis}, {@code varint inputSeq},
+     * {@code varint count}, {@code varint} base age ({@code inputSeq - baseSeq + 1}, 0 = no base), then one
+     * length-prefixed bit block: the steps oldest first as runs of equal input, each 6 control bits, a flag
+     * and three {@value #FACTOR_BITS}-bit race factors if they differ from the previous run's (always for the
+     * first), and {@code varint} run length minus one; then the base state as raw floats, since the server
+     * starts simulating from it and quantizing would already put the two sides apart. A held key costs a
+     * few bits per packet however many steps it spans. No room id: the server knows the connection's room.
+     */
+    public static final class PlayerInputSerializer extends Serializer<Packets.PlayerInputPacket> {
+        private final boolean reuse;
+        private final BitWriter bits = new BitWriter(64);
+        private final BitReader reader = new BitReader();
+        private byte[] scratch = new byte[64];
+        private final Packets.PlayerInputPacket reused = new Packets.PlayerInputPacket();
+        // base가 없는 패킷은 reused.base를 null로 두므로 따로 잡아 둔다
+        private final Packets.PlayerState reusedBase = new Packets.PlayerState();
+
+        public PlayerInputSerializer(boolean reuse) {
+            this.reuse = reuse;
+            reused.controls = new byte[MAX_INPUTS];
+            reused.speedMultipliers = new float[MAX_INPUTS];
+            reused.tireTurns = new float[MAX_INPUTS];
+            reused.speedScales = new float[MAX_INPUTS];
+        }
+
+        @Override public void write(Kryo kryo, Output output, Packets.PlayerInputPacket p) {
+            // 한 패킷에 다 싣지 못하면 최신 스텝만 보낸다
+            int count = Math.min(p.count, MAX_INPUTS);
+            int from = p.count - count;
+            output.writeVarInt(p.ackSnapshotId, true);
+            output.writeVarInt(p.seq, true);
+            output.writeVarInt(p.ackDelayMillis, true);
+            output.writeVarInt(p.inputSeq, true);
+            output.writeVarInt(count, true);
+            output.writeVarInt(p.base == null ? 0 : p.inputSeq - p.baseSeq + 1, true);
+            bits.reset();
+            int sm = -1, tt = -1, ss = -1;
+            for (int i = from; i < p.count; ) {
+                int controls = p.controls[i] & ((1 << CONTROL_BITS) - 1);
+                int qsm = quantizeFactor(p.speedMultipliers[i]), qtt = quantizeFactor(p.tireTurns[i]), qss = quantizeFactor(p.speedScales[i]);
+                int end = i + 1;
+                while (end < p.count && (p.controls[end] & ((1 << CONTROL_BITS) - 1)) == controls
+                    && quantizeFactor(p.speedMultipliers[end]) == qsm && quantizeFactor(p.tireTurns[end]) == qtt
+                    && quantizeFactor(p.speedScales[end]) == qss) {
+                    end++;
+                }
+                bits.write(controls, CONTROL_BITS);
+                boolean factors = qsm != sm || qtt != tt || qss != ss;
+                bits.writeBoolean(factors);
+                if (factors) {
+                    bits.write(qsm, FACTOR_BITS);
+                    bits.write(qtt, FACTOR_BITS);
+                    bits.write(qss, FACTOR_BITS);
+                    sm = qsm; tt = qtt; ss = qss;
+                }
+                bits.writeVarInt(end - i - 1);
+                i = end;
+            }
+            if (p.base != null) {
+                Packets.PlayerState b = p.base;
+                writeFloat(b.x); writeFloat(b.y); writeFloat(b.rotation);
+                writeFloat(b.velocityX); writeFloat(b.velocityY); writeFloat(b.angularVelocity);
+                writeFloat(p.baseThrottle);
+                bits.writeVarInt(b.vehicleIndex);
+            }
+            int len = bits.flush();
+            output.writeVarInt(len, true);
+            output.writeBytes(bits.buffer(), 0, len);
+        }
+
+        @Override public Packets.PlayerInputPacket read(Kryo kryo, Input input, Class<Packets.PlayerInputPacket> type) {
+            Packets.PlayerInputPacket p = reuse ? reused : new Packets.PlayerInputPacket();
+            p.ackSnapshotId = input.readVarInt(true);
+            p.seq = input.readVarInt(true);
+            p.ackDelayMillis = input.readVarInt(true);
+            p.inputSeq = input.readVarInt(true);
+            int count = input.readVarInt(true);
+            int baseAge = input.readVarInt(true);
+            if (count > MAX_INPUTS) throw new IllegalStateException("too many inputs: " + count);
+            if (!reuse) {
+                p.controls = new byte[count];
+                p.speedMultipliers = new float[count];
+                p.tireTurns = new float[count];
+                p.speedScales = new float[count];
+            }
+            int len = input.readVarInt(true);
+            if (scratch.length < len) scratch = new byte[len];
+            input.readBytes(scratch, 0, len);
+            reader.reset(scratch, len);
+            float sm = 0, tt = 0, ss = 0;
+            for (int i = 0; i < count; ) {
+                byte controls = (byte) reader.read(CONTROL_BITS);
+                if (reader.readBoolean()) {
+                    sm = dequantizeFactor(reader.read(FACTOR_BITS));
+                    tt = dequantizeFactor(reader.read(FACTOR_BITS));
+                    ss = dequantizeFactor(reader.read(FACTOR_BITS));
+                }
+                int end = i + 1 + reader.readVarInt();
+                if (end > count) throw new IllegalStateException("input run past count: " + end);
+                for (; i < end; i++) {
+                    p.controls[i] = controls;
+                    p.speedMultipliers[i] = sm; p.tireTurns[i] = tt; p.speedScales[i] = ss;
+                }
+            }
+            p.count = count;
+            if (baseAge == 0) {
+                p.baseSeq = 0;
+                p.base = null;
+                return p;
+            }
+            Packets.PlayerState b = reuse ? reusedBase : new Packets.PlayerState();
+            b.x = readFloat(); b.y = readFloat(); b.rotation = readFloat();
+            b.velocityX = readFloat(); b.velocityY = readFloat(); b.angularVelocity = readFloat();
+            p.baseThrottle = readFloat();
+            b.vehicleIndex = reader.readVarInt();
+            p.baseSeq = p.inputSeq - baseAge + 1;
+            p.base = b;
+            return p;
+        }
+
+        private void writeFloat(float v) {
+            bits.write(Float.floatToRawIntBits(v), 32);
+        }
+
+        private float readFloat() {
+            return Float.intBitsToFloat(reader.read(32));
+        }
+    }
+
+    /** Header fields, then {@code varint payloadLength} and only that many payload bytes. */
+    public static final class DeltaPacketSerializer extends Serializer<Packets.GameStateDeltaPacket> {
+        @Override public void write(Kryo kryo, Output output, Packets.GameStateDeltaPacket pkt) {
+            output.writeVarInt(pkt.snapshotId, true);
+            output.writeVarInt(pkt.baselineId, true);
+            output.writeLong(pkt.serverTimestamp, true);
+            output.writeVarInt(pkt.payloadLength, true);
+            output.writeBytes(pkt.payload, 0, pkt.payloadLength);
+        }
+
+        @Override public Packets.GameStateDeltaPacket read(Kryo kryo, Input input, Class<Packets.GameStateDeltaPacket> type) {
+            Packets.GameStateDeltaPacket pkt = new Packets.GameStateDeltaPacket();
+            pkt.snapshotId = input.readVarInt(true);
+            pkt.baselineId = input.readVarInt(true);
+            pkt.serverTimestamp = input.readLong(true);
+            pkt.payloadLength = input.readVarInt(true);
+            pkt.payload = input.readBytes(pkt.payloadLength);
+            return pkt;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mygame.f1.shared;
+
+/**
+ * Delta encoding of {@link Packets.PlayerState} snapshots against an acknowledged baseline.
+ *
+ * <p>Payload layout (bit stream, see {@link BitWriter}): {@code varint changedCount}, then per changed car
+ * {@code varint playerId}, a 9-bit field mask and only the fields whose bit is set, quantized by
+ * {@link StateQuantizer#DEFAULT}; followed by {@code varint removedCount} and the removed player ids.
+ * Fields are compared after quantization, so cars whose wire values match the baseline are omitted
+ * entirely. Encoding against an empty baseline produces a full snapshot.
+ */
+public final class SnapshotCodec {
+    private SnapshotCodec() {}
+
+    /** Snapshot id meaning "no baseline": the payload is a full snapshot. */
+    public static final int NO_BASELINE = 0;
+
+    public static final int FIELD_X = 1;
+    public static final int FIELD_Y = 1 << 1;
+    public static final int FIELD_ROTATION = 1 << 2;
+    public static final int FIELD_VELOCITY_X = 1 << 3;
+    public static final int FIELD_VELOCITY_Y = 1 << 4;
+    public static final int FIELD_ANGULAR_VELOCITY = 1 << 5;
+    public static final int FIELD_LAP_TIME = 1 << 6;
+    public static final int FIELD_CURRENT_LAP = 1 << 7;
+    public static final int FIELD_VEHICLE_INDEX = 1 << 8;
+    public static final int ALL_FIELDS = (1 << 9) - 1;
+    private static final int MASK_BITS = 9;
+    private static final StateQuantizer Q = StateQuantizer.DEFAULT;
+
+    /** Size of one state under Kryo's FieldSerializer (ten 32-bit fields), used as the compression reference. */
+    public static final int RAW_STATE_BYTES = 40;
+
+    /** Bitmask of the fields of {@code cur} that differ from {@code base} ({@code base == null}: all fields). */
+    public static int changedFields(Packets.PlayerState cur, Packets.PlayerState base) {
+        if (base == null) return ALL_FIELDS;
+        int mask = 0;
+        if (Q.quantizeX(cur.x) != Q.quantizeX(base.x)) mask |= FIELD_X;
+        if (Q.quantizeY(cur.y) != Q.quantizeY(base.y)) mask |= FIELD_Y;
+        if (Q.quantizeRotation(cur.rotation) != Q.quantizeRotation(base.rotation)) mask |= FIELD_ROTATION;
+        if (Q.quantizeVelocity(cur.velocityX) != Q.quantizeVelocity(base.velocityX)) mask |= FIELD_VELOCITY_X;
+        if (Q.quantizeVelocity(cur.velocityY) != Q.quantizeVelocity(base.velocityY)) mask |= FIELD_VELOCITY_Y;
+        if (Q.quantizeAngular(cur.angularVelocity) != Q.quantizeAngular(base.angularVelocity)) mask |= FIELD_ANGULAR_VELOCITY;
+        if (Q.quantizeLapTime(cur.lapTime) != Q.quantizeLapTime(base.lapTime)) mask |= FIELD_LAP_TIME;
+        if (Q.quantizeLap(cur.currentLap) != Q.quantizeLap(base.currentLap)) mask |= FIELD_CURRENT_LAP;
+        if (Q.quantizeVehicle(cur.vehicleIndex) != Q.quantizeVehicle(base.vehicleIndex)) mask |= FIELD_VEHICLE_INDEX;
+        return mask;
+    }
+
+    /** Bits one changed car takes in the payload: its id, the field mask and the fields set in {@code mask}. */
+    public static int stateBits(int playerId, int mask) {
+        int bits = MASK_BITS;
+        int v = playerId;
+        do {
+            bits += 5;
+            v >>>= 4;
+        } while (v != 0);
+        if ((mask & FIELD_X) != 0) bits += Q.positionBits;
+        if ((mask & FIELD_Y) != 0) bits += Q.positionBits;
+        if ((mask & FIELD_ROTATION) != 0) bits += Q.rotationBits;
+        if ((mask & FIELD_VELOCITY_X) != 0) bits += Q.velocityBits;
+        if ((mask & FIELD_VELOCITY_Y) != 0) bits += Q.velocityBits;
+        if ((mask & FIELD_ANGULAR_VELOCITY) != 0) bits += Q.angularBits;
+        if ((mask & FIELD_LAP_TIME) != 0) bits += Q.lapTimeBits;
+        if ((mask & FIELD_CURRENT_LAP) != 0) bits += StateQuantizer.LAP_BITS;
+        if ((mask & FIELD_VEHICLE_INDEX) != 0) bits += StateQuantizer.VEHICLE_BITS;
+        return bits;
+    }
+
+    /**
+     * Encodes {@code cur} against {@code base}. Pass {@code baseCount == 0} for a full snapshot.
+     * @return payload size in bytes after flushing {@code out}
+     */
+    public static int encode(Packets.PlayerState[] cur, int curCount,
+                             Packets.PlayerState[] base, int baseCount, BitWriter out) {
+        int changed = 0;
+        for (int i = 0; i < curCount; i++) {
+            if (changedFields(cur[i], find(base, baseCount, cur[i].playerId)) != 0) changed++;
+        }
+        out.writeVarInt(changed);
+        for (int i = 0; i < curCount; i++) {
+            Packets.PlayerState s = cur[i];
+            int mask = changedFields(s, find(base, baseCount, s.playerId));
+            if (mask != 0) writeState(s, mask, out);
+        }
+        int removed = 0;
+        for (int i = 0; i < baseCount; i++) {
+            if (find(cur, curCount, base[i].playerId) == null) removed++;
+        }
+        out.writeVarInt(removed);
+        for (int i = 0; i < baseCount; i++) {
+            if (find(cur, curCount, base[i].playerId) == null) out.writeVarInt(base[i].playerId);
+        }
+        return out.flush();
+    }
+
+    /**
+     * Writes a payload from a precomputed diff: {@code changed[i]} with the fields in {@code masks[i]}
+     * (non-zero), then the removed player ids. Decodes exactly like {@link #encode}.
+     * @return payload size in bytes after flushing {@code out}
+     */
+    public static int encodeChanges(Packets.PlayerState[] changed, int[] masks, int changedCount,
+                                    int[] removedIds, int removedCount, BitWriter out) {
+        out.writeVarInt(changedCount);
+        for (int i = 0; i < changedCount; i++) writeState(changed[i], masks[i], out);
+        out.writeVarInt(removedCount);
+        for (int i = 0; i < removedCount; i++) out.writeVarInt(removedIds[i]);
+        return out.flush();
+    }
+
+    private static void writeState(Packets.PlayerState s, int mask, BitWriter out) {
+        out.writeVarInt(s.playerId);
+        out.write(mask, MASK_BITS);
+        if ((mask & FIELD_X) != 0) out.write(Q.quantizeX(s.x), Q.positionBits);
+        if ((mask & FIELD_Y) != 0) out.write(Q.quantizeY(s.y), Q.positionBits);
+        if ((mask & FIELD_ROTATION) != 0) out.write(Q.quantizeRotation(s.rotation), Q.rotationBits);
+        if ((mask & FIELD_VELOCITY_X) != 0) out.write(Q.quantizeVelocity(s.velocityX), Q.velocityBits);
+        if ((mask & FIELD_VELOCITY_Y) != 0) out.write(Q.quantizeVelocity(s.velocityY), Q.velocityBits);
+        if ((mask & FIELD_ANGULAR_VELOCITY) != 0) out.write(Q.quantizeAngular(s.angularVelocity), Q.angularBits);
+        if ((mask & FIELD_LAP_TIME) != 0) out.write(Q.quantizeLapTime(s.lapTime), Q.lapTimeBits);
+        if ((mask & FIELD_CURRENT_LAP) != 0) out.write(Q.quantizeLap(s.currentLap), StateQuantizer.LAP_BITS);
+        if ((mask & FIELD_VEHICLE_INDEX) != 0) out.write(Q.quantizeVehicle(s.vehicleIndex), StateQuantizer.VEHICLE_BITS);
+    }
+
+    /**
+     * Applies a payload to a copy of {@code base} and writes the resulting states into {@code out},
+     * reusing the {@code PlayerState} objects already there and allocating only for new slots.
+     * @return number of states in the decoded snapshot
+     */
+    public static int decode(byte[] payload, int length, Packets.PlayerState[] base, int baseCount,
+                             Packets.PlayerState[] out) {
+        int count = 0;
+        for (int i = 0; i < baseCount; i++) {
+            copy(base[i], slot(out, count++));
+        }
+        BitReader in = new BitReader(payload, length);
+        int changed = in.readVarInt();
+        for (int c = 0; c < changed; c++) {
+            int playerId = in.readVarInt();
+            int mask = in.read(MASK_BITS);
+            Packets.PlayerState s = find(out, count, playerId);
+            if (s == null) {
+                s = slot(out, count++);
+                copy(null, s);
+                s.playerId = playerId;
+            }
+            if ((mask & FIELD_X) != 0) s.x = Q.dequantizeX(in.read(Q.positionBits));
+            if ((mask & FIELD_Y) != 0) s.y = Q.dequantizeY(in.read(Q.positionBits));
+            if ((mask & FIELD_ROTATION) != 0) s.rotation = Q.dequantizeRotation(in.read(Q.rotationBits));
+            if ((mask & FIELD_VELOCITY_X) != 0) s.velocityX = Q.dequantizeVelocity(in.read(Q.velocityBits));
+            if ((mask & FIELD_VELOCITY_Y) != 0) s.velocityY = Q.dequantizeVelocity(in.read(Q.velocityBits));
+            if ((mask & FIELD_ANGULAR_VELOCITY) != 0) s.angularVelocity = Q.dequantizeAngular(in.read(Q.angularBits));
+            if ((mask & FIELD_LAP_TIME) != 0) s.lapTime = Q.dequantizeLapTime(in.read(Q.lapTimeBits));
+            if ((mask & FIELD_CURRENT_LAP) != 0) s.currentLap = in.read(StateQuantizer.LAP_BITS);
+            if ((mask & FIELD_VEHICLE_INDEX) != 0) s.vehicleIndex = in.read(StateQuantizer.VEHICLE_BITS);
+        }
+        int removed = in.readVarInt();
+        for (int r = 0; r < removed; r++) {
+            int playerId = in.readVarInt();
+            for (int i = 0; i < count; i++) {
+                if (out[i].playerId == playerId) {
+                    // 마지막 원소와 교체해 제거 (객체는 재사용을 위해 배열 뒤쪽에 남겨둔다)
+                    Packets.PlayerState tmp = out[i];
+                    out[i] = out[--count];
+                    out[count] = tmp;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Copies every field of {@code src} into {@code dst}; {@code src == null} zeroes {@code dst}. */
+    public static void copy(Packets.PlayerState src, Packets.PlayerState dst) {
+        if (src == null) {
+            dst.playerId = 0; dst.x = 0; dst.y = 0; dst.rotation = 0; dst.velocityX = 0; dst.velocityY = 0;
+            dst.angularVelocity = 0; dst.currentLap = 0; dst.lapTime = 0; dst.vehicleIndex = 0;
+            return;
+        }
+        dst.playerId = src.playerId; dst.x = src.x; dst.y = src.y; dst.rotation = src.rotation;
+        dst.velocityX = src.velocityX; dst.velocityY = src.velocityY; dst.angularVelocity = src.angularVelocity;
+        dst.currentLap = src.currentLap; dst.lapTime = src.lapTime; dst.vehicleIndex = src.vehicleIndex;
+    }
+
+    static Packets.PlayerState find(Packets.PlayerState[] states, int count, int playerId) {
+        for (int i = 0; i < count; i++) {
+            if (states[i].playerId == playerId) return states[i];
+        }
+        return null;
+    }
+
+    private static Packets.PlayerState slot(Packets.PlayerState[] out, int index) {
+        if (index >= out.length) throw new IllegalArgumentException("snapshot exceeds " + out.length + " states");
+        if (out[index] == null) out[index] = new Packets.PlayerState();
+        return out[index];
+    }
+}
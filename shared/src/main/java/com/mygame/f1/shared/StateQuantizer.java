@@ -0,0 +1,136 @@
+package com.mygame.f1.shared;
+
+/**
+ * Fixed-point quantization of {@link Packets.PlayerState} fields for the wire.
+ *
+ * <p>Each float field is clamped to its range and mapped to an unsigned integer of the configured width,
+ * rounding to the nearest step. For in-range values the round-trip error is at most half a step:
+ * <pre>
+ *   field            range                  default bits   max error (default)
+ *   x                [-4, 68) m             18             0.00014 m
+ *   y                [-4, 42.4) m           18             0.00009 m
+ *   rotation         [-pi, pi) rad, wrapped 14             0.00019 rad
+ *   velocityX/Y      [-32, 32) m/s          16             0.00049 m/s
+ *   angularVelocity  [-32, 32) rad/s        14             0.0020 rad/s
+ *   lapTime          [0, 2048) s            21             0.0005 s
+ *   currentLap       0..31                  5              exact
+ *   vehicleIndex     0..7                   3              exact
+ * </pre>
+ * Position ranges cover the 200x120 tile maps (32px tiles, PPM=100) with a 4m margin. Rotation is wrapped
+ * into [-pi, pi), so decoded angles differ from Box2D's unbounded angle by a multiple of 2*pi.
+ * Client and server must use the same configuration; both use {@link #DEFAULT}.
+ */
+public final class StateQuantizer {
+    public static final float MAP_WIDTH_METERS = 200 * 32 / 100f;
+    public static final float MAP_HEIGHT_METERS = 120 * 32 / 100f;
+    private static final float MARGIN = 4f;
+    private static final float TWO_PI = (float) (Math.PI * 2);
+
+    public static final StateQuantizer DEFAULT = new StateQuantizer(18, 14, 16);
+
+    final int positionBits, rotationBits, velocityBits, angularBits, lapTimeBits;
+    static final int LAP_BITS = 5;
+    static final int VEHICLE_BITS = 3;
+    private final Channel x, y, rotation, velocity, angular, lapTime;
+
+    /**
+     * @param positionBits bits per x/y coordinate (16..20 recommended)
+     * @param rotationBits bits for the wrapped heading (12..16 recommended)
+     * @param velocityBits bits per linear velocity component; angular velocity uses two fewer
+     */
+    public StateQuantizer(int positionBits, int rotationBits, int velocityBits) {
+        this.positionBits = positionBits;
+        this.rotationBits = rotationBits;
+        this.velocityBits = velocityBits;
+        this.angularBits = velocityBits - 2;
+        this.lapTimeBits = 21;
+        this.x = new Channel(-MARGIN, MAP_WIDTH_METERS + MARGIN, positionBits);
+        this.y = new Channel(-MARGIN, MAP_HEIGHT_METERS + MARGIN, positionBits);
+        this.rotation = new Channel((float) -Math.PI, (float) Math.PI, rotationBits);
+        this.velocity = new Channel(-32f, 32f, velocityBits);
+        this.angular = new Channel(-32f, 32f, angularBits);
+        this.lapTime = new Channel(0f, 2048f, lapTimeBits);
+    }
+
+    public int quantizeX(float v) { return x.quantize(v); }
+    public int quantizeY(float v) { return y.quantize(v); }
+    public int quantizeRotation(float v) { return rotation.quantize(wrapAngle(v)); }
+    public int quantizeVelocity(float v) { return velocity.quantize(v); }
+    public int quantizeAngular(float v) { return angular.quantize(v); }
+    public int quantizeLapTime(float v) { return lapTime.quantize(v); }
+    public int quantizeLap(int v) { return clampBits(v, LAP_BITS); }
+    public int quantizeVehicle(int v) { return clampBits(v, VEHICLE_BITS); }
+
+    public float dequantizeX(int q) { return x.dequantize(q); }
+    public float dequantizeY(int q) { return y.dequantize(q); }
+    public float dequantizeRotation(int q) { return rotation.dequantize(q); }
+    public float dequantizeVelocity(int q) { return velocity.dequantize(q); }
+    public float dequantizeAngular(int q) { return angular.dequantize(q); }
+    public float dequantizeLapTime(int q) { return lapTime.dequantize(q); }
+
+    /** Writes every field except playerId. */
+    public void write(Packets.PlayerState s, BitWriter out) {
+        out.write(quantizeX(s.x), positionBits);
+        out.write(quantizeY(s.y), positionBits);
+        out.write(quantizeRotation(s.rotation), rotationBits);
+        out.write(quantizeVelocity(s.velocityX), velocityBits);
+        out.write(quantizeVelocity(s.velocityY), velocityBits);
+        out.write(quantizeAngular(s.angularVelocity), angularBits);
+        out.write(quantizeLapTime(s.lapTime), lapTimeBits);
+        out.write(quantizeLap(s.currentLap), LAP_BITS);
+        out.write(quantizeVehicle(s.vehicleIndex), VEHICLE_BITS);
+    }
+
+    /** Reads every field except playerId into {@code s}. */
+    public void read(BitReader in, Packets.PlayerState s) {
+        s.x = dequantizeX(in.read(positionBits));
+        s.y = dequantizeY(in.read(positionBits));
+        s.rotation = dequantizeRotation(in.read(rotationBits));
+        s.velocityX = dequantizeVelocity(in.read(velocityBits));
+        s.velocityY = dequantizeVelocity(in.read(velocityBits));
+        s.angularVelocity = dequantizeAngular(in.read(angularBits));
+        s.lapTime = dequantizeLapTime(in.read(lapTimeBits));
+        s.currentLap = in.read(LAP_BITS);
+        s.vehicleIndex = in.read(VEHICLE_BITS);
+    }
+
+    /** Bits used by {@link #write} for one state. */
+    public int stateBits() {
+        return positionBits * 2 + rotationBits + velocityBits * 2 + angularBits + lapTimeBits + LAP_BITS + VEHICLE_BITS;
+    }
+
+    static float wrapAngle(float a) {
+        float r = a % TWO_PI;
+        if (r >= Math.PI) r -= TWO_PI;
+        else if (r < -Math.PI) r += TWO_PI;
+        return r;
+    }
+
+    private static int clampBits(int v, int bits) {
+        int max = (1 << bits) - 1;
+        return v < 0 ? 0 : Math.min(v, max);
+    }
+
+    private static final class Channel {
+        final float min, scale, invScale;
+        final int maxQ;
+
+        Channel(float min, float max, int bits) {
+            this.min = min;
+            // 대칭 범위는 레벨 수를 홀수로 맞춰 0이 정확히 표현되게 한다 (정지 차량 속도 = 0)
+            this.maxQ = min == -max ? (1 << bits) - 2 : (1 << bits) - 1;
+            this.scale = maxQ / (max - min);
+            this.invScale = (max - min) / maxQ;
+        }
+
+        int quantize(float v) {
+            if (Float.isNaN(v)) return 0;
+            int q = Math.round((v - min) * scale);
+            return q < 0 ? 0 : Math.min(q, maxQ);
+        }
+
+        float dequantize(int q) {
+            return min + q * invScale;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mygame.f1.shared;
+
+/**
+ * The last few states sent to the server, re-sent with each new one so a single lost UDP packet costs the
+ * server nothing: the next packet carries the missing state too (delta-encoded against the newest, a few
+ * bytes each) and the server plays it out in time. How many ride along is bounded by a byte budget: a
+ * token bucket refills at {@code budgetBytesPerSecond} and each send spends its size; while the bucket is
+ * in debt the depth drops by one per send, and it climbs back to {@code maxDepth} once there is headroom.
+ * The newest state is always sent, even over budget.
+ *
+ * <p>Budget and depth come from {@code -Df1.uplinkBudgetBytes} (default {@value #DEFAULT_BUDGET} bytes/s)
+ * and {@code -Df1.uplinkRedundancy} (default {@value #DEFAULT_DEPTH}, at most
+ * {@value QuantizedSerializers#MAX_REDUNDANT_STATES}). Sender thread only.
+ */
+public final class UplinkRedundancy {
+    static final int DEFAULT_BUDGET = 4096;
+    static final int DEFAULT_DEPTH = 3;
+    private static final int RING = QuantizedSerializers.MAX_REDUNDANT_STATES;
+
+    private final int budget;
+    private final int maxDepth;
+    private int depth;
+    // 버킷은 0.25초 분량까지만 쌓인다 (오래 쉬었다고 한꺼번에 쓰지 않도록)
+    private final double burst;
+    private double tokens;
+    private long lastNanos;
+
+    // 보낸 상태 기록 (최신이 head), fill()이 패킷에 넘기는 배열
+    private final Packets.PlayerState[] sent = new Packets.PlayerState[RING];
+    private final int[] sentInputSeqs = new int[RING];
+    private final long[] sentNanos = new long[RING];
+    private int head, count;
+    private final Packets.PlayerState[] out = new Packets.PlayerState[RING];
+    private final int[] outInputSeqs = new int[RING];
+    private final int[] outAgeMillis = new int[RING];
+
+    public UplinkRedundancy(int budgetBytesPerSecond, int maxDepth) {
+        this.budget = Math.max(0, budgetBytesPerSecond);
+        this.maxDepth = Math.max(0, Math.min(maxDepth, RING));
+        this.depth = this.maxDepth;
+        this.burst = budget / 4.0;
+        this.tokens = burst;
+        for (int i = 0; i < RING; i++) sent[i] = new Packets.PlayerState();
+    }
+
+    public static UplinkRedundancy fromSystemProperties() {
+        return new UplinkRedundancy(Integer.getInteger("f1.uplinkBudgetBytes", DEFAULT_BUDGET),
+            Integer.getInteger("f1.uplinkRedundancy", DEFAULT_DEPTH));
+    }
+
+    /**
+     * Puts the states of the previous sends, newest first, and how long ago each was sent into {@code upd}
+     * (the arrays stay owned by this object and are valid until the next call).
+     */
+    public void fill(Packets.PlayerStateUpdate upd, long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 0) depth = Math.max(0, depth - 1);
+        else if (tokens >= burst / 2 && depth < maxDepth) depth++;
+        int n = Math.min(depth, count);
+        for (int i = 0; i < n; i++) {
+            int k = Math.floorMod(head - i, RING);
+            out[i] = sent[k];
+            outInputSeqs[i] = sentInputSeqs[k];
+            outAgeMillis[i] = (int) Math.min(Integer.MAX_VALUE, Math.max(0, (nowNanos - sentNanos[k]) / 1_000_000L));
+        }
+        upd.redundant = out;
+        upd.redundantInputSeqs = outInputSeqs;
+        upd.redundantAgeMillis = outAgeMillis;
+        upd.redundantCount = n;
+    }
+
+    /** Records {@code upd}'s state for the next packets and charges its size; call after every send. */
+    public void sent(Packets.PlayerStateUpdate upd, int bytes) {
+        head = (head + 1) % RING;
+        SnapshotCodec.copy(upd.state, sent[head]);
+        sentInputSeqs[head] = upd.inputSeq;
+        // 이번 송신 시각은 fill()이 잡아 둔 값
+        sentNanos[head] = lastNanos;
+        if (count < RING) count++;
+        tokens -= Math.max(0, bytes);
+    }
+
+    /** Forgets the sent states, e.g. when the send sequence restarts on another server. */
+    public void clear() {
+        count = 0;
+    }
+
+    /** Earlier states the next packet may carry. */
+    public int depth() { return depth; }
+
+    private void refill(long nowNanos) {
+        if (lastNanos != 0) tokens = Math.min(burst, tokens + budget * ((nowNanos - lastNanos) / 1e9));
+        lastNanos = nowNanos;
+    }
+}